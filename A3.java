@@ -1,130 +1,641 @@
-/*
- * Author: Amanda Foxley c3137540
- * Created: 27/09/25
- * COMP2240 Assignment 3
- * 
- * Main driver class for the A3 paging with virtual memory simulation.
- * 
- * Two different FIFO page replacement policies are simulated: 
- * 		- Fixed allocation with local replacement
- * 		- Variable allocation with global replacement
- * Both simulations use a Round Robin short-term scheduling algorithm, the time quantum for this is passed into the program using command line arguments - args[1]
- */
-
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
-
-public class A3 {
-
-	/**
-	 * Main method for the A3 virtual memory simulation.
-	 * Initial program inputs are taken from command line arguments.
-	 *
-	 * Preconditions: args cannot be null 
-	 *  			  Input file/s must follow correct format, as specified in the assignment specs
-	 * Postconditions: Input has been read from file
-	 * 				   Process threads have been run in the virtual memory simulations, turnaround times and fault data has been displayed to the console
-	 * 
-	 * @param args program arguments, where:
-	 * 			- args[0] is the number of frames(F) allocated for this simulation
-	 * 			- args[1] is the time quantum(Q) to be used for this simulation
-	 * 			- all following args are in the form of an input file containing process information (e.g. process1.txt process2.txt) and can use any file extension type
-	 * 		  When running the program the arguments should look like: java A3 F Q data1 data2 ... dataN
-	 * 
-	 * @throws FileNotFoundException if the file cannot be found or opened
-	 * @throws Exception for any other unexpected parsing errors
-	 */
-	public static void main(String[] args) throws Exception {
-
-		//No files found
-		if (args.length == 0) {
-			System.out.println("Error: Input file not found");
-			return;
-		}
-
-		//Parse initial simulation inputs
-		int numFrames = Integer.parseInt(args[0]); 						//F - frames
-		int quantum   = Integer.parseInt(args[1]); 						//Q - time quantum
-
-		List<Process> processes = new ArrayList<>();					//List of processes from input files
-		
-		int processId = 1; 												//Start process id's from 1
-		for (int i = 2; i < args.length; i++) { 						//Start from index 2 as the first 2 arguments in the args list are number frames (index 0) and time quantum (index 1)
-			File inputFile = new File(args[i]);
-			
-			try {
-				Process p = parseProcessFile(inputFile, processId++);	//Parse each input file into a process object (Each input file represents one process and it's page info)
-				processes.add(p);
-
-			}catch(FileNotFoundException e) {  //Input file not found
-				System.out.println("Error: Input file not found");
-				e.printStackTrace();
-			}
-			catch (Exception e) { //Generic error
-				System.out.println("Error: " + e.getMessage());
-			}
-		}
-		
-		//Run simulations
-		LocalReplacementScheduler local = new LocalReplacementScheduler(processes, numFrames, quantum);
-        local.run(processes);
-
-        GlobalReplacementScheduler global = new GlobalReplacementScheduler(processes, numFrames, quantum);
-        global.run(processes);
-	}
-	
-	/**
-     * Parses a single process file into a Process object.
-     * Expected input format:
-     *   name: Process1; page: 1; page: 2; ... ; end;
-     *
-     * @param inputFile  the file containing process description
-     * @param processID  the unique ID assigned to this process
-     * @return Process object with name and list of page references
-     * 
-     * @throws IllegalArgumentException if the file format is invalid or if the process contains more than 50 pages
-     */
-	public static Process parseProcessFile(File inputFile, int processID) throws Exception{
-
-		//Read whole file into a single string
-	    StringBuilder sb = new StringBuilder();
-	    try (Scanner scan = new Scanner(inputFile)) {
-	        while (scan.hasNextLine()) {
-	            sb.append(scan.nextLine()).append(" ");
-	        }
-	    }
-
-	    //Now we get the process info out of the string to be placed into a process object
-	    String content = sb.toString().trim();
-	    String[] parts = content.split(";"); 									//Split the input by semi-colon
-
-	    String processName = null;
-	    List<Integer> pages = new ArrayList<Integer>();							//Add pages to list
-
-	    for (String part : parts) {
-	        part = part.trim();
-	        
-	        if (part.startsWith("name:")) { 									//Process name
-	            processName = part.substring(5).trim();
-	        } else if (part.startsWith("page:")) {								//Pages containing instruction/s this process wants to run, add these to the pages a list
-	            int pageNum = Integer.parseInt(part.substring(5).trim());
-	            pages.add(pageNum);												//Page number value
-	        } else if (part.equalsIgnoreCase("end")) {							//End of process file
-	            break;
-	        }
-	    }
-	    
-	    //Stop simulation if process has too many pages - Rule in assignment spec
-        if (pages.size() > 50) {
-        	throw new IllegalArgumentException("Process \"" + processName +  "\" exceeds maximum of 50 pages (" + pages.size() + " found) " + "this process will not be included in the simulation");
-        }
-	    
-	    return new Process(processID, processName, pages); //Return the newly created process object
-	}
-}
-
-
-
+/*
+ * Author: Amanda Foxley c3137540
+ * Created: 27/09/25
+ * COMP2240 Assignment 3
+ * 
+ * Main driver class for the A3 paging with virtual memory simulation.
+ * 
+ * Two different FIFO page replacement policies are simulated: 
+ * 		- Fixed allocation with local replacement
+ * 		- Variable allocation with global replacement
+ * Both simulations use a Round Robin short-term scheduling algorithm, the time quantum for this is passed into the program using command line arguments - args[1]
+ * (--cpu-scheduler=mlfq|srtf|fault-aware picks a different discipline, see ReadyQueue)
+ * With --frame-table=offheap only the variable-global strategy is simulated (see OffHeapGlobalReplacementScheduler).
+ * 
+ * Optional settings can be added anywhere in the argument list in the form --name=value (see SimulationOptions), e.g.
+ * 		java A3 --tlb-entries=4 --zswap-pages=8 30 3 process1.txt process2.txt
+ *
+ * With --online=source processes arrive on a live trace stream instead of input files (see TraceStream), e.g.
+ * 		tracer | java A3 --online=- 30 3
+ *
+ * A long simulation can save checkpoints with --checkpoint=file and be continued later with java A3 --resume=file (see SimulationCheckpoint).
+ * Many workloads can be simulated in one JVM with BatchRunner.
+ * With --what-if=Process1+1 each simulation is forked part way through to see how a change would have played out (see WhatIfFork).
+ */
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Scanner;
+
+public class A3 {
+
+	/**
+	 * Options read by the program itself (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"resume", "max-pages", "compress-traces", "compare-cpu-schedulers", "cpu-scaling"};
+
+	/**
+	 * Main method for the A3 virtual memory simulation.
+	 * Initial program inputs are taken from command line arguments.
+	 *
+	 * Preconditions: args cannot be null 
+	 *  			  Input file/s must follow correct format, as specified in the assignment specs
+	 * Postconditions: Input has been read from file
+	 * 				   Process threads have been run in the virtual memory simulations, turnaround times and fault data has been displayed to the console
+	 * 
+	 * @param args program arguments, where:
+	 * 			- args[0] is the number of frames(F) allocated for this simulation
+	 * 			- args[1] is the time quantum(Q) to be used for this simulation
+	 * 			- all following args are in the form of an input file containing process information (e.g. process1.txt process2.txt) and can use any file extension type
+	 * 		  When running the program the arguments should look like: java A3 F Q data1 data2 ... dataN
+	 * 		  Optional --name=value settings may be placed anywhere in the argument list, they are not counted as positional arguments
+	 * 
+	 * @throws FileNotFoundException if the file cannot be found or opened
+	 * @throws Exception for any other unexpected parsing errors
+	 */
+	public static void main(String[] args) throws Exception {
+
+		//Separate the optional --name=value settings from F, Q and the input files
+		SimulationOptions options = new SimulationOptions();
+		List<String> inputs;
+		try {
+			inputs = options.parse(args);
+		} catch (IllegalArgumentException e) { //Unknown or badly written option
+			System.out.println("Error: " + e.getMessage());
+			return;
+		}
+
+		//Continue a simulation saved by an earlier run instead of starting a new one
+		if (options.has("resume")) {
+			try {
+				resumeSimulation(options.getString("resume", null));
+			} catch (IOException e) { //Checkpoint missing or unreadable
+				System.out.println("Error: Unable to resume from checkpoint - " + e.getMessage());
+			}
+			return;
+		}
+
+		//No files found
+		if (inputs.isEmpty()) {
+			System.out.println("Error: Input file not found");
+			return;
+		}
+
+		//Parse initial simulation inputs
+		int numFrames = Integer.parseInt(inputs.get(0)); 				//F - frames
+		int quantum   = Integer.parseInt(inputs.get(1)); 				//Q - time quantum
+
+		//Online mode - processes arrive on a live trace stream instead of input files
+		if (options.has("online")) {
+			try {
+				GlobalReplacementScheduler.checkOptions(new ArrayList<Process>(), numFrames, options);	//The processes are checked as they arrive
+			} catch (IllegalArgumentException e) {
+				System.out.println("Error: " + e.getMessage());
+				return;
+			}
+			runOnlineSimulation(numFrames, quantum, options);
+			return;
+		}
+
+		List<Process> processes = new ArrayList<>();					//List of processes from input files
+		
+		int processId = 1; 												//Start process id's from 1
+		for (int i = 2; i < inputs.size(); i++) { 						//Start from index 2 as the first 2 arguments in the args list are number frames (index 0) and time quantum (index 1)
+			File inputFile = new File(inputs.get(i));
+			
+			try {
+				Process p = parseProcessFile(inputFile, processId++, options);	//Parse each input file into a process object (Each input file represents one process and it's page info)
+				processes.add(p);
+
+			}catch(FileNotFoundException e) {  //Input file not found
+				System.out.println("Error: Input file not found");
+				e.printStackTrace();
+			}
+			catch (Exception e) { //Generic error
+				System.out.println("Error: " + e.getMessage());
+			}
+		}
+		
+		simulate(processes, numFrames, quantum, options);
+	}
+
+	/**
+	 * Runs both page replacement simulations on parsed processes and prints their results and any summaries to the console.
+	 *
+	 * Preconditions: processes have been parsed and haven't been simulated yet
+	 * Postconditions: The results have been displayed to the console
+	 *
+	 * @param processes - the processes to simulate
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 */
+	public static void simulate(List<Process> processes, int numFrames, int quantum, SimulationOptions options) {
+		simulate(processes, numFrames, quantum, options, System.out, "");
+	}
+
+	/**
+	 * Runs both page replacement simulations on parsed processes and prints their results and any summaries to a given stream.
+	 * BatchRunner uses this to keep the output and the result files of workloads that run at the same time apart.
+	 *
+	 * Preconditions: processes have been parsed and haven't been simulated yet
+	 * Postconditions: The results have been printed to out and any --profile or --save-memory files have names starting with outputPrefix
+	 *
+	 * @param processes - the processes to simulate
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 * @param out - stream the results are printed to
+	 * @param outputPrefix - prepended to the names of the result files ("" for none)
+	 */
+	public static void simulate(List<Process> processes, int numFrames, int quantum, SimulationOptions options, PrintStream out, String outputPrefix) {
+		//Reject option combinations the variable-global simulation can't run before anything is simulated
+		try {
+			GlobalReplacementScheduler.checkOptions(processes, numFrames, options);
+		} catch (IllegalArgumentException e) {
+			out.println("Error: " + e.getMessage());
+			return;
+		}
+
+		SimulationCheckpoint checkpoint = SimulationCheckpoint.fromOptions(options);	//null unless --checkpoint=file was supplied
+		if (!simulatesLocal(options)) {
+			out.println("Fixed-Local Replacement is not simulated with --frame-table=offheap (its frames are kept on the heap)");
+			runGlobalSimulation(processes, numFrames, quantum, options, null, checkpoint, out, outputPrefix);
+			return;
+		}
+		LocalReplacementScheduler local = new LocalReplacementScheduler(processes, numFrames, quantum, options);
+		local.setOutput(out, outputPrefix);
+		if (checkpoint != null) {
+			local.setCheckpoint(checkpoint);
+		}
+		if (options.has("what-if")) {
+			local.setWhatIf(new WhatIfFork(options, processes));
+		}
+        local.run(processes);
+
+        runGlobalSimulation(processes, numFrames, quantum, options, local, checkpoint, out, outputPrefix);
+	}
+
+	/**
+	 * Checks whether the fixed-local strategy is simulated. It isn't with --frame-table=offheap, which is meant for memories too big for
+	 * a Frame object per frame, the fixed-local frame table is always kept on the heap.
+	 *
+	 * @param options - simulation options
+	 * @return true if the fixed-local strategy is simulated and compared
+	 */
+	private static boolean simulatesLocal(SimulationOptions options) {
+		return !options.getString("frame-table", "heap").equals("offheap");
+	}
+
+	/**
+	 * Runs an online simulation where processes and their pages arrive on a trace stream (--online=source, see TraceStream).
+	 * Only the variable-global strategy is simulated, the fixed-local strategy has to know how many processes share memory before it starts.
+	 *
+	 * Preconditions: numFrames > 0, quantum > 0
+	 * Postconditions: The stream has ended and the results have been displayed to the console as each process finished
+	 *
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 *
+	 * @throws IOException if the trace stream can't be opened
+	 */
+	private static void runOnlineSimulation(int numFrames, int quantum, SimulationOptions options) throws IOException {
+		GlobalReplacementScheduler global = GlobalReplacementScheduler.create(new ArrayList<Process>(), numFrames, quantum, options);
+		try (TraceStream stream = TraceStream.open(options)) {
+			global.runOnline(stream, "Variable-Global Replacement");
+		}
+	}
+
+	/**
+	 * Continues a simulation from a checkpoint file written by an earlier run (--resume=file).
+	 * The output is the same as the rest of the original run would have printed.
+	 *
+	 * Preconditions: fileName names a checkpoint written with --checkpoint
+	 * Postconditions: The saved simulation, and any simulations that follow it, have finished and displayed their results
+	 *
+	 * @param fileName - checkpoint file
+	 *
+	 * @throws IOException if the checkpoint can't be read
+	 */
+	private static void resumeSimulation(String fileName) throws IOException {
+		SimulationCheckpoint checkpoint = SimulationCheckpoint.load(fileName);
+		Scheduler scheduler = checkpoint.getScheduler();
+		List<Process> processes = scheduler.getProcesses();
+
+		scheduler.setCheckpoint(checkpoint);	//Keep saving to the same file
+		scheduler.run(processes);
+
+		if (scheduler instanceof LocalReplacementScheduler) { //Saved during the fixed-local simulation, the global simulation still has to run
+			runGlobalSimulation(processes, scheduler.getNumberFrames(), scheduler.getTimeQuantum(), scheduler.getOptions(), (LocalReplacementScheduler) scheduler, checkpoint, System.out, "");
+		} else {
+			printSummaries(System.out, processes, scheduler.getNumberFrames(), scheduler.getTimeQuantum(), scheduler.getOptions(),
+					checkpoint.getFinishedLocal(), checkpoint.getLocalFaults(), (GlobalReplacementScheduler) scheduler);
+		}
+	}
+
+	/**
+	 * Runs the variable-global simulation after the fixed-local simulation has finished, then prints the summaries comparing the strategies.
+	 *
+	 * Preconditions: local has finished running
+	 * Postconditions: The global results and summaries have been displayed to the console
+	 *
+	 * @param processes - the simulated processes
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 * @param local - the finished fixed-local simulation, or null if it isn't simulated (see simulatesLocal())
+	 * @param checkpoint - checkpoint settings, or null if checkpoints are turned off
+	 * @param out - stream the results are printed to
+	 * @param outputPrefix - prepended to the names of the result files ("" for none)
+	 */
+	private static void runGlobalSimulation(List<Process> processes, int numFrames, int quantum, SimulationOptions options,
+			LocalReplacementScheduler local, SimulationCheckpoint checkpoint, PrintStream out, String outputPrefix) {
+
+        int localFaults = local != null ? local.getTotalFaults(processes) : 0;	//Counted now, the global simulation resets the processes
+
+        GlobalReplacementScheduler global = GlobalReplacementScheduler.create(processes, numFrames, quantum, options);
+        global.setOutput(out, outputPrefix);
+        if (checkpoint != null) {
+        	if (local != null) {
+        		checkpoint.setFinishedLocal(local, localFaults);		//Keep the local results in the global simulation's checkpoints
+        	}
+        	global.setCheckpoint(checkpoint);
+        }
+        if (options.has("what-if")) {
+        	global.setWhatIf(new WhatIfFork(options, processes));
+        }
+        global.run(processes);
+
+        printSummaries(out, processes, numFrames, quantum, options, local, localFaults, global);
+	}
+
+	/**
+	 * Prints the optional summaries comparing the simulations with the same processes run without sharing or without huge pages.
+	 *
+	 * Preconditions: local and global have finished running
+	 * Postconditions: Any summaries that apply have been displayed to the console
+	 *
+	 * @param out - stream the summaries are printed to
+	 * @param processes - the simulated processes
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 * @param local - the finished fixed-local simulation, or null if it isn't simulated
+	 * @param localFaults - total faults of the fixed-local simulation
+	 * @param global - the finished variable-global simulation
+	 */
+	private static void printSummaries(PrintStream out, List<Process> processes, int numFrames, int quantum, SimulationOptions options,
+			LocalReplacementScheduler local, int localFaults, GlobalReplacementScheduler global) {
+
+        //Compare against the same processes with every page private, to show the effect of sharing
+        if (hasSharedSegments(processes)) {
+        	printSharingSummary(out, processes, numFrames, quantum, options, local, localFaults, global);
+        }
+
+        //Compare against the same processes using only base pages, to show the effect of huge pages
+        if (global.getHugePagePolicy().isEnabled() && hasHugePageRanges(processes)) {
+        	printHugePageSummary(out, processes, numFrames, quantum, options, global);
+        }
+
+        //Show how memory contention grows with the number of processors
+        if (options.isEnabled("cpu-scaling")) {
+        	printProcessorScaling(out, processes, numFrames, quantum, options);
+        }
+
+        //Compare every short-term scheduling discipline with both page replacement strategies
+        if (options.isEnabled("compare-cpu-schedulers")) {
+        	printCpuSchedulerComparison(out, processes, numFrames, quantum, options);
+        }
+
+        //Compare the adaptive quanta with the fixed quantum Q
+        if (options.getString("cpu-scheduler", "rr").equalsIgnoreCase("adaptive")) {
+        	printAdaptiveQuantumComparison(out, processes, numFrames, quantum, options);
+        }
+	}
+
+	/**
+	 * Prints the throughput (instructions completed per time unit) of both page replacement strategies with Round Robin using the fixed
+	 * quantum Q, with Round Robin using the largest adaptive quantum (--adaptive-max) and with adaptive quanta (see AdaptiveQuantumQueue),
+	 * on the same processes. The second row shows whether adaptive quanta do better than simply always using the longest slice.
+	 *
+	 * Preconditions: The main simulations have finished (the processes are reset and reused)
+	 * Postconditions: A table with one row per strategy and discipline has been displayed to the console
+	 *
+	 * @param out - stream the summary is printed to
+	 * @param processes - the simulated processes
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 */
+	private static void printAdaptiveQuantumComparison(PrintStream out, List<Process> processes, int numFrames, int quantum, SimulationOptions options) {
+		out.println("------------------------------------------------------------");
+		out.println("Adaptive quantum comparison:");
+		out.printf("%-17s %-15s %-12s %-13s %-11s %-7s %s%n", "Strategy", "CPU Scheduling", "Finish Time", "Instructions", "Throughput",
+				"Faults", "Total Turnaround");
+
+		int instructions = 0;
+		for (Process p : processes) {
+			instructions += p.getPageSequence().size();
+		}
+
+		int maxQuantum = options.getInt("adaptive-max", 4 * quantum);
+		String[] disciplines = {"rr", "rr", "adaptive"};
+		int[] quanta = {quantum, maxQuantum, quantum};
+		double[][] throughput = new double[2][disciplines.length];	//[strategy][RR at Q, RR at max, adaptive]
+		for (int strategy = simulatesLocal(options) ? 0 : 1; strategy < 2; strategy++) {
+			for (int d = 0; d < disciplines.length; d++) {
+				SimulationOptions variant = options.copy();
+				variant.set("cpu-scheduler", disciplines[d]);
+				for (Process p : processes) {
+					p.resetProcess(); //The local scheduler doesn't reset the processes itself
+				}
+				Scheduler scheduler = strategy == 0 ? new LocalReplacementScheduler(processes, numFrames, quanta[d], variant)
+						: GlobalReplacementScheduler.create(processes, numFrames, quanta[d], variant);
+				scheduler.runSimulation(processes);
+
+				throughput[strategy][d] = (double) instructions / Math.max(1, scheduler.getSimulationTime());
+				out.printf("%-17s %-15s %-12d %-13d %-11.3f %-7d %d%n", scheduler.getStrategyName().replace(" Replacement", ""),
+						disciplines[d].equals("rr") ? "RR (Q=" + quanta[d] + ")" : scheduler.getCpuSchedulerName(), scheduler.getSimulationTime(),
+						instructions, throughput[strategy][d], scheduler.getTotalFaults(processes), scheduler.getTotalTurnaround(processes));
+			}
+		}
+		String localChange = !simulatesLocal(options) ? "" : String.format("Fixed-Local %+.2f%% (%+.2f%% vs Q=%d), ",
+				100 * (throughput[0][2] / throughput[0][0] - 1), 100 * (throughput[0][2] / throughput[0][1] - 1), maxQuantum);
+		out.printf("Throughput change with adaptive quanta: %sVariable-Global %+.2f%% (%+.2f%% vs Q=%d)%n", localChange,
+				100 * (throughput[1][2] / throughput[1][0] - 1), 100 * (throughput[1][2] / throughput[1][1] - 1), maxQuantum);
+	}
+
+	/**
+	 * Prints the variable-global results of the same processes run on 1 up to --cpus processors (all sharing the global frame pool),
+	 * showing how memory contention grows with the number of processors. The runs are simulated here but their results aren't printed.
+	 *
+	 * Preconditions: The main simulations have finished (the processes are reset and reused)
+	 * Postconditions: A table with one row per processor count has been displayed to the console
+	 *
+	 * @param out - stream the summary is printed to
+	 * @param processes - the simulated processes
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 */
+	private static void printProcessorScaling(PrintStream out, List<Process> processes, int numFrames, int quantum, SimulationOptions options) {
+		out.println("------------------------------------------------------------");
+		out.println("Processor scaling - Variable-Global Replacement:");
+		out.printf("%-5s %-12s %-17s %-9s %-12s %-18s %-18s %s%n", "CPUs", "Finish Time", "Total Turnaround", "Faults", "Utilisation",
+				"Concurrent Faults", "Running Evictions", "Peak Loads");
+
+		for (int cpus = 1; cpus <= Math.max(1, options.getInt("cpus", 1)); cpus++) {
+			SimulationOptions variant = options.copy();
+			variant.set("cpus", String.valueOf(cpus));
+
+			GlobalReplacementScheduler global = GlobalReplacementScheduler.create(processes, numFrames, quantum, variant);
+			global.runSimulation(processes);
+
+			out.printf("%-5d %-12d %-17d %-9d %-12s %-18d %-18d %d%n", cpus, global.getSimulationTime(), global.getTotalTurnaround(processes),
+					global.getTotalFaults(processes), String.format("%.2f%%", 100 * global.getMeanUtilisation()),
+					global.getConcurrentFaults(), global.getRunningEvictions(), global.getPeakOutstandingLoads());
+		}
+	}
+
+	/**
+	 * Prints the total turnaround time and page faults of both page replacement strategies under every short-term scheduling discipline.
+	 * The runs are simulated here but their results aren't printed.
+	 *
+	 * Preconditions: The main simulations have finished (the processes are reset and reused)
+	 * Postconditions: A table with one row per discipline has been displayed to the console
+	 *
+	 * @param out - stream the summary is printed to
+	 * @param processes - the simulated processes
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 */
+	private static void printCpuSchedulerComparison(PrintStream out, List<Process> processes, int numFrames, int quantum, SimulationOptions options) {
+		out.println("------------------------------------------------------------");
+		out.println("CPU scheduling comparison:");
+		out.printf("%-13s %-17s %-13s %-18s %s%n", "Scheduler", "Local Turnaround", "Local Faults", "Global Turnaround", "Global Faults");
+
+		for (String name : ReadyQueue.NAMES) {
+			SimulationOptions variant = options.copy();
+			variant.set("cpu-scheduler", name);
+
+			String localTurnaround = "-";	//Left out when the fixed-local strategy isn't simulated
+			String localFaults = "-";
+			if (simulatesLocal(options)) {
+				for (Process p : processes) {
+					p.resetProcess(); //The local scheduler doesn't reset the processes itself
+				}
+				LocalReplacementScheduler local = new LocalReplacementScheduler(processes, numFrames, quantum, variant);
+				local.runSimulation(processes);
+				localTurnaround = String.valueOf(local.getTotalTurnaround(processes));
+				localFaults = String.valueOf(local.getTotalFaults(processes));
+			}
+
+			GlobalReplacementScheduler global = GlobalReplacementScheduler.create(processes, numFrames, quantum, variant);
+			global.runSimulation(processes);
+
+			out.printf("%-13s %-17s %-13s %-18d %d%n", global.getCpuSchedulerName(), localTurnaround, localFaults,
+					global.getTotalTurnaround(processes), global.getTotalFaults(processes));
+		}
+	}
+
+	/**
+	 * Checks whether any process declared a huge page range.
+	 *
+	 * @param processes - the simulated processes
+	 * @return true if at least one process declared a huge page range
+	 */
+	private static boolean hasHugePageRanges(List<Process> processes) {
+		for (Process p : processes) {
+			if (p.hasHugePageRanges()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Prints the huge page results of the variable-global simulation compared to running the same processes with only base pages.
+	 * The base page run is simulated here but its results aren't printed. The fixed-local strategy only uses base pages.
+	 *
+	 * Preconditions: global has finished running
+	 * Postconditions: A summary has been displayed to the console
+	 *
+	 * @param out - stream the summary is printed to
+	 * @param processes - the simulated processes
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 * @param global - the finished variable-global simulation
+	 */
+	private static void printHugePageSummary(PrintStream out, List<Process> processes, int numFrames, int quantum, SimulationOptions options, GlobalReplacementScheduler global) {
+		int hugeFaults = global.getTotalFaults(processes);
+
+		List<Process> baseProcesses = new ArrayList<>();
+		for (Process p : processes) {
+			baseProcesses.add(p.withoutHugePages());
+		}
+		GlobalReplacementScheduler baseGlobal = GlobalReplacementScheduler.create(baseProcesses, numFrames, quantum, options);
+		baseGlobal.runSimulation(baseProcesses);
+
+		out.println("------------------------------------------------------------");
+		global.getHugePagePolicy().printStatistics(out, baseGlobal.getTotalFaults(baseProcesses), hugeFaults);
+	}
+
+	/**
+	 * Checks whether any process maps pages onto a shared segment.
+	 *
+	 * @param processes - the simulated processes
+	 * @return true if at least one process declared a shared segment
+	 */
+	private static boolean hasSharedSegments(List<Process> processes) {
+		for (Process p : processes) {
+			if (p.hasSharedSegments()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Prints the memory saved by shared pages and the change in page faults compared to running the same processes with only private pages.
+	 * The private runs are simulated here but their results aren't printed.
+	 *
+	 * Preconditions: local and global have finished running
+	 * Postconditions: A summary table with one row per strategy has been displayed to the console
+	 *
+	 * @param out - stream the summary is printed to
+	 * @param processes - the simulated processes
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 * @param local - the finished fixed-local simulation
+	 * @param localFaults - total faults of the fixed-local simulation (counted before the global simulation reset the processes)
+	 * @param global - the finished variable-global simulation
+	 */
+	private static void printSharingSummary(PrintStream out, List<Process> processes, int numFrames, int quantum, SimulationOptions options,
+			LocalReplacementScheduler local, int localFaults, GlobalReplacementScheduler global) {
+
+		//Count the faults of the global run before the private runs reset the processes
+		int globalFaults = global.getTotalFaults(processes);
+
+		List<Process> privateProcesses = new ArrayList<>();
+		for (Process p : processes) {
+			privateProcesses.add(p.withoutSharing());
+		}
+		LocalReplacementScheduler privateLocal = new LocalReplacementScheduler(privateProcesses, numFrames, quantum, options);
+		privateLocal.runSimulation(privateProcesses);
+		int privateLocalFaults = privateLocal.getTotalFaults(privateProcesses);
+
+		GlobalReplacementScheduler privateGlobal = GlobalReplacementScheduler.create(privateProcesses, numFrames, quantum, options); //Same replacement scope and frame table as global
+		privateGlobal.runSimulation(privateProcesses);
+		int privateGlobalFaults = privateGlobal.getTotalFaults(privateProcesses);
+
+		out.println("------------------------------------------------------------");
+		out.println("Shared pages:");
+		out.printf("%-28s %-16s %-15s %-7s %-11s %-12s %-13s %s%n", "Strategy", "Faults(private)", "Faults(shared)", "Change", "COW Faults", "Shared Hits", "Shared Loads", "Peak Frames Saved");
+		out.printf("%-28s %-16d %-15d %-+7d %-11d %-12d %-13d %d%n", "Fixed-Local Replacement", privateLocalFaults, localFaults, localFaults - privateLocalFaults,
+				local.getCopyOnWriteFaults(), local.getSharedHits(), local.getSharedLoadWaits(), local.getPeakFramesSaved());
+		out.printf("%-28s %-16d %-15d %-+7d %-11d %-12d %-13d %d%n", global.getStrategyName(), privateGlobalFaults, globalFaults, globalFaults - privateGlobalFaults,
+				global.getCopyOnWriteFaults(), global.getSharedHits(), global.getSharedLoadWaits(), global.getPeakFramesSaved());
+	}
+	
+	/**
+     * Parses a single process file into a Process object.
+     * Expected input format:
+     *   name: Process1; page: 1; page: 2; ... ; end;
+     * Optionally a process can map a range of its pages onto a named shared segment, and mark instructions that write to their page:
+     *   name: Process1; shared: libc 1-4; page: 1; write: 2; ... ; end;
+     * and declare a range of pages that may be loaded as huge pages:
+     *   name: Process1; huge: 8-15; page: 8; ... ; end;
+     *
+     * @param inputFile  the file containing process description
+     * @param processID  the unique ID assigned to this process
+     * @return Process object with name and list of page references
+     * 
+     * @throws IllegalArgumentException if the file format is invalid or if the process contains more than 50 pages
+     */
+	public static Process parseProcessFile(File inputFile, int processID) throws Exception{
+		return parseProcessFile(inputFile, processID, new SimulationOptions());
+	}
+
+	/**
+	 * Parses a single process file into a Process object, see the method above for the format.
+	 * --max-pages raises the 50 page limit for larger workloads and --compress-traces stores the pages compressed (see CompressedPageSequence).
+	 *
+	 * @param inputFile  the file containing process description
+	 * @param processID  the unique ID assigned to this process
+	 * @param options  simulation options
+	 * @return Process object with name and list of page references
+	 *
+	 * @throws IllegalArgumentException if the file format is invalid or if the process contains more pages than allowed
+	 */
+	public static Process parseProcessFile(File inputFile, int processID, SimulationOptions options) throws Exception{
+
+	    String processName = null;
+	    int maxPages = options.getInt("max-pages", 50);
+	    int pageCount = 0;
+	    boolean compress = options.isEnabled("compress-traces");
+	    CompressedPageSequence.Builder compressed = compress ? new CompressedPageSequence.Builder() : null;	//Pages compressed as they are read
+	    List<Integer> pages = compress ? null : new ArrayList<Integer>();		//Add pages to list
+	    BitSet writes = new BitSet();											//Positions in the pages list that write to their page
+	    List<SharedSegment> shared = new ArrayList<SharedSegment>();			//Pages mapped onto shared segments
+	    List<int[]> hugeRanges = new ArrayList<int[]>();						//Ranges of pages that may be loaded as huge pages
+
+	    //Read the file one semi-colon separated part at a time, so a long trace is never held as text
+	    try (Scanner scan = new Scanner(inputFile).useDelimiter(";")) {
+	    	while (scan.hasNext()) {
+		        String part = scan.next().trim();
+
+		        if (part.startsWith("name:")) { 									//Process name
+		            processName = part.substring(5).trim();
+		        } else if (part.startsWith("page:") || part.startsWith("write:")) {	//Pages containing instruction/s this process wants to run - a written page will be copied on write if it is shared
+		            boolean write = part.startsWith("write:");
+		            int pageNum = Integer.parseInt(part.substring(write ? 6 : 5).trim());
+		            if (++pageCount > maxPages) {
+		            	continue;													//Too many pages - only counted for the error below
+		            }
+		            if (compress) {
+		            	compressed.add(pageNum, write);
+		            } else {
+		            	if (write) {
+		            		writes.set(pages.size());
+		            	}
+		            	pages.add(pageNum);											//Page number value
+		            }
+		        } else if (part.startsWith("shared:")) {							//Range of pages mapped onto a shared segment
+		            shared.add(SharedSegment.parse(part.substring(7)));
+		        } else if (part.startsWith("huge:")) {								//Range of pages that may be loaded as huge pages
+		            String[] range = part.substring(5).trim().split("-");
+		            if (range.length != 2) {
+		            	throw new IllegalArgumentException("Invalid huge page range \"" + part + "\", expected \"huge: first-last\"");
+		            }
+		            hugeRanges.add(new int[] {Integer.parseInt(range[0].trim()), Integer.parseInt(range[1].trim())});
+		        } else if (part.equalsIgnoreCase("end")) {							//End of process file
+		            break;
+		        }
+	    	}
+	    }
+	    
+	    //Stop simulation if process has too many pages - Rule in assignment spec (unless raised with --max-pages)
+        if (pageCount > maxPages) {
+        	throw new IllegalArgumentException("Process \"" + processName +  "\" exceeds maximum of " + maxPages + " pages (" + pageCount + " found) " + "this process will not be included in the simulation");
+        }
+	    
+	    PageSequence sequence = compress ? compressed.build() : new ListPageSequence(pages, writes);
+	    Process process = new Process(processID, processName, sequence, shared);
+	    for (int[] range : hugeRanges) {
+	    	process.addHugePageRange(range[0], range[1]);
+	    }
+	    return process; //Return the newly created process object
+	}
+}
+
+
+
@@ -0,0 +1,335 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Adaptive quantum ready queue - Round Robin order, but the time quanta are tuned while the simulation runs from the throughput it achieves
+ * (instructions completed per time unit), and each process' quantum is shaped around that by how likely it is to fault.
+ *
+ * The queue keeps a quantum level, starting at Q. Every --adaptive-epoch time units (default 4Q) it measures the throughput of the epoch
+ * that just ended and moves the level one step (--adaptive-step, default 1) between --adaptive-min (default 1) and --adaptive-max
+ * (default 4Q): in the same direction as the last step if throughput didn't fall, the other way if it did (hill climbing). The level
+ * settles around the quantum the current mix of processes runs fastest with and follows it when the mix changes.
+ *
+ * For each process the queue keeps a moving average of its fault rate (faults per instruction executed, weighted by --adaptive-weight).
+ * When the process is dispatched:
+ * 		fault chance = chance of at least one fault in a slice of the level, 1 - e^(-fault rate x level)
+ * 		coverage     = fraction of its working set (the distinct pages of its last --ws-window references, default Q) in main memory,
+ * 		               0 if none of its pages is available yet (see ReadyQueue.residentFraction())
+ * 		release      = the average of fault chance and 1 - coverage, how likely the process is to give up the CPU by faulting
+ * 		quantum      = level x (0.5 + release), kept between --adaptive-min and --adaptive-max
+ * A process that is likely to fault gets a longer slice than the level. It gives the CPU up at its fault anyway, and the longer slice
+ * lets it run on to the fault instead of being preempted just before it. A process whose working set is resident and which rarely
+ * faults gets a shorter slice, so it doesn't hold the CPU while others could issue faults. Until a process has run once it gets the level.
+ * The level and the quanta chosen are reported after the results.
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+public class AdaptiveQuantumQueue extends ReadyQueue {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"adaptive-min", "adaptive-max", "adaptive-weight", "adaptive-epoch", "adaptive-step", "ws-window"};
+
+	private static final int HISTORY_SHOWN = 12;		//Quantum changes printed for each process
+
+	private final LinkedList<Process> queue = new LinkedList<Process>();	//Ready processes in the order they became ready
+	private final Map<Process, Tuning> tuning = new LinkedHashMap<Process, Tuning>();	//Process -> its tuning, in the order first dispatched
+	private final Scheduler memory;						//Page replacement scheduler, used to check which pages are in main memory
+	private final int MIN_QUANTUM;
+	private final int MAX_QUANTUM;
+	private final double WEIGHT;						//Weight of the latest slice in the fault rate average
+	private final int WINDOW;							//Number of recent references in a working set
+	private final int EPOCH;							//Time units between changes of the level
+	private final int STEP;								//Change of the level each epoch
+
+	private int level;									//Quantum level the per-process quanta are shaped around
+	private int direction = 1;							//Direction of the last step of the level, +1 or -1
+	private int epochStart = -1;						//Time the current epoch started, -1 until the first dispatch
+	private int epochExecuted;							//Instructions executed by all processes when the epoch started
+	private double lastThroughput = -1;					//Throughput of the previous epoch, -1 until one has ended
+	private final List<int[]> levels = new ArrayList<int[]>();	//{time, new level} every time the level changed
+	private int lowestLevel;
+	private int highestLevel;
+
+	/**
+	 * The fault rate and quanta of one process.
+	 */
+	private static class Tuning implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private double faultRate = -1;					//Faults per instruction, -1 until the process has run
+		private int executed;							//Instructions executed when last dispatched
+		private int faults;								//Faults when last dispatched
+		private int quantum;							//Quantum of the latest dispatch
+		private final List<int[]> changes = new ArrayList<int[]>();	//{time, new quantum} every time the quantum changed
+		private long quantumTotal;						//Sum of the quanta given, for the mean
+		private int dispatches;
+		private int smallest = Integer.MAX_VALUE;
+		private int largest;
+	}
+
+	/**
+	 * Constructor for the AdaptiveQuantumQueue class.
+	 *
+	 * Preconditions: quantum > 0, options != null, memory != null
+	 *
+	 * @param quantum - time quantum (Q), given to processes that haven't run yet
+	 * @param options - simulation options
+	 * @param memory - page replacement scheduler holding main memory
+	 *
+	 * @throws IllegalArgumentException if a setting is invalid
+	 */
+	public AdaptiveQuantumQueue(int quantum, SimulationOptions options, Scheduler memory) {
+		super(quantum);
+		this.memory = memory;
+		this.MIN_QUANTUM = options.getInt("adaptive-min", 1);
+		this.MAX_QUANTUM = options.getInt("adaptive-max", 4 * quantum);
+		this.WEIGHT = options.getInt("adaptive-weight", 50) / 100.0;
+		this.WINDOW = options.getInt("ws-window", quantum);
+		this.EPOCH = options.getInt("adaptive-epoch", 4 * quantum);
+		this.STEP = options.getInt("adaptive-step", 1);
+		if (MIN_QUANTUM < 1 || MAX_QUANTUM < MIN_QUANTUM || WEIGHT <= 0 || WEIGHT > 1 || WINDOW < 0 || EPOCH < 1 || STEP < 1) {
+			throw new IllegalArgumentException("Options --adaptive-min and --adaptive-max must satisfy 1 <= min <= max, --adaptive-weight must be 1 to 100,"
+					+ " --adaptive-epoch and --adaptive-step must be positive and --ws-window can't be negative");
+		}
+		this.level = Math.max(MIN_QUANTUM, Math.min(MAX_QUANTUM, quantum));
+		this.lowestLevel = level;
+		this.highestLevel = level;
+	}
+
+	/**
+	 * Moves the level if an epoch has ended, updates the process' fault rate with the slice it ran since it was last dispatched and
+	 * chooses its next quantum.
+	 */
+	@Override
+	public void dispatched(Process p, int currentTime) {
+		if (epochStart < 0) {
+			epochStart = currentTime;
+		} else if (currentTime - epochStart >= EPOCH) {
+			tuneLevel(currentTime);
+		}
+
+		int executed = p.getPageSequence().size() - p.getRemainingPages();
+		Tuning t = tuning.get(p);
+		if (t == null) {
+			t = new Tuning();
+			t.executed = executed;
+			t.faults = p.getFaultCount();
+			tuning.put(p, t);
+		}
+
+		int ran = executed - t.executed;
+		int faulted = p.getFaultCount() - t.faults;
+		if (ran > 0 || faulted > 0) {
+			double rate = (double) faulted / Math.max(1, ran);
+			t.faultRate = t.faultRate < 0 ? rate : WEIGHT * rate + (1 - WEIGHT) * t.faultRate;
+		}
+		t.executed = executed;
+		t.faults = p.getFaultCount();
+
+		int quantum = chooseQuantum(p, t);
+		if (quantum != t.quantum) {
+			t.changes.add(new int[] {currentTime, quantum});
+			t.quantum = quantum;
+		}
+		t.quantumTotal += quantum;
+		t.dispatches++;
+		t.smallest = Math.min(t.smallest, quantum);
+		t.largest = Math.max(t.largest, quantum);
+	}
+
+	/**
+	 * Ends the current epoch: compares its throughput with the previous epoch's and moves the level one step, turning back if
+	 * throughput fell.
+	 *
+	 * Preconditions: At least EPOCH time units have passed since the epoch started
+	 * Postconditions: The level has moved (unless it is at the end of the range it moved towards) and a new epoch has started
+	 *
+	 * @param currentTime - current simulation time
+	 */
+	private void tuneLevel(int currentTime) {
+		int executed = 0;
+		for (Process q : tuning.keySet()) {	//Processes that haven't been dispatched yet haven't executed anything
+			executed += q.getPageSequence().size() - q.getRemainingPages();
+		}
+		double throughput = (double) (executed - epochExecuted) / (currentTime - epochStart);
+		if (lastThroughput >= 0 && throughput < lastThroughput) {
+			direction = -direction; //The last step made things worse
+		}
+		lastThroughput = throughput;
+		epochStart = currentTime;
+		epochExecuted = executed;
+
+		int next = Math.max(MIN_QUANTUM, Math.min(MAX_QUANTUM, level + direction * STEP));
+		if (next == level) {
+			direction = -direction; //At the end of the range, try the other way next epoch
+			return;
+		}
+		level = next;
+		levels.add(new int[] {currentTime, level});
+		lowestLevel = Math.min(lowestLevel, level);
+		highestLevel = Math.max(highestLevel, level);
+	}
+
+	private int chooseQuantum(Process p, Tuning t) {
+		if (t.faultRate < 0) {
+			return level; //Hasn't run yet
+		}
+		double faultChance = 1 - Math.exp(-t.faultRate * level);		//Chance of at least one fault in a slice of the level
+		double release = (faultChance + 1 - residentFraction(p, WINDOW, memory)) / 2;	//How likely the process is to give up the CPU by faulting
+		int quantum = (int) Math.round(level * (0.5 + release));
+		return Math.max(MIN_QUANTUM, Math.min(MAX_QUANTUM, quantum));
+	}
+
+	@Override
+	public int quantumFor(Process p) {
+		Tuning t = tuning.get(p);
+		return t == null ? TIME_QUANTUM : t.quantum;
+	}
+
+	/**
+	 * Writes the ready processes, the tuning of every process that has run and the level with its history.
+	 */
+	@Override
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		super.writeState(out);
+		out.writeInt(tuning.size());
+		for (Map.Entry<Process, Tuning> entry : tuning.entrySet()) {
+			Tuning t = entry.getValue();
+			out.writeProcess(entry.getKey());
+			out.writeDouble(t.faultRate);
+			out.writeInt(t.executed);
+			out.writeInt(t.faults);
+			out.writeInt(t.quantum);
+			writeChanges(out, t.changes);
+			out.writeLong(t.quantumTotal);
+			out.writeInt(t.dispatches);
+			out.writeInt(t.smallest);
+			out.writeInt(t.largest);
+		}
+		out.writeInt(level);
+		out.writeInt(direction);
+		out.writeInt(epochStart);
+		out.writeInt(epochExecuted);
+		out.writeDouble(lastThroughput);
+		writeChanges(out, levels);
+		out.writeInt(lowestLevel);
+		out.writeInt(highestLevel);
+	}
+
+	@Override
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		super.readState(in);
+		tuning.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			Process p = in.readProcess();
+			Tuning t = new Tuning();
+			t.faultRate = in.readDouble();
+			t.executed = in.readInt();
+			t.faults = in.readInt();
+			t.quantum = in.readInt();
+			readChanges(in, t.changes);
+			t.quantumTotal = in.readLong();
+			t.dispatches = in.readInt();
+			t.smallest = in.readInt();
+			t.largest = in.readInt();
+			tuning.put(p, t);
+		}
+		level = in.readInt();
+		direction = in.readInt();
+		epochStart = in.readInt();
+		epochExecuted = in.readInt();
+		lastThroughput = in.readDouble();
+		levels.clear();
+		readChanges(in, levels);
+		lowestLevel = in.readInt();
+		highestLevel = in.readInt();
+	}
+
+	/**
+	 * Writes a list of {time, value} changes.
+	 */
+	private static void writeChanges(SimulationCheckpoint.StateOutput out, List<int[]> changes) throws IOException {
+		out.writeInt(changes.size());
+		for (int[] change : changes) {
+			out.writeInt(change[0]);
+			out.writeInt(change[1]);
+		}
+	}
+
+	/**
+	 * Reads a list of changes written by writeChanges().
+	 */
+	private static void readChanges(SimulationCheckpoint.StateInput in, List<int[]> into) throws IOException {
+		for (int count = in.readInt(); count > 0; count--) {
+			into.add(new int[] {in.readInt(), in.readInt()});
+		}
+	}
+
+	@Override
+	public boolean offer(Process p) {
+		return queue.add(p);
+	}
+
+	@Override
+	public Process poll() {
+		return queue.poll();
+	}
+
+	@Override
+	public Iterator<Process> iterator() {
+		return queue.iterator();
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	@Override
+	public String getName() {
+		return "Adaptive-Q";
+	}
+
+	/**
+	 * Prints how the level moved, then the quanta chosen for each process and when they changed.
+	 *
+	 * @param out - stream the report is printed to
+	 */
+	@Override
+	public void printReport(PrintStream out) {
+		out.println("Adaptive quanta (Q = " + TIME_QUANTUM + ", range " + MIN_QUANTUM + "-" + MAX_QUANTUM + "):");
+		StringBuilder history = new StringBuilder();
+		for (int i = 0; i < Math.min(HISTORY_SHOWN, levels.size()); i++) {
+			history.append(' ').append(levels.get(i)[0]).append(':').append(levels.get(i)[1]);
+		}
+		if (levels.size() > HISTORY_SHOWN) {
+			history.append(" ... (").append(levels.size()).append(" changes)");
+		}
+		out.println("Level " + level + " at the end, " + lowestLevel + "-" + highestLevel + " over the run, changes (time:level):"
+				+ (levels.isEmpty() ? " none" : history));
+		out.printf("%-20s %-11s %-6s %-5s %-5s %-11s %s%n", "Process Name", "Dispatches", "Mean", "Min", "Max", "Fault Rate", "Changes (time:quantum)");
+		for (Map.Entry<Process, Tuning> entry : tuning.entrySet()) {
+			Tuning t = entry.getValue();
+			StringBuilder changes = new StringBuilder();
+			for (int i = 0; i < Math.min(HISTORY_SHOWN, t.changes.size()); i++) {
+				changes.append(i == 0 ? "" : " ").append(t.changes.get(i)[0]).append(':').append(t.changes.get(i)[1]);
+			}
+			if (t.changes.size() > HISTORY_SHOWN) {
+				changes.append(" ... (").append(t.changes.size()).append(" changes)");
+			}
+			out.printf("%-20s %-11d %-6.2f %-5d %-5d %-11.3f %s%n", entry.getKey().getName(), t.dispatches, (double) t.quantumTotal / t.dispatches,
+					t.smallest, t.largest, Math.max(0, t.faultRate), changes);
+		}
+	}
+}
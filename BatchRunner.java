@@ -0,0 +1,381 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Batch runner - runs many workloads listed in a manifest in one JVM and writes their results to one file, so a parameter sweep or a
+ * set of regression runs pays for JVM start up, class loading and JIT warm up once instead of once per workload.
+ *
+ * Each non-blank line of the manifest is one workload, written like the arguments of A3 with an optional name in front:
+ * 		sample1: 30 3 Sample1/process1.txt Sample1/process2.txt
+ * 		thrash: --load-control --expect=thrash.txt 20 3 t0.txt t1.txt t2.txt
+ * Options on a line override the options given to BatchRunner. Input files and --expect files are relative to the manifest's folder.
+ * Lines starting with # are comments.
+ *
+ * Every input file is parsed once, before any workload runs, and the parsed pages are shared by all workloads that read it (a
+ * CompressedPageSequence is copied so each simulation has its own cursor). The workloads then run on a pool of threads. Each workload
+ * prints its results to its own buffer (see A3.simulate), and the files it writes (--profile, --save-memory) start with its name, so
+ * workloads running at the same time never mix their output. The result file lists the workloads in manifest order, so it is the same
+ * for any number of threads.
+ *
+ * A workload with --expect=FILE is compared to the expected output (ignoring spacing and blank lines) and reported as PASS or FAIL.
+ * The exit status is 1 if any workload fails.
+ *
+ * Usage:
+ * 		java BatchRunner [options] manifest
+ *
+ * 		--threads			worker threads (default the number of available processors)
+ * 		--output			result file (default batch-results.txt)
+ * Any other option is passed to every workload.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BatchRunner {
+
+	/**
+	 * Options of the batch runner itself, any other option is a simulation option (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"threads", "output", "expect"};
+
+	private static final String[] UNSUPPORTED = {"online", "resume", "checkpoint"};	//Options that only make sense for a single run of A3
+
+	private final List<Workload> workloads = new ArrayList<Workload>();
+	private final Map<String, Object> parsed = new HashMap<String, Object>();		//Cache key -> parsed Process, or the Exception parsing it threw
+
+	/**
+	 * One line of the manifest.
+	 */
+	private static class Workload {
+		private final String name;
+		private final String command;				//The line without its name, as it would be passed to A3
+		private final SimulationOptions options;	//BatchRunner options overridden by the line's options
+		private final List<String> inputs;			//F, Q and the input files (resolved against the manifest's folder)
+		private File expected;						//Expected output, or null
+		private final List<Process> processes = new ArrayList<Process>();
+		private final StringBuilder errors = new StringBuilder();	//Parse errors, printed before the results like A3 does
+
+		//Results
+		private String output;
+		private long millis;
+		private String check;						//PASS, FAIL (...) or null without --expect
+
+		Workload(String name, String command, SimulationOptions options, List<String> inputs) {
+			this.name = name;
+			this.command = command;
+			this.options = options;
+			this.inputs = inputs;
+		}
+	}
+
+	/**
+	 * Entry point of the batch runner.
+	 *
+	 * @param args - options followed by the manifest (see the usage above)
+	 *
+	 * @throws Exception if the manifest or the result file can't be read or written
+	 */
+	public static void main(String[] args) throws Exception {
+		SimulationOptions options = new SimulationOptions();
+		List<String> inputs;
+		try {
+			inputs = options.parse(args, OPTIONS);
+		} catch (IllegalArgumentException e) {
+			System.out.println("Error: " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+		if (inputs.size() != 1) {
+			System.out.println("Usage: java BatchRunner [options] manifest");
+			return;
+		}
+
+		long start = System.nanoTime();
+		BatchRunner batch = new BatchRunner();
+		try {
+			batch.readManifest(new File(inputs.get(0)), options);
+		} catch (IllegalArgumentException | IOException e) {
+			System.out.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+		batch.parseInputs();
+		long parsedAt = System.nanoTime();
+
+		int threads = Math.max(1, options.getInt("threads", Runtime.getRuntime().availableProcessors()));
+		batch.run(threads);
+		long finishedAt = System.nanoTime();
+
+		String output = options.getString("output", "batch-results.txt");
+		batch.writeResults(output);
+		if (!batch.printSummary(output, threads, (parsedAt - start) / 1000000, (finishedAt - start) / 1000000)) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Reads the workloads of a manifest.
+	 *
+	 * Postconditions: workloads holds one workload for each line of the manifest that isn't blank or a comment
+	 *
+	 * @param manifest - manifest file
+	 * @param options - options passed to every workload
+	 *
+	 * @throws IOException if the manifest can't be read
+	 * @throws IllegalArgumentException if a line is missing F and Q, or uses an option a batch can't run
+	 */
+	private void readManifest(File manifest, SimulationOptions options) throws IOException {
+		File folder = manifest.getAbsoluteFile().getParentFile();
+		int lineNumber = 0;
+		Set<String> names = new HashSet<String>();	//Names start the workloads' output file names, so they must differ
+		for (String line : Files.readAllLines(manifest.toPath())) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+
+			List<String> tokens = new ArrayList<String>(Arrays.asList(line.split("\\s+")));
+			String name = "line " + lineNumber;
+			if (tokens.get(0).endsWith(":")) {
+				name = tokens.remove(0);
+				name = name.substring(0, name.length() - 1);
+			}
+			if (!names.add(name)) {
+				throw new IllegalArgumentException("Line " + lineNumber + " of " + manifest + " reuses the workload name " + name);
+			}
+
+			SimulationOptions lineOptions = options.copy();
+			List<String> lineInputs;
+			try {
+				lineInputs = lineOptions.parse(tokens.toArray(new String[0]), "expect");
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Line " + lineNumber + " of " + manifest + ": " + e.getMessage());
+			}
+			if (lineInputs.size() < 2) {
+				throw new IllegalArgumentException("Line " + lineNumber + " of " + manifest + " needs F and Q");
+			}
+			for (String option : UNSUPPORTED) {
+				if (lineOptions.has(option)) {
+					throw new IllegalArgumentException("Line " + lineNumber + " of " + manifest + " uses --" + option + ", which a batch can't run");
+				}
+			}
+			for (int i = 2; i < lineInputs.size(); i++) {
+				lineInputs.set(i, resolve(folder, lineInputs.get(i)).getPath());
+			}
+
+			Workload workload = new Workload(name, String.join(" ", tokens), lineOptions, lineInputs);
+			if (lineOptions.has("expect")) {
+				workload.expected = resolve(folder, lineOptions.getString("expect", null));
+			}
+			workloads.add(workload);
+		}
+	}
+
+	private static File resolve(File folder, String path) {
+		File file = new File(path);
+		return file.isAbsolute() ? file : new File(folder, path);
+	}
+
+	/**
+	 * Parses the input files of every workload, parsing each file once.
+	 * Runs before the workloads start, on one thread, as parsing declares shared segments.
+	 *
+	 * Postconditions: Every workload has its processes, or the errors A3 would print for files that couldn't be parsed
+	 */
+	private void parseInputs() {
+		for (Workload workload : workloads) {
+			int processId = 1;
+			for (int i = 2; i < workload.inputs.size(); i++) {
+				File inputFile = new File(workload.inputs.get(i));
+				int id = processId++;
+
+				//The parsed process depends on the file, its position (process ID) and the options read while parsing
+				String key;
+				try {
+					key = inputFile.getCanonicalPath();
+				} catch (IOException e) {
+					key = inputFile.getAbsolutePath();
+				}
+				key += "|" + id + "|" + workload.options.getInt("max-pages", 50) + "|" + workload.options.isEnabled("compress-traces");
+
+				Object result = parsed.get(key);
+				if (result == null) {
+					try {
+						result = A3.parseProcessFile(inputFile, id, workload.options);
+					} catch (Exception e) {
+						result = e;
+					}
+					parsed.put(key, result);
+				}
+
+				if (result instanceof FileNotFoundException) {
+					workload.errors.append("Error: Input file not found").append(System.lineSeparator());
+				} else if (result instanceof Exception) {
+					workload.errors.append("Error: ").append(((Exception) result).getMessage()).append(System.lineSeparator());
+				} else {
+					workload.processes.add(fresh((Process) result));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates an unsimulated process with the pages of a parsed one. A compressed sequence is copied so each simulation has its own cursor.
+	 */
+	private static Process fresh(Process parsedProcess) {
+		PageSequence pages = parsedProcess.getPageSequence();
+		if (pages instanceof CompressedPageSequence) {
+			pages = ((CompressedPageSequence) pages).copy();
+		}
+		return parsedProcess.withPages(pages);
+	}
+
+	/**
+	 * Runs every workload, capturing what each one prints.
+	 *
+	 * Postconditions: Every workload has its output and, with --expect, its check
+	 *
+	 * @param threads - number of worker threads
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the workloads
+	 */
+	private void run(int threads) throws InterruptedException {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> running = new ArrayList<Future<?>>();
+			for (Workload workload : workloads) {
+				running.add(pool.submit(() -> runWorkload(workload)));
+			}
+			for (Future<?> future : running) {
+				try {
+					future.get();
+				} catch (ExecutionException e) { //runWorkload catches simulation errors, so only an Error gets here
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs one workload on the current thread, printing its results to its own buffer.
+	 * Files the workload writes are named "<workload name>-<usual name>" (characters that can't be in a file name become _).
+	 */
+	private void runWorkload(Workload workload) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+		String outputPrefix = workload.name.replaceAll("[^A-Za-z0-9._-]", "_") + "-";
+		long start = System.nanoTime();
+		try {
+			out.print(workload.errors);
+			int numFrames = Integer.parseInt(workload.inputs.get(0));
+			int quantum = Integer.parseInt(workload.inputs.get(1));
+			A3.simulate(workload.processes, numFrames, quantum, workload.options, out, outputPrefix);
+		} catch (RuntimeException e) { //Invalid F or Q, or options the simulation rejected
+			out.println("Error: " + e.getMessage());
+		} finally {
+			out.flush();
+		}
+		workload.millis = (System.nanoTime() - start) / 1000000;
+		workload.output = new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+
+		if (workload.expected != null) {
+			try {
+				workload.check = compare(new String(Files.readAllBytes(workload.expected.toPath()), StandardCharsets.UTF_8), workload.output);
+			} catch (IOException e) {
+				workload.check = "FAIL (can't read " + workload.expected + ")";
+			}
+		}
+	}
+
+	/**
+	 * Compares an output to the expected output, ignoring spacing and blank lines.
+	 *
+	 * @return "PASS", or "FAIL" with the first line that differs
+	 */
+	private static String compare(String expected, String actual) {
+		List<String> expectedLines = normalise(expected);
+		List<String> actualLines = normalise(actual);
+		for (int i = 0; i < Math.max(expectedLines.size(), actualLines.size()); i++) {
+			String want = i < expectedLines.size() ? expectedLines.get(i) : "<end of output>";
+			String got = i < actualLines.size() ? actualLines.get(i) : "<end of output>";
+			if (!want.equals(got)) {
+				return "FAIL (expected \"" + want + "\", got \"" + got + "\")";
+			}
+		}
+		return "PASS";
+	}
+
+	private static List<String> normalise(String text) {
+		List<String> lines = new ArrayList<String>();
+		for (String line : text.split("\\r?\\n")) {
+			line = line.trim().replaceAll("\\s+", " ");
+			if (!line.isEmpty()) {
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Writes the output of every workload to the result file, in manifest order.
+	 *
+	 * @param path - result file
+	 *
+	 * @throws IOException if the file can't be written
+	 */
+	private void writeResults(String path) throws IOException {
+		try (PrintWriter out = new PrintWriter(new File(path), "UTF-8")) {
+			for (Workload workload : workloads) {
+				out.println("=== " + workload.name + ": java A3 " + workload.command);
+				out.print(workload.output);
+				if (workload.check != null) {
+					out.println("Check: " + workload.check);
+				}
+				out.println();
+			}
+		}
+	}
+
+	/**
+	 * Prints the time taken by each workload and the checks.
+	 *
+	 * @return true if no workload failed its check
+	 */
+	private boolean printSummary(String output, int threads, long parseMillis, long totalMillis) {
+		System.out.printf("%-20s %-10s %s%n", "Workload", "Time (ms)", "Check");
+		int passed = 0;
+		int failed = 0;
+		for (Workload workload : workloads) {
+			System.out.printf("%-20s %-10d %s%n", workload.name, workload.millis, workload.check == null ? "-" : workload.check);
+			if (workload.check != null) {
+				if (workload.check.equals("PASS")) {
+					passed++;
+				} else {
+					failed++;
+				}
+			}
+		}
+		System.out.println(workloads.size() + " workloads on " + threads + " threads in " + totalMillis + " ms (" + parsed.size()
+				+ " input files parsed in " + parseMillis + " ms), " + passed + " passed, " + failed + " failed");
+		System.out.println("Results written to " + output);
+		return failed == 0;
+	}
+}
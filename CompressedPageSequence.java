@@ -0,0 +1,311 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Page sequence of a process read from an input file, stored compressed in one byte array (--compress-traces).
+ *
+ * Page traces have a lot of locality - the same page is often executed several times in a row and the next page is usually close to the last one.
+ * The pages are split into runs of the same page and each run is stored as two variable length numbers (7 bits per byte):
+ * 		- the difference from the page of the previous run, zig-zag encoded so small negative differences are also small numbers
+ * 		- the length of the run minus one
+ * A typical run takes 2 bytes, compared to a reference and (for pages over 127) a boxed Integer for every page in a list.
+ *
+ * The pages are read through a cursor that remembers the run it is in, so reading the pages in order decodes each run once and creates no objects.
+ * Every SYNC_INTERVAL runs the cursor state is saved, so reading an earlier position (e.g. a working set, or a process being run again)
+ * only decodes from the nearest saved state instead of from the start. The cursor makes this class unsafe to read from two threads at once,
+ * use copy() to give each reader its own cursor.
+ * A trace can be compressed as it is read with a Builder, which encodes each run once it ends, so the pages are never held uncompressed.
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+public class CompressedPageSequence implements PageSequence, Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+	private static final int SYNC_INTERVAL = 32;		//Runs between saved cursor states
+
+	private final byte[] DATA;					//Encoded runs
+	private final int SIZE;						//Number of pages
+	private final BitSet WRITES;				//Positions that write to their page, or null if the process never writes
+	private final int[] SYNC_POSITION;			//Saved cursor states - position of the first page of every SYNC_INTERVAL-th run
+	private final int[] SYNC_OFFSET;			//Offset in DATA of that run
+	private final int[] SYNC_PAGE;				//Page of the run before it (the base of its difference)
+
+	//Cursor - the run decoded last
+	private int runStart;						//Position of the run's first page
+	private int runEnd;							//Position after the run's last page
+	private int runPage;						//Page of the run
+	private int nextOffset;						//Offset in DATA of the next run
+	private int runNumber;						//Number of runs decoded since the start
+
+	/**
+	 * Builds a CompressedPageSequence one page at a time, so a trace can be compressed while it is read without holding all of its pages
+	 * in a list first. Runs are encoded as soon as the next run starts.
+	 */
+	public static class Builder {
+		private byte[] data = new byte[16];
+		private int length;						//Bytes of data used
+		private int[] syncPosition = new int[4];
+		private int[] syncOffset = new int[4];
+		private int[] syncPage = new int[4];
+		private int runs;						//Runs encoded so far
+		private int previous;					//Page of the last run encoded
+		private final BitSet writes = new BitSet();
+		private int size;						//Pages added
+		private int runStart;					//Position of the first page of the run not encoded yet
+		private int runPage;					//Page of that run
+
+		/**
+		 * Adds the next page of the trace.
+		 *
+		 * Preconditions: build() hasn't been called
+		 * Postconditions: The page is at position size() - 1 of the sequence being built
+		 *
+		 * @param page - page number
+		 * @param write - whether the instruction writes to its page
+		 */
+		public void add(int page, boolean write) {
+			if (size > runStart && page != runPage) {
+				encodeRun();
+			}
+			if (size == runStart) {
+				runPage = page;
+			}
+			if (write) {
+				writes.set(size);
+			}
+			size++;
+		}
+
+		/**
+		 * Retrieves the number of pages added so far.
+		 *
+		 * @return number of pages
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Encodes the run ending at the last page added.
+		 */
+		private void encodeRun() {
+			if (runs % SYNC_INTERVAL == 0) { //Save the cursor state before this run
+				int sync = runs / SYNC_INTERVAL;
+				if (sync == syncPosition.length) {
+					syncPosition = Arrays.copyOf(syncPosition, sync * 2);
+					syncOffset = Arrays.copyOf(syncOffset, sync * 2);
+					syncPage = Arrays.copyOf(syncPage, sync * 2);
+				}
+				syncPosition[sync] = runStart;
+				syncOffset[sync] = length;
+				syncPage[sync] = previous;
+			}
+
+			if (length + 20 > data.length) { //Two numbers of at most 10 bytes each
+				data = Arrays.copyOf(data, data.length * 2);
+			}
+			long delta = (long) runPage - previous;
+			length = writeNumber(data, length, (delta << 1) ^ (delta >> 63)); //Zig-zag: 0, -1, 1, -2, 2... become 0, 1, 2, 3, 4...
+			length = writeNumber(data, length, size - runStart - 1);
+
+			previous = runPage;
+			runStart = size;
+			runs++;
+		}
+
+		/**
+		 * Finishes the sequence.
+		 *
+		 * Preconditions: build() hasn't been called before
+		 * Postconditions: The builder can't be used any more
+		 *
+		 * @return a sequence of the pages added, with the cursor before the first page
+		 */
+		public CompressedPageSequence build() {
+			finish();
+			return new CompressedPageSequence(this);
+		}
+
+		/**
+		 * Encodes the last run, if any pages haven't been encoded yet.
+		 */
+		private void finish() {
+			if (size > runStart) {
+				encodeRun();
+			}
+		}
+	}
+
+	/**
+	 * Constructor for the CompressedPageSequence class.
+	 *
+	 * Preconditions: pages != null, writes != null
+	 * Postconditions: The sequence holds every page of the process, the cursor is before the first page
+	 *
+	 * @param pages - pages in the order they are executed
+	 * @param writes - positions in pages that write to their page
+	 */
+	public CompressedPageSequence(List<Integer> pages, BitSet writes) {
+		this(encode(pages, writes));
+	}
+
+	private static Builder encode(List<Integer> pages, BitSet writes) {
+		Builder builder = new Builder();
+		for (int i = 0; i < pages.size(); i++) {
+			builder.add(pages.get(i), writes.get(i));
+		}
+		builder.finish();
+		return builder;
+	}
+
+	private CompressedPageSequence(Builder builder) {
+		int syncs = (builder.runs + SYNC_INTERVAL - 1) / SYNC_INTERVAL;
+		this.DATA = Arrays.copyOf(builder.data, builder.length);
+		this.SIZE = builder.size;
+		this.WRITES = builder.writes.isEmpty() ? null : builder.writes;
+		this.SYNC_POSITION = Arrays.copyOf(builder.syncPosition, syncs);
+		this.SYNC_OFFSET = Arrays.copyOf(builder.syncOffset, syncs);
+		this.SYNC_PAGE = Arrays.copyOf(builder.syncPage, syncs);
+	}
+
+	/**
+	 * Creates a sequence sharing this one's encoded pages but with its own cursor, so the same pages can be read by two simulations running at once.
+	 *
+	 * @return a sequence of the same pages, with the cursor before the first page
+	 */
+	public CompressedPageSequence copy() {
+		return new CompressedPageSequence(this);
+	}
+
+	private CompressedPageSequence(CompressedPageSequence other) {
+		this.DATA = other.DATA;
+		this.SIZE = other.SIZE;
+		this.WRITES = other.WRITES;
+		this.SYNC_POSITION = other.SYNC_POSITION;
+		this.SYNC_OFFSET = other.SYNC_OFFSET;
+		this.SYNC_PAGE = other.SYNC_PAGE;
+	}
+
+	/**
+	 * Writes a non-negative number 7 bits per byte, lowest bits first. The top bit of a byte is set when more bytes follow.
+	 *
+	 * @return offset after the number
+	 */
+	private static int writeNumber(byte[] data, int offset, long value) {
+		while ((value & ~0x7FL) != 0) {
+			data[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		data[offset++] = (byte) value;
+		return offset;
+	}
+
+	/**
+	 * Decodes the next run into the cursor.
+	 */
+	private void decodeRun() {
+		long delta = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = DATA[nextOffset++];
+			delta |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+
+		int extra = 0;
+		shift = 0;
+		do {
+			b = DATA[nextOffset++];
+			extra |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+
+		runPage += (int) ((delta >>> 1) ^ -(delta & 1)); //Undo the zig-zag
+		runStart = runEnd;
+		runEnd = runStart + extra + 1;
+		runNumber++;
+	}
+
+	/**
+	 * Moves the cursor to the run holding a position.
+	 * Moving forward decodes the runs in between, unless the position is past the next saved cursor state. Moving back starts from the nearest saved state.
+	 */
+	private void seek(int position) {
+		if (position >= runStart && position < runEnd) {
+			return; //Still in the same run
+		}
+
+		int nextSync = runNumber / SYNC_INTERVAL + 1;
+		if (position < runStart || (nextSync < SYNC_POSITION.length && position >= SYNC_POSITION[nextSync])) {
+			int sync = findSync(position);
+			runStart = SYNC_POSITION[sync];
+			runEnd = SYNC_POSITION[sync];
+			runPage = SYNC_PAGE[sync];
+			nextOffset = SYNC_OFFSET[sync];
+			runNumber = sync * SYNC_INTERVAL;
+		}
+		while (position >= runEnd) {
+			decodeRun();
+		}
+	}
+
+	/**
+	 * Finds the last saved cursor state at or before a position.
+	 */
+	private int findSync(int position) {
+		int low = 0;
+		int high = SYNC_POSITION.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (SYNC_POSITION[middle] <= position) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	public boolean isAvailable(int position) {
+		return position < SIZE;
+	}
+
+	@Override
+	public boolean isEnded(int position) {
+		return position >= SIZE;
+	}
+
+	@Override
+	public int getPage(int position) {
+		seek(position);
+		return runPage;
+	}
+
+	@Override
+	public boolean isWrite(int position) {
+		return WRITES != null && WRITES.get(position);
+	}
+
+	@Override
+	public void consumed(int position) {
+		//Every page is kept so the process can be run again
+	}
+
+	@Override
+	public int size() {
+		return SIZE;
+	}
+
+	/**
+	 * Retrieves the size of the encoded pages, including the saved cursor states.
+	 *
+	 * @return number of bytes used
+	 */
+	public int getEncodedBytes() {
+		return DATA.length + 12 * SYNC_POSITION.length;
+	}
+}
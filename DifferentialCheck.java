@@ -0,0 +1,341 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Differential verification harness - runs the schedulers next to the reference simulator on randomly generated traces
+ * and checks that they produce exactly the same event sequence (see ReferenceSimulator and EventTrace).
+ *
+ * Every generated case is run with both fixed-local and variable-global replacement under each engine. An engine is a set of options that
+ * must not change the results (e.g. the multi-processor loop with one processor). When an engine's events differ from the reference the case
+ * is shrunk to a minimal reproducer: processes, pages, frames, the time quantum and page values are removed or reduced one at a time for as
+ * long as the difference remains. The reproducer is printed as input files and a command line.
+ *
+ * Usage:
+ * 		java DifferentialCheck [--seed=N] [--runs=N] [--engines=name,...] [--engine-options="--name=value ..."] [--repro-dir=dir]
+ *
+ * 		--seed				first random seed (default 1), case i uses seed + i so any case can be repeated
+ * 		--runs				number of generated cases (default 500)
+ * 		--engines			engines to check, from the list below (default all)
+ * 		--engine-options	also check an engine with these options
+ * 		--max-processes		largest number of processes in a case (default 5)
+ * 		--max-pages			largest number of pages in a process (default 30, at most 50 so the reproducer is a valid input file)
+ * 		--repro-dir			write the reproducer's input files to this directory
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class DifferentialCheck {
+
+	/**
+	 * Options of the differential check itself, any other option is a simulation option (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"seed", "runs", "max-processes", "engines", "engine-options", "repro-dir"};
+
+	/**
+	 * Engines checked against the reference, name -> options. None of these options may change the results.
+	 */
+	private static final Map<String, String> ENGINES = new LinkedHashMap<String, String>();
+	static {
+		ENGINES.put("single-cpu", "");			//The original simulation loop
+		ENGINES.put("tick", "--cpus=1");		//Multi-processor time unit loop with one processor
+		ENGINES.put("compressed", "--compress-traces");	//Pages read from a CompressedPageSequence
+		ENGINES.put("offheap", "--frame-table=offheap");	//Frame table in direct buffers (see OffHeapGlobalReplacementScheduler)
+	}
+
+	/**
+	 * One generated simulation: the processes' pages, F, Q and the replacement strategy.
+	 */
+	private static class TestCase {
+		final List<List<Integer>> traces;
+		final int frames;
+		final int quantum;
+		final boolean local;
+
+		TestCase(List<List<Integer>> traces, int frames, int quantum, boolean local) {
+			this.traces = traces;
+			this.frames = frames;
+			this.quantum = quantum;
+			this.local = local;
+		}
+
+		List<String> names() {
+			List<String> names = new ArrayList<String>();
+			for (int i = 1; i <= traces.size(); i++) {
+				names.add("P" + i);
+			}
+			return names;
+		}
+
+		TestCase withTraces(List<List<Integer>> newTraces) {
+			return new TestCase(newTraces, Math.max(frames, newTraces.size()), quantum, local);
+		}
+
+		TestCase withFrames(int newFrames) {
+			return new TestCase(traces, newFrames, quantum, local);
+		}
+
+		TestCase withQuantum(int newQuantum) {
+			return new TestCase(traces, frames, newQuantum, local);
+		}
+	}
+
+	/**
+	 * Main method for the differential check.
+	 *
+	 * Preconditions: args != null
+	 * Postconditions: Every case has been checked, a minimal reproducer has been printed for the first difference found
+	 *
+	 * @param args - options, see the class comment
+	 *
+	 * @throws IOException if the reproducer can't be written to --repro-dir
+	 */
+	public static void main(String[] args) throws IOException {
+		SimulationOptions options = new SimulationOptions();
+		try {
+			options.parse(args, OPTIONS);
+		} catch (IllegalArgumentException e) {
+			System.out.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+		long seed = options.getInt("seed", 1);
+		int runs = options.getInt("runs", 500);
+		int maxProcesses = Math.max(1, options.getInt("max-processes", 5));
+		int maxPages = Math.min(50, Math.max(1, options.getInt("max-pages", 30)));
+
+		Map<String, String> engines = new LinkedHashMap<String, String>();
+		for (String name : options.getString("engines", String.join(",", ENGINES.keySet())).split(",")) {
+			if (!ENGINES.containsKey(name.trim())) {
+				throw new IllegalArgumentException("Unknown engine \"" + name + "\", expected one of " + ENGINES.keySet());
+			}
+			engines.put(name.trim(), ENGINES.get(name.trim()));
+		}
+		if (options.has("engine-options")) {
+			engines.put("custom", options.getString("engine-options", ""));
+		}
+
+		for (int run = 0; run < runs; run++) {
+			Random random = new Random(seed + run);
+			List<List<Integer>> traces = generateTraces(random, maxProcesses, maxPages);
+			int frames = traces.size() + random.nextInt(3 * traces.size() + 1);
+			int quantum = 1 + random.nextInt(5);
+
+			for (boolean local : new boolean[] {true, false}) {
+				TestCase testCase = new TestCase(traces, frames, quantum, local);
+				for (Map.Entry<String, String> engine : engines.entrySet()) {
+					if (differs(testCase, engine.getValue())) {
+						System.out.println("Case " + (seed + run) + " (--seed=" + (seed + run) + " --runs=1) differs from the reference under engine \"" + engine.getKey() + "\"");
+						report(shrink(testCase, engine.getValue()), engine.getValue(), options.getString("repro-dir", null));
+						System.exit(1);
+					}
+				}
+			}
+		}
+		System.out.println(runs + " cases, " + engines.size() + " engines " + engines.keySet() + ", both strategies: every event sequence matches the reference");
+	}
+
+	/**
+	 * Generates the pages of a random set of processes. Pages follow a random walk over a small range so both hits and faults are common.
+	 */
+	private static List<List<Integer>> generateTraces(Random random, int maxProcesses, int maxPages) {
+		List<List<Integer>> traces = new ArrayList<List<Integer>>();
+		int numProcesses = 1 + random.nextInt(maxProcesses);
+		for (int i = 0; i < numProcesses; i++) {
+			int range = 1 + random.nextInt(10);
+			int page = random.nextInt(range);
+			List<Integer> trace = new ArrayList<Integer>();
+			for (int j = 1 + random.nextInt(maxPages); j > 0; j--) {
+				if (random.nextInt(3) == 0) {
+					page = random.nextInt(range); //Jump
+				} else {
+					page = Math.max(0, Math.min(range - 1, page + random.nextInt(3) - 1)); //Stay close to the last page
+				}
+				trace.add(page + 1);
+			}
+			traces.add(trace);
+		}
+		return traces;
+	}
+
+	/**
+	 * Runs a case under an engine and records its events.
+	 *
+	 * @param testCase - the case
+	 * @param engineOptions - options of the engine
+	 * @return the engine's events
+	 */
+	private static EventTrace runEngine(TestCase testCase, String engineOptions) {
+		SimulationOptions options = new SimulationOptions();
+		options.parse(engineOptions.trim().isEmpty() ? new String[0] : engineOptions.trim().split("\\s+"));
+
+		List<Process> processes = new ArrayList<Process>();
+		List<String> names = testCase.names();
+		for (int i = 0; i < testCase.traces.size(); i++) {
+			List<Integer> pages = new ArrayList<Integer>(testCase.traces.get(i));
+			PageSequence sequence = options.isEnabled("compress-traces") ? new CompressedPageSequence(pages, new BitSet()) : new ListPageSequence(pages, new BitSet());
+			processes.add(new Process(i + 1, names.get(i), sequence, new ArrayList<SharedSegment>()));
+		}
+
+		Scheduler scheduler = testCase.local
+				? new LocalReplacementScheduler(processes, testCase.frames, testCase.quantum, options)
+				: GlobalReplacementScheduler.create(processes, testCase.frames, testCase.quantum, options);
+		EventTrace events = new EventTrace();
+		scheduler.setEventTrace(events);
+		scheduler.runSimulation(processes);
+		return events;
+	}
+
+	/**
+	 * Checks whether an engine's events differ from the reference. An engine that throws an exception differs.
+	 */
+	private static boolean differs(TestCase testCase, String engineOptions) {
+		EventTrace expected = new ReferenceSimulator(testCase.names(), testCase.traces, testCase.frames, testCase.quantum, testCase.local).run();
+		try {
+			return expected.firstDifference(runEngine(testCase, engineOptions)) >= 0;
+		} catch (RuntimeException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Shrinks a failing case until no single reduction keeps it failing.
+	 *
+	 * Preconditions: differs(testCase, engineOptions)
+	 *
+	 * @param testCase - the failing case
+	 * @param engineOptions - options of the engine that fails
+	 * @return a smaller case that still fails
+	 */
+	private static TestCase shrink(TestCase testCase, String engineOptions) {
+		boolean reduced = true;
+		while (reduced) {
+			reduced = false;
+
+			//Remove whole processes
+			for (int i = 0; i < testCase.traces.size() && testCase.traces.size() > 1; i++) {
+				List<List<Integer>> traces = copyTraces(testCase.traces);
+				traces.remove(i);
+				TestCase smaller = testCase.withTraces(traces);
+				if (differs(smaller, engineOptions)) {
+					testCase = smaller;
+					reduced = true;
+					i--;
+				}
+			}
+
+			//Remove runs of pages, halving the run length down to single pages
+			for (int p = 0; p < testCase.traces.size(); p++) {
+				for (int chunk = testCase.traces.get(p).size() / 2; chunk >= 1; chunk /= 2) {
+					for (int start = 0; start + chunk <= testCase.traces.get(p).size() && testCase.traces.get(p).size() > chunk; ) {
+						List<List<Integer>> traces = copyTraces(testCase.traces);
+						traces.get(p).subList(start, start + chunk).clear();
+						TestCase smaller = testCase.withTraces(traces);
+						if (differs(smaller, engineOptions)) {
+							testCase = smaller;
+							reduced = true;
+						} else {
+							start += chunk;
+						}
+					}
+				}
+			}
+
+			//Fewer frames and a smaller quantum
+			for (int frames = testCase.traces.size(); frames < testCase.frames; frames++) {
+				if (differs(testCase.withFrames(frames), engineOptions)) {
+					testCase = testCase.withFrames(frames);
+					reduced = true;
+					break;
+				}
+			}
+			for (int quantum = 1; quantum < testCase.quantum; quantum++) {
+				if (differs(testCase.withQuantum(quantum), engineOptions)) {
+					testCase = testCase.withQuantum(quantum);
+					reduced = true;
+					break;
+				}
+			}
+
+			//Smaller page values - replace every use of a page with a lower page
+			for (int p = 0; p < testCase.traces.size(); p++) {
+				for (int page : new TreeSet<Integer>(testCase.traces.get(p))) {
+					for (int lower = 1; lower < page; lower++) {
+						int replacement = lower;
+						List<List<Integer>> traces = copyTraces(testCase.traces);
+						traces.get(p).replaceAll(value -> value == page ? replacement : value);
+						if (differs(testCase.withTraces(traces), engineOptions)) {
+							testCase = testCase.withTraces(traces);
+							reduced = true;
+							break;
+						}
+					}
+				}
+			}
+		}
+		return testCase;
+	}
+
+	private static List<List<Integer>> copyTraces(List<List<Integer>> traces) {
+		List<List<Integer>> copy = new ArrayList<List<Integer>>();
+		for (List<Integer> trace : traces) {
+			copy.add(new ArrayList<Integer>(trace));
+		}
+		return copy;
+	}
+
+	/**
+	 * Prints a reproducer: the input files, the command line and the first differing events of both simulations.
+	 *
+	 * @param testCase - the shrunk case
+	 * @param engineOptions - options of the engine that fails
+	 * @param reproDir - directory to write the input files to, or null to only print them
+	 *
+	 * @throws IOException if an input file can't be written
+	 */
+	private static void report(TestCase testCase, String engineOptions, String reproDir) throws IOException {
+		List<String> names = testCase.names();
+		StringBuilder command = new StringBuilder("java A3 " + (engineOptions.trim().isEmpty() ? "" : engineOptions.trim() + " ") + testCase.frames + " " + testCase.quantum);
+
+		System.out.println("Minimal reproducer (" + (testCase.local ? "Fixed-Local" : "Variable-Global") + " Replacement):");
+		for (int i = 0; i < testCase.traces.size(); i++) {
+			StringBuilder file = new StringBuilder("name: " + names.get(i) + ";");
+			for (int page : testCase.traces.get(i)) {
+				file.append(" page: ").append(page).append(";");
+			}
+			file.append(" end;");
+			System.out.println("    " + names.get(i) + ".txt: " + file);
+			command.append(" ").append(names.get(i)).append(".txt");
+
+			if (reproDir != null) {
+				File dir = new File(reproDir);
+				dir.mkdirs();
+				try (PrintWriter out = new PrintWriter(new File(dir, names.get(i) + ".txt"), "UTF-8")) {
+					out.println(file);
+				}
+			}
+		}
+		System.out.println("    " + command);
+
+		EventTrace expected = new ReferenceSimulator(names, testCase.traces, testCase.frames, testCase.quantum, testCase.local).run();
+		EventTrace actual;
+		try {
+			actual = runEngine(testCase, engineOptions);
+		} catch (RuntimeException e) {
+			System.out.println("The engine threw " + e);
+			return;
+		}
+		int first = expected.firstDifference(actual);
+		System.out.printf("First difference at event %d:%n", first);
+		System.out.printf("    %-40s %s%n", "Reference", "Engine");
+		for (int i = Math.max(0, first - 3); i <= first; i++) {
+			System.out.printf("  %s %-40s %s%n", i == first ? ">" : " ", expected.getEvent(i), actual.getEvent(i));
+		}
+	}
+}
@@ -0,0 +1,356 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Ensemble runner - runs both page replacement strategies on many seeded variants of a workload and reports the distribution of the results,
+ * so a difference between fixed-local and variable-global replacement can be told apart from the luck of one particular trace.
+ *
+ * Each variant is built from the input files with a fraction of the page references moved to a nearby page (or, without input files, from
+ * randomly generated traces). Variant i always uses seed + i, so the results don't depend on the number of threads.
+ * For each strategy the total faults and total turnaround time are summarised by their mean, standard deviation, a 95% confidence interval
+ * of the mean and percentiles. Both strategies run on the same variants, so their difference is also summarised per variant (a paired comparison).
+ *
+ * The variants are split into one block per task of a ForkJoinPool. A task runs its variants one after another, reusing its trace buffers.
+ *
+ * Usage:
+ * 		java EnsembleRunner [options] F Q [file1 file2 ...]
+ *
+ * 		--seed				seed of the first variant (default 1)
+ * 		--runs				number of variants (default 200)
+ * 		--threads			worker threads (default the number of available processors)
+ * 		--perturb			percentage of page references moved in each variant (default 10)
+ * 		--perturb-distance	largest distance a moved reference moves (default 2)
+ * 		--processes			processes in a generated workload, without input files (default 4)
+ * 		--pages				pages of each generated process (default 50)
+ * 		--page-range		distinct pages of each generated process (default 10)
+ * Any other option (e.g. --cpu-scheduler=mlfq) is passed to both strategies.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class EnsembleRunner {
+
+	/**
+	 * Options of the ensemble runner itself, any other option is a simulation option (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"runs", "seed", "threads", "processes", "pages", "page-range", "perturb", "perturb-distance"};
+
+	private static final String[] STRATEGIES = {"Fixed-Local", "Variable-Global"};
+	private static final double[] T_95 = {12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,	//Two-sided 95% Student t values, degrees of freedom 1-30
+			2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042};
+
+	private final List<Process> baseProcesses;		//Processes of the input files, empty for generated workloads
+	private final int[][] basePages;				//Pages of each input process, read once so the tasks never share a page sequence (see CompressedPageSequence)
+	private final BitSet[] baseWrites;				//Writing positions of each input process
+	private final int numFrames;					//F
+	private final int quantum;						//Q
+	private final SimulationOptions options;
+	private final long seed;
+	private final int perturb;						//Percentage of references moved
+	private final int perturbDistance;
+
+	//Results, index = variant
+	private final int[][] faults;					//[strategy][variant]
+	private final int[][] turnaround;				//[strategy][variant]
+
+	/**
+	 * Runs a block of variants, splitting it in two while it is larger than the threshold.
+	 */
+	private class VariantBlock extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int first;
+		private final int end;
+		private final int threshold;
+
+		VariantBlock(int first, int end, int threshold) {
+			this.first = first;
+			this.end = end;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - first > threshold) {
+				int middle = (first + end) >>> 1;
+				invokeAll(new VariantBlock(first, middle, threshold), new VariantBlock(middle, end, threshold));
+				return;
+			}
+			List<Integer> buffer = new ArrayList<Integer>();	//Reused for every trace of the block
+			for (int variant = first; variant < end; variant++) {
+				runVariant(variant, buffer);
+			}
+		}
+	}
+
+	/**
+	 * Constructor for the EnsembleRunner class.
+	 *
+	 * Preconditions: numFrames >= number of processes (generated or read), quantum > 0
+	 *
+	 * @param baseProcesses - processes read from the input files, or an empty list to generate workloads
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param options - ensemble and simulation options
+	 */
+	public EnsembleRunner(List<Process> baseProcesses, int numFrames, int quantum, SimulationOptions options) {
+		this.baseProcesses = baseProcesses;
+		this.numFrames = numFrames;
+		this.quantum = quantum;
+		this.options = options;
+		this.seed = options.getInt("seed", 1);
+		this.perturb = options.getInt("perturb", 10);
+		this.perturbDistance = Math.max(1, options.getInt("perturb-distance", 2));
+
+		basePages = new int[baseProcesses.size()][];
+		baseWrites = new BitSet[baseProcesses.size()];
+		for (int i = 0; i < baseProcesses.size(); i++) {
+			PageSequence sequence = baseProcesses.get(i).getPageSequence();
+			basePages[i] = new int[sequence.size()];
+			baseWrites[i] = new BitSet();
+			for (int position = 0; position < sequence.size(); position++) {
+				basePages[i][position] = sequence.getPage(position);
+				baseWrites[i].set(position, sequence.isWrite(position));
+			}
+		}
+
+		int runs = Math.max(1, options.getInt("runs", 200));
+		faults = new int[STRATEGIES.length][runs];
+		turnaround = new int[STRATEGIES.length][runs];
+	}
+
+	/**
+	 * Entry point of the ensemble runner.
+	 *
+	 * @param args - options followed by F, Q and the input files (see the usage above)
+	 *
+	 * @throws Exception if an input file can't be read
+	 */
+	public static void main(String[] args) throws Exception {
+		SimulationOptions options = new SimulationOptions();
+		List<String> inputs;
+		try {
+			inputs = options.parse(args, OPTIONS);
+		} catch (IllegalArgumentException e) {
+			System.out.println("Error: " + e.getMessage());
+			return;
+		}
+		if (inputs.size() < 2) {
+			System.out.println("Usage: java EnsembleRunner [options] F Q [file1 file2 ...]");
+			return;
+		}
+
+		List<Process> processes = new ArrayList<Process>();
+		for (int i = 2; i < inputs.size(); i++) {
+			processes.add(A3.parseProcessFile(new File(inputs.get(i)), i - 1, options));
+		}
+
+		EnsembleRunner ensemble = new EnsembleRunner(processes, Integer.parseInt(inputs.get(0)), Integer.parseInt(inputs.get(1)), options);
+		int threads = Math.max(1, options.getInt("threads", Runtime.getRuntime().availableProcessors()));
+		long start = System.nanoTime();
+		ensemble.run(threads);
+		ensemble.printReport(threads, (System.nanoTime() - start) / 1e9);
+	}
+
+	/**
+	 * Runs every variant with both strategies.
+	 *
+	 * Postconditions: The results of every variant are recorded
+	 *
+	 * @param threads - number of worker threads
+	 */
+	public void run(int threads) {
+		int runs = faults[0].length;
+		int threshold = Math.max(1, runs / (threads * 4)); //A few blocks per thread so threads that finish early can take more work
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.invoke(new VariantBlock(0, runs, threshold));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Builds one variant of the workload and runs it with both strategies.
+	 *
+	 * @param variant - variant number
+	 * @param buffer - reusable list for building traces
+	 */
+	private void runVariant(int variant, List<Integer> buffer) {
+		Random random = new Random(seed + variant);
+		List<Process> processes = new ArrayList<Process>();
+		if (baseProcesses.isEmpty()) {
+			int numProcesses = Math.max(1, options.getInt("processes", 4));
+			for (int i = 0; i < numProcesses; i++) {
+				processes.add(new Process(i + 1, "P" + (i + 1), copyOf(generateTrace(random, buffer), new BitSet()), new ArrayList<SharedSegment>()));
+			}
+		} else {
+			for (int i = 0; i < baseProcesses.size(); i++) {
+				processes.add(baseProcesses.get(i).withPages(copyOf(perturbTrace(random, basePages[i], buffer), baseWrites[i])));
+			}
+		}
+		for (Process p : processes) {
+			p.setKeepFaultTimes(false); //Only the totals are needed
+		}
+
+		//Both strategies run the same processes, the global scheduler resets them first (as in A3)
+		Scheduler local = new LocalReplacementScheduler(processes, numFrames, quantum, options);
+		local.runSimulation(processes);
+		faults[0][variant] = local.getTotalFaults(processes);
+		turnaround[0][variant] = local.getTotalTurnaround(processes);
+
+		Scheduler global = GlobalReplacementScheduler.create(processes, numFrames, quantum, options);
+		global.runSimulation(processes);
+		faults[1][variant] = global.getTotalFaults(processes);
+		turnaround[1][variant] = global.getTotalTurnaround(processes);
+	}
+
+	/**
+	 * Copies a trace out of the reusable buffer into the page sequence a process reads.
+	 */
+	private PageSequence copyOf(List<Integer> buffer, BitSet writes) {
+		List<Integer> pages = new ArrayList<Integer>(buffer);
+		return options.isEnabled("compress-traces") ? new CompressedPageSequence(pages, writes) : new ListPageSequence(pages, writes);
+	}
+
+	/**
+	 * Moves --perturb percent of the references of an input trace by at most --perturb-distance pages (never below page 0).
+	 */
+	private List<Integer> perturbTrace(Random random, int[] pages, List<Integer> buffer) {
+		buffer.clear();
+		for (int page : pages) {
+			if (random.nextInt(100) < perturb) {
+				int move = 1 + random.nextInt(perturbDistance);
+				page = Math.max(0, random.nextBoolean() ? page + move : page - move);
+			}
+			buffer.add(page);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Generates a trace that walks over a small range of pages, jumping to a random page a third of the time.
+	 */
+	private List<Integer> generateTrace(Random random, List<Integer> buffer) {
+		int range = Math.max(1, options.getInt("page-range", 10));
+		int page = random.nextInt(range);
+		buffer.clear();
+		for (int j = Math.max(1, options.getInt("pages", 50)); j > 0; j--) {
+			if (random.nextInt(3) == 0) {
+				page = random.nextInt(range); //Jump
+			} else {
+				page = Math.max(0, Math.min(range - 1, page + random.nextInt(3) - 1)); //Stay close to the last page
+			}
+			buffer.add(page + 1);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Prints the summary of each metric for both strategies, and of the per-variant difference between them.
+	 *
+	 * @param threads - number of worker threads used
+	 * @param seconds - time taken by run()
+	 */
+	public void printReport(int threads, double seconds) {
+		int runs = faults[0].length;
+		System.out.println("Ensemble of " + runs + " variants (seeds " + seed + "-" + (seed + runs - 1) + ", "
+				+ (baseProcesses.isEmpty() ? "generated workloads" : perturb + "% of references perturbed") + "), " + threads + " threads, "
+				+ String.format("%.2f", seconds) + "s");
+		System.out.printf("%-18s %-16s %-10s %-10s %-21s %-8s %-8s %s%n", "Metric", "Strategy", "Mean", "Std Dev", "95% CI", "P5", "P50", "P95");
+		printMetric("Total faults", faults);
+		printMetric("Total turnaround", turnaround);
+
+		System.out.println("------------------------------------------------------------");
+		System.out.println("Paired difference (" + STRATEGIES[1] + " - " + STRATEGIES[0] + "):");
+		System.out.printf("%-18s %-10s %-21s %-22s %s%n", "Metric", "Mean", "95% CI", STRATEGIES[1] + " Lower", "Significant");
+		printDifference("Total faults", faults);
+		printDifference("Total turnaround", turnaround);
+	}
+
+	private void printMetric(String metric, int[][] results) {
+		for (int strategy = 0; strategy < STRATEGIES.length; strategy++) {
+			double[] values = toDoubles(results[strategy]);
+			double[] interval = confidenceInterval(values);
+			Arrays.sort(values);
+			System.out.printf("%-18s %-16s %-10.2f %-10.2f %-21s %-8.0f %-8.0f %.0f%n", metric, STRATEGIES[strategy], mean(values), standardDeviation(values),
+					String.format("[%.2f, %.2f]", interval[0], interval[1]), percentile(values, 5), percentile(values, 50), percentile(values, 95));
+		}
+	}
+
+	private void printDifference(String metric, int[][] results) {
+		double[] difference = new double[results[0].length];
+		int lower = 0;
+		for (int variant = 0; variant < difference.length; variant++) {
+			difference[variant] = results[1][variant] - results[0][variant];
+			if (difference[variant] < 0) {
+				lower++;
+			}
+		}
+		double[] interval = confidenceInterval(difference);
+		boolean significant = interval[0] > 0 || interval[1] < 0; //The interval doesn't contain 0
+		System.out.printf("%-18s %-10.2f %-21s %-22s %s%n", metric, mean(difference), String.format("[%.2f, %.2f]", interval[0], interval[1]),
+				String.format("%.1f%%", 100.0 * lower / difference.length), significant ? "yes" : "no");
+	}
+
+	//---Statistics---
+
+	private static double[] toDoubles(int[] values) {
+		double[] result = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			result[i] = values[i];
+		}
+		return result;
+	}
+
+	private static double mean(double[] values) {
+		double sum = 0;
+		for (double value : values) {
+			sum += value;
+		}
+		return sum / values.length;
+	}
+
+	/**
+	 * Sample standard deviation (0 for a single value).
+	 */
+	private static double standardDeviation(double[] values) {
+		if (values.length < 2) {
+			return 0;
+		}
+		double mean = mean(values);
+		double squares = 0;
+		for (double value : values) {
+			squares += (value - mean) * (value - mean);
+		}
+		return Math.sqrt(squares / (values.length - 1));
+	}
+
+	/**
+	 * 95% confidence interval of the mean, using the Student t distribution (the normal distribution above 30 degrees of freedom).
+	 *
+	 * @return {lower, upper}
+	 */
+	private static double[] confidenceInterval(double[] values) {
+		double mean = mean(values);
+		int freedom = values.length - 1;
+		double t = freedom < 1 ? 0 : freedom <= T_95.length ? T_95[freedom - 1] : 1.96;
+		double margin = t * standardDeviation(values) / Math.sqrt(values.length);
+		return new double[] {mean - margin, mean + margin};
+	}
+
+	/**
+	 * Nearest-rank percentile.
+	 *
+	 * Preconditions: sorted is in ascending order
+	 */
+	private static double percentile(double[] sorted, int percent) {
+		int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+}
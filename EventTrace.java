@@ -0,0 +1,89 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Ordered record of everything that happens in a simulation, used to compare two simulations event by event (see DifferentialCheck).
+ *
+ * Events are recorded in the order they happen:
+ * 		dispatch	a process starts using a processor
+ * 		fault		a process issues a page fault for its next page
+ * 		load		a page arrives in main memory
+ * 		evict		a page is replaced to make room for another
+ * 		finish		a process has executed all of its pages
+ * Two simulations with the same event sequence made every scheduling and memory decision at the same time, in the same order.
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventTrace implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	public static final String DISPATCH = "dispatch";
+	public static final String FAULT = "fault";
+	public static final String LOAD = "load";
+	public static final String EVICT = "evict";
+	public static final String FINISH = "finish";
+
+	private final List<String> events = new ArrayList<String>();	//Events in the order they happened
+
+	/**
+	 * Records an event involving one of a process' pages.
+	 *
+	 * @param time - simulation time of the event
+	 * @param type - event type (e.g. FAULT)
+	 * @param processName - name of the process the page belongs to
+	 * @param page - page value
+	 */
+	public void record(int time, String type, String processName, int page) {
+		events.add("t=" + time + " " + type + " " + processName + " page " + page);
+	}
+
+	/**
+	 * Records an event involving a process (dispatch or finish).
+	 *
+	 * @param time - simulation time of the event
+	 * @param type - event type (e.g. FINISH)
+	 * @param processName - name of the process
+	 */
+	public void record(int time, String type, String processName) {
+		events.add("t=" + time + " " + type + " " + processName);
+	}
+
+	/**
+	 * Finds the first event at which two traces differ.
+	 *
+	 * @param other - trace to compare with
+	 * @return index of the first differing event, or -1 if the traces are identical
+	 */
+	public int firstDifference(EventTrace other) {
+		int common = Math.min(events.size(), other.events.size());
+		for (int i = 0; i < common; i++) {
+			if (!events.get(i).equals(other.events.get(i))) {
+				return i;
+			}
+		}
+		return events.size() == other.events.size() ? -1 : common;
+	}
+
+	//---Getters---
+
+	/**
+	 * Retrieves the recorded events.
+	 *
+	 * @return events in the order they happened
+	 */
+	public List<String> getEvents() {
+		return events;
+	}
+
+	/**
+	 * Retrieves one event, or a marker past the end of the trace.
+	 *
+	 * @param index - event number
+	 * @return the event, or "(end of trace)"
+	 */
+	public String getEvent(int index) {
+		return index < events.size() ? events.get(index) : "(end of trace)";
+	}
+}
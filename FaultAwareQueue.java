@@ -0,0 +1,166 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Fault-aware ready queue - favours processes whose working set is resident in main memory, so the CPU is given to processes that
+ * can run without faulting while the pages of the others are being loaded.
+ *
+ * A process' working set is the distinct pages of its last --ws-window references (default Q) plus the page it will execute next.
+ * When a process is dispatched the ready process with the largest fraction of its working set in main memory runs first,
+ * processes with the same fraction are dispatched in the order they became ready.
+ * A process that has been passed over --fault-aware-patience times (default 4) is dispatched before any other, so no process starves.
+ * The order is worked out once per dispatch decision and reused by every look at the queue until the next dispatch or until a process
+ * joins or leaves it, since main memory only changes while a process runs or when a page it faulted on arrives.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+public class FaultAwareQueue extends ReadyQueue {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"fault-aware-patience", "ws-window"};
+
+	private final LinkedList<Process> queue = new LinkedList<Process>();	//Ready processes in the order they became ready
+	private final Map<Process, Integer> passedOver = new HashMap<Process, Integer>();	//Process -> number of dispatches it has waited through
+	private final Scheduler memory;						//Page replacement scheduler, used to check which pages are in main memory
+	private final int WINDOW;							//Number of recent references in a working set
+	private final int PATIENCE;							//Dispatches a process can be passed over before it is run regardless of its working set
+	private transient List<Process> order;				//Ready processes in dispatch order, null when it has to be worked out again
+
+	/**
+	 * Constructor for the FaultAwareQueue class.
+	 *
+	 * Preconditions: quantum > 0, options != null, memory != null
+	 *
+	 * @param quantum - time quantum (Q)
+	 * @param options - simulation options
+	 * @param memory - page replacement scheduler holding main memory
+	 *
+	 * @throws IllegalArgumentException if a setting is invalid
+	 */
+	public FaultAwareQueue(int quantum, SimulationOptions options, Scheduler memory) {
+		super(quantum);
+		this.memory = memory;
+		this.WINDOW = options.getInt("ws-window", quantum);
+		this.PATIENCE = options.getInt("fault-aware-patience", 4);
+		if (WINDOW < 0 || PATIENCE < 1) {
+			throw new IllegalArgumentException("Option --ws-window can't be negative and --fault-aware-patience must be at least 1");
+		}
+	}
+
+	@Override
+	public void dispatched(Process p, int currentTime) {
+		passedOver.remove(p);
+		for (Process waiting : queue) {
+			passedOver.merge(waiting, 1, Integer::sum);
+		}
+		order = null; //The dispatched process will change main memory as it runs
+	}
+
+	@Override
+	public void quantumExpired(Process p) {
+		order = null;
+	}
+
+	@Override
+	public void processFinished(Process p) {
+		passedOver.remove(p);
+		order = null; //Its frames are released
+	}
+
+	/**
+	 * Writes the ready processes in the order they became ready, not dispatch order, and how often each has been passed over.
+	 */
+	@Override
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		out.writeProcesses(queue);
+		out.writeInt(passedOver.size());
+		for (Map.Entry<Process, Integer> entry : passedOver.entrySet()) {
+			out.writeProcess(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+	}
+
+	@Override
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		queue.clear();
+		in.readProcesses(queue);
+		passedOver.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			passedOver.put(in.readProcess(), in.readInt());
+		}
+		order = null;
+	}
+
+	@Override
+	public boolean offer(Process p) {
+		order = null; //A process joins after its page arrives, which may have replaced a page of another
+		return queue.add(p);
+	}
+
+	/**
+	 * Works out the dispatch order: processes that have run out of patience, then by resident fraction (largest first).
+	 * Each process' resident fraction is calculated once.
+	 */
+	private List<Process> dispatchOrder() {
+		if (order == null) {
+			Map<Process, Double> fraction = new HashMap<Process, Double>();
+			for (Process p : queue) {
+				fraction.put(p, residentFraction(p, WINDOW, memory));
+			}
+
+			order = new ArrayList<Process>(queue);
+			order.sort(Comparator.comparing((Process p) -> passedOver.getOrDefault(p, 0) < PATIENCE) 		//Out of patience first (false sorts before true)
+					.thenComparing(p -> -fraction.get(p)));											//List.sort is stable, equal processes keep their queue order
+		}
+		return order;
+	}
+
+	/**
+	 * Iterates the ready processes in dispatch order (see dispatchOrder()).
+	 * Removing a process through the iterator removes it from the queue, the order of the others is kept.
+	 */
+	@Override
+	public Iterator<Process> iterator() {
+		Iterator<Process> ordered = dispatchOrder().iterator();
+		return new Iterator<Process>() {
+			private Process lastReturned;						//Process returned by the last call to next()
+
+			@Override
+			public boolean hasNext() {
+				return ordered.hasNext();
+			}
+
+			@Override
+			public Process next() {
+				lastReturned = ordered.next();
+				return lastReturned;
+			}
+
+			@Override
+			public void remove() {
+				ordered.remove();
+				queue.remove(lastReturned);
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	@Override
+	public String getName() {
+		return "Fault-aware";
+	}
+}
@@ -1,158 +1,413 @@
-/*
- * Author: Amanda Foxley c3137540
- * Created: 27/09/25
- * COMP2240 Assignment 3
- * 
- * Represents a single frame in main memory.
- * Each frame can hold one page from a specific process. If a page is stored in the frame it will also store the process object that owns the page data.
- * 
- * Frames are stored in a data structure that is used to represent main memory for this simulation.
- * 		- LocalReplacementScheduler uses a list of frames
- *      - GlobalReplacementScheduler uses a queue of frames
- */
- 
-public class Frame {
-	private Process frameOwner;		//Process object that "owns" the page data in this frame
-    private int pageValue;			//Value of the page stored in this frame
-    private boolean empty;			//Flag that indicates whether this frame is holding a page or not
-    private int frameLoadTime;		//Time a page has been added to this frame
-
-    /**
-     * Constructor for the frame class.
-     * Initialises this frame as empty.
-     *
-     * Preconditions: none
-     * Postconditions: Frame is marked as empty with default placeholder values (-1)
-     */
-    public Frame() {
-        clearPageFromFrame();
-    }
-
-    /**
-     * Checks whether the frame is currently empty (not holding a page).
-     *
-     * @return true if the frame is empty; false otherwise
-     */
-    public boolean isFree() {
-        return empty;
-    }
-
-    /**
-     * Loads a page into this frame and assigns ownership to a process.
-     *
-     * Preconditions: - p is not null
-     *   			  - page >= 0 — must be a valid page number
-     *   			  - currentTime >= 0 — simulation time must be non-negative
-     *   
-     * Postconditions: - The frame is marked as occupied
-     *   			   - Process, page value, and load time are updated
-     *
-     * @param p process owning the page value
-     * @param page the page value to store
-     * @param currentTime the current simulation time when the page is loaded
-     */
-    public void addPageToFrame(Process p, int page, int currentTime) {
-    	this.frameOwner = p;
-        this.pageValue = page;
-        this.frameLoadTime = currentTime; //Store when the page was loaded into this frame
-        this.empty = false;
-    }
-
-    /**
-     * Clears this frame and resets it to an empty state.
-     *
-     * Preconditions: none
-     * Postconditions:	- The frame no longer holds any page data
-	 * 				  	- All values are reset to defaults (-1 or 0)
-     *   				- The frame is marked as free
-     */
-    public void clearPageFromFrame() {
-        this.frameOwner = null;  
-        this.pageValue = -1;	// -1 means empty
-        this.frameLoadTime = 0;
-        this.empty = true;
-    }
-
-    /**
-     * Retrieves the process object of the process currently owning this frame.
-     *
-     * @return process or null if the frame is empty
-     */
-    public Process getOwnerProcess() {
-        return frameOwner;
-    }
-    
-    /**
-     * Retrieves the ID of the process currently owning this frame.
-     *
-     * @return process ID, or -1 if the frame is free
-     */
-    public int getOwnerProcessID() {
-        return frameOwner.getProcessID();
-    }
-
-    /**
-     * Retrieves the page value currently stored in this frame.
-     *
-     * @return page value, or -1 if the frame is free
-     */
-    public int getPageValue() {
-        return pageValue;
-    }
-    
-    /**
-     * Retrieves the simulation time when the page was loaded into this frame.
-     *
-     * @return frame load time, or 0 if the frame is empty
-     */
-    public int getFrameLoadTime() {
-        return frameLoadTime;
-    }
-    
-    /**
-     * Determines whether this frame contains a specific page from a specific process.
-     *
-     * Preconditions:  p is not null and page >= 0
-     * Postconditions: none
-     *
-     * @param process owner to check for a matching ID
-     * @param the page value to check
-     * @return true if this frame holds the specified page from the given process;
-     *         false otherwise
-     */
-    public boolean checkPageInMemory(Process p, int page) {
-    	if(empty) {
-    		return false; //The frame is empty and doesn't contain the required page
-    	}else {
-    		//Not empty check for matching page value and ID's
-    		return this.frameOwner.getProcessID() == p.getProcessID() && this.pageValue == page;
-    	}
-    }
-    
-    /**
-     * Copies the contents of another frame into this frame.
-     * This method is used during frame replacement operations.
-     *
-     * Preconditions:	other != null
-     * Postconditions: This frame now contains the same data as other
-     *   			   This frame is marked as occupied
-     *
-     * @param the frame whose data will be copied into this frame
-     */
-    public void copyFrom(Frame other) {
-        this.frameOwner = other.frameOwner;
-        this.pageValue = other.pageValue;
-        this.frameLoadTime = other.frameLoadTime;
-        this.empty = false;
-    }
-    
-    /**
-     * Returns a string representation of the frame. Used to nicely display a frame for testing.
-     *
-     * @return formatted string containing process ID, page value, and load time
-     */
-    @Override
-    public String toString() {
-        return "Frame{ processOwner= " + frameOwner.getProcessID() + " value= " + pageValue + " time= " + frameLoadTime+"}";
-    }
-}
+/*
+ * Author: Amanda Foxley c3137540
+ * Created: 27/09/25
+ * COMP2240 Assignment 3
+ * 
+ * Represents a single frame in main memory.
+ * Each frame can hold one page from a specific process. If a page is stored in the frame it will also store the process object that owns the page data.
+ * A frame can also hold a page of a shared segment, which every process mapping that segment can use. The frame keeps a list of the processes
+ * mapping it (its reference count) and only becomes free once the last of them has released it.
+ * 
+ * Frames are stored in a data structure that is used to represent main memory for this simulation.
+ * 		- LocalReplacementScheduler uses a list of frames
+ *      - GlobalReplacementScheduler uses a queue of frames
+ */
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Frame implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+	private Process frameOwner;		//Process object that "owns" the page data in this frame
+    private int pageValue;			//Value of the page stored in this frame
+    private boolean empty;			//Flag that indicates whether this frame is holding a page or not
+    private int frameLoadTime;		//Time a page has been added to this frame
+    private SharedSegment sharedSegment;			//Shared segment the page belongs to, or null for a private page
+    private int segmentOffset;						//Page of the shared segment stored in this frame
+    private List<Process> mappers = new ArrayList<Process>();	//Processes mapping this frame's shared page - the frame's reference count
+    private boolean hugePage;		//Flag that indicates the page is part of a huge page (a run of contiguous frames loaded together)
+    private boolean referenced;		//Flag that indicates the page has been accessed since it was loaded
+    private int node;				//NUMA node holding this frame, 0 without --numa-nodes (see NumaTopology). Belongs to the frame, not the page
+
+    /**
+     * Constructor for the frame class.
+     * Initialises this frame as empty.
+     *
+     * Preconditions: none
+     * Postconditions: Frame is marked as empty with default placeholder values (-1)
+     */
+    public Frame() {
+        clearPageFromFrame();
+    }
+
+    /**
+     * Checks whether the frame is currently empty (not holding a page).
+     *
+     * @return true if the frame is empty; false otherwise
+     */
+    public boolean isFree() {
+        return empty;
+    }
+
+    /**
+     * Loads a page into this frame and assigns ownership to a process.
+     *
+     * Preconditions: - p is not null
+     *   			  - page >= 0 — must be a valid page number
+     *   			  - currentTime >= 0 — simulation time must be non-negative
+     *   
+     * Postconditions: - The frame is marked as occupied
+     *   			   - Process, page value, and load time are updated
+     *
+     * @param p process owning the page value
+     * @param page the page value to store
+     * @param currentTime the current simulation time when the page is loaded
+     */
+    public void addPageToFrame(Process p, int page, int currentTime) {
+    	this.frameOwner = p;
+        this.pageValue = page;
+        this.frameLoadTime = currentTime; //Store when the page was loaded into this frame
+        this.empty = false;
+        this.hugePage = false;
+        this.referenced = false;
+
+        //Shared pages are stored as a page of their segment so any process mapping the segment can find them
+        this.sharedSegment = p.getSharedSegment(page);
+        this.segmentOffset = sharedSegment != null ? sharedSegment.offsetOf(page) : -1;
+        this.mappers = new ArrayList<Process>();
+        if (sharedSegment != null) {
+        	mappers.add(p);
+        }
+    }
+
+    /**
+     * Clears this frame and resets it to an empty state.
+     *
+     * Preconditions: none
+     * Postconditions:	- The frame no longer holds any page data
+	 * 				  	- All values are reset to defaults (-1 or 0)
+     *   				- The frame is marked as free
+     */
+    public void clearPageFromFrame() {
+        this.frameOwner = null;  
+        this.pageValue = -1;	// -1 means empty
+        this.frameLoadTime = 0;
+        this.empty = true;
+        this.sharedSegment = null;
+        this.segmentOffset = -1;
+        this.mappers = new ArrayList<Process>();
+        this.hugePage = false;
+        this.referenced = false;
+    }
+
+    /**
+     * Marks the page held by this frame as part of a huge page.
+     *
+     * Preconditions: !isFree()
+     * Postconditions: isHugePage() returns true until the frame is cleared
+     */
+    public void markHugePage() {
+    	this.hugePage = true;
+    }
+
+    /**
+     * Checks whether the page held by this frame is part of a huge page.
+     *
+     * @return true if the frame is one of the contiguous frames of a huge page
+     */
+    public boolean isHugePage() {
+    	return hugePage;
+    }
+
+    /**
+     * Records that the page held by this frame has been accessed.
+     */
+    public void markReferenced() {
+    	this.referenced = true;
+    }
+
+    /**
+     * Checks whether the page held by this frame has been accessed since it was loaded.
+     *
+     * @return true if the page has been accessed, false otherwise
+     */
+    public boolean isReferenced() {
+    	return referenced;
+    }
+
+    /**
+     * Checks whether this frame holds a page of a shared segment.
+     *
+     * @return true if the page is shared, false if it is private or the frame is empty
+     */
+    public boolean isShared() {
+    	return !empty && sharedSegment != null;
+    }
+
+    /**
+     * Retrieves the number of processes mapping this frame's shared page.
+     *
+     * @return reference count, or 0 for a private page
+     */
+    public int getReferenceCount() {
+    	return mappers.size();
+    }
+
+    /**
+     * Checks whether a process already maps this frame's shared page.
+     *
+     * @param p process to check
+     * @return true if p is one of the processes mapping this frame
+     */
+    public boolean isMappedBy(Process p) {
+    	for (Process mapper : mappers) {
+    		if (mapper.getProcessID() == p.getProcessID()) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    /**
+     * Adds a process to the processes mapping this frame's shared page.
+     *
+     * Preconditions: isShared() and !isMappedBy(p)
+     * Postconditions: The reference count has increased by one
+     *
+     * @param p process mapping the page
+     */
+    public void mapProcess(Process p) {
+    	mappers.add(p);
+    }
+
+    /**
+     * Removes a process from the processes mapping this frame's shared page (e.g. it has made a private copy).
+     *
+     * Preconditions: isMappedBy(p)
+     * Postconditions: The reference count has decreased by one
+     *
+     * @param p process no longer mapping the page
+     */
+    public void unmapProcess(Process p) {
+    	mappers.removeIf(mapper -> mapper.getProcessID() == p.getProcessID());
+    }
+
+    /**
+     * Turns the shared page held by this frame into a private page of a process.
+     * Used when the only process mapping a shared page writes to it, no copy is needed.
+     *
+     * Preconditions: getReferenceCount() == 1 and isMappedBy(p)
+     * Postconditions: The frame holds a private page owned by p
+     *
+     * @param p process that now owns the page
+     * @param page the process' page value
+     */
+    public void makePrivate(Process p, int page) {
+    	this.frameOwner = p;
+    	this.pageValue = page;
+    	this.sharedSegment = null;
+    	this.segmentOffset = -1;
+    	this.mappers = new ArrayList<Process>();
+    }
+
+    /**
+     * Releases this frame from a finished process.
+     * A private page owned by the process is cleared. A shared page is only cleared once no process maps it any more.
+     *
+     * Preconditions: p is not null
+     * Postconditions: The frame no longer holds anything for p
+     *
+     * @param p the finished process
+     * @return true if the frame has been cleared, false otherwise
+     */
+    public boolean releaseProcess(Process p) {
+    	if (empty) {
+    		return false;
+    	}
+
+    	if (sharedSegment != null) {
+    		unmapProcess(p);
+    		if (!mappers.isEmpty()) {
+    			return false; //Still used by another process
+    		}
+    	} else if (frameOwner.getProcessID() != p.getProcessID()) {
+    		return false; //Private page of another process
+    	}
+    	clearPageFromFrame();
+    	return true;
+    }
+
+    /**
+     * Builds the key identifying this frame's page in the memory hierarchy (see Process.pageKey()).
+     *
+     * Preconditions: !isFree()
+     *
+     * @return key of the page held by this frame
+     */
+    public long getPageKey() {
+    	return sharedSegment != null ? sharedSegment.segmentPageKey(segmentOffset) : PageCache.pageKey(frameOwner.getProcessID(), pageValue);
+    }
+
+    /**
+     * Retrieves the processes mapping this frame's shared page.
+     *
+     * @return processes mapping the page, empty for a private page
+     */
+    public List<Process> getMappers() {
+    	return mappers;
+    }
+
+    /**
+     * Retrieves the process object of the process currently owning this frame.
+     *
+     * @return process or null if the frame is empty
+     */
+    public Process getOwnerProcess() {
+        return frameOwner;
+    }
+    
+    /**
+     * Retrieves the ID of the process currently owning this frame.
+     *
+     * @return process ID, or -1 if the frame is free
+     */
+    public int getOwnerProcessID() {
+        return frameOwner.getProcessID();
+    }
+
+    /**
+     * Retrieves the NUMA node holding this frame.
+     *
+     * @return node number, 0 without --numa-nodes
+     */
+    public int getNode() {
+        return node;
+    }
+
+    /**
+     * Places this frame on a NUMA node. Set once by the scheduler that creates the frame. On a page waiting to be loaded it is the node
+     * chosen for the page when it faulted.
+     *
+     * @param node - node number
+     */
+    public void setNode(int node) {
+        this.node = node;
+    }
+
+    /**
+     * Retrieves the page value currently stored in this frame.
+     *
+     * @return page value, or -1 if the frame is free
+     */
+    public int getPageValue() {
+        return pageValue;
+    }
+    
+    /**
+     * Retrieves the simulation time when the page was loaded into this frame.
+     *
+     * @return frame load time, or 0 if the frame is empty
+     */
+    public int getFrameLoadTime() {
+        return frameLoadTime;
+    }
+    
+    /**
+     * Determines whether this frame contains a specific page from a specific process.
+     *
+     * Preconditions:  p is not null and page >= 0
+     * Postconditions: none
+     *
+     * @param process owner to check for a matching ID
+     * @param the page value to check
+     * @return true if this frame holds the specified page from the given process;
+     *         false otherwise
+     */
+    public boolean checkPageInMemory(Process p, int page) {
+    	if(empty) {
+    		return false; //The frame is empty and doesn't contain the required page
+    	}else if (sharedSegment != null) {
+    		//Shared page - check the process maps the same page of the same segment
+    		SharedSegment segment = p.getSharedSegment(page);
+    		return segment != null && segment.isSameSegment(sharedSegment) && segment.offsetOf(page) == segmentOffset;
+    	}else {
+    		//Not empty check for matching page value and ID's
+    		return this.frameOwner.getProcessID() == p.getProcessID() && this.pageValue == page;
+    	}
+    }
+    
+    /**
+     * Copies the contents of another frame into this frame.
+     * This method is used during frame replacement operations.
+     *
+     * Preconditions:	other != null
+     * Postconditions: This frame now contains the same data as other
+     *   			   This frame is marked as occupied
+     *
+     * @param the frame whose data will be copied into this frame
+     */
+    public void copyFrom(Frame other) {
+        this.frameOwner = other.frameOwner;
+        this.pageValue = other.pageValue;
+        this.frameLoadTime = other.frameLoadTime;
+        this.empty = false;
+        this.sharedSegment = other.sharedSegment;
+        this.segmentOffset = other.segmentOffset;
+        this.mappers = new ArrayList<Process>(other.mappers);
+        this.hugePage = other.hugePage;
+        this.referenced = false;
+    }
+    
+    /**
+     * Writes the contents of this frame to a checkpoint (see SimulationCheckpoint).
+     *
+     * @param out - checkpoint being written
+     */
+    public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+        out.writeProcess(frameOwner);
+        out.writeInt(pageValue);
+        out.writeBoolean(empty);
+        out.writeInt(frameLoadTime);
+        out.writeInt(sharedSegment == null ? -1 : sharedSegment.getSegmentID());
+        out.writeInt(segmentOffset);
+        out.writeProcesses(mappers);
+        out.writeBoolean(hugePage);
+        out.writeBoolean(referenced);
+        out.writeInt(node);
+    }
+
+    /**
+     * Restores the contents written by writeState().
+     *
+     * Preconditions: none
+     * Postconditions: This frame holds what it held when the checkpoint was written
+     *
+     * @param in - checkpoint being read
+     */
+    public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+        this.frameOwner = in.readProcess();
+        this.pageValue = in.readInt();
+        this.empty = in.readBoolean();
+        this.frameLoadTime = in.readInt();
+        int segmentID = in.readInt();
+        this.sharedSegment = segmentID < 0 ? null : in.getSegment(segmentID);
+        this.segmentOffset = in.readInt();
+        this.mappers = new ArrayList<Process>();
+        in.readProcesses(mappers);
+        this.hugePage = in.readBoolean();
+        this.referenced = in.readBoolean();
+        this.node = in.readInt();
+    }
+
+    /**
+     * Returns a string representation of the frame. Used to nicely display a frame for testing.
+     *
+     * @return formatted string containing process ID, page value, and load time
+     */
+    @Override
+    public String toString() {
+        return "Frame{ processOwner= " + frameOwner.getProcessID() + " value= " + pageValue + " time= " + frameLoadTime+"}";
+    }
+}
@@ -1,157 +1,601 @@
-/*
- * Author: Amanda Foxley c3137540
- * Created: 27/09/25
- * COMP2240 Assignment 3
- * 
- * This scheduler demonstrates the variable-allocation with global replacement scope policy
- * 
- * In this scheme, no specific frame is allocated to any process rather all frames are available to the processes for use i.e. global mainMemory queue
- * Page replacement uses a FIFO policy and will consider all the pages in the user memory space, i.e., the page selected for replacement may belong to any process running in the system
- * When a process finishes execution, the frames allocated to that finished process are released immediately and will be available for loading new pages if necessary.
- * Variable allocation scheme - number of page frames allocated to a process is varied over the lifetime of the process
- * 					   	      - processes with higher fault rates are allocated more frames (Since they request page storage more frequently, they are allocated more room in memory)
- * 					          - processes with lower fault rates are allocated fewer frames (Since they request page storage less frequently, they are allocated less room in memory)
- * 
- * Processes execute one page per time unit and are blocked for four time units whenever a page fault occurs. 
- * The scheduler continues execution until all processes have completed their page sequences.
- * Once all processes have finished execution the results are displayed to the console.
- */
-
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
-
-public class GlobalReplacementScheduler extends Scheduler {
-	
-    private final Queue<Frame> globalMainMemory = new LinkedList<Frame>(); 		//Global frame queue. Processes can untilise space anywhere in this queue. FIFO replacement is applied to the whole queue.
-
-    /**
-	 * Constructor for GlobalReplacementScheduler class
-	 *  
-	 * Each process can store data in a global main memory queue.
-	 *
-	 * Preconditions: - processes != null && !processes.isEmpty()
-	 * 				  - numFrames > 0
-	 * 				  - quantum > 0
-	 *
-	 * Postconditions:  - All Frame objects are initialised as empty
-	 *   				- Each process in the process list has had it's variables reset to default values, ready for this simulation.
-	 *
-	 * @param processes - a list of Process objects participating in the simulation
-	 * @param numFrames - the total number of frames (F) available in main memory
-	 * @param quantum - the time quantum (Q) used for Round Robin process scheduling
-	 */
-    public GlobalReplacementScheduler(List<Process> processes, int numFrames, int quantum) {
-        super(processes, numFrames, quantum);
-        
-        //Initialise all frames in the global main memory queue
-        for (int i = 0; i < numFrames; i++) {
-        	globalMainMemory.add(new Frame());
-        }
-        
-        //Since this scheduler runs after the Local replacement scheduler, reset the process simulation variables back to their defaults so we can run this simulation
-        for(Process p: processes) {
-        	p.resetProcess();
-        }
-    }
-
-    /**
-	 * Executes the Round Robin simulation for the variable-allocation global replacement model.
-	 * Each process executes its pages in time quanta, experiencing page faults and blocking as required.
-	 * The simulation runs until both the ready and blocked queues are empty.
-	 *
-	 * Preconditions: processes != null && !processes.isEmpty()
-	 * 
-	 * Postconditions: All processes have executed their page instructions.
-	 * 				   Process data, turnaround time and fault data are printed to the console
-	 * 
-	 * @param processes - the list of processes to simulate
-	 */
-    public void run(List<Process> processes) {
-    	
-    	super.runSimulation(processes);											//Run the simulation
-    	super.printResults("Variable-Global Replacement", processes);			//Print results to console
-    }
-    
-    /**
-     * Checks if a requested page is already in globalMainMemory queue for a given process.
-     * 
-     * Preconditions:
-     *  - globalMainMemory contains valid Frame objects.
-     *  - currentProcess is not null.
-     * 
-     * Postconditions:
-     *  - Returns true if the page exists in main memory queue.
-     *  - Returns false otherwise.
-     *
-     * @param page - the page value being checked
-     * @param currentProcess - the process making the request for this page
-     * @return true if the page is in memory, false otherwise
-     */
-    @Override
-	protected boolean isPageInMemory(Process currentProcess, int page) {
-    	
-    	//Loop through all processes in main memory, check for a frame with a matching page value and ownerID
-        for (Frame frame : globalMainMemory) {
-            if (!frame.isFree() && frame.getPageValue() == page && frame.getOwnerProcessID() == currentProcess.getProcessID()) {
-                return true; //Match found
-            }
-        }
-        return false; //No match, page is not stored in memory
-    }
-
-    /**
-     * This simulation uses a FIFO replacement strategy to place page data into a global main memory queue
-     * 
-     * Checks for an empty frame, if found the page's data is placed here (in a frame)
-     * If no empty frame is found, the oldest frame is removed from the head of the queue, 
-     * the old frame data is replaced with the new page's data and the frame is re-added to the back of the queue.
-     * 
-     * Preconditions:
-     *  - newFrame is a Frame object representing a page ready to be loaded.
-     * 
-     * Postconditions:
-     *  - If a free frame exists, newFrame is copied into it.
-     *  - Otherwise, the oldest frame is evicted and replaced by newFrame.
-     *
-     * @param newFrameData - the frame containing the page to load
-     */
-    @Override
-	protected void loadIntoMainMemory(Frame newFrameData) {
-        
-    	//Check for empty frame first
-        for (Frame frame : globalMainMemory) {
-            if (frame.isFree()) { 							//Empty frame found, place the page data here
-                frame.copyFrom(newFrameData); 				//Use helper method in Frame class to copy data (page/processID/loadedTime) to the empty frame
-                return;
-            }
-        }
-
-        //FIFO replacement - Oldest frame is removed from the queue, overwritten with the new frame data and re-added to the back of the queue
-        Frame oldest = globalMainMemory.poll();
-        oldest.copyFrom(newFrameData);
-        globalMainMemory.add(oldest);
-    }
-            
-    /**
-     * Clears all frames owned by a process when it finishes.
-     * 
-     * Preconditions: 	Process p has finished execution.
-     * Postconditions:	All frames belonging to p are marked as free.
-     * 
-     * @param p - the process whose frames should be released.
-     */
-    @Override
-	protected void clearProcessFrames(Process p) {
-    	
-    	//Loop through all processes used by this process in main memory and reset all frames values to default (Ensuring this frame can be re-used by a different process) 
-        for (Frame frame : globalMainMemory) {
-        	
-        	if(!frame.isFree()) { //Only check frames that arn't empty
-        		if (frame.getOwnerProcessID() == p.getProcessID()) { 	//Process owns frame
-                    frame.clearPageFromFrame();							//Helper method in frame class to reset to default values
-                }
-        	}
-        }
-    }
-}
+/*
+ * Author: Amanda Foxley c3137540
+ * Created: 27/09/25
+ * COMP2240 Assignment 3
+ * 
+ * This scheduler demonstrates the variable-allocation with global replacement scope policy
+ * 
+ * In this scheme, no specific frame is allocated to any process rather all frames are available to the processes for use i.e. global mainMemory queue
+ * Page replacement uses a FIFO policy and will consider all the pages in the user memory space, i.e., the page selected for replacement may belong to any process running in the system
+ * When a process finishes execution, the frames allocated to that finished process are released immediately and will be available for loading new pages if necessary.
+ * Variable allocation scheme - number of page frames allocated to a process is varied over the lifetime of the process
+ * 					   	      - processes with higher fault rates are allocated more frames (Since they request page storage more frequently, they are allocated more room in memory)
+ * 					          - processes with lower fault rates are allocated fewer frames (Since they request page storage less frequently, they are allocated less room in memory)
+ * Shared pages are held in one frame for every process mapping them, the frame is released once the last of those processes finishes.
+ * When huge pages are turned on (see HugePagePolicy) a promoted block of pages is loaded into a run of contiguous, aligned frames. If no free run exists
+ * the run holding the oldest frame is emptied. A huge page is always replaced as a whole, even when only one of its frames is needed.
+ * With --load-control a medium-term scheduler suspends processes while the system is thrashing (see LoadController).
+ * With --frame-table=offheap the frames are kept outside the Java heap instead (see OffHeapGlobalReplacementScheduler).
+ * With --numa-nodes the frames are split into nodes, a page is placed on its process' home node and replaces the oldest page there (see NumaTopology).
+ * With --replacement-scope=hybrid each process has a minimum and maximum number of frames (see QuotaGlobalReplacementScheduler).
+ * A what-if branch can add frames part way through (see WhatIfFork), they join the pool every process uses.
+ * 
+ * Processes execute one page per time unit and are blocked for four time units whenever a page fault occurs. 
+ * The scheduler continues execution until all processes have completed their page sequences.
+ * Once all processes have finished execution the results are displayed to the console.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+public class GlobalReplacementScheduler extends Scheduler {
+    private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"frame-table", "replacement-scope", "load-control"};
+	
+    private final LinkedList<Frame> globalMainMemory = new LinkedList<Frame>(); 	//Global frame queue. Processes can untilise space anywhere in this queue. FIFO replacement is applied to the whole queue.
+    private final List<Frame> physicalFrames = new ArrayList<Frame>();			//The same frames in physical order (frame number = index), used to find contiguous runs for huge pages
+    private final HugePagePolicy hugePages;										//Decides when blocks of pages are loaded as huge pages
+
+    /**
+	 * Constructor for GlobalReplacementScheduler class
+	 *  
+	 * Each process can store data in a global main memory queue.
+	 *
+	 * Preconditions: - processes != null && !processes.isEmpty()
+	 * 				  - numFrames > 0
+	 * 				  - quantum > 0
+	 *
+	 * Postconditions:  - All Frame objects are initialised as empty
+	 *   				- Each process in the process list has had it's variables reset to default values, ready for this simulation.
+	 *
+	 * @param processes - a list of Process objects participating in the simulation
+	 * @param numFrames - the total number of frames (F) available in main memory
+	 * @param quantum - the time quantum (Q) used for Round Robin process scheduling
+	 */
+    public GlobalReplacementScheduler(List<Process> processes, int numFrames, int quantum) {
+    	this(processes, numFrames, quantum, new SimulationOptions());
+    }
+
+    /**
+     * Constructor for GlobalReplacementScheduler class that also takes the optional simulation settings.
+     * See the constructor above for details.
+     *
+     * @param processes - a list of Process objects participating in the simulation
+     * @param numFrames - the total number of frames (F) available in main memory
+     * @param quantum - the time quantum (Q) used for Round Robin process scheduling
+     * @param options - optional simulation settings
+     */
+    public GlobalReplacementScheduler(List<Process> processes, int numFrames, int quantum, SimulationOptions options) {
+        this(processes, numFrames, quantum, options, true);
+    }
+
+    /**
+     * Constructor for subclasses that keep the frame table themselves (see OffHeapGlobalReplacementScheduler).
+     * See the constructor above for details.
+     *
+     * @param allocateFrames - false to leave the global main memory queue empty
+     */
+    protected GlobalReplacementScheduler(List<Process> processes, int numFrames, int quantum, SimulationOptions options, boolean allocateFrames) {
+        super(processes, numFrames, quantum, options);
+        
+        //Initialise all frames in the global main memory queue
+        for (int i = 0; allocateFrames && i < numFrames; i++) {
+        	Frame frame = new Frame();
+        	if (numa != null) {
+        		frame.setNode(numa.nodeOf(i));
+        	}
+        	globalMainMemory.add(frame);
+        	physicalFrames.add(frame);
+        }
+        hugePages = new HugePagePolicy(options, numFrames);
+        if (options.isEnabled("load-control")) { //Fixed-local gives each process its own frames, so only the global scheme can free frames by suspending a process
+        	loadControl = new LoadController(options, processes, Math.max(1, NUMBER_CPUS));
+        }
+        
+        //Since this scheduler runs after the Local replacement scheduler, reset the process simulation variables back to their defaults so we can run this simulation
+        for(Process p: processes) {
+        	p.resetProcess();
+        }
+    }
+
+    /**
+     * Creates the variable-allocation global replacement scheduler selected by the options:
+     * 		--frame-table=heap		frames are Frame objects in a queue (default)
+     * 		--frame-table=offheap	frames are slots in direct buffers, for very large numbers of frames (see OffHeapGlobalReplacementScheduler)
+     * 		--replacement-scope=hybrid	per-process frame quotas and a probation queue (see QuotaGlobalReplacementScheduler)
+     *
+     * @param processes - a list of Process objects participating in the simulation
+     * @param numFrames - the total number of frames (F) available in main memory
+     * @param quantum - the time quantum (Q) used for Round Robin process scheduling
+     * @param options - optional simulation settings
+     * @return the scheduler
+     *
+     * @throws IllegalArgumentException if the frame table type or replacement scope is unknown, or they can't be combined
+     */
+    public static GlobalReplacementScheduler create(List<Process> processes, int numFrames, int quantum, SimulationOptions options) {
+    	checkOptions(processes, numFrames, options);
+    	if (options.getString("replacement-scope", "global").equals("hybrid")) {
+    		return new QuotaGlobalReplacementScheduler(processes, numFrames, quantum, options);
+    	}
+    	if (options.getString("frame-table", "heap").equals("offheap")) {
+    		return new OffHeapGlobalReplacementScheduler(processes, numFrames, quantum, options);
+    	}
+    	return new GlobalReplacementScheduler(processes, numFrames, quantum, options);
+    }
+
+    /**
+     * Checks the frame table and replacement scope selected by the options, and that the other options and the processes can be used with them.
+     * Called before any simulation starts, so a bad combination is reported straight away instead of after the fixed-local results.
+     *
+     * @param processes - the processes to simulate (processes arriving later are checked as they arrive)
+     * @param numFrames - the total number of frames (F) available in main memory
+     * @param options - optional simulation settings
+     *
+     * @throws IllegalArgumentException if the frame table type or replacement scope is unknown, or they can't be combined with each other, the options or the processes
+     */
+    public static void checkOptions(List<Process> processes, int numFrames, SimulationOptions options) {
+    	String frameTable = options.getString("frame-table", "heap");
+    	String scope = options.getString("replacement-scope", "global");
+    	if (!frameTable.equals("heap") && !frameTable.equals("offheap")) {
+    		throw new IllegalArgumentException("Unknown frame table \"" + frameTable + "\" (expected heap or offheap)");
+    	}
+    	if (!scope.equals("global") && !scope.equals("hybrid")) {
+    		throw new IllegalArgumentException("Unknown replacement scope \"" + scope + "\" (expected global or hybrid)");
+    	}
+    	if (scope.equals("hybrid") && !frameTable.equals("heap")) {
+    		throw new IllegalArgumentException("The hybrid replacement scope needs --frame-table=heap");
+    	}
+    	if (scope.equals("hybrid")) {
+    		QuotaGlobalReplacementScheduler.checkOptions(numFrames, options);
+    	}
+    	if (frameTable.equals("offheap")) {
+    		OffHeapGlobalReplacementScheduler.checkOptions(processes, options);
+    	}
+    }
+
+    /**
+	 * Executes the Round Robin simulation for the variable-allocation global replacement model.
+	 * Each process executes its pages in time quanta, experiencing page faults and blocking as required.
+	 * The simulation runs until both the ready and blocked queues are empty.
+	 *
+	 * Preconditions: processes != null && !processes.isEmpty()
+	 * 
+	 * Postconditions: All processes have executed their page instructions.
+	 * 				   Process data, turnaround time and fault data are printed to the console
+	 * 
+	 * @param processes - the list of processes to simulate
+	 */
+    public void run(List<Process> processes) {
+    	
+    	super.runSimulation(processes);											//Run the simulation
+    	super.printResults(getStrategyName(), processes);						//Print results to console
+    }
+    
+    /**
+     * Checks if a requested page is already in globalMainMemory queue for a given process.
+     * 
+     * Preconditions:
+     *  - globalMainMemory contains valid Frame objects.
+     *  - currentProcess is not null.
+     * 
+     * Postconditions:
+     *  - Returns the frame if the page exists in main memory queue.
+     *  - Returns null otherwise.
+     *
+     * @param page - the page value being checked
+     * @param currentProcess - the process making the request for this page
+     * @return the frame holding the page, or null if the page is not in memory
+     */
+    @Override
+	protected Frame findFrame(Process currentProcess, int page) {
+    	
+    	//Loop through all processes in main memory, check for a frame with a matching page value and ownerID (or matching shared segment page)
+        for (Frame frame : globalMainMemory) {
+            if (frame.checkPageInMemory(currentProcess, page)) {
+                return frame; //Match found
+            }
+        }
+        return null; //No match, page is not stored in memory
+    }
+
+    /**
+     * This simulation uses a FIFO replacement strategy to place page data into a global main memory queue
+     * 
+     * Checks for an empty frame, if found the page's data is placed here (in a frame)
+     * If no empty frame is found, the oldest frame is removed from the head of the queue, 
+     * the old frame data is replaced with the new page's data and the frame is re-added to the back of the queue.
+     * 
+     * Preconditions:
+     *  - newFrame is a Frame object representing a page ready to be loaded.
+     * 
+     * Postconditions:
+     *  - If a free frame exists, newFrame is copied into it.
+     *  - Otherwise, the oldest frame is evicted and replaced by newFrame.
+     *
+     * @param newFrameData - the frame containing the page to load
+     */
+    @Override
+	protected void loadIntoMainMemory(Frame newFrameData) {
+
+    	if (newFrameData.isHugePage()) { //Promoted block - needs a run of contiguous frames
+    		loadHugePage(newFrameData);
+    		return;
+    	}
+    	if (numa != null) { //The page has to go on a particular node
+    		loadOnNode(newFrameData);
+    		return;
+    	}
+        
+    	//Check for empty frame first
+        for (Frame frame : globalMainMemory) {
+            if (frame.isFree()) { 							//Empty frame found, place the page data here
+                frame.copyFrom(newFrameData); 				//Use helper method in Frame class to copy data (page/processID/loadedTime) to the empty frame
+                return;
+            }
+        }
+
+        //FIFO replacement - Oldest frame is removed from the queue, overwritten with the new frame data and re-added to the back of the queue
+        Frame oldest = globalMainMemory.poll();
+        if (oldest.isHugePage()) {
+        	releaseHugePage(runStart(physicalFrames.indexOf(oldest)), true); //Whole huge page is replaced, its other frames become free
+        } else {
+        	evictFrame(oldest);
+        }
+        oldest.copyFrom(newFrameData);
+        globalMainMemory.add(oldest);
+    }
+            
+    /**
+     * Chooses the node a faulted page will be placed on (see NumaTopology): the target node if it has a free frame, then (unless pages are
+     * bound to their node) the node of the first free frame. Otherwise the target node, where the oldest page will be replaced.
+     */
+    @Override
+    protected int placementNode(Process p, int page) {
+    	int node = numa.targetNode(p, page);
+    	Frame free = null;
+    	for (Frame frame : globalMainMemory) {
+    		if (frame.isFree() && (frame.getNode() == node || (free == null && !numa.isBound()))) {
+    			free = frame;
+    			if (frame.getNode() == node) {
+    				break;
+    			}
+    		}
+    	}
+    	return free != null ? free.getNode() : node;
+    }
+
+    /**
+     * Loads a page on the node chosen for it when it faulted (see placementNode()). The first free frame of the node is used, otherwise
+     * FIFO replacement is applied to the node's frames - the oldest of them is replaced and moved to the back of the queue.
+     * With one node this is the same as loadIntoMainMemory() without NUMA.
+     *
+     * Preconditions: numa != null, newFrameData isn't a huge page and holds the chosen node
+     * Postconditions: The page is in main memory on the chosen node
+     *
+     * @param newFrameData - the frame containing the page to load
+     */
+    private void loadOnNode(Frame newFrameData) {
+    	int node = newFrameData.getNode();
+    	for (Frame frame : globalMainMemory) {
+    		if (frame.isFree() && frame.getNode() == node) {
+    			frame.copyFrom(newFrameData);
+    			return;
+    		}
+    	}
+
+    	Frame oldest = oldestOnNode(node, null);
+    	if (oldest.isHugePage()) {
+    		releaseHugePage(runStart(physicalFrames.indexOf(oldest)), true);
+    	} else {
+    		evictFrame(oldest);
+    	}
+    	globalMainMemory.remove(oldest);
+    	oldest.copyFrom(newFrameData);
+    	globalMainMemory.add(oldest);
+    }
+
+    /**
+     * Finds the oldest frame on a node, optionally only one holding a private page of a process that lives on another node.
+     *
+     * @param node - the node
+     * @param homeNode - the node the page's process must not live on, or null for any page
+     * @return the oldest matching frame in queue order, or null if there is none
+     */
+    private Frame oldestOnNode(int node, Integer homeNode) {
+    	for (Frame frame : globalMainMemory) {
+    		if (frame.getNode() != node) {
+    			continue;
+    		}
+    		if (homeNode == null) {
+    			return frame;
+    		}
+    		if (!frame.isFree() && !frame.isShared() && !frame.isHugePage() && numa.homeNode(frame.getOwnerProcess()) != homeNode) {
+    			return frame;
+    		}
+    	}
+    	return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The page moves into the first free frame of the home node, or swaps frames with the oldest page on the home node whose process lives
+     * on another node. The pages keep their load times and places in the FIFO queue, so moving a page doesn't change when it is replaced.
+     * Nothing happens if the home node only holds pages of its own processes.
+     */
+    @Override
+    protected boolean canMigratePages() {
+    	return true;
+    }
+
+    @Override
+    protected void migratePage(Process p, Frame frame) {
+    	int home = numa.homeNode(p);
+    	Frame target = null;
+    	for (Frame candidate : globalMainMemory) {
+    		if (candidate.isFree() && candidate.getNode() == home) {
+    			target = candidate;
+    			break;
+    		}
+    	}
+    	boolean exchanged = target == null;
+    	if (exchanged) {
+    		target = oldestOnNode(home, home);
+    		if (target == null) {
+    			return;
+    		}
+    	}
+
+    	Frame moved = new Frame();
+    	moved.copyFrom(target);
+    	target.copyFrom(frame);
+    	if (exchanged) {
+    		frame.copyFrom(moved);
+    	} else {
+    		frame.clearPageFromFrame();
+    	}
+    	int from = globalMainMemory.indexOf(frame);		//Swap the frames' places in the queue so each page keeps its own place
+    	int to = globalMainMemory.indexOf(target);
+    	globalMainMemory.set(from, target);
+    	globalMainMemory.set(to, frame);
+    	numa.migrated(target, exchanged);
+    }
+
+    /**
+     * Clears all frames owned by a process when it finishes.
+     * 
+     * Preconditions: 	Process p has finished execution.
+     * Postconditions:	All frames belonging to p are marked as free (shared frames once no other process maps them).
+     * 
+     * @param p - the process whose frames should be released.
+     */
+    @Override
+	protected void clearProcessFrames(Process p) {
+    	
+    	//Loop through all processes used by this process in main memory and reset all frames values to default (Ensuring this frame can be re-used by a different process) 
+        for (int i = 0; i < physicalFrames.size(); i++) {
+        	Frame frame = physicalFrames.get(i);
+        	
+        	if(!frame.isFree()) { //Only check frames that arn't empty
+        		if (frame.isHugePage() && frame.getOwnerProcessID() == p.getProcessID()) {
+        			releaseHugePage(i, false);	//First frame of one of the process' huge pages - release the whole run
+        		} else {
+        			releaseFrame(frame, p);		//Process owns frame (or maps it) - reset to default values once nobody else uses it
+        		}
+        	}
+        }
+        hugePages.releaseProcess(p);
+    }
+
+    /**
+     * Huge pages are demoted by how many of their frames were referenced, so every access has to mark its frame.
+     */
+    @Override
+    protected boolean tracksReferencedFrames() {
+    	return hugePages.isEnabled();
+    }
+
+    /**
+     * Adds free frames to main memory. Frames aren't allocated to processes in this scheme, so frames granted to one process join the pool
+     * every process uses. With --numa-nodes they are placed on the process' home node.
+     *
+     * Preconditions: count >= 0
+     * Postconditions: Main memory holds count more frames, all free
+     *
+     * @param p - the process the frames are granted for
+     * @param count - number of frames to add
+     */
+    @Override
+    protected void grantFrames(Process p, int count) {
+    	for (int i = 0; i < count; i++) {
+    		Frame frame = new Frame();
+    		if (numa != null) {
+    			frame.setNode(numa.homeNode(p));
+    		}
+    		globalMainMemory.add(frame);
+    		physicalFrames.add(frame);
+    	}
+    }
+
+    /**
+     * Adds the frames to the state written to a checkpoint, in physical order, then the FIFO queue as frame numbers and the huge page statistics.
+     */
+    @Override
+    protected void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+    	super.writeState(out);
+    	out.writeFrames(physicalFrames);
+    	out.writeFrameQueue(globalMainMemory, physicalFrames);
+    	hugePages.writeState(out);
+    }
+
+    @Override
+    protected void readState(SimulationCheckpoint.StateInput in) throws IOException {
+    	super.readState(in);
+    	physicalFrames.clear();
+    	in.readFrames(physicalFrames);
+    	globalMainMemory.clear();
+    	in.readFrameQueue(globalMainMemory, physicalFrames);
+    	hugePages.readState(in);
+    }
+
+    /**
+     * Lists the process' pages in the global queue order, oldest first (the order FIFO replacement would replace them).
+     *
+     * @param p - the process
+     * @return pages of p in main memory
+     */
+    @Override
+    protected List<Integer> getResidentPages(Process p) {
+    	List<Integer> pages = new ArrayList<Integer>();
+    	for (Frame frame : globalMainMemory) {
+    		if (!frame.isFree() && frame.getOwnerProcess() == p) {
+    			pages.add(frame.getPageValue());
+    		}
+    	}
+    	return pages;
+    }
+
+    @Override
+    public String getStrategyName() {
+    	return "Variable-Global Replacement";
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Faults in a promoted huge page block are marked so the whole block is loaded when the page arrives.
+     */
+    @Override
+    protected Frame loadIntoPendingQueue(Process p, int page, int serviceTime) {
+    	Frame pending = super.loadIntoPendingQueue(p, page, serviceTime);
+    	if (hugePages.recordFault(p, page)) {
+    		pending.markHugePage();
+    	}
+    	return pending;
+    }
+
+    /**
+     * Loads a whole block of pages as one huge page into a run of contiguous frames.
+     * 
+     * Base pages of the block that are already in memory are collapsed into the huge page (their frames are freed first).
+     * The first free aligned run is used. If there isn't one, the aligned run holding the oldest frame (head of the queue) is emptied.
+     * The frames of the huge page are moved to the back of the FIFO queue.
+     * 
+     * Preconditions: frameData.isHugePage()
+     * Postconditions: Every page of the block is in main memory, in contiguous frames marked as a huge page
+     *
+     * @param frameData - the pending frame of the page that caused the fault
+     */
+    private void loadHugePage(Frame frameData) {
+    	Process p = frameData.getOwnerProcess();
+    	int size = hugePages.getPageFrames();
+    	int firstPage = hugePages.blockStart(frameData.getPageValue());
+
+    	//Collapse the block's base pages that are already in memory
+    	int collapsed = 0;
+    	for (Frame frame : physicalFrames) {
+    		if (!frame.isFree() && !frame.isShared() && frame.getOwnerProcessID() == p.getProcessID()
+    				&& frame.getPageValue() >= firstPage && frame.getPageValue() < firstPage + size) {
+    			frame.clearPageFromFrame();
+    			collapsed++;
+    		}
+    	}
+
+    	int start = findFreeRun(size);
+    	if (start < 0) { //No free run - empty the run holding the oldest frame
+    		start = runStart(physicalFrames.indexOf(globalMainMemory.peek()));
+    		for (int i = start; i < start + size; i++) {
+    			Frame frame = physicalFrames.get(i);
+    			if (frame.isHugePage()) {
+    				releaseHugePage(i, true); //Huge pages are aligned the same way, so this is the whole run
+    			} else if (!frame.isFree()) {
+    				evictFrame(frame);
+    				frame.clearPageFromFrame();
+    			}
+    		}
+    	}
+
+    	for (int i = 0; i < size; i++) {
+    		Frame frame = physicalFrames.get(start + i);
+    		frame.addPageToFrame(p, firstPage + i, frameData.getFrameLoadTime());
+    		frame.markHugePage();
+    		globalMainMemory.remove(frame);	//Newest pages go to the back of the FIFO queue
+    		globalMainMemory.add(frame);
+    	}
+    	hugePages.recordLoad(collapsed);
+    }
+
+    /**
+     * Removes a huge page from memory, recording how many of its frames were used.
+     *
+     * Preconditions: the frame at start is the first frame of a huge page
+     * Postconditions: All frames of the huge page are free
+     *
+     * @param start - frame number of the huge page's first frame
+     * @param replaced - true if the huge page is being replaced, false if its process has finished
+     */
+    private void releaseHugePage(int start, boolean replaced) {
+    	Frame first = physicalFrames.get(start);
+    	Process owner = first.getOwnerProcess();
+    	int firstPage = first.getPageValue();
+    	int referenced = 0;
+
+    	for (int i = start; i < start + hugePages.getPageFrames(); i++) {
+    		Frame frame = physicalFrames.get(i);
+    		if (frame.isReferenced()) {
+    			referenced++;
+    		}
+    		if (replaced) {
+    			evictFrame(frame);
+    		}
+    		frame.clearPageFromFrame();
+    	}
+    	hugePages.recordRelease(owner, firstPage, referenced, replaced);
+    }
+
+    /**
+     * Finds the first aligned run of free frames large enough for a huge page.
+     *
+     * @param size - number of frames needed
+     * @return frame number of the first frame in the run, or -1 if there is no free run
+     */
+    private int findFreeRun(int size) {
+    	for (int start = 0; start + size <= physicalFrames.size(); start += size) {
+    		boolean free = true;
+    		for (int i = start; i < start + size && free; i++) {
+    			free = physicalFrames.get(i).isFree();
+    		}
+    		if (free) {
+    			return start;
+    		}
+    	}
+    	return -1;
+    }
+
+    /**
+     * Finds the start of the aligned huge page run holding a frame.
+     * Frames after the last complete run (when F isn't a multiple of the huge page size) belong to the last complete run.
+     *
+     * @param frameNumber - frame number (index in physical order)
+     * @return frame number of the first frame in the run
+     */
+    private int runStart(int frameNumber) {
+    	int size = hugePages.getPageFrames();
+    	return Math.min(frameNumber / size * size, (physicalFrames.size() / size - 1) * size);
+    }
+
+    /**
+     * Retrieves the huge page policy used by this scheduler.
+     *
+     * @return huge page policy (turned off unless --huge-page-frames was supplied)
+     */
+    public HugePagePolicy getHugePagePolicy() {
+    	return hugePages;
+    }
+}
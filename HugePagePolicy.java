@@ -0,0 +1,222 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Decides when pages are loaded as huge pages and records the results, used by the variable-allocation global replacement scheduler.
+ *
+ * A huge page is an aligned block of H consecutive pages (H = --huge-page-frames) that is loaded in one page fault into a run of H contiguous frames.
+ * Only blocks that lie completely inside a range declared in the input file (huge: first-last;) can become huge pages.
+ * 		- Promotion: a block is promoted to a huge page once the process has faulted on --huge-promote of its pages (default 2).
+ * 					 The next fault in the block loads the whole block, any of its base pages already in memory are collapsed into the huge page.
+ * 		- Demotion:  when a huge page is replaced and fewer than --huge-demote of its pages (default H/2) were accessed while it was in memory,
+ * 					 its block goes back to base pages and has to be promoted again.
+ *
+ * Every frame of a huge page that is never accessed before the huge page leaves memory is counted as internal fragmentation (a wasted frame).
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class HugePagePolicy implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"huge-page-frames", "huge-promote", "huge-demote"};
+
+	private final int PAGE_FRAMES;							//Number of frames (and pages) in one huge page - 0 when huge pages are turned off
+	private final int PROMOTE_FAULTS;						//Faults in a block needed before the block becomes a huge page
+	private final int DEMOTE_REFERENCES;					//A replaced huge page with fewer accessed pages than this is demoted
+	private final Map<Long, Integer> blockFaults = new HashMap<Long, Integer>();	//Block key -> base page faults in the block
+	private final Set<Long> promotedBlocks = new HashSet<Long>();					//Blocks currently loaded as huge pages
+
+	private int hugePagesLoaded;							//Number of huge pages loaded into memory
+	private int promotions;									//Number of blocks promoted to huge pages
+	private int demotions;									//Number of blocks demoted back to base pages
+	private int collapsedPages;								//Base pages already in memory that were collapsed into a huge page
+	private long hugeFrames;								//Frames filled by huge pages
+	private long wastedFrames;								//Frames of huge pages that were never accessed (internal fragmentation)
+
+	/**
+	 * Constructor for the HugePagePolicy class.
+	 *
+	 * Preconditions: options != null, numFrames > 0
+	 * Postconditions: Huge pages are turned on if --huge-page-frames is at least 2
+	 *
+	 * @param options - simulation options
+	 * @param numFrames - number of frames (F) in main memory
+	 *
+	 * @throws IllegalArgumentException if a huge page would need more frames than main memory has
+	 */
+	public HugePagePolicy(SimulationOptions options, int numFrames) {
+		int pageFrames = options.getInt("huge-page-frames", 0);
+		if (pageFrames > numFrames) {
+			throw new IllegalArgumentException("Huge pages of " + pageFrames + " frames can't fit into " + numFrames + " frames of main memory");
+		}
+		this.PAGE_FRAMES = pageFrames >= 2 ? pageFrames : 0;	//A huge page of one frame is just a base page
+		this.PROMOTE_FAULTS = Math.max(1, options.getInt("huge-promote", 2));
+		this.DEMOTE_REFERENCES = options.getInt("huge-demote", PAGE_FRAMES / 2);
+	}
+
+	/**
+	 * Checks whether huge pages are turned on.
+	 *
+	 * @return true if pages may be loaded as huge pages
+	 */
+	public boolean isEnabled() {
+		return PAGE_FRAMES > 0;
+	}
+
+	/**
+	 * Retrieves the number of frames in one huge page.
+	 *
+	 * @return huge page size in frames
+	 */
+	public int getPageFrames() {
+		return PAGE_FRAMES;
+	}
+
+	/**
+	 * Finds the first page of the aligned block a page belongs to.
+	 *
+	 * @param page - page value
+	 * @return first page of the page's block
+	 */
+	public int blockStart(int page) {
+		return page - (page % PAGE_FRAMES);
+	}
+
+	/**
+	 * Records a page fault and decides whether the page should be loaded as part of a huge page.
+	 *
+	 * Preconditions: p != null
+	 * Postconditions: The fault has been counted against the page's block, the block may have been promoted
+	 *
+	 * @param p - the faulting process
+	 * @param page - the page value requested
+	 * @return true if the whole block should be loaded as a huge page, false to load a base page
+	 */
+	public boolean recordFault(Process p, int page) {
+		if (!isEnabled() || p.getSharedSegment(page) != null || !p.isHugePageBlock(blockStart(page), PAGE_FRAMES)) {
+			return false; //Shared pages and pages outside the declared ranges are always base pages
+		}
+
+		long key = PageCache.pageKey(p.getProcessID(), blockStart(page));
+		if (promotedBlocks.contains(key)) {
+			return true;
+		}
+
+		int faults = blockFaults.merge(key, 1, Integer::sum);
+		if (faults >= PROMOTE_FAULTS) {
+			promotedBlocks.add(key);
+			promotions++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Records a huge page being loaded into memory.
+	 *
+	 * @param collapsed - number of the block's base pages that were already in memory and have been collapsed into the huge page
+	 */
+	public void recordLoad(int collapsed) {
+		hugePagesLoaded++;
+		hugeFrames += PAGE_FRAMES;
+		collapsedPages += collapsed;
+	}
+
+	/**
+	 * Records a huge page leaving memory, counting its unused frames and demoting its block if it was mostly unused.
+	 *
+	 * Preconditions: owner != null
+	 * Postconditions: Internal fragmentation has been recorded, the block may have been demoted
+	 *
+	 * @param owner - process owning the huge page
+	 * @param firstPage - first page of the huge page
+	 * @param referencedFrames - number of the huge page's frames that were accessed
+	 * @param replaced - true if the huge page was replaced, false if its process finished
+	 */
+	public void recordRelease(Process owner, int firstPage, int referencedFrames, boolean replaced) {
+		wastedFrames += PAGE_FRAMES - referencedFrames;
+
+		if (replaced && referencedFrames < DEMOTE_REFERENCES) {
+			long key = PageCache.pageKey(owner.getProcessID(), firstPage);
+			promotedBlocks.remove(key);
+			blockFaults.remove(key);
+			demotions++;
+		}
+	}
+
+	/**
+	 * Forgets the promotion state of a finished process.
+	 *
+	 * @param p - the finished process
+	 */
+	public void releaseProcess(Process p) {
+		promotedBlocks.removeIf(key -> PageCache.processOf(key) == p.getProcessID());
+		blockFaults.keySet().removeIf(key -> PageCache.processOf(key) == p.getProcessID());
+	}
+
+	/**
+	 * Writes the fault counts of each block, the promoted blocks and the statistics to a checkpoint (see SimulationCheckpoint).
+	 *
+	 * @param out - checkpoint being written
+	 */
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		out.writeInt(blockFaults.size());
+		for (Map.Entry<Long, Integer> entry : blockFaults.entrySet()) {
+			out.writeLong(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+		out.writeLongList(promotedBlocks);
+		out.writeInt(hugePagesLoaded);
+		out.writeInt(promotions);
+		out.writeInt(demotions);
+		out.writeInt(collapsedPages);
+		out.writeLong(hugeFrames);
+		out.writeLong(wastedFrames);
+	}
+
+	/**
+	 * Restores the blocks and statistics written by writeState().
+	 *
+	 * @param in - checkpoint being read
+	 */
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		blockFaults.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			blockFaults.put(in.readLong(), in.readInt());
+		}
+		promotedBlocks.clear();
+		in.readLongList(promotedBlocks);
+		hugePagesLoaded = in.readInt();
+		promotions = in.readInt();
+		demotions = in.readInt();
+		collapsedPages = in.readInt();
+		hugeFrames = in.readLong();
+		wastedFrames = in.readLong();
+	}
+
+	/**
+	 * Prints the huge page results compared to running the same processes with only base pages.
+	 *
+	 * Preconditions: The simulation has finished
+	 * Postconditions: A summary has been displayed to the console
+	 *
+	 * @param out - stream the summary is printed to
+	 * @param baseFaults - total faults when only base pages are used
+	 * @param hugeFaults - total faults with huge pages
+	 */
+	public void printStatistics(PrintStream out, int baseFaults, int hugeFaults) {
+		out.println("Huge pages (" + PAGE_FRAMES + " frames each) - Variable-Global Replacement:");
+		out.printf("%-15s %-15s %-7s %-12s %-11s %-10s %-10s %s%n", "Faults(base)", "Faults(huge)", "Change", "Huge Loads", "Promotions", "Demotions", "Collapsed", "Wasted Frames");
+		String wasted = wastedFrames + (hugeFrames == 0 ? "" : String.format(" (%.2f%%)", 100.0 * wastedFrames / hugeFrames));
+		out.printf("%-15d %-15d %-+7d %-12d %-11d %-10d %-10d %s%n", baseFaults, hugeFaults, hugeFaults - baseFaults, hugePagesLoaded, promotions, demotions, collapsedPages, wasted);
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Page sequence of a process read from an input file - every page is known before the simulation starts.
+ * The same sequence can be shared by copies of a process (e.g. the private page baseline runs) since it never changes.
+ */
+
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.List;
+
+public class ListPageSequence implements PageSequence, Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	private final List<Integer> PAGES;			//Pages in the order they are executed
+	private final BitSet WRITES;				//Positions in PAGES that write to their page
+
+	/**
+	 * Constructor for the ListPageSequence class.
+	 *
+	 * Preconditions: pages != null, writes != null
+	 * Postconditions: The sequence holds every page of the process
+	 *
+	 * @param pages - pages in the order they are executed
+	 * @param writes - positions in pages that write to their page
+	 */
+	public ListPageSequence(List<Integer> pages, BitSet writes) {
+		this.PAGES = pages;
+		this.WRITES = writes;
+	}
+
+	@Override
+	public boolean isAvailable(int position) {
+		return position < PAGES.size();
+	}
+
+	@Override
+	public boolean isEnded(int position) {
+		return position >= PAGES.size();
+	}
+
+	@Override
+	public int getPage(int position) {
+		return PAGES.get(position);
+	}
+
+	@Override
+	public boolean isWrite(int position) {
+		return WRITES.get(position);
+	}
+
+	@Override
+	public void consumed(int position) {
+		//Every page is kept so the process can be run again
+	}
+
+	@Override
+	public int size() {
+		return PAGES.size();
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Thrashing detector and medium-term scheduler (load control), used by the variable-allocation global replacement scheduler
+ * when --load-control is supplied.
+ *
+ * With global replacement and few frames, processes keep replacing each other's pages. Every process then spends most of its time blocked
+ * on page faults and the CPU sits idle. The detector watches the CPU and the paging device over windows of --thrash-window time units (default 50):
+ * 		- utilisation: fraction of processor time spent executing instructions
+ * 		- mean time between faults: instructions executed per page fault issued
+ * The system is thrashing when utilisation is below --thrash-utilisation percent (default 90) while the mean time between faults is shorter
+ * than the time needed to load a page (--disk-latency, default 4). Processes are then faulting faster than the disk can serve them.
+ *
+ * At the end of each window the controller changes the multiprogramming level (number of active processes) by at most one process:
+ * 		- Thrashing: the most recently activated ready process is suspended (swapped out). Its frames are freed for the other processes
+ * 		  and it leaves the ready queue. At least one process is always kept active
+ * 		- Not thrashing, and the CPU is under used or the mean time between faults is at least twice the disk latency: the process that
+ * 		  has been suspended longest is resumed. It rejoins the ready queue and faults its pages back in
+ * The gap between the two fault rates keeps the level from swinging back and forth around the knee.
+ * When every active process has finished a suspended process is resumed straight away so the CPU isn't left idle.
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+public class LoadController implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"disk-latency", "thrash-utilisation", "thrash-window"};
+
+	private final int WINDOW;							//Time units in each detection window
+	private final double MIN_UTILISATION;				//Utilisation below which the CPU is under used (fraction from 0 to 1)
+	private final int DISK_LATENCY;						//Time units needed to load a page, the fault rate is compared against it
+	private final int NUMBER_CPUS;						//Processors sharing main memory (1 in the single processor loop)
+
+	private final List<Process> active = new ArrayList<Process>();				//Unfinished processes that aren't suspended, in the order they were activated
+	private final LinkedList<Process> suspended = new LinkedList<Process>();	//Suspended processes, in the order they were suspended
+	private final Map<Process, Integer> suspendedAt = new LinkedHashMap<Process, Integer>();	//Suspended process -> time it was suspended
+	private final Map<Process, Integer> suspendedTime = new LinkedHashMap<Process, Integer>();	//Process -> total time spent suspended
+	private final List<String> events = new ArrayList<String>();				//Report line for every suspension and resumption
+
+	private int windowStart;							//Time the current window started
+	private int windowInstructions;						//Instructions executed in the current window
+	private int windowFaults;							//Page faults issued in the current window
+	private int thrashingWindows;						//Windows that were detected as thrashing
+	private int suspensions;							//Number of times a process was suspended
+	private int lowestLevel;							//Lowest multiprogramming level reached
+	private int highestLevel;							//Highest multiprogramming level reached
+
+	/**
+	 * Constructor for the LoadController class.
+	 *
+	 * Preconditions: options != null, processes != null, numCpus > 0
+	 * Postconditions: Every process in the list is active
+	 *
+	 * @param options - simulation options
+	 * @param processes - processes in the ready queue at the start of the simulation
+	 * @param numCpus - number of processors sharing main memory
+	 *
+	 * @throws IllegalArgumentException if a setting is invalid
+	 */
+	public LoadController(SimulationOptions options, List<Process> processes, int numCpus) {
+		this.WINDOW = options.getInt("thrash-window", 50);
+		this.MIN_UTILISATION = options.getDouble("thrash-utilisation", 90) / 100;
+		this.DISK_LATENCY = options.getInt("disk-latency", MemoryHierarchy.DEFAULT_DISK_LATENCY);
+		this.NUMBER_CPUS = numCpus;
+		if (WINDOW < 1 || MIN_UTILISATION < 0 || MIN_UTILISATION > 1) {
+			throw new IllegalArgumentException("Option --thrash-window must be at least 1 and --thrash-utilisation must be from 0 to 100");
+		}
+		active.addAll(processes);
+		lowestLevel = active.size();
+		highestLevel = active.size();
+	}
+
+	/**
+	 * Records an executed instruction in the current window.
+	 */
+	public void recordInstruction() {
+		windowInstructions++;
+	}
+
+	/**
+	 * Records a page fault in the current window.
+	 */
+	public void recordFault() {
+		windowFaults++;
+	}
+
+	/**
+	 * Adds a process that arrived during the simulation (online mode) to the active processes.
+	 *
+	 * @param p - the arriving process
+	 */
+	public void processAdmitted(Process p) {
+		active.add(p);
+		highestLevel = Math.max(highestLevel, active.size());
+	}
+
+	/**
+	 * Removes a finished process from the active processes.
+	 *
+	 * @param p - the finished process
+	 */
+	public void processFinished(Process p) {
+		active.remove(p);
+	}
+
+	/**
+	 * Checks whether any process is suspended. The simulation can't end while one is.
+	 *
+	 * @return true if a process is suspended
+	 */
+	public boolean hasSuspended() {
+		return !suspended.isEmpty();
+	}
+
+	/**
+	 * Runs the detector and changes the multiprogramming level if needed. Called between dispatches (at the start of every time unit
+	 * in multi-processor mode), when no process is part way through an instruction.
+	 *
+	 * Preconditions: scheduler != null
+	 * Postconditions: At most one process has been suspended or resumed
+	 *
+	 * @param scheduler - the scheduler running the simulation
+	 * @param currentTime - current simulation time
+	 */
+	public void update(Scheduler scheduler, int currentTime) {
+		if (active.isEmpty() && !suspended.isEmpty()) { //Nothing left to run - bring a suspended process back straight away
+			resume(scheduler, currentTime, "no active processes");
+			startWindow(currentTime);
+			return;
+		}
+		if (currentTime - windowStart < WINDOW) {
+			return;
+		}
+
+		double utilisation = (double) windowInstructions / ((currentTime - windowStart) * NUMBER_CPUS);
+		double faultInterval = windowFaults == 0 ? Double.POSITIVE_INFINITY : (double) windowInstructions / windowFaults; //Mean time between faults
+		String reason = String.format("utilisation %.0f%%, %d faults in %d instructions", 100 * utilisation, windowFaults, windowInstructions);
+
+		if (utilisation < MIN_UTILISATION && faultInterval < DISK_LATENCY) {
+			if (active.size() > 1) { //Thrashing - a single process faulting is only loading its pages
+				thrashingWindows++;
+				suspend(scheduler, currentTime, reason);
+			}
+		} else if (!suspended.isEmpty() && (utilisation < MIN_UTILISATION || faultInterval >= 2 * DISK_LATENCY)) { //Room for another process
+			resume(scheduler, currentTime, reason);
+		}
+		startWindow(currentTime);
+	}
+
+	/**
+	 * Starts a new detection window.
+	 */
+	private void startWindow(int currentTime) {
+		windowStart = currentTime;
+		windowInstructions = 0;
+		windowFaults = 0;
+	}
+
+	/**
+	 * Suspends the most recently activated process that is waiting in the ready queue.
+	 * Blocked and running processes are left alone, if none of the active processes is ready nothing is suspended.
+	 */
+	private void suspend(Scheduler scheduler, int currentTime, String reason) {
+		for (int i = active.size() - 1; i >= 0; i--) {
+			Process p = active.get(i);
+			if (scheduler.swapOut(p)) {
+				active.remove(i);
+				suspended.add(p);
+				suspendedAt.put(p, currentTime);
+				suspensions++;
+				lowestLevel = Math.min(lowestLevel, active.size());
+				events.add(String.format("%-8d %-9s %-20s %s", currentTime, "Suspend", p.getName(), reason));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Resumes the process that has been suspended longest.
+	 */
+	private void resume(Scheduler scheduler, int currentTime, String reason) {
+		Process p = suspended.poll();
+		scheduler.swapIn(p);
+		active.add(p);
+		suspendedTime.merge(p, currentTime - suspendedAt.remove(p), Integer::sum);
+		highestLevel = Math.max(highestLevel, active.size());
+		events.add(String.format("%-8d %-9s %-20s %s", currentTime, "Resume", p.getName(), reason));
+	}
+
+	/**
+	 * Writes the active and suspended processes, the current window and the statistics to a checkpoint (see SimulationCheckpoint).
+	 *
+	 * @param out - checkpoint being written
+	 */
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		out.writeProcesses(active);
+		out.writeProcesses(suspended);
+		writeTimes(out, suspendedAt);
+		writeTimes(out, suspendedTime);
+		out.writeInt(events.size());
+		for (String event : events) {
+			out.writeUTF(event);
+		}
+		int[] counters = {windowStart, windowInstructions, windowFaults, thrashingWindows, suspensions, lowestLevel, highestLevel};
+		out.writeInts(counters);
+	}
+
+	/**
+	 * Restores the processes, window and statistics written by writeState().
+	 *
+	 * @param in - checkpoint being read
+	 */
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		active.clear();
+		in.readProcesses(active);
+		suspended.clear();
+		in.readProcesses(suspended);
+		readTimes(in, suspendedAt);
+		readTimes(in, suspendedTime);
+		events.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			events.add(in.readUTF());
+		}
+		int[] counters = in.readInts();
+		if (counters == null || counters.length != 7) {
+			throw new IOException("Invalid load control statistics in checkpoint");
+		}
+		windowStart = counters[0];
+		windowInstructions = counters[1];
+		windowFaults = counters[2];
+		thrashingWindows = counters[3];
+		suspensions = counters[4];
+		lowestLevel = counters[5];
+		highestLevel = counters[6];
+	}
+
+	private static void writeTimes(SimulationCheckpoint.StateOutput out, Map<Process, Integer> times) throws IOException {
+		out.writeInt(times.size());
+		for (Map.Entry<Process, Integer> entry : times.entrySet()) {
+			out.writeProcess(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+	}
+
+	private static void readTimes(SimulationCheckpoint.StateInput in, Map<Process, Integer> into) throws IOException {
+		into.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			into.put(in.readProcess(), in.readInt());
+		}
+	}
+
+	/**
+	 * Prints what the controller did: every suspension and resumption, and how long each process spent suspended.
+	 *
+	 * Preconditions: The simulation has finished
+	 * Postconditions: The load control report has been displayed to the console
+	 *
+	 * @param out - stream the report is printed to
+	 */
+	public void printReport(PrintStream out) {
+		out.printf("Load control (%d time unit windows, thrashing below %.0f%% utilisation with under %d instructions per fault): %d thrashing windows, multiprogramming level %d to %d%n",
+				WINDOW, 100 * MIN_UTILISATION, DISK_LATENCY, thrashingWindows, lowestLevel, highestLevel);
+		if (events.isEmpty()) {
+			out.println("No processes were suspended");
+			return;
+		}
+		out.printf("%-8s %-9s %-20s %s%n", "Time", "Action", "Process", "Last window");
+		for (String event : events) {
+			out.println(event);
+		}
+		for (Map.Entry<Process, Integer> entry : suspendedTime.entrySet()) {
+			out.printf("%s suspended for %d time units%n", entry.getKey().getName(), entry.getValue());
+		}
+	}
+
+	//---Getters---
+
+	/**
+	 * Retrieves the number of processes that were suspended, counting a process once for every suspension.
+	 *
+	 * @return number of suspensions
+	 */
+	public int getSuspensions() {
+		return suspensions;
+	}
+
+	/**
+	 * Retrieves the number of windows that were detected as thrashing.
+	 *
+	 * @return thrashing windows
+	 */
+	public int getThrashingWindows() {
+		return thrashingWindows;
+	}
+}
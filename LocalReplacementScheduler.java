@@ -1,151 +1,350 @@
-/*
- * Author: Amanda Foxley c3137540
- * Created: 27/09/25
- * COMP2240 Assignment 3
- * 
- * This scheduler demonstrates the Fixed-allocation with local replacement scope policy
- * 
- * In this scheme, each process is assigned a fixed subset of frames in main memory. i.e. mainMemory frames list
- * Processes use an offset index to determine where their segment of memory starts in the list.
- * The end of this segment is determined by the number of frames allocated per process.
- * When a page fault occurs, the page replacement is handled only within that process’s  allocated memory space — no other processes are affected.
- * Page replacement uses a FIFO policy
- * Allocated frames to other processes do not change, even when another process finishes execution, these now empty frames can't be used by another process.
-
- * Processes execute one page per time unit and are blocked for four time units whenever a page fault occurs. 
- * The scheduler continues execution until all processes have completed their page sequences.
- * Once all processes have finished execution the results are displayed to the console.
- */
-
-import java.util.ArrayList;
-import java.util.List;
-
-public class LocalReplacementScheduler extends Scheduler {
-
-	private final List<Frame> mainMemory = new ArrayList<>(); 				//Represents all frames in main memory. Each process is given a fixed segment to work with.
-
-	/**
-	 * Constructor for LocalReplacementScheduler class
-	 *  
-	 * Each process is assigned a contiguous block of frames determined by dividing the total number of frames by the number of processes.
-	 *
-	 * Preconditions: - processes != null && !processes.isEmpty()
-	 * 				  - numFrames > 0
-	 * 				  - quantum > 0
-	 *
-	 * Postconditions:  - All Frame objects are initialised as empty
-	 *   				- Each process has a fixed, unique segment of the memory frame list assigned.
-	 *
-	 * @param processes - a list of Process objects participating in the simulation
-	 * @param numFrames - the total number of frames (F) available in main memory
-	 * @param quantum - the time quantum (Q) used for Round Robin process scheduling
-	 */
-	public LocalReplacementScheduler(List<Process> processes, int numFrames, int quantum) {
-		super(processes, numFrames, quantum); //Initialise the scheduler with the processes required for the simulation, the number of frames allocated, the time quantum and set the algorithm time to zero
-
-		//Initialise each frame in the frames list
-		for (int i = 0; i < numFrames; i++) {
-			mainMemory.add(new Frame());
-		}
-
-		//Assign offset to each process - This determines what section of the frames list each process "owns"
-		int offset = 0;
-		for (Process p : processes) {
-			p.setOffset(offset);
-			offset += framesPerProcess; //Calculate the next process' offset
-		}
-	}
-
-	/**
-	 * Executes the Round Robin simulation for the fixed-allocation local replacement model.
-	 * Each process executes its pages in a specified time quanta, experiencing page faults and blocking as required.
-	 * The simulation runs until both the ready and blocked queues are empty.
-	 *
-	 * Preconditions: processes != null && !processes.isEmpty()
-	 * 
-	 * Postconditions: All processes have executed their page instructions.
-	 * 				   Process data, turn-around time and fault data are printed to the console
-	 * 
-	 * @param processes - the list of processes to simulate
-	 */
-	public void run(List<Process> processes) {
-		super.runSimulation(processes);									//Run the simulation
-		super.printResults("Fixed-Local Replacement", processes); 		//Print results to console
-	}
-
-
-	/**
-	 * {@inheritDoc}
-	 * See super class comments for base implementation details
-	 *
-	 * This implementation uses a fixed allocation scheme:
-	 * 		- Each process has a fixed segment of frames, only use this segment of memory to load the frame data
-	 * 		- Page replacement uses FIFO within that segment
-	 */
-	@Override
-	protected void loadIntoMainMemory(Frame frameData) {
-		Process p = frameData.getOwnerProcess();
-		int start = p.getStartOffset();
-		int end = start + framesPerProcess;
-
-		//Check for free frame first
-		for (int i = start; i < end; i++) { //Only check the segment allocated for this process
-			Frame f = mainMemory.get(i);		
-
-			if (f.isFree()) { //Found a free frame, add process/page info and return
-				f.addPageToFrame(p, frameData.getPageValue(), algorithmTime);
-				return; 
-			}
-		}
-
-		//FIFO replacement - get oldest frame, and use this space instead
-		Frame oldest = mainMemory.get(start);
-		for (int i = start + 1; i < end; i++) {	//Only check the segment allocated for this process
-			if (mainMemory.get(i).getFrameLoadTime() < oldest.getFrameLoadTime()) { //Found an older frame
-				oldest = mainMemory.get(i);
-			}
-		}
-		oldest.addPageToFrame(p, frameData.getPageValue(), algorithmTime); //Replace oldest frame's process/page info
-	}
-
-	/**
-	 * {@inheritDoc}
-	 * See super class comments for base implementation details
-	 *
-	 * This implementation uses a fixed allocation scheme:
-	 * 		- Each process has a fixed segment of frames, only check for a match within this segment of memory
-	 */
-	@Override
-	protected boolean isPageInMemory(Process p, int page) {
-
-		int start = p.getStartOffset();
-		int end = start + framesPerProcess;
-
-
-		for (int i = start; i < end; i++) { 	//Only check the segment allocated for this process
-			Frame currentFrame = mainMemory.get(i);
-			if (!currentFrame.isFree() && currentFrame.getOwnerProcessID() == p.getProcessID() && currentFrame.getPageValue() == page) { //Can't be empty + owner id and page values should match
-				return true; //Match found
-			}
-		}
-		return false; //No match found, page not in main memory
-	}
-
-	/**
-	 * {@inheritDoc}
-	 * See super class comments for base implementation details
-	 *
-	 * This implementation uses a fixed allocation scheme:
-	 * 		- Each process has a fixed segment of frames, only clear the frames in memory segment belonging to this process
-	 * 		
-	 */
-	@Override
-	protected void clearProcessFrames(Process p) {
-		int start = p.getStartOffset();
-		int end = start + framesPerProcess;
-
-		for (int i = start; i < end; i++) {
-			mainMemory.get(i).clearPageFromFrame(); //Reset frame to default values
-		}
-	}
-}
\ No newline at end of file
+/*
+ * Author: Amanda Foxley c3137540
+ * Created: 27/09/25
+ * COMP2240 Assignment 3
+ * 
+ * This scheduler demonstrates the Fixed-allocation with local replacement scope policy
+ * 
+ * In this scheme, each process is assigned a fixed subset of frames in main memory. i.e. mainMemory frames list
+ * Processes use an offset index to determine where their segment of memory starts in the list.
+ * The end of this segment is determined by the number of frames allocated per process.
+ * When a page fault occurs, the page replacement is handled only within that process’s  allocated memory space — no other processes are affected.
+ * Page replacement uses a FIFO policy
+ * Allocated frames to other processes do not change, even when another process finishes execution, these now empty frames can't be used by another process.
+ * A shared page is stored in the segment of the process that loaded it, other processes mapping the same shared segment can use it from there.
+ * With --numa-nodes each segment is placed on its process' home node when one is left there (see NumaTopology).
+ * A what-if branch can give a process extra frames part way through (see WhatIfFork), they are added after the F frames and join its segment.
+
+ * Processes execute one page per time unit and are blocked for four time units whenever a page fault occurs. 
+ * The scheduler continues execution until all processes have completed their page sequences.
+ * Once all processes have finished execution the results are displayed to the console.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LocalReplacementScheduler extends Scheduler {
+
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	private final List<Frame> mainMemory = new ArrayList<>(); 				//Represents all frames in main memory. Each process is given a fixed segment to work with.
+	private final Map<Integer, List<Frame>> grantedFrames = new HashMap<>();	//Process ID -> frames added to its segment by grantFrames() (what-if branches only)
+
+	/**
+	 * Constructor for LocalReplacementScheduler class
+	 *  
+	 * Each process is assigned a contiguous block of frames determined by dividing the total number of frames by the number of processes.
+	 *
+	 * Preconditions: - processes != null && !processes.isEmpty()
+	 * 				  - numFrames > 0
+	 * 				  - quantum > 0
+	 *
+	 * Postconditions:  - All Frame objects are initialised as empty
+	 *   				- Each process has a fixed, unique segment of the memory frame list assigned.
+	 *
+	 * @param processes - a list of Process objects participating in the simulation
+	 * @param numFrames - the total number of frames (F) available in main memory
+	 * @param quantum - the time quantum (Q) used for Round Robin process scheduling
+	 */
+	public LocalReplacementScheduler(List<Process> processes, int numFrames, int quantum) {
+		this(processes, numFrames, quantum, new SimulationOptions());
+	}
+
+	/**
+	 * Constructor for LocalReplacementScheduler class that also takes the optional simulation settings.
+	 * See the constructor above for details.
+	 *
+	 * @param processes - a list of Process objects participating in the simulation
+	 * @param numFrames - the total number of frames (F) available in main memory
+	 * @param quantum - the time quantum (Q) used for Round Robin process scheduling
+	 * @param options - optional simulation settings
+	 */
+	public LocalReplacementScheduler(List<Process> processes, int numFrames, int quantum, SimulationOptions options) {
+		super(processes, numFrames, quantum, options); //Initialise the scheduler with the processes required for the simulation, the number of frames allocated, the time quantum and set the algorithm time to zero
+
+		//Initialise each frame in the frames list
+		for (int i = 0; i < numFrames; i++) {
+			Frame frame = new Frame();
+			if (numa != null) {
+				frame.setNode(numa.nodeOf(i));
+			}
+			mainMemory.add(frame);
+		}
+
+		//NUMA - each process' segment is placed on its home node where possible
+		if (numa != null) {
+			numa.assignSegments(processes, framesPerProcess);
+			return;
+		}
+
+		//Assign offset to each process - This determines what section of the frames list each process "owns"
+		int offset = 0;
+		for (Process p : processes) {
+			p.setOffset(offset);
+			offset += framesPerProcess; //Calculate the next process' offset
+		}
+	}
+
+	/**
+	 * Executes the Round Robin simulation for the fixed-allocation local replacement model.
+	 * Each process executes its pages in a specified time quanta, experiencing page faults and blocking as required.
+	 * The simulation runs until both the ready and blocked queues are empty.
+	 *
+	 * Preconditions: processes != null && !processes.isEmpty()
+	 * 
+	 * Postconditions: All processes have executed their page instructions.
+	 * 				   Process data, turn-around time and fault data are printed to the console
+	 * 
+	 * @param processes - the list of processes to simulate
+	 */
+	public void run(List<Process> processes) {
+		super.runSimulation(processes);									//Run the simulation
+		super.printResults(getStrategyName(), processes); 				//Print results to console
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 * See super class comments for base implementation details
+	 *
+	 * This implementation uses a fixed allocation scheme:
+	 * 		- Each process has a fixed segment of frames, only use this segment of memory to load the frame data
+	 * 		- Page replacement uses FIFO within that segment
+	 */
+	@Override
+	protected void loadIntoMainMemory(Frame frameData) {
+		Frame target = frameFor(frameData.getOwnerProcess());
+		if (!target.isFree()) {
+			evictFrame(target);
+		}
+		target.copyFrom(frameData); //Frame data was created with the time the page arrives in main memory (now)
+	}
+
+	/**
+	 * Finds the frame the next page of a process will be loaded into: the first free frame of its segment, otherwise the oldest (FIFO).
+	 * Only the process itself loads pages into its segment and it waits for each of them, so the frame found when it faults is still
+	 * the one its page fills when it arrives.
+	 *
+	 * @param p - the process
+	 * @return a free frame, or the frame whose page will be replaced
+	 */
+	private Frame frameFor(Process p) {
+		int start = p.getStartOffset();
+		int end = start + framesPerProcess;
+
+		//Check for free frame first
+		for (int i = start; i < end; i++) { //Only check the segment allocated for this process
+			if (mainMemory.get(i).isFree()) {
+				return mainMemory.get(i);
+			}
+		}
+		List<Frame> granted = grantedFrames(p);
+		for (Frame f : granted) { //Frames a what-if branch added to the segment
+			if (f.isFree()) {
+				return f;
+			}
+		}
+
+		//FIFO replacement - get oldest frame, and use this space instead
+		Frame oldest = mainMemory.get(start);
+		for (int i = start + 1; i < end; i++) {	//Only check the segment allocated for this process
+			if (mainMemory.get(i).getFrameLoadTime() < oldest.getFrameLoadTime()) { //Found an older frame
+				oldest = mainMemory.get(i);
+			}
+		}
+		for (Frame f : granted) {
+			if (f.getFrameLoadTime() < oldest.getFrameLoadTime()) {
+				oldest = f;
+			}
+		}
+		return oldest;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * See super class comments for base implementation details
+	 *
+	 * This implementation uses a fixed allocation scheme:
+	 * 		- Each process has a fixed segment of frames, only check for a match within this segment of memory
+	 * 		- Shared pages may have been loaded into another process' segment, so all frames are checked for these
+	 */
+	@Override
+	protected Frame findFrame(Process p, int page) {
+
+		int start = p.getStartOffset();
+		int end = start + framesPerProcess;
+
+		if (p.getSharedSegment(page) != null) { //Shared page - could be in any process' segment
+			start = 0;
+			end = mainMemory.size();
+		}
+
+		for (int i = start; i < end; i++) { 	//Only check the segment allocated for this process (all frames for a shared page)
+			Frame currentFrame = mainMemory.get(i);
+			if (currentFrame.checkPageInMemory(p, page)) { //Can't be empty + owner id and page values should match
+				return currentFrame; //Match found
+			}
+		}
+		List<Frame> granted = grantedFrames(p);
+		for (int i = 0; i < granted.size(); i++) { //Frames a what-if branch added to the segment
+			if (granted.get(i).checkPageInMemory(p, page)) {
+				return granted.get(i);
+			}
+		}
+		return null; //No match found, page not in main memory
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * A private page has to stay inside its process' segment, so only frames in that segment can be reused.
+	 */
+	@Override
+	protected boolean canReuseFrame(Process p, Frame frame) {
+		int index = mainMemory.indexOf(frame);
+		return (index >= p.getStartOffset() && index < p.getStartOffset() + framesPerProcess) || grantedFrames(p).contains(frame);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * See super class comments for base implementation details
+	 *
+	 * This implementation uses a fixed allocation scheme:
+	 * 		- Each process has a fixed segment of frames, only clear the frames in memory segment belonging to this process
+	 * 		- Shared pages stay in memory (even inside this segment) until every process mapping them has released them
+	 */
+	@Override
+	protected void clearProcessFrames(Process p) {
+		if (!p.hasSharedSegments()) {
+			int start = p.getStartOffset();
+			int end = start + framesPerProcess;
+
+			for (int i = start; i < end; i++) {
+				releaseFrame(mainMemory.get(i), p); //Reset frame to default values (unless it holds a shared page another process still maps)
+			}
+			for (Frame frame : grantedFrames(p)) {
+				releaseFrame(frame, p);
+			}
+			return;
+		}
+
+		//Process may map shared pages stored in other segments as well
+		for (Frame frame : mainMemory) {
+			releaseFrame(frame, p);
+		}
+	}
+
+	/**
+	 * Lists the process' pages in its segment, oldest first (the order FIFO replacement would replace them).
+	 *
+	 * @param p - the process
+	 * @return pages of p in its segment
+	 */
+	@Override
+	protected List<Integer> getResidentPages(Process p) {
+		List<Frame> frames = new ArrayList<>();
+		for (int i = p.getStartOffset(); i < p.getStartOffset() + framesPerProcess; i++) {
+			Frame frame = mainMemory.get(i);
+			if (!frame.isFree() && frame.getOwnerProcess() == p) {
+				frames.add(frame);
+			}
+		}
+		for (Frame frame : grantedFrames(p)) {
+			if (!frame.isFree() && frame.getOwnerProcess() == p) {
+				frames.add(frame);
+			}
+		}
+		frames.sort((a, b) -> Integer.compare(a.getFrameLoadTime(), b.getFrameLoadTime())); //Equal load times keep frame order, as in loadIntoMainMemory()
+
+		List<Integer> pages = new ArrayList<>();
+		for (Frame frame : frames) {
+			pages.add(frame.getPageValue());
+		}
+		return pages;
+	}
+
+	/**
+	 * A process can only use the frames of its own segment.
+	 */
+	@Override
+	protected int getFrameLimit(Process p) {
+		return framesPerProcess + grantedFrames(p).size();
+	}
+
+	/**
+	 * Adds frames to the end of a process' segment. The new frames are placed after the F frames of main memory (on the node of the
+	 * process' segment with --numa-nodes), so no other process' segment moves.
+	 *
+	 * Preconditions: count >= 0
+	 * Postconditions: p's segment holds count more frames, all free
+	 *
+	 * @param p - the process
+	 * @param count - number of frames to add
+	 */
+	@Override
+	protected void grantFrames(Process p, int count) {
+		List<Frame> granted = grantedFrames.computeIfAbsent(p.getProcessID(), id -> new ArrayList<>());
+		for (int i = 0; i < count; i++) {
+			Frame frame = new Frame();
+			if (numa != null) {
+				frame.setNode(numa.nodeOf(p.getStartOffset()));
+			}
+			mainMemory.add(frame);
+			granted.add(frame);
+		}
+	}
+
+	/**
+	 * A page is always placed in its process' segment, in the frame frameFor() finds. A segment can span two nodes, so the node is that frame's.
+	 */
+	@Override
+	protected int placementNode(Process p, int page) {
+		return frameFor(p).getNode();
+	}
+
+	/**
+	 * Adds the frames to the state written to a checkpoint, with any granted frames as their position in main memory.
+	 */
+	@Override
+	protected void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		super.writeState(out);
+		out.writeFrames(mainMemory);
+		out.writeInt(grantedFrames.size());
+		for (Map.Entry<Integer, List<Frame>> entry : grantedFrames.entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeFrameQueue(entry.getValue(), mainMemory);
+		}
+	}
+
+	@Override
+	protected void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		super.readState(in);
+		mainMemory.clear();
+		in.readFrames(mainMemory);
+		grantedFrames.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			List<Frame> granted = new ArrayList<>();
+			grantedFrames.put(in.readInt(), granted);
+			in.readFrameQueue(granted, mainMemory);
+		}
+	}
+
+	/**
+	 * Retrieves the frames grantFrames() added to a process' segment.
+	 *
+	 * @param p - the process
+	 * @return the added frames, empty for a process without any
+	 */
+	private List<Frame> grantedFrames(Process p) {
+		List<Frame> granted = grantedFrames.isEmpty() ? null : grantedFrames.get(p.getProcessID());
+		return granted == null ? List.of() : granted;
+	}
+
+	@Override
+	public String getStrategyName() {
+		return "Fixed-Local Replacement";
+	}
+}
@@ -0,0 +1,318 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Models the optional levels of the memory hierarchy that sit around the scheduler's main memory frames:
+ * 		1. TLB             - a small per-process translation cache checked before main memory is searched
+ * 		2. Main memory     - the frames managed by the Local/Global replacement schedulers (F frames, FIFO replacement)
+ * 		3. Compressed swap - a zswap-like tier that holds pages evicted from main memory in compressed form
+ * 		4. Disk            - the backing store, every page not found in a higher level is read from here
+ *
+ * Both optional levels are turned off by default, giving the two level model described in the assignment document (resident, or a 4 unit fault).
+ * Options (see SimulationOptions):
+ * 		--tlb-entries=N      TLB entries per process (0 = no TLB)           --tlb-latency=N      --tlb-policy=FIFO|LRU
+ * 		--zswap-pages=N      pages held by the compressed tier (0 = none)   --zswap-latency=N    --zswap-policy=FIFO|LRU
+ * 		--memory-latency=N   access latency of main memory
+ * 		--disk-latency=N     time units needed to swap a page in from disk (default 4)
+ *
+ * Only the fault service times (compressed tier or disk) change the simulated time, since they decide how long a faulting process is blocked.
+ * The TLB and main memory latencies are smaller than one time unit (executing an instruction) so they are only accumulated to report an average access latency.
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MemoryHierarchy implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"memory-latency", "tlb-entries", "tlb-latency", "tlb-policy", "zswap-pages", "zswap-latency", "zswap-policy"};
+
+	public static final int DEFAULT_DISK_LATENCY = 4;	//Swapping in a page takes 4 units of time - Rule in assignment spec
+
+	private final int TLB_ENTRIES;						//Number of TLB entries given to each process (0 = TLB turned off)
+	private final int TLB_LATENCY;						//Latency of a TLB lookup
+	private final PageCache.Policy TLB_POLICY;			//Replacement policy used by each TLB
+	private final int MEMORY_LATENCY;					//Latency of a main memory (page table) lookup
+	private final int DISK_LATENCY;						//Time units needed to read a page from disk
+	private final PageCache compressedTier;				//Compressed swap tier, or null if turned off
+	private final Map<Integer, PageCache> tlbs = new HashMap<Integer, PageCache>(); //Process ID -> TLB of that process
+
+	private long tlbHits;								//Hits/misses of TLBs that have already been released
+	private long tlbMisses;
+	private long memoryHits;							//Page table lookups that found the page in main memory
+	private long memoryMisses;							//Page table lookups that didn't find the page (page faults)
+	private long diskReads;								//Faults that had to be serviced from disk
+	private long accessLatency;							//Total latency of all memory accesses (used for the average access latency)
+
+	/**
+	 * Constructor for the MemoryHierarchy class.
+	 * Reads the settings of each level from the simulation options.
+	 *
+	 * Preconditions: options != null
+	 * Postconditions: Each enabled level has been created empty
+	 *
+	 * @param options - simulation options
+	 *
+	 * @throws IllegalArgumentException if a capacity or latency is negative, or a policy name is unknown
+	 */
+	public MemoryHierarchy(SimulationOptions options) {
+		this.TLB_ENTRIES = nonNegative(options, "tlb-entries", 0);
+		this.TLB_LATENCY = nonNegative(options, "tlb-latency", 1);
+		this.TLB_POLICY = policy(options, "tlb-policy", PageCache.Policy.LRU);
+		this.MEMORY_LATENCY = nonNegative(options, "memory-latency", 1);
+		this.DISK_LATENCY = nonNegative(options, "disk-latency", DEFAULT_DISK_LATENCY);
+
+		int compressedPages = nonNegative(options, "zswap-pages", 0);
+		if (compressedPages > 0) {
+			compressedTier = new PageCache("Compressed swap", compressedPages, nonNegative(options, "zswap-latency", 2), policy(options, "zswap-policy", PageCache.Policy.FIFO));
+		} else {
+			compressedTier = null;
+		}
+	}
+
+	/**
+	 * Checks whether any optional level (TLB or compressed tier) is turned on.
+	 *
+	 * @return true if at least one optional level is used, false otherwise
+	 */
+	public boolean isEnabled() {
+		return TLB_ENTRIES > 0 || compressedTier != null;
+	}
+
+	/**
+	 * Looks up a page in the TLB of the requesting process.
+	 *
+	 * Preconditions: p != null
+	 * Postconditions: The TLB hit/miss has been recorded (if the TLB is turned on)
+	 *
+	 * @param p - process requesting the page
+	 * @param page - page value requested
+	 * @return true if the translation was found in the TLB, false if there was a miss or there is no TLB
+	 */
+	public boolean lookupTranslation(Process p, int page) {
+		if (TLB_ENTRIES == 0) {
+			return false;
+		}
+
+		accessLatency += TLB_LATENCY;
+		if (tlbOf(p).lookup(p.pageKey(page))) {
+			accessLatency += MEMORY_LATENCY; //Translation found, only the access itself is needed
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Records the result of searching main memory (walking the page table) after a TLB miss.
+	 * If the page was found its translation is placed into the TLB.
+	 *
+	 * Preconditions: p != null
+	 * Postconditions: The main memory hit/miss has been recorded
+	 *
+	 * @param p - process requesting the page
+	 * @param page - page value requested
+	 * @param resident - true if the page was found in main memory
+	 */
+	public void recordPageTableWalk(Process p, int page, boolean resident) {
+		accessLatency += MEMORY_LATENCY;
+
+		if (resident) {
+			memoryHits++;
+			accessLatency += MEMORY_LATENCY; //Walk the page table and then access the page
+			if (TLB_ENTRIES > 0) {
+				tlbOf(p).insert(p.pageKey(page));
+			}
+		} else {
+			memoryMisses++;
+		}
+	}
+
+	/**
+	 * Works out how long a page fault takes to service.
+	 * If the page is held by the compressed tier it is decompressed (and removed from the tier), otherwise it is read from disk.
+	 *
+	 * Preconditions: p != null
+	 * Postconditions: The compressed tier hit/miss or disk read has been recorded
+	 *
+	 * @param p - process that caused the page fault
+	 * @param page - page value requested
+	 * @return number of time units the process is blocked for
+	 */
+	public int faultServiceTime(Process p, int page) {
+		if (compressedTier != null && compressedTier.lookup(p.pageKey(page))) {
+			compressedTier.remove(p.pageKey(page)); //Page moves back to main memory
+			accessLatency += compressedTier.getLatency();
+			return compressedTier.getLatency();
+		}
+
+		diskReads++;
+		accessLatency += DISK_LATENCY;
+		return DISK_LATENCY;
+	}
+
+	/**
+	 * Updates the hierarchy when a page is replaced in main memory.
+	 * The page's translation is no longer valid (for every process mapping it, if it is shared) and the page is compressed into the compressed tier (if turned on).
+	 *
+	 * Preconditions: victim is not free
+	 * Postconditions: The TLB entries have been removed and the page is held by the compressed tier
+	 *
+	 * @param victim - the frame holding the replaced page
+	 */
+	public void onEvict(Frame victim) {
+		long key = victim.getPageKey();
+
+		List<Process> users = victim.isShared() ? victim.getMappers() : Collections.singletonList(victim.getOwnerProcess());
+		for (Process user : users) {
+			PageCache tlb = tlbs.get(user.getProcessID());
+			if (tlb != null) {
+				tlb.remove(key);
+			}
+		}
+		if (compressedTier != null) {
+			compressedTier.insert(key);
+		}
+	}
+
+	/**
+	 * Releases everything held for a process that has finished (its TLB and its compressed pages).
+	 *
+	 * Preconditions: p != null
+	 * Postconditions: No level holds a page belonging to p
+	 *
+	 * @param p - the finished process
+	 */
+	public void releaseProcess(Process p) {
+		PageCache tlb = tlbs.remove(p.getProcessID());
+		if (tlb != null) { //Keep the counts of the released TLB for the final results
+			tlbHits += tlb.getHits();
+			tlbMisses += tlb.getMisses();
+		}
+		if (compressedTier != null) {
+			compressedTier.removeProcess(p.getProcessID());
+		}
+	}
+
+	/**
+	 * Prints the hit rate of every level of the hierarchy.
+	 *
+	 * Preconditions: The simulation has finished
+	 * Postconditions: A table with one row per level has been displayed to the console
+	 *
+	 * @param out - stream the table is printed to
+	 * @param numFrames - number of main memory frames (F)
+	 */
+	public void printStatistics(PrintStream out, int numFrames) {
+		long tlbHitTotal = tlbHits;
+		long tlbMissTotal = tlbMisses;
+		for (PageCache tlb : tlbs.values()) {
+			tlbHitTotal += tlb.getHits();
+			tlbMissTotal += tlb.getMisses();
+		}
+
+		out.println("Memory hierarchy:");
+		out.printf("%-16s %-10s %-8s %-7s %-9s %-9s %s%n", "Level", "Capacity", "Latency", "Policy", "Hits", "Misses", "Hit Rate");
+		if (TLB_ENTRIES > 0) {
+			printLevel(out, "TLB", TLB_ENTRIES + "/proc", TLB_LATENCY, TLB_POLICY.toString(), tlbHitTotal, tlbMissTotal);
+		}
+		printLevel(out, "Main memory", String.valueOf(numFrames), MEMORY_LATENCY, "FIFO", memoryHits, memoryMisses);
+		if (compressedTier != null) {
+			printLevel(out, compressedTier.getName(), String.valueOf(compressedTier.getCapacity()), compressedTier.getLatency(), compressedTier.getPolicy().toString(), compressedTier.getHits(), compressedTier.getMisses());
+		}
+		printLevel(out, "Disk", "-", DISK_LATENCY, "-", diskReads, 0);
+
+		long accesses = TLB_ENTRIES > 0 ? tlbHitTotal + tlbMissTotal : memoryHits + memoryMisses;
+		out.printf("Average access latency: %.3f%n", accesses == 0 ? 0.0 : (double) accessLatency / accesses);
+	}
+
+	/**
+	 * Writes the contents of the compressed tier and every TLB, and the counters, to a checkpoint (see SimulationCheckpoint).
+	 *
+	 * @param out - checkpoint being written
+	 */
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		if (compressedTier != null) {
+			compressedTier.writeState(out);
+		}
+		out.writeInt(tlbs.size());
+		for (Map.Entry<Integer, PageCache> entry : tlbs.entrySet()) {
+			out.writeInt(entry.getKey());
+			entry.getValue().writeState(out);
+		}
+		long[] counters = {tlbHits, tlbMisses, memoryHits, memoryMisses, diskReads, accessLatency};
+		for (long counter : counters) {
+			out.writeLong(counter);
+		}
+	}
+
+	/**
+	 * Restores the levels and counters written by writeState().
+	 *
+	 * @param in - checkpoint being read
+	 */
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		if (compressedTier != null) {
+			compressedTier.readState(in);
+		}
+		tlbs.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			PageCache tlb = new PageCache("TLB", TLB_ENTRIES, TLB_LATENCY, TLB_POLICY);
+			tlbs.put(in.readInt(), tlb);
+			tlb.readState(in);
+		}
+		tlbHits = in.readLong();
+		tlbMisses = in.readLong();
+		memoryHits = in.readLong();
+		memoryMisses = in.readLong();
+		diskReads = in.readLong();
+		accessLatency = in.readLong();
+	}
+
+	/**
+	 * Prints one row of the hierarchy table.
+	 *
+	 * @param out - stream the row is printed to
+	 */
+	private void printLevel(PrintStream out, String name, String capacity, int latency, String policy, long hits, long misses) {
+		long lookups = hits + misses;
+		String hitRate = lookups == 0 ? "-" : String.format("%.2f%%", 100.0 * hits / lookups);
+		out.printf("%-16s %-10s %-8d %-7s %-9d %-9d %s%n", name, capacity, latency, policy, hits, misses, hitRate);
+	}
+
+	/**
+	 * Retrieves the TLB of a process, creating an empty one the first time the process is seen.
+	 */
+	private PageCache tlbOf(Process p) {
+		return tlbs.computeIfAbsent(p.getProcessID(), id -> new PageCache("TLB", TLB_ENTRIES, TLB_LATENCY, TLB_POLICY));
+	}
+
+	/**
+	 * Reads an option that must not be negative.
+	 */
+	private static int nonNegative(SimulationOptions options, String name, int defaultValue) {
+		int value = options.getInt(name, defaultValue);
+		if (value < 0) {
+			throw new IllegalArgumentException("Option --" + name + " cannot be negative (" + value + " found)");
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a replacement policy option.
+	 */
+	private static PageCache.Policy policy(SimulationOptions options, String name, PageCache.Policy defaultValue) {
+		String value = options.getString(name, defaultValue.toString());
+		try {
+			return PageCache.Policy.valueOf(value.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Option --" + name + " must be FIFO or LRU (\"" + value + "\" found)");
+		}
+	}
+}
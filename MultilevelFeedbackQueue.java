@@ -0,0 +1,171 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Multilevel feedback ready queue.
+ *
+ * There are --mlfq-levels queues (default 3), level 0 has the highest priority. A process at level i runs for Q * 2^i time units.
+ * 		- New processes start at level 0
+ * 		- A process that uses its whole quantum moves down one level (CPU bound)
+ * 		- A process that blocks on a page fault before its quantum ends keeps its level (I/O bound)
+ * 		- Every --mlfq-boost time units (default 0 = never) every process goes back to level 0 so low levels can't starve
+ * Processes are dispatched from the highest non-empty level, in Round Robin order within a level.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+public class MultilevelFeedbackQueue extends ReadyQueue {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"mlfq-levels", "mlfq-boost"};
+
+	private final List<LinkedList<Process>> levels = new ArrayList<LinkedList<Process>>();	//Ready processes of each level, in the order they became ready
+	private final Map<Process, Integer> levelOf = new HashMap<Process, Integer>();			//Process -> its current level (missing = level 0)
+	private final int BOOST_INTERVAL;					//Time between priority boosts, 0 = never
+	private int nextBoost;								//Simulation time the next boost is due
+	private int size;									//Number of ready processes over all levels
+
+	/**
+	 * Constructor for the MultilevelFeedbackQueue class.
+	 *
+	 * Preconditions: quantum > 0, options != null
+	 *
+	 * @param quantum - time quantum (Q) of the top level
+	 * @param options - simulation options
+	 *
+	 * @throws IllegalArgumentException if a setting is invalid
+	 */
+	public MultilevelFeedbackQueue(int quantum, SimulationOptions options) {
+		super(quantum);
+		int numLevels = options.getInt("mlfq-levels", 3);
+		this.BOOST_INTERVAL = options.getInt("mlfq-boost", 0);
+		if (numLevels < 1 || BOOST_INTERVAL < 0) {
+			throw new IllegalArgumentException("Option --mlfq-levels must be at least 1 and --mlfq-boost can't be negative");
+		}
+		for (int i = 0; i < numLevels; i++) {
+			levels.add(new LinkedList<Process>());
+		}
+		this.nextBoost = BOOST_INTERVAL;
+	}
+
+	@Override
+	public int quantumFor(Process p) {
+		return TIME_QUANTUM << levelOf.getOrDefault(p, 0);
+	}
+
+	@Override
+	public void dispatched(Process p, int currentTime) {
+		if (BOOST_INTERVAL > 0 && currentTime >= nextBoost) {
+			boost();
+			nextBoost = (currentTime / BOOST_INTERVAL + 1) * BOOST_INTERVAL;
+		}
+	}
+
+	@Override
+	public void quantumExpired(Process p) {
+		levelOf.put(p, Math.min(levelOf.getOrDefault(p, 0) + 1, levels.size() - 1));
+	}
+
+	@Override
+	public void processFinished(Process p) {
+		levelOf.remove(p);
+	}
+
+	/**
+	 * Moves every process back to level 0, keeping the ready processes in priority order.
+	 */
+	private void boost() {
+		LinkedList<Process> top = levels.get(0);
+		for (int i = 1; i < levels.size(); i++) {
+			top.addAll(levels.get(i));
+			levels.get(i).clear();
+		}
+		levelOf.clear();
+	}
+
+	/**
+	 * Writes the level of every process before the ready processes, so they go back into the levels they were in.
+	 */
+	@Override
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		out.writeInt(levelOf.size());
+		for (Map.Entry<Process, Integer> entry : levelOf.entrySet()) {
+			out.writeProcess(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+		out.writeInt(nextBoost);
+		super.writeState(out);
+	}
+
+	@Override
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		levelOf.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			levelOf.put(in.readProcess(), in.readInt());
+		}
+		nextBoost = in.readInt();
+		super.readState(in);
+	}
+
+	@Override
+	public boolean offer(Process p) {
+		levels.get(levelOf.getOrDefault(p, 0)).add(p);
+		size++;
+		return true;
+	}
+
+	@Override
+	public Iterator<Process> iterator() {
+		return new Iterator<Process>() {
+			private int level = 0;											//Level currently being iterated
+			private Iterator<Process> current = levels.get(0).iterator();	//Iterator of that level
+			private Iterator<Process> lastReturned;							//Iterator that returned the last process (used by remove())
+
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext() && level < levels.size() - 1) {
+					current = levels.get(++level).iterator();
+				}
+				return current.hasNext();
+			}
+
+			@Override
+			public Process next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				lastReturned = current;
+				return current.next();
+			}
+
+			@Override
+			public void remove() {
+				if (lastReturned == null) {
+					throw new IllegalStateException();
+				}
+				lastReturned.remove();
+				lastReturned = null;
+				size--;
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String getName() {
+		return "MLFQ";
+	}
+}
@@ -0,0 +1,332 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * NUMA memory model (--numa-nodes=N) - main memory is split into nodes, like the memory of a multi-socket host, and each process runs
+ * near one of them (its home node). Accessing a page on the home node is local, a page on any other node is remote and slower.
+ *
+ * The frames are split into N nearly equal ranges by frame number, frame i belongs to node i * N / F.
+ * Where a faulted page is placed (--numa-placement):
+ * 		preferred		on the home node while it has a free frame, then any free frame, then the oldest page on the home node is replaced (default)
+ * 		bind			only on the home node - a free frame there, otherwise the oldest page there is replaced
+ * 		interleave		like preferred, but the node is chosen by page number (page mod N) to spread a process over every node
+ * The node is chosen when the page faults: a page that falls back to another node's free frame goes to that node, and is loaded there even
+ * if the frame has been taken by the time the page arrives (the oldest page on the node is replaced instead).
+ * Fixed-local replacement places each process' whole segment on its home node when it fits, and a page always goes into its process'
+ * segment, so there --numa-placement is ignored. A segment can straddle two nodes, a page is placed on the node of the frame it fills.
+ * A copy-on-write copy of a shared page fills a frame too, it is placed and charged like a faulted page.
+ *
+ * With --numa-migrate=K a private page that its process has accessed remotely K times is moved to the home node (variable-global only).
+ * It moves into a free frame, or swaps frames with the oldest page on the home node whose process lives on another node.
+ *
+ * Like the main memory latency of MemoryHierarchy, local and remote access latencies are smaller than one time unit, so they are only added
+ * up to report an average access latency. The extra time needed to fill a frame on a node (--numa-fault-latency) is added to the fault
+ * service time of the node the page is placed on, so it changes how long faulting processes are blocked.
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class NumaTopology implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"numa-nodes", "numa-placement", "numa-affinity", "numa-local-latency", "numa-remote-latency", "numa-fault-latency", "numa-migrate", "numa-migrate-latency"};
+
+	private final int NODES;						//Number of nodes
+	private final int FRAMES;						//Number of frames (F)
+	private final String PLACEMENT;					//preferred, bind or interleave
+	private final int[] AFFINITY;					//Home node of each process in input order, or null to go round the nodes
+	private final int LOCAL_LATENCY;				//Latency of an access to the home node
+	private final int REMOTE_LATENCY;				//Latency of an access to another node
+	private final int MIGRATE_LATENCY;				//Latency of moving a page between nodes
+	private final int[] FAULT_LATENCY;				//Extra time units needed to fill a frame on each node
+	private final int MIGRATE_AFTER;				//Remote accesses to a page before it is moved, 0 = never
+
+	private final Map<Integer, long[]> accesses = new LinkedHashMap<Integer, long[]>();	//Process ID -> {local, remote} accesses
+	private final Map<Long, Integer> remoteAccesses = new HashMap<Long, Integer>();		//Page key -> remote accesses since it was loaded or moved (see Frame.getPageKey())
+	private long accessLatency;						//Total latency of all accesses and migrations
+	private int migrations;							//Pages moved into a free frame on their home node
+	private int exchanges;							//Pages moved by swapping frames with a page of another node's process
+
+	/**
+	 * Constructor for the NumaTopology class.
+	 *
+	 * Preconditions: options.has("numa-nodes"), numFrames > 0
+	 *
+	 * @param options - simulation options
+	 * @param numFrames - number of frames (F)
+	 *
+	 * @throws IllegalArgumentException if the number of nodes, a node list or the placement is invalid
+	 */
+	public NumaTopology(SimulationOptions options, int numFrames) {
+		this.NODES = options.getInt("numa-nodes", 1);
+		this.FRAMES = numFrames;
+		if (NODES < 1 || NODES > numFrames) {
+			throw new IllegalArgumentException("Invalid --numa-nodes=" + NODES + ", expected 1 to " + numFrames + " (one frame per node at least)");
+		}
+		this.PLACEMENT = options.getString("numa-placement", "preferred");
+		if (!PLACEMENT.equals("preferred") && !PLACEMENT.equals("bind") && !PLACEMENT.equals("interleave")) {
+			throw new IllegalArgumentException("Unknown NUMA placement \"" + PLACEMENT + "\" (expected preferred, bind or interleave)");
+		}
+		this.AFFINITY = options.has("numa-affinity") ? nodeList(options.getString("numa-affinity", null), "numa-affinity") : null;
+		this.LOCAL_LATENCY = options.getInt("numa-local-latency", 1);
+		this.REMOTE_LATENCY = options.getInt("numa-remote-latency", 3);
+		this.MIGRATE_LATENCY = options.getInt("numa-migrate-latency", 2 * REMOTE_LATENCY);
+		this.MIGRATE_AFTER = Math.max(0, options.getInt("numa-migrate", 0));
+
+		FAULT_LATENCY = new int[NODES];
+		if (options.has("numa-fault-latency")) {
+			String[] values = options.getString("numa-fault-latency", "").split(",");
+			if (values.length != NODES) {
+				throw new IllegalArgumentException("--numa-fault-latency needs one value per node (" + NODES + " nodes, " + values.length + " values)");
+			}
+			for (int node = 0; node < NODES; node++) {
+				FAULT_LATENCY[node] = Integer.parseInt(values[node].trim());
+				if (FAULT_LATENCY[node] < 0) {
+					throw new IllegalArgumentException("--numa-fault-latency can't be negative (" + values[node].trim() + " found)");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parses a comma separated list of node numbers.
+	 */
+	private int[] nodeList(String value, String option) {
+		String[] values = value.split(",");
+		int[] nodes = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			nodes[i] = Integer.parseInt(values[i].trim());
+			if (nodes[i] < 0 || nodes[i] >= NODES) {
+				throw new IllegalArgumentException("Invalid node " + nodes[i] + " in --" + option + ", nodes are numbered 0 to " + (NODES - 1));
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * Finds the node a frame belongs to.
+	 *
+	 * @param frameNumber - frame number, 0 to F - 1
+	 * @return node of the frame
+	 */
+	public int nodeOf(int frameNumber) {
+		return (int) ((long) frameNumber * NODES / FRAMES);
+	}
+
+	/**
+	 * Finds the node a process runs near. Processes without an --numa-affinity entry go round the nodes by process ID.
+	 *
+	 * @param p - the process
+	 * @return home node of p
+	 */
+	public int homeNode(Process p) {
+		int index = p.getProcessID() - 1;
+		if (AFFINITY != null && index < AFFINITY.length) {
+			return AFFINITY[index];
+		}
+		return Math.floorMod(index, NODES);
+	}
+
+	/**
+	 * Finds the node a faulted page should be placed on.
+	 *
+	 * @param p - the faulting process
+	 * @param page - the faulted page
+	 * @return node to place the page on
+	 */
+	public int targetNode(Process p, int page) {
+		return PLACEMENT.equals("interleave") ? Math.floorMod(page, NODES) : homeNode(p);
+	}
+
+	/**
+	 * Checks whether pages may only be placed on their target node (--numa-placement=bind).
+	 *
+	 * @return true if pages never fall back to another node's free frames
+	 */
+	public boolean isBound() {
+		return PLACEMENT.equals("bind");
+	}
+
+	/**
+	 * Retrieves the extra time needed to fill a frame on a node.
+	 *
+	 * @param node - the node the faulted page will be placed on
+	 * @return time units added to the fault service time
+	 */
+	public int faultLatency(int node) {
+		return FAULT_LATENCY[node];
+	}
+
+	/**
+	 * Records an access by a process to a page in memory.
+	 *
+	 * Preconditions: frame holds the page p is accessing
+	 * Postconditions: The access has been counted as local or remote
+	 *
+	 * @param p - the accessing process
+	 * @param frame - the frame holding the page
+	 * @return true if the page should now be moved to p's home node (see migrated())
+	 */
+	public boolean recordAccess(Process p, Frame frame) {
+		long[] counts = accesses.computeIfAbsent(p.getProcessID(), id -> new long[2]);
+		if (frame.getNode() == homeNode(p)) {
+			counts[0]++;
+			accessLatency += LOCAL_LATENCY;
+			return false;
+		}
+		counts[1]++;
+		accessLatency += REMOTE_LATENCY;
+		if (MIGRATE_AFTER == 0 || frame.isShared() || frame.isHugePage() || frame.getOwnerProcess() != p) {
+			return false; //Only a private base page is moved, a shared page is used from several nodes
+		}
+		return remoteAccesses.merge(frame.getPageKey(), 1, Integer::sum) >= MIGRATE_AFTER;
+	}
+
+	/**
+	 * Records a page that has been moved to its process' home node.
+	 *
+	 * @param frame - the frame now holding the page
+	 * @param exchanged - true if it swapped frames with another page, false if it moved into a free frame
+	 */
+	public void migrated(Frame frame, boolean exchanged) {
+		remoteAccesses.remove(frame.getPageKey());
+		accessLatency += exchanged ? 2 * MIGRATE_LATENCY : MIGRATE_LATENCY;
+		if (exchanged) {
+			exchanges++;
+		} else {
+			migrations++;
+		}
+	}
+
+	/**
+	 * Forgets the remote accesses of a page that is being replaced.
+	 *
+	 * @param victim - the frame about to be replaced
+	 */
+	public void evicted(Frame victim) {
+		if (!remoteAccesses.isEmpty()) {
+			remoteAccesses.remove(victim.getPageKey());
+		}
+	}
+
+	/**
+	 * Assigns each process a segment of frames on its home node where possible (fixed-local replacement).
+	 * Memory is cut into segments of framesPerProcess frames, a segment belongs to the node of its first frame. A process takes the first
+	 * unused segment on its home node, or the first unused segment if its home node has none left.
+	 *
+	 * Preconditions: framesPerProcess * processes.size() <= F
+	 * Postconditions: Every process has a different segment offset
+	 *
+	 * @param processes - the processes of the simulation
+	 * @param framesPerProcess - frames in each segment
+	 */
+	public void assignSegments(List<Process> processes, int framesPerProcess) {
+		boolean[] used = new boolean[FRAMES / framesPerProcess];
+		for (Process p : processes) {
+			int segment = -1;
+			for (int s = 0; s < used.length && segment < 0; s++) {
+				if (!used[s] && nodeOf(s * framesPerProcess) == homeNode(p)) {
+					segment = s;
+				}
+			}
+			for (int s = 0; s < used.length && segment < 0; s++) {
+				if (!used[s]) {
+					segment = s;
+				}
+			}
+			used[segment] = true;
+			p.setOffset(segment * framesPerProcess);
+		}
+	}
+
+	/**
+	 * Writes the access counts and migration statistics to a checkpoint (see SimulationCheckpoint).
+	 *
+	 * @param out - checkpoint being written
+	 */
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		out.writeInt(accesses.size());
+		for (Map.Entry<Integer, long[]> entry : accesses.entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeLong(entry.getValue()[0]);
+			out.writeLong(entry.getValue()[1]);
+		}
+		out.writeInt(remoteAccesses.size());
+		for (Map.Entry<Long, Integer> entry : remoteAccesses.entrySet()) {
+			out.writeLong(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+		out.writeLong(accessLatency);
+		out.writeInt(migrations);
+		out.writeInt(exchanges);
+	}
+
+	/**
+	 * Restores the access counts and statistics written by writeState().
+	 *
+	 * @param in - checkpoint being read
+	 */
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		accesses.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			accesses.put(in.readInt(), new long[] {in.readLong(), in.readLong()});
+		}
+		remoteAccesses.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			remoteAccesses.put(in.readLong(), in.readInt());
+		}
+		accessLatency = in.readLong();
+		migrations = in.readInt();
+		exchanges = in.readInt();
+	}
+
+	/**
+	 * Prints the local and remote accesses of each process.
+	 *
+	 * Preconditions: The simulation has finished
+	 *
+	 * @param out - stream the report is printed to
+	 * @param processes - the simulated processes
+	 * @param migrates - true if the replacement policy moves pages between nodes (variable-global), so the migrations are shown
+	 */
+	public void printReport(PrintStream out, List<Process> processes, boolean migrates) {
+		List<String> ranges = new ArrayList<String>();
+		for (int node = 0, first = 0; node < NODES; node++) {
+			int last = first;
+			while (last + 1 < FRAMES && nodeOf(last + 1) == node) {
+				last++;
+			}
+			ranges.add("node " + node + ": frames " + first + "-" + last);
+			first = last + 1;
+		}
+		out.println("NUMA - " + NODES + " nodes (" + String.join(", ", ranges) + "), " + PLACEMENT + " placement:");
+		out.printf("%-4s %-20s %-10s %-8s %-8s %s%n", "PID", "Process Name", "Home Node", "Local", "Remote", "Remote %");
+
+		long local = 0;
+		long remote = 0;
+		for (Process p : processes) {
+			long[] counts = accesses.getOrDefault(p.getProcessID(), new long[2]);
+			local += counts[0];
+			remote += counts[1];
+			out.printf("%-4d %-20s %-10d %-8d %-8d %s%n", p.getProcessID(), p.getName(), homeNode(p), counts[0], counts[1], percent(counts[1], counts[0] + counts[1]));
+		}
+		out.printf("Accesses: %d local, %d remote (%s remote), average access latency %.3f%n", local, remote, percent(remote, local + remote),
+				local + remote == 0 ? 0.0 : (double) accessLatency / (local + remote));
+		if (MIGRATE_AFTER > 0 && migrates) {
+			out.println("Migrations: " + migrations + " into free frames, " + exchanges + " by swapping frames");
+		}
+	}
+
+	private static String percent(long part, long whole) {
+		return whole == 0 ? "-" : String.format("%.2f%%", 100.0 * part / whole);
+	}
+}
@@ -0,0 +1,481 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Variable-allocation global replacement with the frame table stored off the Java heap (--frame-table=offheap), for simulating very large memories.
+ *
+ * The on-heap scheduler keeps a Frame object per frame in a linked list and searches the whole list on every access.
+ * Here each frame is a fixed width slot in direct ByteBuffers, so millions of frames add nothing for the garbage collector to trace:
+ * 		owner process ID | page | load time | flags | next slot of the owner | previous slot of the owner		(6 x 4 bytes)
+ * Frames are found through an open addressing hash table (process ID, page) -> slot, also stored off the heap, so an access takes constant time.
+ * Each process' frames are linked through their slots so a finished process releases its frames without scanning memory.
+ *
+ * The replacement decisions are exactly those of GlobalReplacementScheduler. Its FIFO queue only ever moves the head frame to the back,
+ * so the queue is always the frames in frame number order starting from a head frame:
+ * 		- A free frame is the first free frame in queue order, found with a bitmap of free frames (one bit per frame, with a summary bit per word)
+ * 		- Otherwise the head frame is replaced and the next frame becomes the head
+ * Only private base pages are supported - shared segments and huge pages need the frame objects of the on-heap scheduler.
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OffHeapGlobalReplacementScheduler extends GlobalReplacementScheduler {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	//Slot layout - byte offsets of the fields
+	private static final int OWNER = 0;
+	private static final int PAGE = 4;
+	private static final int LOAD_TIME = 8;
+	private static final int FLAGS = 12;
+	private static final int NEXT = 16;
+	private static final int PREVIOUS = 20;
+	private static final int SLOT_BYTES = 24;
+
+	private static final int OCCUPIED = 1;				//Flag - the frame holds a page
+	private static final int REFERENCED = 2;			//Flag - the page has been accessed since it was loaded
+
+	private static final int CHUNK_SHIFT = 22;			//Slots per slot buffer = 2^22 (96MB), a direct buffer can't hold more than 2GB
+	private static final int INDEX_CHUNK_SHIFT = 26;	//Entries per hash table buffer = 2^26 (256MB)
+
+	private transient ByteBuffer[] slots;				//Frame table
+	private transient IntBuffer[] index;				//Hash table entries, slot + 1 (0 = empty)
+	private final long indexMask;						//Hash table size - 1 (the size is a power of 2, at least twice the number of frames)
+	private final long[][] freeBits;					//Free frame bitmap, freeBits[0] has a bit per frame and each level above has a bit per word of the level below
+	private int freeFrames;								//Number of free frames
+	private int head;									//Frame at the head of the FIFO queue
+	private final Map<Integer, Integer> firstSlot = new HashMap<Integer, Integer>();	//Process ID -> first slot of its frames
+	private final Map<Integer, Process> owners = new HashMap<Integer, Process>();		//Process ID -> process, for the frames' owners
+	private transient Frame view;						//Frame object filled from a slot when the scheduler needs one (e.g. a replaced page)
+
+	/**
+	 * Constructor for OffHeapGlobalReplacementScheduler class.
+	 *
+	 * Preconditions: - processes != null
+	 * 				  - numFrames > 0
+	 * 				  - quantum > 0
+	 * Postconditions: Every frame is free
+	 *
+	 * @param processes - a list of Process objects participating in the simulation
+	 * @param numFrames - the total number of frames (F) available in main memory
+	 * @param quantum - the time quantum (Q) used for Round Robin process scheduling
+	 * @param options - optional simulation settings
+	 *
+	 * @throws IllegalArgumentException if a process maps shared pages, or huge pages or NUMA nodes are turned on
+	 */
+	public OffHeapGlobalReplacementScheduler(List<Process> processes, int numFrames, int quantum, SimulationOptions options) {
+		super(processes, numFrames, quantum, options, false);
+		checkOptions(processes, options);
+
+		indexMask = Long.highestOneBit(Math.max(2L, 2L * numFrames - 1)) * 2 - 1;
+		allocateBuffers();
+
+		//Every frame starts free
+		int levels = 1;
+		for (long bits = numFrames; bits > 64; bits = (bits + 63) / 64) {
+			levels++;
+		}
+		freeBits = new long[levels][];
+		long bits = numFrames;
+		for (int level = 0; level < levels; level++) {
+			freeBits[level] = new long[(int) ((bits + 63) / 64)];
+			bits = (bits + 63) / 64;
+		}
+		for (int frame = 0; frame < numFrames; frame++) {
+			setFree(frame, true);
+		}
+		freeFrames = numFrames;
+	}
+
+	/**
+	 * Allocates the frame table and hash table buffers (all zero - every slot free, every hash table entry empty).
+	 */
+	private void allocateBuffers() {
+		slots = new ByteBuffer[(int) (((long) NUMBER_FRAMES + (1 << CHUNK_SHIFT) - 1) >>> CHUNK_SHIFT)];
+		for (int chunk = 0; chunk < slots.length; chunk++) {
+			long chunkSlots = Math.min(1L << CHUNK_SHIFT, NUMBER_FRAMES - ((long) chunk << CHUNK_SHIFT));
+			slots[chunk] = ByteBuffer.allocateDirect((int) (chunkSlots * SLOT_BYTES));
+		}
+
+		long entries = indexMask + 1;
+		index = new IntBuffer[(int) ((entries + (1L << INDEX_CHUNK_SHIFT) - 1) >>> INDEX_CHUNK_SHIFT)];
+		for (int chunk = 0; chunk < index.length; chunk++) {
+			long chunkEntries = Math.min(1L << INDEX_CHUNK_SHIFT, entries - ((long) chunk << INDEX_CHUNK_SHIFT));
+			index[chunk] = ByteBuffer.allocateDirect((int) (chunkEntries * 4)).asIntBuffer();
+		}
+	}
+
+	/**
+	 * Checks that huge pages and NUMA nodes are turned off and that every process only uses private pages (see GlobalReplacementScheduler.checkOptions()).
+	 *
+	 * @param processes - the processes to simulate
+	 * @param options - optional simulation settings
+	 *
+	 * @throws IllegalArgumentException if a process maps shared pages, or huge pages or NUMA nodes are turned on
+	 */
+	public static void checkOptions(List<Process> processes, SimulationOptions options) {
+		if (options.getInt("huge-page-frames", 0) >= 2) { //Same test as HugePagePolicy.isEnabled()
+			throw new IllegalArgumentException("The off-heap frame table doesn't support huge pages (--huge-page-frames)");
+		}
+		if (options.has("numa-nodes")) {
+			throw new IllegalArgumentException("The off-heap frame table doesn't support NUMA nodes (--numa-nodes)");
+		}
+		for (Process p : processes) {
+			checkPrivate(p);
+		}
+	}
+
+	/**
+	 * Checks that a process only uses private pages.
+	 *
+	 * @throws IllegalArgumentException if the process maps shared pages
+	 */
+	private static void checkPrivate(Process p) {
+		if (p.hasSharedSegments()) {
+			throw new IllegalArgumentException("The off-heap frame table doesn't support shared pages (process \"" + p.getName() + "\")");
+		}
+	}
+
+	@Override
+	protected void admitProcess(Process p) {
+		checkPrivate(p);
+		super.admitProcess(p);
+	}
+
+	//---Slot and hash table access---
+
+	private int getField(int slot, int field) {
+		return slots[slot >>> CHUNK_SHIFT].getInt((slot & ((1 << CHUNK_SHIFT) - 1)) * SLOT_BYTES + field);
+	}
+
+	private void setField(int slot, int field, int value) {
+		slots[slot >>> CHUNK_SHIFT].putInt((slot & ((1 << CHUNK_SHIFT) - 1)) * SLOT_BYTES + field, value);
+	}
+
+	private int getEntry(long position) {
+		return index[(int) (position >>> INDEX_CHUNK_SHIFT)].get((int) (position & ((1L << INDEX_CHUNK_SHIFT) - 1)));
+	}
+
+	private void setEntry(long position, int value) {
+		index[(int) (position >>> INDEX_CHUNK_SHIFT)].put((int) (position & ((1L << INDEX_CHUNK_SHIFT) - 1)), value);
+	}
+
+	/**
+	 * Hash table position for a page of a process (the key is mixed so nearby pages spread over the table).
+	 */
+	private long home(int owner, int page) {
+		long key = ((long) owner << 32) | (page & 0xFFFFFFFFL);
+		key ^= key >>> 33;
+		key *= 0xFF51AFD7ED558CCDL;
+		key ^= key >>> 33;
+		return key & indexMask;
+	}
+
+	/**
+	 * Finds the slot holding a page of a process.
+	 *
+	 * @return slot number, or -1 if the page isn't in memory
+	 */
+	private int lookup(int owner, int page) {
+		for (long position = home(owner, page); ; position = (position + 1) & indexMask) {
+			int entry = getEntry(position);
+			if (entry == 0) {
+				return -1;
+			}
+			if (getField(entry - 1, OWNER) == owner && getField(entry - 1, PAGE) == page) {
+				return entry - 1;
+			}
+		}
+	}
+
+	private void addToIndex(int slot) {
+		long position = home(getField(slot, OWNER), getField(slot, PAGE));
+		while (getEntry(position) != 0) {
+			position = (position + 1) & indexMask;
+		}
+		setEntry(position, slot + 1);
+	}
+
+	/**
+	 * Removes a slot from the hash table, moving later entries of the same probe run back so lookups still find them.
+	 */
+	private void removeFromIndex(int slot) {
+		long hole = home(getField(slot, OWNER), getField(slot, PAGE));
+		while (getEntry(hole) != slot + 1) {
+			hole = (hole + 1) & indexMask;
+		}
+
+		for (long position = (hole + 1) & indexMask; getEntry(position) != 0; position = (position + 1) & indexMask) {
+			int entry = getEntry(position);
+			long entryHome = home(getField(entry - 1, OWNER), getField(entry - 1, PAGE));
+			boolean canMove = position > hole ? (entryHome <= hole || entryHome > position) : (entryHome <= hole && entryHome > position);
+			if (canMove) { //The entry's probe run passes through the hole
+				setEntry(hole, entry);
+				hole = position;
+			}
+		}
+		setEntry(hole, 0);
+	}
+
+	//---Free frame bitmap---
+
+	private void setFree(int frame, boolean free) {
+		long bit = frame;
+		for (long[] level : freeBits) {
+			int word = (int) (bit >>> 6);
+			boolean wasEmpty = level[word] == 0;
+			if (free) {
+				level[word] |= 1L << (bit & 63);
+			} else {
+				level[word] &= ~(1L << (bit & 63));
+			}
+			if ((free && !wasEmpty) || (!free && level[word] != 0)) {
+				return; //The level above doesn't change
+			}
+			bit = word;
+		}
+	}
+
+	/**
+	 * Finds the first free frame at or after a frame number.
+	 *
+	 * @return frame number, or -1 if every frame from there on is occupied
+	 */
+	private long nextFree(int level, long from) {
+		long[] bits = freeBits[level];
+		int word = (int) (from >>> 6);
+		if (word >= bits.length) {
+			return -1;
+		}
+		long masked = bits[word] & (-1L << (from & 63));
+		if (masked != 0) {
+			return ((long) word << 6) + Long.numberOfTrailingZeros(masked);
+		}
+		if (level + 1 == freeBits.length) { //Top level is a single word
+			return -1;
+		}
+		long nextWord = nextFree(level + 1, word + 1L);
+		return nextWord < 0 ? -1 : (nextWord << 6) + Long.numberOfTrailingZeros(bits[(int) nextWord]);
+	}
+
+	//---Scheduler operations---
+
+	@Override
+	protected Frame findFrame(Process p, int page) {
+		int slot = lookup(p.getProcessID(), page);
+		return slot < 0 ? null : viewOf(slot);
+	}
+
+	@Override
+	protected boolean isPageInMemory(Process p, int page) {
+		return lookup(p.getProcessID(), page) >= 0;
+	}
+
+	@Override
+	protected boolean isPageResident(Process p, int page) {
+		if (hierarchy.lookupTranslation(p, page)) {
+			return true; //TLB hit - no need to search main memory
+		}
+		int slot = lookup(p.getProcessID(), page);
+		if (slot >= 0) {
+			setField(slot, FLAGS, getField(slot, FLAGS) | REFERENCED);
+		}
+		hierarchy.recordPageTableWalk(p, page, slot >= 0);
+		return slot >= 0;
+	}
+
+	/**
+	 * Fills the reusable frame object from a slot.
+	 */
+	private Frame viewOf(int slot) {
+		if (view == null) {
+			view = new Frame();
+		}
+		view.addPageToFrame(owners.get(getField(slot, OWNER)), getField(slot, PAGE), getField(slot, LOAD_TIME));
+		if ((getField(slot, FLAGS) & REFERENCED) != 0) {
+			view.markReferenced();
+		}
+		return view;
+	}
+
+	/**
+	 * Loads a page into the first free frame in FIFO queue order, or replaces the page at the head of the queue.
+	 */
+	@Override
+	protected void loadIntoMainMemory(Frame newFrameData) {
+		int slot;
+		if (freeFrames > 0) {
+			long free = nextFree(0, head);
+			slot = (int) (free >= 0 ? free : nextFree(0, 0)); //The queue wraps around to frame 0
+			setFree(slot, false);
+			freeFrames--;
+		} else {
+			slot = head;
+			head = (head + 1) % NUMBER_FRAMES; //The replaced frame moves to the back of the queue
+			evictFrame(viewOf(slot));
+			removeSlot(slot);
+		}
+
+		Process owner = newFrameData.getOwnerProcess();
+		owners.put(owner.getProcessID(), owner);
+		setField(slot, OWNER, owner.getProcessID());
+		setField(slot, PAGE, newFrameData.getPageValue());
+		setField(slot, LOAD_TIME, newFrameData.getFrameLoadTime());
+		setField(slot, FLAGS, OCCUPIED);
+		addToIndex(slot);
+
+		//Link the slot into the front of the owner's frames
+		Integer first = firstSlot.get(owner.getProcessID());
+		setField(slot, PREVIOUS, -1);
+		setField(slot, NEXT, first == null ? -1 : first);
+		if (first != null) {
+			setField(first, PREVIOUS, slot);
+		}
+		firstSlot.put(owner.getProcessID(), slot);
+	}
+
+	/**
+	 * Removes a page from the hash table and its owner's list of frames. The slot's flags are cleared by the caller.
+	 */
+	private void removeSlot(int slot) {
+		removeFromIndex(slot);
+		int owner = getField(slot, OWNER);
+		int previous = getField(slot, PREVIOUS);
+		int next = getField(slot, NEXT);
+		if (previous >= 0) {
+			setField(previous, NEXT, next);
+		} else if (next >= 0) {
+			firstSlot.put(owner, next);
+		} else {
+			firstSlot.remove(owner);
+		}
+		if (next >= 0) {
+			setField(next, PREVIOUS, previous);
+		}
+		setField(slot, FLAGS, 0);
+	}
+
+	/**
+	 * Frees every frame of a finished (or suspended) process by following its list of frames.
+	 */
+	@Override
+	protected void clearProcessFrames(Process p) {
+		Integer slot = firstSlot.get(p.getProcessID());
+		while (slot != null && slot >= 0) {
+			int next = getField(slot, NEXT);
+			removeSlot(slot);
+			setFree(slot, true);
+			freeFrames++;
+			slot = next;
+		}
+		owners.remove(p.getProcessID());
+	}
+
+	/**
+	 * Lists the process' pages in FIFO queue order, oldest first, by following its list of frames.
+	 */
+	@Override
+	protected List<Integer> getResidentPages(Process p) {
+		List<Integer> slotsInOrder = new ArrayList<Integer>();
+		for (Integer slot = firstSlot.get(p.getProcessID()); slot != null && slot >= 0; slot = getField(slot, NEXT)) {
+			slotsInOrder.add(slot);
+		}
+		slotsInOrder.sort((a, b) -> Integer.compare(Math.floorMod(a - head, NUMBER_FRAMES), Math.floorMod(b - head, NUMBER_FRAMES))); //Queue position from the head
+
+		List<Integer> pages = new ArrayList<Integer>();
+		for (int slot : slotsInOrder) {
+			pages.add(getField(slot, PAGE));
+		}
+		return pages;
+	}
+
+	@Override
+	protected void grantFrames(Process p, int count) {
+		throw new IllegalArgumentException("What-if branches can't add frames with the off-heap frame table, its size is fixed");
+	}
+
+	/**
+	 * Adds the frame table to the state written to a checkpoint. Only the occupied slots are written, free slots hold nothing that is read again.
+	 */
+	@Override
+	protected void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		super.writeState(out);
+		out.writeInt(freeFrames);
+		out.writeInt(head);
+		for (int slot = 0; slot < NUMBER_FRAMES; slot++) {
+			if ((getField(slot, FLAGS) & OCCUPIED) != 0) {
+				out.writeInt(slot);
+				for (int field = 0; field < SLOT_BYTES; field += 4) {
+					out.writeInt(getField(slot, field));
+				}
+			}
+		}
+		out.writeInt(-1);
+		out.writeIntMap(firstSlot);
+		out.writeInt(owners.size());
+		for (Map.Entry<Integer, Process> entry : owners.entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeProcess(entry.getValue());
+		}
+	}
+
+	/**
+	 * Restores the frame table from a checkpoint into the empty table built by the constructor and rebuilds the hash table and free frame bitmap.
+	 */
+	@Override
+	protected void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		super.readState(in);
+		freeFrames = in.readInt();
+		head = in.readInt();
+		for (int slot = in.readInt(); slot >= 0; slot = in.readInt()) {
+			if (slot >= NUMBER_FRAMES) {
+				throw new IOException("Invalid frame " + slot + " in checkpoint");
+			}
+			for (int field = 0; field < SLOT_BYTES; field += 4) {
+				setField(slot, field, in.readInt());
+			}
+			setFree(slot, false);
+			addToIndex(slot);
+		}
+		firstSlot.clear();
+		in.readIntMap(firstSlot);
+		owners.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			owners.put(in.readInt(), in.readProcess());
+		}
+	}
+
+	/**
+	 * Copies the frame table into a what-if branch with the rest of the simulation (see WhatIfFork). Direct buffers can't be serialised, so the slots are written out.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		for (int slot = 0; slot < NUMBER_FRAMES; slot++) {
+			for (int field = 0; field < SLOT_BYTES; field += 4) {
+				out.writeInt(getField(slot, field));
+			}
+		}
+	}
+
+	/**
+	 * Restores the frame table in a what-if branch and rebuilds the hash table.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		allocateBuffers();
+		for (int slot = 0; slot < NUMBER_FRAMES; slot++) {
+			for (int field = 0; field < SLOT_BYTES; field += 4) {
+				setField(slot, field, in.readInt());
+			}
+			if ((getField(slot, FLAGS) & OCCUPIED) != 0) {
+				addToIndex(slot);
+			}
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Bounded page sequence of a process arriving on a live trace stream (see TraceStream).
+ *
+ * Pages are added as they are read from the stream and discarded once the process has executed them, the buffer never holds
+ * more than its capacity so a process can run for any length of time in a fixed amount of memory.
+ * The buffer is a ring of page values with one write flag per slot, positions are absolute (the first page the process received is position 0).
+ */
+
+import java.io.Serializable;
+
+public class PageBuffer implements PageSequence, Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	private final int[] pages;					//Ring of buffered page values
+	private final boolean[] writes;				//Write flag of each buffered page
+	private int firstPosition;					//Position of the oldest buffered page
+	private int count;							//Number of buffered pages
+	private boolean ended;						//Flag that indicates the stream has no more pages for this process
+
+	/**
+	 * Constructor for the PageBuffer class.
+	 *
+	 * Preconditions: capacity > 0
+	 * Postconditions: An empty buffer that hasn't ended
+	 *
+	 * @param capacity - maximum number of pages buffered at once
+	 */
+	public PageBuffer(int capacity) {
+		this.pages = new int[capacity];
+		this.writes = new boolean[capacity];
+	}
+
+	/**
+	 * Adds the next page received for the process.
+	 *
+	 * Preconditions: !isFull(), the buffer hasn't ended
+	 * Postconditions: The page is available after all pages received before it
+	 *
+	 * @param page - page value
+	 * @param write - true if the instruction writes to its page
+	 */
+	public void add(int page, boolean write) {
+		int slot = (firstPosition + count) % pages.length;
+		pages[slot] = page;
+		writes[slot] = write;
+		count++;
+	}
+
+	/**
+	 * Checks whether the buffer is holding as many pages as it can.
+	 *
+	 * @return true if no page can be added until the process executes one
+	 */
+	public boolean isFull() {
+		return count == pages.length;
+	}
+
+	/**
+	 * Marks the end of the process' pages, the process finishes once it has executed the pages still buffered.
+	 */
+	public void end() {
+		ended = true;
+	}
+
+	@Override
+	public boolean isAvailable(int position) {
+		return position >= firstPosition && position < firstPosition + count;
+	}
+
+	@Override
+	public boolean isEnded(int position) {
+		return ended && position >= firstPosition + count;
+	}
+
+	@Override
+	public int getPage(int position) {
+		return pages[position % pages.length];
+	}
+
+	@Override
+	public boolean isWrite(int position) {
+		return writes[position % pages.length];
+	}
+
+	@Override
+	public void consumed(int position) {
+		int executed = Math.min(position - firstPosition, count);
+		if (executed > 0) {
+			firstPosition += executed;
+			count -= executed;
+		}
+	}
+
+	@Override
+	public int size() {
+		return firstPosition + count;
+	}
+}
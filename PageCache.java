@@ -0,0 +1,232 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * A small bounded store of page keys used for the optional levels of the memory hierarchy (the TLB and the compressed swap tier).
+ * Each level has its own capacity, access latency and replacement policy:
+ * 		- FIFO - the entry that was inserted first is replaced
+ * 		- LRU  - the entry that was used least recently is replaced
+ *
+ * The cache only records which pages are held, the page data itself is never modelled (the same as a Frame).
+ * Hits and misses are counted so the hit rate of each level can be reported at the end of a simulation.
+ */
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class PageCache implements Serializable {
+
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Replacement policies supported by a cache level.
+	 */
+	public enum Policy { FIFO, LRU }
+
+	private final String NAME;							//Name of this level, used when printing results
+	private final int CAPACITY;							//Maximum number of pages held by this level
+	private final int LATENCY;							//Time units needed to access this level
+	private final Policy POLICY;						//Replacement policy used when this level is full
+	private final LinkedHashMap<Long, Boolean> entries;	//Pages currently held, in insertion order (FIFO) or access order (LRU)
+	private long hits;									//Number of lookups that found the page
+	private long misses;								//Number of lookups that didn't find the page
+	private long evictions;								//Number of pages pushed out because the level was full
+
+	/**
+	 * Constructor for the PageCache class.
+	 *
+	 * Preconditions: capacity > 0, latency >= 0, policy != null
+	 * Postconditions: An empty cache level has been created
+	 *
+	 * @param name - name of this level (e.g. "TLB")
+	 * @param capacity - maximum number of pages held
+	 * @param latency - time units needed to access this level
+	 * @param policy - replacement policy used when the level is full
+	 */
+	public PageCache(String name, int capacity, int latency, Policy policy) {
+		this.NAME = name;
+		this.CAPACITY = capacity;
+		this.LATENCY = latency;
+		this.POLICY = policy;
+		this.entries = new LinkedHashMap<Long, Boolean>(16, 0.75f, policy == Policy.LRU); //Access ordered map gives LRU order for free
+	}
+
+	/**
+	 * Builds the key used to store a page that belongs to a specific process.
+	 *
+	 * @param processID - ID of the process owning the page
+	 * @param page - page value
+	 * @return a key that is unique for this process/page pair
+	 */
+	public static long pageKey(int processID, int page) {
+		return ((long) processID << 32) | (page & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Retrieves the ID of the process stored in a page key.
+	 *
+	 * @param key - key created by pageKey()
+	 * @return process ID
+	 */
+	public static int processOf(long key) {
+		return (int) (key >>> 32);
+	}
+
+	/**
+	 * Looks up a page in this level and records a hit or a miss.
+	 * Under LRU a hit also marks the page as the most recently used.
+	 *
+	 * @param key - page key
+	 * @return true if the page is held by this level, false otherwise
+	 */
+	public boolean lookup(long key) {
+		if (entries.get(key) != null) {
+			hits++;
+			return true;
+		}
+		misses++;
+		return false;
+	}
+
+	/**
+	 * Adds a page to this level, replacing a page (using this level's policy) if the level is full.
+	 *
+	 * Preconditions: none
+	 * Postconditions: The page is held by this level
+	 *
+	 * @param key - page key
+	 */
+	public void insert(long key) {
+		if (entries.containsKey(key)) {
+			entries.get(key); //Already held - only update the LRU order
+			return;
+		}
+
+		if (entries.size() >= CAPACITY) {
+			Iterator<Long> oldest = entries.keySet().iterator(); //Head of the map is the FIFO/LRU victim
+			oldest.next();
+			oldest.remove();
+			evictions++;
+		}
+		entries.put(key, Boolean.TRUE);
+	}
+
+	/**
+	 * Removes a page from this level (e.g. it has been moved back to main memory or is no longer valid).
+	 *
+	 * @param key - page key
+	 * @return true if the page was held by this level, false otherwise
+	 */
+	public boolean remove(long key) {
+		return entries.remove(key) != null;
+	}
+
+	/**
+	 * Removes all pages belonging to a process.
+	 *
+	 * @param processID - ID of the process whose pages are removed
+	 */
+	public void removeProcess(int processID) {
+		entries.keySet().removeIf(key -> processOf(key) == processID);
+	}
+
+	/**
+	 * Removes all pages from this level.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Writes the pages held, oldest first (FIFO) or least recently used first (LRU), and the counters to a checkpoint (see SimulationCheckpoint).
+	 *
+	 * @param out - checkpoint being written
+	 */
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		out.writeLongList(entries.keySet());
+		out.writeLong(hits);
+		out.writeLong(misses);
+		out.writeLong(evictions);
+	}
+
+	/**
+	 * Replaces the pages and counters with those written by writeState(). Adding the pages in the order written restores the replacement order.
+	 *
+	 * @param in - checkpoint being read
+	 */
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		entries.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			entries.put(in.readLong(), Boolean.TRUE);
+		}
+		hits = in.readLong();
+		misses = in.readLong();
+		evictions = in.readLong();
+	}
+
+	//------------------------------Getters---------------------------------------
+
+	/**
+	 * Retrieves the name of this level.
+	 *
+	 * @return level name
+	 */
+	public String getName() {
+		return NAME;
+	}
+
+	/**
+	 * Retrieves the maximum number of pages held by this level.
+	 *
+	 * @return capacity in pages
+	 */
+	public int getCapacity() {
+		return CAPACITY;
+	}
+
+	/**
+	 * Retrieves the time units needed to access this level.
+	 *
+	 * @return access latency
+	 */
+	public int getLatency() {
+		return LATENCY;
+	}
+
+	/**
+	 * Retrieves the replacement policy used by this level.
+	 *
+	 * @return replacement policy
+	 */
+	public Policy getPolicy() {
+		return POLICY;
+	}
+
+	/**
+	 * Retrieves the number of lookups that found the page.
+	 *
+	 * @return number of hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Retrieves the number of lookups that didn't find the page.
+	 *
+	 * @return number of misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Retrieves the number of pages pushed out because this level was full.
+	 *
+	 * @return number of evictions
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+}
@@ -0,0 +1,477 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Page reference profiler (--profile=DIR) - records how each process uses its pages while the simulation runs and writes it to CSV files,
+ * to show why a process faults and not only how often.
+ *
+ * For every process, as each instruction is executed:
+ * 		- references and faults of every page
+ * 		- references of every page in each --profile-bucket time units (heat map)
+ * 		- reuse distance: number of distinct pages referenced since the last reference to the same page (LRU stack distance).
+ * 		  A reference with distance d hits in LRU memory of more than d frames, so the histogram shows the frames a process needs
+ * 		- working set size W(t, Δ): distinct pages in the last Δ references, for each window Δ in --profile-windows
+ *
+ * Everything is kept in int arrays indexed by page slot, distance or reference number. A page is given the next slot the first time its
+ * process references it, so any page number (even a negative or very large one) only takes as much space as the pages actually used.
+ * A Fenwick tree over reference numbers marks the latest reference to each page: the marks between two references count the distinct pages
+ * referenced in between, which gives both the reuse distance and W(t, Δ) in O(log n).
+ *
+ * Files (the strategy name is the prefix, e.g. fixed-local-pages.csv):
+ * 		pages.csv			process, page, references, faults
+ * 		heatmap.csv			process, page, references in each time bucket
+ * 		reuse.csv			process, reuse distance, references, LRU hit ratio with distance + 1 frames
+ * 		working-set.csv		process, reference, time, W(t, Δ) for each window
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PageProfiler implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"profile", "profile-bucket", "profile-interval", "profile-windows"};
+
+	private final String DIRECTORY;						//Directory the CSV files are written to
+	private final int BUCKET;							//Time units in each heat map column
+	private final int INTERVAL;							//References between two working set samples
+	private final int[] WINDOWS;						//Working set windows Δ, in references
+	private final Map<Integer, ProcessProfile> profiles = new LinkedHashMap<Integer, ProcessProfile>();	//Process ID -> profile, in the order the processes first ran
+
+	/**
+	 * Page usage of one process.
+	 */
+	private class ProcessProfile implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+		private int references;							//References executed, also the reference number of the latest one
+		private final Map<Integer, Integer> slots = new HashMap<Integer, Integer>();	//Page -> its slot in the arrays below
+		private int[] slotPage = new int[16];			//Slot -> page
+		private int[] pageReferences = new int[16];		//Slot -> references
+		private int[] pageFaults = new int[16];			//Slot -> faults
+		private int[] lastReference = new int[16];		//Slot -> number of its latest reference, 0 if never referenced
+		private int[][] heat = new int[16][];			//Slot -> references in each time bucket
+		private int[] fenwick = new int[64];			//Marks the latest reference to each page, index = reference number
+		private int[] reuse = new int[16];				//Reuse distance -> references
+		private int coldReferences;						//First references to a page (no reuse distance)
+		private int[] sampleReference = new int[16];	//Working set samples - reference number
+		private int[] sampleTime = new int[16];			//Simulation time
+		private int[][] sampleSize;						//Size for each window
+		private int samples;
+		private int largestWorkingSet;					//Largest W(t, Δ) for the largest window
+
+		ProcessProfile(String name) {
+			this.name = name;
+			this.sampleSize = new int[WINDOWS.length][16];
+		}
+
+		void recordReference(int page, int time) {
+			page = slotOf(page);
+			references++;
+			pageReferences[page]++;
+			int bucket = time / BUCKET;
+			if (heat[page] == null || bucket >= heat[page].length) {
+				heat[page] = Arrays.copyOf(heat[page] == null ? new int[0] : heat[page], Math.max(bucket + 1, 2 * (heat[page] == null ? 0 : heat[page].length)));
+			}
+			heat[page][bucket]++;
+
+			if (references >= fenwick.length) {
+				growFenwick();
+			}
+			int last = lastReference[page];
+			if (last == 0) {
+				coldReferences++;
+			} else {
+				int distance = count(last + 1, references - 1);
+				if (distance >= reuse.length) {
+					reuse = Arrays.copyOf(reuse, Math.max(distance + 1, 2 * reuse.length));
+				}
+				reuse[distance]++;
+				add(last, -1);
+			}
+			add(references, 1);
+			lastReference[page] = references;
+
+			if (references % INTERVAL == 0) {
+				sample(time);
+			}
+		}
+
+		void recordFault(int page) {
+			int slot = slotOf(page); //Before reading pageFaults, a new slot can replace the array
+			pageFaults[slot]++;
+		}
+
+		private void sample(int time) {
+			if (samples == sampleReference.length) {
+				sampleReference = Arrays.copyOf(sampleReference, 2 * samples);
+				sampleTime = Arrays.copyOf(sampleTime, 2 * samples);
+				for (int w = 0; w < WINDOWS.length; w++) {
+					sampleSize[w] = Arrays.copyOf(sampleSize[w], 2 * samples);
+				}
+			}
+			sampleReference[samples] = references;
+			sampleTime[samples] = time;
+			for (int w = 0; w < WINDOWS.length; w++) {
+				sampleSize[w][samples] = count(Math.max(1, references - WINDOWS[w] + 1), references);
+			}
+			largestWorkingSet = Math.max(largestWorkingSet, sampleSize[WINDOWS.length - 1][samples]);
+			samples++;
+		}
+
+		/**
+		 * Finds the slot of a page, giving it the next slot the first time it is seen.
+		 */
+		private int slotOf(int page) {
+			Integer slot = slots.get(page);
+			if (slot != null) {
+				return slot;
+			}
+			int next = slots.size();
+			if (next == pageReferences.length) {
+				int length = 2 * next;
+				slotPage = Arrays.copyOf(slotPage, length);
+				pageReferences = Arrays.copyOf(pageReferences, length);
+				pageFaults = Arrays.copyOf(pageFaults, length);
+				lastReference = Arrays.copyOf(lastReference, length);
+				heat = Arrays.copyOf(heat, length);
+			}
+			slots.put(page, next);
+			slotPage[next] = page;
+			return next;
+		}
+
+		/**
+		 * Lists the slots in use in page number order, for the CSV files.
+		 */
+		int[] slotsByPage() {
+			return slots.entrySet().stream().sorted(Map.Entry.comparingByKey()).mapToInt(Map.Entry::getValue).toArray();
+		}
+
+		//Fenwick tree over reference numbers 1..n
+
+		private void add(int position, int delta) {
+			for (; position < fenwick.length; position += position & -position) {
+				fenwick[position] += delta;
+			}
+		}
+
+		private int prefix(int position) {
+			int sum = 0;
+			for (; position > 0; position -= position & -position) {
+				sum += fenwick[position];
+			}
+			return sum;
+		}
+
+		/**
+		 * Number of marked references from first to last (distinct pages whose latest reference is in the range).
+		 */
+		private int count(int first, int last) {
+			return last < first ? 0 : prefix(last) - prefix(first - 1);
+		}
+
+		/**
+		 * Doubles the tree and re-marks the latest reference of every page.
+		 */
+		private void growFenwick() {
+			fenwick = new int[2 * fenwick.length];
+			for (int slot = 0; slot < slots.size(); slot++) {
+				if (lastReference[slot] > 0) {
+					add(lastReference[slot], 1);
+				}
+			}
+		}
+
+		/**
+		 * Writes the slots in use, the reuse histogram and the working set samples. The Fenwick tree is rebuilt from the latest references.
+		 */
+		void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+			out.writeInt(references);
+			out.writeInt(slots.size());
+			for (int slot = 0; slot < slots.size(); slot++) {
+				out.writeInt(slotPage[slot]);
+				out.writeInt(pageReferences[slot]);
+				out.writeInt(pageFaults[slot]);
+				out.writeInt(lastReference[slot]);
+				out.writeInts(heat[slot]);
+			}
+			out.writeInt(fenwick.length);
+			out.writeInts(reuse);
+			out.writeInt(coldReferences);
+			out.writeInt(samples);
+			for (int s = 0; s < samples; s++) {
+				out.writeInt(sampleReference[s]);
+				out.writeInt(sampleTime[s]);
+				for (int w = 0; w < WINDOWS.length; w++) {
+					out.writeInt(sampleSize[w][s]);
+				}
+			}
+			out.writeInt(largestWorkingSet);
+		}
+
+		void readState(SimulationCheckpoint.StateInput in) throws IOException {
+			references = in.readInt();
+			int count = in.readInt();
+			int length = Math.max(16, count);
+			slotPage = new int[length];
+			pageReferences = new int[length];
+			pageFaults = new int[length];
+			lastReference = new int[length];
+			heat = new int[length][];
+			for (int slot = 0; slot < count; slot++) {
+				slotPage[slot] = in.readInt();
+				slots.put(slotPage[slot], slot);
+				pageReferences[slot] = in.readInt();
+				pageFaults[slot] = in.readInt();
+				lastReference[slot] = in.readInt();
+				heat[slot] = in.readInts();
+			}
+			fenwick = new int[in.readInt() / 2];
+			growFenwick();
+			reuse = in.readInts();
+			coldReferences = in.readInt();
+			samples = in.readInt();
+			length = Math.max(16, samples);
+			sampleReference = new int[length];
+			sampleTime = new int[length];
+			sampleSize = new int[WINDOWS.length][length];
+			for (int s = 0; s < samples; s++) {
+				sampleReference[s] = in.readInt();
+				sampleTime[s] = in.readInt();
+				for (int w = 0; w < WINDOWS.length; w++) {
+					sampleSize[w][s] = in.readInt();
+				}
+			}
+			largestWorkingSet = in.readInt();
+		}
+
+		/**
+		 * Smallest number of frames with which LRU replacement would hit at least a fraction of the references.
+		 */
+		int framesFor(double fraction) {
+			int hits = 0;
+			for (int distance = 0; distance < reuse.length; distance++) {
+				hits += reuse[distance];
+				if (hits >= fraction * references) {
+					return distance + 1;
+				}
+			}
+			return -1; //Not reachable, too many first references
+		}
+
+		int distinctPages() {
+			int distinct = 0;
+			for (int last : lastReference) {
+				if (last > 0) {
+					distinct++;
+				}
+			}
+			return distinct;
+		}
+	}
+
+	/**
+	 * Constructor for the PageProfiler class.
+	 *
+	 * Preconditions: options.has("profile")
+	 * Postconditions: No references have been recorded
+	 *
+	 * @param options - simulation options (--profile, --profile-bucket, --profile-interval, --profile-windows)
+	 *
+	 * @throws IllegalArgumentException if a setting isn't positive
+	 */
+	public PageProfiler(SimulationOptions options) {
+		this.DIRECTORY = options.getString("profile", ".");
+		this.BUCKET = options.getInt("profile-bucket", 10);
+		this.INTERVAL = options.getInt("profile-interval", 1);
+		String[] windows = options.getString("profile-windows", "5,10,20,50").split(",");
+		this.WINDOWS = new int[windows.length];
+		for (int i = 0; i < windows.length; i++) {
+			WINDOWS[i] = Integer.parseInt(windows[i].trim());
+		}
+		Arrays.sort(WINDOWS);
+		if (BUCKET < 1 || INTERVAL < 1 || WINDOWS[0] < 1) {
+			throw new IllegalArgumentException("Options --profile-bucket, --profile-interval and --profile-windows must be at least 1");
+		}
+	}
+
+	/**
+	 * Writes the profile of every process to a checkpoint (see SimulationCheckpoint).
+	 *
+	 * @param out - checkpoint being written
+	 */
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		out.writeInt(profiles.size());
+		for (Map.Entry<Integer, ProcessProfile> entry : profiles.entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeUTF(entry.getValue().name);
+			entry.getValue().writeState(out);
+		}
+	}
+
+	/**
+	 * Replaces the profiles with those written by writeState().
+	 *
+	 * @param in - checkpoint being read
+	 */
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		profiles.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			int processID = in.readInt();
+			ProcessProfile profile = new ProcessProfile(in.readUTF());
+			profile.readState(in);
+			profiles.put(processID, profile);
+		}
+	}
+
+	/**
+	 * Records an executed instruction.
+	 *
+	 * @param p - the process
+	 * @param page - the page it referenced
+	 * @param time - simulation time of the reference
+	 */
+	public void recordReference(Process p, int page, int time) {
+		profileOf(p).recordReference(page, time);
+	}
+
+	/**
+	 * Records a page fault (the reference itself is recorded when the instruction is executed after the page has arrived).
+	 *
+	 * @param p - the faulting process
+	 * @param page - the page it faulted on
+	 */
+	public void recordFault(Process p, int page) {
+		profileOf(p).recordFault(page);
+	}
+
+	private ProcessProfile profileOf(Process p) {
+		ProcessProfile profile = profiles.get(p.getProcessID());
+		if (profile == null) {
+			profile = new ProcessProfile(p.getName());
+			profiles.put(p.getProcessID(), profile);
+		}
+		return profile;
+	}
+
+	/**
+	 * Writes the CSV files and prints a summary of each process.
+	 *
+	 * Postconditions: The four CSV files of the strategy are in the profile directory
+	 *
+	 * @param out - stream the summary is printed to
+	 * @param filePrefix - prepended to the file names so that runs sharing the profile directory do not overwrite each other ("" for none)
+	 * @param strategyName - the name of the page replacement strategy (e.g. "Fixed-Local Replacement"), used as the file name prefix
+	 */
+	public void printReport(PrintStream out, String filePrefix, String strategyName) {
+		String prefix = filePrefix + strategyName.replace(" Replacement", "").toLowerCase().replace(' ', '-') + "-";
+		try {
+			writeFiles(prefix);
+		} catch (IOException e) {
+			out.println("Error: Unable to write the page profile - " + e.getMessage());
+			return;
+		}
+
+		out.println("Page profile written to " + new File(DIRECTORY, prefix + "*.csv").getPath() + " (LRU frames are the frames needed for that share of hits)");
+		out.printf("%-20s %-11s %-15s %-13s %-15s %s%n", "Process Name", "References", "Distinct Pages", "Max W(" + WINDOWS[WINDOWS.length - 1] + ")",
+				"LRU Frames 90%", "LRU Frames 99%");
+		for (ProcessProfile profile : profiles.values()) {
+			int frames90 = profile.framesFor(0.9);
+			int frames99 = profile.framesFor(0.99);
+			out.printf("%-20s %-11d %-15d %-13d %-15s %s%n", profile.name, profile.references, profile.distinctPages(), profile.largestWorkingSet,
+					frames90 < 0 ? "-" : String.valueOf(frames90), frames99 < 0 ? "-" : String.valueOf(frames99));
+		}
+	}
+
+	private void writeFiles(String prefix) throws IOException {
+		File directory = new File(DIRECTORY);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("can't create directory " + directory);
+		}
+
+		try (PrintWriter out = new PrintWriter(new File(directory, prefix + "pages.csv"))) {
+			out.println("process,page,references,faults");
+			for (ProcessProfile profile : profiles.values()) {
+				for (int slot : profile.slotsByPage()) {
+					out.println(profile.name + "," + profile.slotPage[slot] + "," + profile.pageReferences[slot] + "," + profile.pageFaults[slot]);
+				}
+			}
+		}
+
+		int buckets = 0;
+		for (ProcessProfile profile : profiles.values()) {
+			for (int[] row : profile.heat) {
+				buckets = row == null ? buckets : Math.max(buckets, lastNonZero(row) + 1);
+			}
+		}
+		try (PrintWriter out = new PrintWriter(new File(directory, prefix + "heatmap.csv"))) {
+			StringBuilder header = new StringBuilder("process,page");
+			for (int bucket = 0; bucket < buckets; bucket++) {
+				header.append(",t").append(bucket * BUCKET);
+			}
+			out.println(header);
+			for (ProcessProfile profile : profiles.values()) {
+				for (int slot : profile.slotsByPage()) {
+					if (profile.heat[slot] == null) {
+						continue;
+					}
+					StringBuilder row = new StringBuilder(profile.name).append(',').append(profile.slotPage[slot]);
+					for (int bucket = 0; bucket < buckets; bucket++) {
+						row.append(',').append(bucket < profile.heat[slot].length ? profile.heat[slot][bucket] : 0);
+					}
+					out.println(row);
+				}
+			}
+		}
+
+		try (PrintWriter out = new PrintWriter(new File(directory, prefix + "reuse.csv"))) {
+			out.println("process,distance,references,lru_hit_ratio");
+			for (ProcessProfile profile : profiles.values()) {
+				out.println(profile.name + ",cold," + profile.coldReferences + ",");
+				int hits = 0;
+				for (int distance = 0; distance <= lastNonZero(profile.reuse); distance++) {
+					hits += profile.reuse[distance];
+					out.printf("%s,%d,%d,%.4f%n", profile.name, distance, profile.reuse[distance], (double) hits / profile.references);
+				}
+			}
+		}
+
+		try (PrintWriter out = new PrintWriter(new File(directory, prefix + "working-set.csv"))) {
+			StringBuilder header = new StringBuilder("process,reference,time");
+			for (int window : WINDOWS) {
+				header.append(",W").append(window);
+			}
+			out.println(header);
+			for (ProcessProfile profile : profiles.values()) {
+				for (int s = 0; s < profile.samples; s++) {
+					StringBuilder row = new StringBuilder(profile.name).append(',').append(profile.sampleReference[s]).append(',').append(profile.sampleTime[s]);
+					for (int w = 0; w < WINDOWS.length; w++) {
+						row.append(',').append(profile.sampleSize[w][s]);
+					}
+					out.println(row);
+				}
+			}
+		}
+	}
+
+	private static int lastNonZero(int[] values) {
+		int last = -1;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != 0) {
+				last = i;
+			}
+		}
+		return last;
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * The page references a process executes, read by position (position 0 is the first page executed).
+ *
+ * A process read from an input file knows all of its pages before the simulation starts (see ListPageSequence).
+ * A process arriving on a live trace stream only holds a bounded buffer of its upcoming pages (see PageBuffer),
+ * so a page may not be available yet even though the process hasn't ended.
+ */
+
+public interface PageSequence {
+
+	/**
+	 * Checks whether the page at a position is known and can be executed now.
+	 *
+	 * @param position - position of the page
+	 * @return true if the page can be read with getPage()
+	 */
+	boolean isAvailable(int position);
+
+	/**
+	 * Checks whether the sequence has ended before a position, i.e. there will never be a page there.
+	 *
+	 * @param position - position of the page
+	 * @return true if the process has no pages left from this position
+	 */
+	boolean isEnded(int position);
+
+	/**
+	 * Retrieves the page at a position.
+	 *
+	 * Preconditions: isAvailable(position)
+	 *
+	 * @param position - position of the page
+	 * @return page value
+	 */
+	int getPage(int position);
+
+	/**
+	 * Checks whether the instruction at a position writes to its page.
+	 *
+	 * Preconditions: isAvailable(position)
+	 *
+	 * @param position - position of the page
+	 * @return true if the instruction writes to its page, false if it only reads
+	 */
+	boolean isWrite(int position);
+
+	/**
+	 * Tells the sequence that every page before a position has been executed, a bounded sequence may discard them.
+	 *
+	 * @param position - position of the next page to be executed
+	 */
+	void consumed(int position);
+
+	/**
+	 * Retrieves the number of pages received so far (all pages for a sequence read from a file).
+	 *
+	 * @return number of pages
+	 */
+	int size();
+}
@@ -1,235 +1,636 @@
-/*
- * Author: Amanda Foxley c3137540
- * Created: 27/09/25
- * COMP2240 Assignment 3
- * 
- * Represents an individual process in the virtual memory simulation.
- * Each process holds a list of page references to be executed and tracks its progress using an index of the list
- * Also stores page faults, various variables to track blocking periods (Times the process can't run)
- * Uses an offset to track the starting index of memory segment allocated to this process (An index in a list of frames that represents "memory") - Used in fixed local replacement scheduler
- * 
- * This class is used by both the local and global page replacement schedulers.
- */
-
-import java.util.ArrayList;
-import java.util.List;
-
-public class Process {
-	
-	//Data from input file
-	private final int PROCESSID;				//Unique process ID
-    private final String NAME;					//Process name
-    private final List<Integer> PAGES;			//List of pages to be executed for this process
-
-    //Simulation variables
-    private int positionIndex = 0;				//Index of the next page to be executed
-    private int finishTime = -1;         		//Time when process finishes
-    private int blockedUntil = -1;      		//Time when process becomes unblocked
-    private int arrivalTime = 0; 				//Time when process arrived - All processes arrive at t=0
-    private List<Integer> faultTimes;  	 		//List of times when page faults occurred
-    private boolean isBlocked = false;			//Flag for whether this process is blocked or not
-    private int listOffset;					 	//Starting index of frame list allocated to this process - A process "owns" a segment in the main memory (Frames list) - Used in fixed local replacement scheduler
-    
-    /**
-     * Constructs a Process instance with the given ID, name, and page reference sequence.
-     *
-     * Preconditions: pages must not be null or empty.
-     * Postconditions: A new Process object is created with initialised state.
-     * 
-     * @param ID unique identifier for the process
-     * @param name process name
-     * @param pages list of pages to execute for this process
-     */
-    public Process(int ID, String name, List<Integer> pages) {   	
-    	this.PROCESSID = ID;
-        this.NAME = name;
-        this.PAGES = pages;
-        this.faultTimes = new ArrayList<>();
-    }
-
-    /**
-     * Records a page fault at the specified simulation time.
-     * 
-     * Preconditions: currentTime >= 0
-     * Postconditions: faultTimes list includes currentTime.
-     * 
-     * @param currentTime simulation time when fault occurred
-     */
-    public void addFaultTime(int currentTime) {
-        faultTimes.add(currentTime);
-    }
-
-    /**
-     * Advances the index counter to the index of the next page in the list.
-     * 
-     * Preconditions: positionIndex < total number of pages.
-     * Postconditions: positionIndex is incremented by one.
-     */
-    public void incrementPosIndex() {
-    	positionIndex++;
-    } 
-
-    /**
-     * Checks if this process has completed execution.
-     * 
-     * @return true if all pages have been executed, false otherwise
-     */
-    public boolean isProcessFinished() {
-        return positionIndex >= PAGES.size();
-    }
-    
-    /**
-     * Calculates the turnaround time for this process.
-     * 
-     * Preconditions: finishTime > arrivalTime
-     * Postconditions: None.
-     * 
-     * @return turnaround time (finishTime - arrivalTime)
-     */
-    public int calcTurnaroundTime() {
-        return finishTime - arrivalTime;
-    }
-    
-    /**
-     * Resets all runtime attributes to prepare the process for reuse.
-     * 
-     * Preconditions: None.
-     * Postconditions: All state variables reset to initial conditions.
-     */
-	public void resetProcess() {
-		this.faultTimes = new ArrayList<>();
-		this.blockedUntil = -1;
-		this.isBlocked = false;
-		this.finishTime = -1;
-		this.positionIndex = 0;
-	}
-	
-    /**
-     * Provides a string representation of the process. Used to nicely display a process for testing.
-     * 
-     * @return formatted string with process name and number of pages
-     */
-    @Override
-    public String toString() {
-        return "Process{name='" + NAME + "', pages=" + PAGES.size() + "}";
-    }
-    
-    //------------------------------Getters---------------------------------------
-    /**
-     * Retrieves the process ID.
-     * 
-     * @return unique process identifier
-     */
-	public int getProcessID() {
-        return PROCESSID;
-    }
-    
-    /**
-     * Retrieves the process name.
-     * 
-     * @return process name
-     */
-    public String getName() {
-        return NAME;
-    }
-
-    /**
-     * Retrieves the next page to be accessed by the process.
-     * 
-     * Preconditions: positionIndex must be within bounds of PAGES.
-     * Postconditions: None.
-     * 
-     * @return next page number, or null if all pages have been accessed
-     */
-    public Integer getNextPage() {
-    	if (positionIndex < PAGES.size()) {
-            return PAGES.get(positionIndex);
-        }
-        return null; //Reached end of pages list
-    }
-
-    /**
-     * Retrieves all recorded page fault times.
-     * 
-     * @return list of fault occurrence times
-     */
-    public List<Integer> getFaultTimes() {
-        return faultTimes;
-    }
-
-    /**
-     * Retrieves the simulation time when the process will become unblocked.
-     * 
-     * @return unblock time
-     */
-    public int getBlockedTime() {
-        return blockedUntil;
-    }
-
-    /**
-     * Retrieves the starting frame offset owned by this process.
-     * 
-     * @return starting index in frame list for this process
-     */
-    public int getStartOffset() { 
-    	return listOffset; 
-    }
-    
-    /**
-     * Retrieves the flag indicating if the process is currently blocked.
-     * 
-     * @return true if blocked, false otherwise
-     */
-	public boolean getIsBocked() {
-		return isBlocked;
-	}
-	
-	//-------------------------Setters-------------------------------------------------------
-
-    /**
-     * Assigns the starting frame offset in the global frame list for this process.
-     * Used by the Local Replacement Scheduler to define frame ownership.
-     * 
-     * Preconditions: startFrame >= 0
-     * Postconditions: listOffset is set to startFrame.
-     * 
-     * @param startFrame index of the first frame allocated to this process
-     */
-    public void setOffset(int startFrame) {
-        this.listOffset = startFrame;
-    }
-    
-    /**
-     * Sets the time at which the process will become unblocked.
-     * 
-     * Preconditions: unblockTime >= current simulation time
-     * Postconditions: blockedUntil is updated.
-     * 
-     * @param unblockTime time when process becomes unblocked
-     */
-
-    public void setBlockedTime(int unblockTime) {
-        this.blockedUntil = unblockTime;
-    }
-
-    /**
-     * Updates whether the process is currently blocked.
-     * 
-     * @param blocked true if blocked, false otherwise
-     */
-    public void setIsBlocked(boolean blocked) {
-        this.isBlocked = blocked;
-    }
-    
-    /**
-     * Sets the time when the process finishes execution.
-     * 
-     * Preconditions: currentTime >= 0
-     * Postconditions: finishTime is set.
-     * 
-     * @param currentTime current simulation time
-     */
-    public void setFinishTime(int currentTime) {
-        this.finishTime = currentTime;
-    }    
+/*
+ * Author: Amanda Foxley c3137540
+ * Created: 27/09/25
+ * COMP2240 Assignment 3
+ * 
+ * Represents an individual process in the virtual memory simulation.
+ * Each process holds a list of page references to be executed and tracks its progress using an index of the list
+ * Also stores page faults, various variables to track blocking periods (Times the process can't run)
+ * Uses an offset to track the starting index of memory segment allocated to this process (An index in a list of frames that represents "memory") - Used in fixed local replacement scheduler
+ * The pages are read through a PageSequence, either the complete list from an input file (compressed with --compress-traces) or a bounded buffer filled from a live trace stream.
+ * Pages may be mapped onto shared segments (see SharedSegment). Writing to a shared page gives the process its own private copy of that page (copy-on-write).
+ * Ranges of pages may be declared as huge page candidates, these can be loaded as one large page covering several frames (see HugePagePolicy).
+ * 
+ * This class is used by both the local and global page replacement schedulers.
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class Process implements Serializable {
+	
+    private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	//Data from input file
+	private final int PROCESSID;				//Unique process ID
+    private final String NAME;					//Process name
+    private final PageSequence PAGES;			//Pages to be executed for this process, and which of them write to their page (written as "write: N;" in the input file)
+    private final List<SharedSegment> SHARED;	//Ranges of pages mapped onto shared segments
+    private final List<int[]> HUGE_RANGES = new ArrayList<>();	//Ranges of pages {first, last} that may be backed by huge pages
+
+    //Simulation variables
+    private int positionIndex = 0;				//Index of the next page to be executed
+    private int finishTime = -1;         		//Time when process finishes
+    private int blockedUntil = -1;      		//Time when process becomes unblocked
+    private int arrivalTime = 0; 				//Time when process arrived - All processes arrive at t=0
+    private List<Integer> faultTimes;  	 		//List of times when page faults occurred
+    private int faultCount;						//Number of page faults (the same as the size of faultTimes when fault times are kept)
+    private boolean keepFaultTimes = true;		//Flag for whether every fault time is stored - turned off for processes on a live trace stream so memory stays bounded
+    private boolean isBlocked = false;			//Flag for whether this process is blocked or not
+    private int listOffset;					 	//Starting index of frame list allocated to this process - A process "owns" a segment in the main memory (Frames list) - Used in fixed local replacement scheduler
+    private Set<Integer> privateCopies;			//Shared pages this process has written to, these now have their own private copy (copy-on-write)
+    
+    /**
+     * Constructs a Process instance with the given ID, name, and page reference sequence.
+     *
+     * Preconditions: pages must not be null or empty.
+     * Postconditions: A new Process object is created with initialised state.
+     * 
+     * @param ID unique identifier for the process
+     * @param name process name
+     * @param pages list of pages to execute for this process
+     */
+    public Process(int ID, String name, List<Integer> pages) {   	
+    	this(ID, name, pages, new BitSet(), new ArrayList<SharedSegment>());
+    }
+
+    /**
+     * Constructs a Process instance that may write to its pages and may map some of its pages onto shared segments.
+     *
+     * Preconditions: pages must not be null or empty, writes and shared must not be null.
+     * Postconditions: A new Process object is created with initialised state.
+     * 
+     * @param ID unique identifier for the process
+     * @param name process name
+     * @param pages list of pages to execute for this process
+     * @param writes positions in pages that write to their page
+     * @param shared ranges of pages mapped onto shared segments
+     */
+    public Process(int ID, String name, List<Integer> pages, BitSet writes, List<SharedSegment> shared) {
+    	this(ID, name, new ListPageSequence(pages, writes), shared);
+    }
+
+    /**
+     * Constructs a Process instance that reads its pages from any page sequence (e.g. a bounded buffer filled from a trace stream).
+     *
+     * Preconditions: pages and shared must not be null.
+     * Postconditions: A new Process object is created with initialised state.
+     * 
+     * @param ID unique identifier for the process
+     * @param name process name
+     * @param pages pages to execute for this process
+     * @param shared ranges of pages mapped onto shared segments
+     */
+    public Process(int ID, String name, PageSequence pages, List<SharedSegment> shared) {
+    	this.PROCESSID = ID;
+        this.NAME = name;
+        this.PAGES = pages;
+        this.SHARED = shared;
+        this.faultTimes = new ArrayList<>();
+        this.privateCopies = new HashSet<>();
+    }
+
+    /**
+     * Creates a copy of this process with the same page references but without any shared segments.
+     * Used to measure how many faults the processes would have had if nothing was shared.
+     * 
+     * @return a new process where every page is private
+     */
+    public Process withoutSharing() {
+    	Process copy = new Process(PROCESSID, NAME, PAGES, new ArrayList<SharedSegment>());
+    	copy.HUGE_RANGES.addAll(HUGE_RANGES);
+    	return copy;
+    }
+
+    /**
+     * Creates a copy of this process with the same page references but without any huge page ranges.
+     * Used to measure how many faults the processes would have had using only base pages.
+     * 
+     * @return a new process where every page is a base page
+     */
+    public Process withoutHugePages() {
+    	return new Process(PROCESSID, NAME, PAGES, SHARED);
+    }
+
+    /**
+     * Creates a copy of this process with the same shared segments and huge page ranges but different page references.
+     * Used to run seeded variants of a workload (see EnsembleRunner).
+     * 
+     * @param pages pages to execute for the copy
+     * @return a new process executing the given pages
+     */
+    public Process withPages(PageSequence pages) {
+    	Process copy = new Process(PROCESSID, NAME, pages, SHARED);
+    	copy.HUGE_RANGES.addAll(HUGE_RANGES);
+    	return copy;
+    }
+
+    /**
+     * Declares a range of pages that may be backed by huge pages (written as "huge: first-last;" in the input file).
+     * 
+     * Preconditions: 0 <= first <= last
+     * Postconditions: Pages first..last are huge page candidates
+     * 
+     * @param first first page of the range
+     * @param last last page of the range
+     */
+    public void addHugePageRange(int first, int last) {
+    	HUGE_RANGES.add(new int[] {first, last});
+    }
+
+    /**
+     * Checks whether a block of consecutive pages lies completely inside one of the declared huge page ranges.
+     * 
+     * @param firstPage first page of the block
+     * @param blockPages number of pages in the block
+     * @return true if the whole block may be loaded as one huge page
+     */
+    public boolean isHugePageBlock(int firstPage, int blockPages) {
+    	for (int[] range : HUGE_RANGES) {
+    		if (firstPage >= range[0] && firstPage + blockPages - 1 <= range[1]) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    /**
+     * Checks whether this process declared any huge page ranges.
+     * 
+     * @return true if at least one huge page range was declared
+     */
+    public boolean hasHugePageRanges() {
+    	return !HUGE_RANGES.isEmpty();
+    }
+
+    /**
+     * Records a page fault at the specified simulation time.
+     * 
+     * Preconditions: currentTime >= 0
+     * Postconditions: faultTimes list includes currentTime.
+     * 
+     * @param currentTime simulation time when fault occurred
+     */
+    public void addFaultTime(int currentTime) {
+    	faultCount++;
+    	if (keepFaultTimes) {
+    		faultTimes.add(currentTime);
+    	}
+    }
+
+    /**
+     * Advances the index counter to the index of the next page in the list.
+     * 
+     * Preconditions: positionIndex < total number of pages.
+     * Postconditions: positionIndex is incremented by one.
+     */
+    public void incrementPosIndex() {
+    	positionIndex++;
+    	PAGES.consumed(positionIndex); //A bounded page buffer can discard the executed page
+    } 
+
+    /**
+     * Checks if this process has completed execution.
+     * 
+     * @return true if all pages have been executed, false otherwise
+     */
+    public boolean isProcessFinished() {
+        return PAGES.isEnded(positionIndex);
+    }
+
+    /**
+     * Checks if this process is waiting for its next page to arrive on a trace stream.
+     * A process read from an input file never waits.
+     * 
+     * @return true if the process hasn't finished but its next page hasn't been received yet, false otherwise
+     */
+    public boolean isWaitingForPages() {
+    	return !PAGES.isAvailable(positionIndex) && !PAGES.isEnded(positionIndex);
+    }
+    
+    /**
+     * Calculates the turnaround time for this process.
+     * 
+     * Preconditions: finishTime > arrivalTime
+     * Postconditions: None.
+     * 
+     * @return turnaround time (finishTime - arrivalTime)
+     */
+    public int calcTurnaroundTime() {
+        return finishTime - arrivalTime;
+    }
+    
+    /**
+     * Resets all runtime attributes to prepare the process for reuse.
+     * 
+     * Preconditions: None.
+     * Postconditions: All state variables reset to initial conditions.
+     */
+	public void resetProcess() {
+		this.faultTimes = new ArrayList<>();
+		this.faultCount = 0;
+		this.blockedUntil = -1;
+		this.isBlocked = false;
+		this.finishTime = -1;
+		this.positionIndex = 0;
+		this.privateCopies = new HashSet<>();
+	}
+
+    /**
+     * Writes the simulation variables of this process to a checkpoint (see SimulationCheckpoint). The trace is written once by writeTrace().
+     * 
+     * @param out - checkpoint being written
+     */
+    public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+    	out.writeInt(positionIndex);
+    	out.writeInt(finishTime);
+    	out.writeInt(blockedUntil);
+    	out.writeInt(arrivalTime);
+    	out.writeInt(faultCount);
+    	out.writeIntList(faultTimes);
+    	out.writeBoolean(keepFaultTimes);
+    	out.writeBoolean(isBlocked);
+    	out.writeInt(listOffset);
+    	out.writeIntList(privateCopies);
+    }
+
+    /**
+     * Restores the simulation variables written by writeState().
+     * 
+     * Preconditions: This process was read from the same checkpoint's traces file
+     * Postconditions: The process is at the position, and has the faults and flags, it had when the checkpoint was written
+     * 
+     * @param in - checkpoint being read
+     */
+    public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+    	positionIndex = in.readInt();
+    	finishTime = in.readInt();
+    	blockedUntil = in.readInt();
+    	arrivalTime = in.readInt();
+    	faultCount = in.readInt();
+    	faultTimes = new ArrayList<>();
+    	in.readIntList(faultTimes);
+    	keepFaultTimes = in.readBoolean();
+    	isBlocked = in.readBoolean();
+    	listOffset = in.readInt();
+    	privateCopies = new HashSet<>();
+    	in.readIntList(privateCopies);
+    }
+
+    /**
+     * Writes the data read from this process' input file (ID, name, pages, writes, shared segments and huge page ranges) to a checkpoint's traces file.
+     * 
+     * @param out - traces file being written
+     */
+    public void writeTrace(DataOutput out) throws IOException {
+    	out.writeInt(PROCESSID);
+    	out.writeUTF(NAME);
+    	int size = PAGES.size();
+    	int writeCount = 0;
+    	out.writeInt(size);
+    	for (int i = 0; i < size; i++) {
+    		out.writeInt(PAGES.getPage(i));
+    		if (PAGES.isWrite(i)) {
+    			writeCount++;
+    		}
+    	}
+    	out.writeInt(writeCount);
+    	for (int i = 0; i < size; i++) {
+    		if (PAGES.isWrite(i)) {
+    			out.writeInt(i);
+    		}
+    	}
+    	out.writeInt(SHARED.size());
+    	for (SharedSegment segment : SHARED) {
+    		segment.write(out);
+    	}
+    	out.writeInt(HUGE_RANGES.size());
+    	for (int[] range : HUGE_RANGES) {
+    		out.writeInt(range[0]);
+    		out.writeInt(range[1]);
+    	}
+    }
+
+    /**
+     * Creates a process from a trace written by writeTrace(), ready for a new run.
+     * 
+     * @param in - traces file being read
+     * @param compress - true to store the pages compressed (--compress-traces, see CompressedPageSequence)
+     * @return the process
+     */
+    public static Process readTrace(DataInput in, boolean compress) throws IOException {
+    	int id = in.readInt();
+    	String name = in.readUTF();
+    	int size = in.readInt();
+    	int[] pages = new int[size];
+    	for (int i = 0; i < size; i++) {
+    		pages[i] = in.readInt();
+    	}
+    	BitSet writes = new BitSet();
+    	for (int count = in.readInt(); count > 0; count--) {
+    		writes.set(in.readInt());
+    	}
+    	List<SharedSegment> shared = new ArrayList<>();
+    	for (int count = in.readInt(); count > 0; count--) {
+    		shared.add(SharedSegment.read(in));
+    	}
+
+    	PageSequence sequence;
+    	if (compress) {
+    		CompressedPageSequence.Builder builder = new CompressedPageSequence.Builder();
+    		for (int i = 0; i < size; i++) {
+    			builder.add(pages[i], writes.get(i));
+    		}
+    		sequence = builder.build();
+    	} else {
+    		List<Integer> list = new ArrayList<>(size);
+    		for (int page : pages) {
+    			list.add(page);
+    		}
+    		sequence = new ListPageSequence(list, writes);
+    	}
+    	Process process = new Process(id, name, sequence, shared);
+    	for (int count = in.readInt(); count > 0; count--) {
+    		process.addHugePageRange(in.readInt(), in.readInt());
+    	}
+    	return process;
+    }
+
+    /**
+     * Finds the shared segment a page is currently mapped onto.
+     * 
+     * @param page page value
+     * @return the shared segment, or null if the page is private (not declared as shared, or already copied on write)
+     */
+    public SharedSegment getSharedSegment(int page) {
+    	if (privateCopies.contains(page)) {
+    		return null; //Process has its own copy of this page
+    	}
+    	for (SharedSegment segment : SHARED) {
+    		if (segment.contains(page)) {
+    			return segment;
+    		}
+    	}
+    	return null;
+    }
+
+    /**
+     * Gives the process its own private copy of a shared page (after it has been written to).
+     * 
+     * Preconditions: page is mapped onto a shared segment
+     * Postconditions: getSharedSegment(page) returns null.
+     * 
+     * @param page page value
+     */
+    public void makePrivateCopy(int page) {
+    	privateCopies.add(page);
+    }
+
+    /**
+     * Builds the key identifying one of this process' pages in the memory hierarchy.
+     * Shared pages use the key of the segment page so every process mapping the segment finds the same entry.
+     * 
+     * @param page page value
+     * @return key of the page
+     */
+    public long pageKey(int page) {
+    	SharedSegment segment = getSharedSegment(page);
+    	return segment != null ? segment.pageKey(page) : PageCache.pageKey(PROCESSID, page);
+    }
+	
+    /**
+     * Provides a string representation of the process. Used to nicely display a process for testing.
+     * 
+     * @return formatted string with process name and number of pages
+     */
+    @Override
+    public String toString() {
+        return "Process{name='" + NAME + "', pages=" + PAGES.size() + "}";
+    }
+    
+    //------------------------------Getters---------------------------------------
+    /**
+     * Retrieves the process ID.
+     * 
+     * @return unique process identifier
+     */
+	public int getProcessID() {
+        return PROCESSID;
+    }
+    
+    /**
+     * Retrieves the process name.
+     * 
+     * @return process name
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Retrieves all of the process' page references.
+     * 
+     * @return the page sequence read from the input file (or trace stream)
+     */
+    public PageSequence getPageSequence() {
+    	return PAGES;
+    }
+
+    /**
+     * Retrieves the next page to be accessed by the process.
+     * Returns a plain int so reading a page creates no objects (see CompressedPageSequence).
+     * 
+     * Preconditions: The next page is available - the process hasn't finished and isn't waiting for pages on a trace stream.
+     * Postconditions: None.
+     * 
+     * @return next page number
+     */
+    public int getNextPage() {
+    	return PAGES.getPage(positionIndex);
+    }
+
+    /**
+     * Checks whether the next page to be accessed is written to.
+     * 
+     * @return true if the next instruction writes to its page, false if it only reads
+     */
+    public boolean isNextWrite() {
+    	return PAGES.isWrite(positionIndex);
+    }
+
+    /**
+     * Checks whether this process maps any of its pages onto shared segments.
+     * 
+     * @return true if at least one shared segment was declared
+     */
+    public boolean hasSharedSegments() {
+    	return !SHARED.isEmpty();
+    }
+
+    /**
+     * Retrieves the shared segments this process maps, including those of pages it now has a private copy of.
+     * 
+     * @return shared segments, in the order they were declared
+     */
+    public List<SharedSegment> getSharedSegments() {
+    	return SHARED;
+    }
+
+    /**
+     * Retrieves the number of pages left to execute.
+     * For a process on a live trace stream only the pages received so far are counted.
+     * 
+     * @return number of pages not yet executed
+     */
+    public int getRemainingPages() {
+    	return PAGES.size() - positionIndex;
+    }
+
+    /**
+     * Retrieves the process' working set: the distinct pages of its most recent references and the page it will execute next.
+     * A process on a live trace stream only remembers the references still in its page buffer.
+     * 
+     * @param window number of recent references to include
+     * @return distinct pages in the working set
+     */
+    public Set<Integer> getWorkingSet(int window) {
+    	Set<Integer> workingSet = new HashSet<>();
+    	for (int i = Math.max(0, positionIndex - window); i <= positionIndex; i++) {
+    		if (PAGES.isAvailable(i)) {
+    			workingSet.add(PAGES.getPage(i));
+    		}
+    	}
+    	return workingSet;
+    }
+
+    /**
+     * Retrieves all recorded page fault times.
+     * 
+     * @return list of fault occurrence times
+     */
+    public List<Integer> getFaultTimes() {
+        return faultTimes;
+    }
+
+    /**
+     * Retrieves the number of page faults.
+     * 
+     * @return number of faults, counted even when the fault times aren't kept
+     */
+    public int getFaultCount() {
+        return faultCount;
+    }
+
+    /**
+     * Retrieves the time the process arrived.
+     * 
+     * @return arrival time
+     */
+    public int getArrivalTime() {
+        return arrivalTime;
+    }
+
+    /**
+     * Retrieves the simulation time when the process will become unblocked.
+     * 
+     * @return unblock time
+     */
+    public int getBlockedTime() {
+        return blockedUntil;
+    }
+
+    /**
+     * Retrieves the starting frame offset owned by this process.
+     * 
+     * @return starting index in frame list for this process
+     */
+    public int getStartOffset() { 
+    	return listOffset; 
+    }
+    
+    /**
+     * Retrieves the flag indicating if the process is currently blocked.
+     * 
+     * @return true if blocked, false otherwise
+     */
+	public boolean getIsBocked() {
+		return isBlocked;
+	}
+	
+	//-------------------------Setters-------------------------------------------------------
+
+    /**
+     * Assigns the starting frame offset in the global frame list for this process.
+     * Used by the Local Replacement Scheduler to define frame ownership.
+     * 
+     * Preconditions: startFrame >= 0
+     * Postconditions: listOffset is set to startFrame.
+     * 
+     * @param startFrame index of the first frame allocated to this process
+     */
+    public void setOffset(int startFrame) {
+        this.listOffset = startFrame;
+    }
+    
+    /**
+     * Sets the time at which the process will become unblocked.
+     * 
+     * Preconditions: unblockTime >= current simulation time
+     * Postconditions: blockedUntil is updated.
+     * 
+     * @param unblockTime time when process becomes unblocked
+     */
+
+    public void setBlockedTime(int unblockTime) {
+        this.blockedUntil = unblockTime;
+    }
+
+    /**
+     * Updates whether the process is currently blocked.
+     * 
+     * @param blocked true if blocked, false otherwise
+     */
+    public void setIsBlocked(boolean blocked) {
+        this.isBlocked = blocked;
+    }
+    
+    /**
+     * Sets the time when the process finishes execution.
+     * 
+     * Preconditions: currentTime >= 0
+     * Postconditions: finishTime is set.
+     * 
+     * @param currentTime current simulation time
+     */
+    public void setFinishTime(int currentTime) {
+        this.finishTime = currentTime;
+    }
+
+    /**
+     * Sets the time the process arrived. Processes read from input files all arrive at t=0, processes on a trace stream arrive when they are admitted.
+     * 
+     * Preconditions: currentTime >= 0
+     * Postconditions: arrivalTime is set.
+     * 
+     * @param currentTime current simulation time
+     */
+    public void setArrivalTime(int currentTime) {
+        this.arrivalTime = currentTime;
+    }
+
+    /**
+     * Sets whether every fault time is stored. When turned off only the number of faults is counted.
+     * 
+     * @param keep true to store every fault time, false to only count faults
+     */
+    public void setKeepFaultTimes(boolean keep) {
+        this.keepFaultTimes = keep;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,491 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Hybrid replacement scope (--replacement-scope=hybrid) - variable allocation with global replacement, but with a minimum and maximum
+ * number of frames per process and a probation queue, so one process scanning through many pages can't flush everyone else's pages.
+ *
+ * Quotas:
+ * 		- A process holding its maximum number of frames (--quota-max) replaces its own oldest page
+ * 		- Otherwise a free frame is used, or the oldest page of another process is replaced. Pages of a process holding no more than its
+ * 		  minimum number of frames (--quota-min) are skipped, unless nothing else can be replaced
+ * Probation (a FIFO version of 2Q):
+ * 		- A page loaded for the first time goes into the probation queue
+ * 		- Pages replaced from probation are remembered (page only, no frame) for a while. A page that faults again while it is remembered has
+ * 		  been reused, so it goes into the protected queue instead
+ * 		- Pages are replaced from probation while it holds more than its share of frames (--probation), otherwise from the protected queue
+ * A scan touches each page once, so its pages only ever pass through probation and the pages other processes keep reusing stay protected.
+ * Both queues are FIFO. Huge pages aren't supported.
+ *
+ * Nothing searches the whole memory: free frames are kept in a list, resident pages are found by their page key, and each process' frames
+ * are kept in queue order so its oldest page and its number of frames are known straight away. The queues are linked sets so a page is
+ * taken out of the middle of one without searching it.
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+public class QuotaGlobalReplacementScheduler extends GlobalReplacementScheduler {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"quota-min", "quota-max", "probation"};
+
+	private final List<Frame> physicalFrames = new ArrayList<Frame>();			//All frames in physical order
+	private final ArrayDeque<Frame> freeFrames = new ArrayDeque<Frame>();		//Frames not holding a page
+	private final LinkedHashSet<Frame> probation = new LinkedHashSet<Frame>();		//Pages loaded once, oldest first
+	private final LinkedHashSet<Frame> protectedQueue = new LinkedHashSet<Frame>();	//Pages that faulted again soon after leaving probation, oldest first
+	private final LinkedHashSet<Long> remembered = new LinkedHashSet<Long>();	//Keys of pages recently replaced from probation, oldest first (see Frame.getPageKey())
+	private final Map<Long, Frame> resident = new HashMap<Long, Frame>();		//Page key -> frame holding the page
+	private final Map<Integer, OwnedFrames> owned = new HashMap<Integer, OwnedFrames>();	//Process ID -> frames it owns, kept up to date as pages are loaded, replaced and released
+	private final int MIN_QUOTA;					//Frames kept by every process, or -1 for half of an equal share
+	private final int MAX_QUOTA;					//Most frames one process can hold
+	private final int PROBATION_FRAMES;				//Probation is replaced first while it holds more than this many frames
+	private final int REMEMBERED_PAGES;				//Most replaced pages remembered
+
+	//Statistics
+	private int probationReplacements;				//Pages replaced from the probation queue
+	private int protectedReplacements;				//Pages replaced from the protected queue
+	private int maximumReplacements;				//Own pages replaced by a process holding its maximum number of frames
+	private int minimumSkips;						//Replacements that skipped the oldest page because its process only held its minimum
+	private final Map<Integer, Integer> peakFrames = new HashMap<Integer, Integer>();	//Process ID -> most frames held at once
+	private final Map<Integer, Integer> promotions = new HashMap<Integer, Integer>();	//Process ID -> pages moved to the protected queue
+
+	/**
+	 * The frames owned by one process, in the same order as the queues.
+	 */
+	private static class OwnedFrames implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final LinkedHashSet<Frame> probation = new LinkedHashSet<Frame>();
+		private final LinkedHashSet<Frame> protectedPages = new LinkedHashSet<Frame>();
+
+		private int size() {
+			return probation.size() + protectedPages.size();
+		}
+
+		private void remove(Frame frame) {
+			if (!probation.remove(frame)) {
+				protectedPages.remove(frame);
+			}
+		}
+	}
+
+	/**
+	 * Constructor for QuotaGlobalReplacementScheduler class.
+	 *
+	 * Preconditions: - processes != null
+	 * 				  - numFrames > 0
+	 * 				  - quantum > 0
+	 * Postconditions: Every frame is free
+	 *
+	 * @param processes - a list of Process objects participating in the simulation
+	 * @param numFrames - the total number of frames (F) available in main memory
+	 * @param quantum - the time quantum (Q) used for Round Robin process scheduling
+	 * @param options - optional simulation settings (--quota-min, --quota-max, --probation)
+	 *
+	 * @throws IllegalArgumentException if the quotas are invalid, or huge pages or NUMA nodes are turned on
+	 */
+	public QuotaGlobalReplacementScheduler(List<Process> processes, int numFrames, int quantum, SimulationOptions options) {
+		super(processes, numFrames, quantum, options, false);
+		checkOptions(numFrames, options);
+		for (int i = 0; i < numFrames; i++) {
+			physicalFrames.add(new Frame());
+		}
+		freeFrames.addAll(physicalFrames);
+
+		MIN_QUOTA = options.getInt("quota-min", -1);
+		MAX_QUOTA = options.getInt("quota-max", numFrames);
+		PROBATION_FRAMES = numFrames * options.getInt("probation", 25) / 100;
+		REMEMBERED_PAGES = Math.max(1, numFrames / 2);
+	}
+
+	/**
+	 * Checks that huge pages and NUMA nodes are turned off and that the quotas and probation share are valid (see GlobalReplacementScheduler.checkOptions()).
+	 *
+	 * @param numFrames - the total number of frames (F) available in main memory
+	 * @param options - optional simulation settings
+	 *
+	 * @throws IllegalArgumentException if the quotas are invalid, or huge pages or NUMA nodes are turned on
+	 */
+	public static void checkOptions(int numFrames, SimulationOptions options) {
+		if (options.getInt("huge-page-frames", 0) >= 2) { //Same test as HugePagePolicy.isEnabled()
+			throw new IllegalArgumentException("The hybrid replacement scope doesn't support huge pages (--huge-page-frames)");
+		}
+		if (options.has("numa-nodes")) {
+			throw new IllegalArgumentException("The hybrid replacement scope doesn't support NUMA nodes (--numa-nodes)");
+		}
+		int minimum = options.getInt("quota-min", -1);
+		int maximum = options.getInt("quota-max", numFrames);
+		if (maximum < 1 || minimum > maximum) {
+			throw new IllegalArgumentException("Invalid frame quotas (--quota-min=" + minimum + ", --quota-max=" + maximum
+					+ "), the maximum must be at least 1 and at least the minimum");
+		}
+		int percent = options.getInt("probation", 25);
+		if (percent < 0 || percent > 100) {
+			throw new IllegalArgumentException("Invalid --probation=" + percent + ", expected a percentage of the frames");
+		}
+	}
+
+	/**
+	 * Retrieves the number of frames a process keeps before its pages can be replaced by other processes.
+	 *
+	 * @return minimum frames per process
+	 */
+	public int getMinimumQuota() {
+		return MIN_QUOTA >= 0 ? MIN_QUOTA : NUMBER_FRAMES / (2 * Math.max(1, processes.size()));
+	}
+
+	@Override
+	protected Frame findFrame(Process p, int page) {
+		return resident.get(p.pageKey(page));
+	}
+
+	/**
+	 * Retrieves the number of frames a process owns.
+	 *
+	 * @param processID - ID of the process
+	 * @return frames owned by the process
+	 */
+	private int framesHeld(int processID) {
+		OwnedFrames frames = owned.get(processID);
+		return frames != null ? frames.size() : 0;
+	}
+
+	/**
+	 * Loads a page into a free frame or replaces a page chosen by the quotas and queues (see the description at the top).
+	 *
+	 * Preconditions: newFrameData holds the page to load
+	 * Postconditions: The page is in main memory, at the back of the probation queue or (if it was remembered) the protected queue
+	 *
+	 * @param newFrameData - the frame containing the page to load
+	 */
+	@Override
+	protected void loadIntoMainMemory(Frame newFrameData) {
+		Process p = newFrameData.getOwnerProcess();
+		int own = framesHeld(p.getProcessID());
+
+		Frame frame;
+		if (own >= MAX_QUOTA) { //At the maximum - replace one of its own pages
+			frame = oldestOf(p);
+			maximumReplacements++;
+			replace(frame);
+		} else {
+			frame = freeFrames.poll();
+			if (frame == null) {
+				frame = chooseVictim(p);
+				replace(frame);
+			}
+			own++;
+		}
+
+		boolean reused = remembered.remove(newFrameData.getPageKey());
+		frame.copyFrom(newFrameData);
+		resident.put(frame.getPageKey(), frame);
+		OwnedFrames frames = owned.computeIfAbsent(p.getProcessID(), id -> new OwnedFrames());
+		if (reused) {
+			protectedQueue.add(frame);
+			frames.protectedPages.add(frame);
+			promotions.merge(p.getProcessID(), 1, Integer::sum);
+		} else {
+			probation.add(frame);
+			frames.probation.add(frame);
+		}
+		peakFrames.merge(p.getProcessID(), own, Math::max);
+	}
+
+	/**
+	 * Finds the oldest page of a process, probation pages first.
+	 *
+	 * Preconditions: p holds at least one frame
+	 */
+	private Frame oldestOf(Process p) {
+		OwnedFrames frames = owned.get(p.getProcessID());
+		return oldest(!frames.probation.isEmpty() ? frames.probation : frames.protectedPages);
+	}
+
+	/**
+	 * Retrieves the oldest page of a queue.
+	 *
+	 * @return the frame at the front of the queue, or null if it is empty
+	 */
+	private static Frame oldest(LinkedHashSet<Frame> queue) {
+		return queue.isEmpty() ? null : queue.iterator().next();
+	}
+
+	/**
+	 * Chooses the page to replace when memory is full. Probation is used while it holds more than its share (or nothing is protected).
+	 * In the chosen queue the oldest page whose process holds more than its minimum (or belongs to p) is replaced. If there is none the other
+	 * queue is tried, and if the minimums leave nothing at all the oldest page is replaced anyway.
+	 *
+	 * Preconditions: Every frame is occupied
+	 *
+	 * @param p - the process whose page is being loaded
+	 * @return the frame to replace
+	 */
+	private Frame chooseVictim(Process p) {
+		boolean probationFirst = probation.size() > PROBATION_FRAMES || protectedQueue.isEmpty();
+		LinkedHashSet<Frame> first = probationFirst ? probation : protectedQueue;
+		LinkedHashSet<Frame> second = probationFirst ? protectedQueue : probation;
+
+		Frame victim = oldestReplaceable(first, p);
+		if (victim == null) {
+			victim = oldestReplaceable(second, p);
+		}
+		if (victim == null) { //Every other process is at its minimum - the minimums ask for more frames than there are
+			victim = first.isEmpty() ? oldest(second) : oldest(first);
+		}
+		if (victim != oldest(first)) {
+			minimumSkips++;
+		}
+		return victim;
+	}
+
+	private Frame oldestReplaceable(LinkedHashSet<Frame> queue, Process p) {
+		int minimum = getMinimumQuota();
+		for (Frame frame : queue) {
+			int owner = frame.getOwnerProcessID();
+			if (owner == p.getProcessID() || framesHeld(owner) > minimum) {
+				return frame;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes a page from its queue before the frame is overwritten, remembering pages replaced from probation.
+	 *
+	 * Preconditions: frame is occupied
+	 * Postconditions: The frame is in neither queue
+	 */
+	private void replace(Frame frame) {
+		owned.get(frame.getOwnerProcessID()).remove(frame);
+		resident.remove(frame.getPageKey());
+		if (probation.remove(frame)) {
+			probationReplacements++;
+			remembered.add(frame.getPageKey());
+			if (remembered.size() > REMEMBERED_PAGES) {
+				Iterator<Long> oldest = remembered.iterator();
+				oldest.next();
+				oldest.remove();
+			}
+		} else {
+			protectedQueue.remove(frame);
+			protectedReplacements++;
+		}
+		evictFrame(frame);
+	}
+
+	/**
+	 * Clears all frames owned by a process when it finishes (or is suspended).
+	 *
+	 * Postconditions: All frames belonging to p are free (shared frames once no other process maps them) and out of the queues
+	 *
+	 * @param p - the process whose frames should be released
+	 */
+	@Override
+	protected void clearProcessFrames(Process p) {
+		//Pages the process loaded
+		OwnedFrames frames = owned.get(p.getProcessID());
+		if (frames != null) {
+			List<Frame> own = new ArrayList<Frame>(frames.probation);
+			own.addAll(frames.protectedPages);
+			for (Frame frame : own) {
+				release(frame, p);
+			}
+		}
+
+		//Shared pages it maps that another process loaded
+		for (SharedSegment segment : p.getSharedSegments()) {
+			for (int page = segment.getFirstPage(); page <= segment.getLastPage(); page++) {
+				Frame frame = p.getSharedSegment(page) == segment ? resident.get(segment.pageKey(page)) : null; //Not copied on write
+				if (frame != null && frame.getOwnerProcessID() != p.getProcessID()) {
+					release(frame, p);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Releases a frame from a finished process and, if that freed it, takes it out of the queues and indexes and onto the free list.
+	 *
+	 * @param frame - frame owned or mapped by p
+	 * @param p - the finished process
+	 */
+	private void release(Frame frame, Process p) {
+		int owner = frame.getOwnerProcessID(); //A shared page may be released by a process that didn't load it
+		long key = frame.getPageKey();
+		releaseFrame(frame, p);
+		if (frame.isFree()) {
+			probation.remove(frame);
+			protectedQueue.remove(frame);
+			owned.get(owner).remove(frame);
+			resident.remove(key);
+			freeFrames.add(frame);
+		}
+	}
+
+	/**
+	 * Keeps the indexes up to date when a shared page becomes the writing process' private page without moving (see Frame.makePrivate()).
+	 * The page changes key and owner. The writer's frames are put back in queue order by going through the queues, which only happens
+	 * when the only process mapping a page another process loaded writes to it.
+	 */
+	@Override
+	protected boolean copyOnWrite(Process p, int page) {
+		Frame frame = findFrame(p, page);
+		if (frame == null) {
+			return super.copyOnWrite(p, page);
+		}
+		int owner = frame.getOwnerProcessID();
+		long key = frame.getPageKey();
+		boolean copied = super.copyOnWrite(p, page);
+		if (frame.getPageKey() != key) {
+			resident.remove(key);
+			resident.put(frame.getPageKey(), frame);
+			if (owner != p.getProcessID()) {
+				owned.get(owner).remove(frame);
+				indexOwnedFrames(p.getProcessID());
+			}
+		}
+		return copied;
+	}
+
+	/**
+	 * Rebuilds the list of frames a process owns from the queues.
+	 *
+	 * @param processID - ID of the process
+	 */
+	private void indexOwnedFrames(int processID) {
+		OwnedFrames frames = new OwnedFrames();
+		for (Frame frame : probation) {
+			if (frame.getOwnerProcessID() == processID) {
+				frames.probation.add(frame);
+			}
+		}
+		for (Frame frame : protectedQueue) {
+			if (frame.getOwnerProcessID() == processID) {
+				frames.protectedPages.add(frame);
+			}
+		}
+		owned.put(processID, frames);
+	}
+
+	/**
+	 * Lists the process' pages oldest first, probation pages before protected pages.
+	 *
+	 * @param p - the process
+	 * @return pages of p in main memory
+	 */
+	@Override
+	protected List<Integer> getResidentPages(Process p) {
+		List<Integer> pages = new ArrayList<Integer>();
+		OwnedFrames frames = owned.get(p.getProcessID());
+		if (frames != null) {
+			for (LinkedHashSet<Frame> queue : List.of(frames.probation, frames.protectedPages)) {
+				for (Frame frame : queue) {
+					pages.add(frame.getPageValue());
+				}
+			}
+		}
+		return pages;
+	}
+
+	/**
+	 * Adds the frames to the state written to a checkpoint, then the free list and both queues as frame numbers, the remembered pages and the
+	 * quota statistics. The page and process indexes are rebuilt from the queues when the state is read.
+	 */
+	@Override
+	protected void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		super.writeState(out);
+		out.writeFrames(physicalFrames);
+		out.writeFrameQueue(freeFrames, physicalFrames);
+		out.writeFrameQueue(probation, physicalFrames);
+		out.writeFrameQueue(protectedQueue, physicalFrames);
+		out.writeLongList(remembered);
+		out.writeInt(probationReplacements);
+		out.writeInt(protectedReplacements);
+		out.writeInt(maximumReplacements);
+		out.writeInt(minimumSkips);
+		out.writeIntMap(peakFrames);
+		out.writeIntMap(promotions);
+	}
+
+	@Override
+	protected void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		super.readState(in);
+		physicalFrames.clear();
+		in.readFrames(physicalFrames);
+		freeFrames.clear();
+		in.readFrameQueue(freeFrames, physicalFrames);
+		probation.clear();
+		in.readFrameQueue(probation, physicalFrames);
+		protectedQueue.clear();
+		in.readFrameQueue(protectedQueue, physicalFrames);
+		remembered.clear();
+		in.readLongList(remembered);
+		resident.clear();
+		owned.clear();
+		for (LinkedHashSet<Frame> queue : List.of(probation, protectedQueue)) {
+			for (Frame frame : queue) {
+				resident.put(frame.getPageKey(), frame);
+				OwnedFrames frames = owned.computeIfAbsent(frame.getOwnerProcessID(), id -> new OwnedFrames());
+				(queue == probation ? frames.probation : frames.protectedPages).add(frame);
+			}
+		}
+		probationReplacements = in.readInt();
+		protectedReplacements = in.readInt();
+		maximumReplacements = in.readInt();
+		minimumSkips = in.readInt();
+		peakFrames.clear();
+		in.readIntMap(peakFrames);
+		promotions.clear();
+		in.readIntMap(promotions);
+	}
+
+	@Override
+	protected int getFrameLimit(Process p) {
+		return MAX_QUOTA;
+	}
+
+	@Override
+	protected void grantFrames(Process p, int count) {
+		throw new IllegalArgumentException("What-if branches can't add frames with the hybrid scope, its quotas are fixed");
+	}
+
+	@Override
+	public String getStrategyName() {
+		return "Hybrid-Quota Replacement";
+	}
+
+	/**
+	 * Runs the simulation and prints the results followed by how the quotas and probation queue were used.
+	 *
+	 * @param processes - the list of processes to simulate
+	 */
+	@Override
+	public void run(List<Process> processes) {
+		super.run(processes);
+		printQuotaReport(processes);
+	}
+
+	private void printQuotaReport(List<Process> inputProcesses) {
+		PrintStream out = getOutput();
+		out.println("Quotas: " + getMinimumQuota() + " to " + MAX_QUOTA + " frames per process, probation " + PROBATION_FRAMES + " frames");
+		out.printf("%-4s %-20s %-12s %s%n", "PID", "Process Name", "Peak Frames", "Protected Pages");
+		for (Process p : inputProcesses) {
+			out.printf("%-4d %-20s %-12d %d%n", p.getProcessID(), p.getName(), peakFrames.getOrDefault(p.getProcessID(), 0),
+					promotions.getOrDefault(p.getProcessID(), 0));
+		}
+		out.println("Replacements: " + probationReplacements + " from probation, " + protectedReplacements + " protected, "
+				+ maximumReplacements + " at a process' maximum, " + minimumSkips + " skipped a process at its minimum");
+	}
+}
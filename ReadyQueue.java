@@ -0,0 +1,197 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Abstract superclass for the short-term (CPU) scheduling disciplines, used as the ready queue of both page replacement schedulers.
+ *
+ * The order the queue is iterated in is the order processes are dispatched - the first process that can run is the next to use the CPU.
+ * The scheduler tells the queue when a process is dispatched, when it uses its whole time quantum and when it finishes so a discipline can adjust its priorities.
+ * A discipline is chosen with --cpu-scheduler:
+ * 		rr			Round Robin with quantum Q (default, as specified in the assignment document)
+ * 		mlfq		Multilevel feedback queue (see MultilevelFeedbackQueue)
+ * 		srtf		Shortest remaining trace first (see ShortestRemainingQueue)
+ * 		fault-aware	Favours processes whose working set is resident (see FaultAwareQueue)
+ * 		adaptive	Round Robin with each process' quantum tuned from its faults (see AdaptiveQuantumQueue)
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Set;
+
+public abstract class ReadyQueue extends AbstractQueue<Process> implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"cpu-scheduler"};
+
+	/**
+	 * Names of the supported disciplines, in the order they are compared.
+	 */
+	public static final String[] NAMES = {"rr", "mlfq", "srtf", "fault-aware", "adaptive"};
+
+	protected final int TIME_QUANTUM;					//Time quantum (Q) passed into the program
+
+	/**
+	 * Constructor for the ReadyQueue class.
+	 *
+	 * @param quantum - time quantum (Q) passed into the program
+	 */
+	protected ReadyQueue(int quantum) {
+		this.TIME_QUANTUM = quantum;
+	}
+
+	/**
+	 * Creates the discipline chosen with --cpu-scheduler.
+	 *
+	 * Preconditions: options != null, quantum > 0, scheduler != null
+	 *
+	 * @param options - simulation options
+	 * @param quantum - time quantum (Q)
+	 * @param scheduler - page replacement scheduler that will use the queue (checked by disciplines that look at main memory)
+	 * @return an empty ready queue
+	 *
+	 * @throws IllegalArgumentException if the discipline isn't known
+	 */
+	public static ReadyQueue create(SimulationOptions options, int quantum, Scheduler scheduler) {
+		String name = options.getString("cpu-scheduler", "rr").toLowerCase();
+		switch (name) {
+			case "rr":
+				return new RoundRobinQueue(quantum);
+			case "mlfq":
+				return new MultilevelFeedbackQueue(quantum, options);
+			case "srtf":
+				return new ShortestRemainingQueue(quantum);
+			case "fault-aware":
+				return new FaultAwareQueue(quantum, options, scheduler);
+			case "adaptive":
+				return new AdaptiveQuantumQueue(quantum, options, scheduler);
+			default:
+				throw new IllegalArgumentException("Option --cpu-scheduler must be one of rr, mlfq, srtf, fault-aware or adaptive (\"" + name + "\" found)");
+		}
+	}
+
+	/**
+	 * Retrieves the time quantum a process is given when it is dispatched.
+	 *
+	 * @param p - the dispatched process
+	 * @return time units the process may run before it is preempted
+	 */
+	public int quantumFor(Process p) {
+		return TIME_QUANTUM;
+	}
+
+	/**
+	 * Called when a process has been removed from the queue to use the CPU.
+	 *
+	 * @param p - the dispatched process
+	 * @param currentTime - current simulation time
+	 */
+	public void dispatched(Process p, int currentTime) {
+	}
+
+	/**
+	 * Called when a process used its whole time quantum, just before it is added back to the queue.
+	 *
+	 * @param p - the preempted process
+	 */
+	public void quantumExpired(Process p) {
+	}
+
+	/**
+	 * Called when a process has finished so the discipline can forget it.
+	 *
+	 * @param p - the finished process
+	 */
+	public void processFinished(Process p) {
+	}
+
+	/**
+	 * Prints anything the discipline has recorded during the simulation, after the results. Most disciplines have nothing to report.
+	 *
+	 * @param out - stream the report is printed to
+	 */
+	public void printReport(PrintStream out) {
+	}
+
+	/**
+	 * Writes the ready processes to a checkpoint in dispatch order (see SimulationCheckpoint). Disciplines that keep more state add it.
+	 *
+	 * @param out - checkpoint being written
+	 */
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		out.writeProcesses(this);
+	}
+
+	/**
+	 * Replaces the ready processes with the processes written by writeState(), added in the order they were written.
+	 *
+	 * @param in - checkpoint being read
+	 */
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		clear();
+		in.readProcesses(this);
+	}
+
+	/**
+	 * Calculates the fraction of a process' working set that is in main memory, used by disciplines that look at main memory.
+	 * An empty working set (no page of the process is available, e.g. a live trace process waiting for its next page) counts as 0,
+	 * nothing is known to be resident.
+	 *
+	 * @param p - the process
+	 * @param window - number of recent references in the working set (see Process.getWorkingSet())
+	 * @param memory - page replacement scheduler holding main memory
+	 * @return resident fraction from 0 to 1
+	 */
+	protected static double residentFraction(Process p, int window, Scheduler memory) {
+		Set<Integer> workingSet = p.getWorkingSet(window);
+		if (workingSet.isEmpty()) {
+			return 0;
+		}
+
+		int resident = 0;
+		for (int page : workingSet) {
+			if (memory.isPageInMemory(p, page)) {
+				resident++;
+			}
+		}
+		return (double) resident / workingSet.size();
+	}
+
+	/**
+	 * Retrieves the name of the discipline, used when printing results.
+	 *
+	 * @return discipline name
+	 */
+	public abstract String getName();
+
+	/**
+	 * Removes the next process to dispatch (the first in iteration order).
+	 *
+	 * @return the next process, or null if the queue is empty
+	 */
+	@Override
+	public Process poll() {
+		Iterator<Process> ready = iterator();
+		if (!ready.hasNext()) {
+			return null;
+		}
+		Process next = ready.next();
+		ready.remove();
+		return next;
+	}
+
+	/**
+	 * Retrieves the next process to dispatch without removing it.
+	 *
+	 * @return the next process, or null if the queue is empty
+	 */
+	@Override
+	public Process peek() {
+		Iterator<Process> ready = iterator();
+		return ready.hasNext() ? ready.next() : null;
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Reference implementation of the simulation rules in the assignment document, used as the oracle of the differential check (see DifferentialCheck).
+ *
+ * It is written as plainly as possible and shares no code with the schedulers: a Round Robin ready queue, a blocked queue, a pending queue of
+ * page loads that take 4 time units and FIFO replacement, either within each process' fixed segment of F/n frames (fixed-local) or over all
+ * F frames (variable-global). Only private pages are supported, without any of the optional settings.
+ * Optimised versions of the schedulers must produce exactly the same event sequence as this class (see EventTrace).
+ *
+ * Do not optimise this class - it is only useful while it stays obviously correct.
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+public class ReferenceSimulator {
+	private static final int LOAD_TIME = 4;				//Swapping in a page takes 4 units of time - Rule in assignment spec
+
+	private final List<String> names;					//Process names, index = process number
+	private final List<List<Integer>> traces;			//Pages of each process
+	private final int numFrames;						//F
+	private final int quantum;							//Q
+	private final boolean local;						//true for fixed-local, false for variable-global
+	private final EventTrace events = new EventTrace();
+
+	//Simulation state
+	private int time;
+	private int[] position;								//Next page index of each process
+	private int[] unblockTime;							//Time each blocked process' page arrives
+	private final LinkedList<Integer> ready = new LinkedList<Integer>();
+	private final LinkedList<Integer> blocked = new LinkedList<Integer>();
+	private final LinkedList<int[]> pending = new LinkedList<int[]>();	//{process, page, arrival time} in the order the faults were issued
+	private int[] frameOwner;							//Process in each frame, -1 when free
+	private int[] framePage;							//Page in each frame
+	private int[] frameLoaded;							//Time the page in each frame arrived
+	private final LinkedList<Integer> fifo = new LinkedList<Integer>();	//Variable-global only - frame numbers in replacement order
+
+	/**
+	 * Constructor for the ReferenceSimulator class.
+	 *
+	 * Preconditions: names.size() == traces.size(), every trace has at least one page, numFrames >= number of processes, quantum > 0
+	 *
+	 * @param names - process names
+	 * @param traces - pages of each process
+	 * @param numFrames - number of frames (F)
+	 * @param quantum - time quantum (Q)
+	 * @param local - true for fixed-local replacement, false for variable-global replacement
+	 */
+	public ReferenceSimulator(List<String> names, List<List<Integer>> traces, int numFrames, int quantum, boolean local) {
+		this.names = names;
+		this.traces = traces;
+		this.numFrames = numFrames;
+		this.quantum = quantum;
+		this.local = local;
+	}
+
+	/**
+	 * Runs the simulation from the start.
+	 *
+	 * @return every event of the simulation, in order
+	 */
+	public EventTrace run() {
+		int n = traces.size();
+		position = new int[n];
+		unblockTime = new int[n];
+		frameOwner = new int[numFrames];
+		framePage = new int[numFrames];
+		frameLoaded = new int[numFrames];
+		for (int f = 0; f < numFrames; f++) {
+			frameOwner[f] = -1;
+			fifo.add(f);
+		}
+		for (int p = 0; p < n; p++) {
+			ready.add(p);
+		}
+
+		while (!ready.isEmpty() || !blocked.isEmpty()) {
+			loadArrivedPages();
+			unblock();
+
+			if (ready.isEmpty()) { //CPU idle
+				time++;
+				continue;
+			}
+			int p = ready.poll();
+			events.record(time, EventTrace.DISPATCH, names.get(p));
+
+			boolean isBlocked = false;
+			for (int left = quantum; left > 0 && !isFinished(p); left--) {
+				int page = traces.get(p).get(position[p]);
+				if (findFrame(p, page) < 0) { //Page fault
+					events.record(time, EventTrace.FAULT, names.get(p), page);
+					pending.add(new int[] {p, page, time + LOAD_TIME});
+					unblockTime[p] = time + LOAD_TIME;
+					blocked.add(p);
+					isBlocked = true;
+					break;
+				}
+
+				position[p]++;
+				time++;
+				loadArrivedPages();
+				unblock();
+				if (isFinished(p)) {
+					events.record(time, EventTrace.FINISH, names.get(p));
+					for (int f = 0; f < numFrames; f++) {
+						if (frameOwner[f] == p) {
+							frameOwner[f] = -1;
+						}
+					}
+				}
+			}
+
+			if (!isBlocked && !isFinished(p)) {
+				ready.add(p);
+			}
+		}
+		return events;
+	}
+
+	private boolean isFinished(int p) {
+		return position[p] == traces.get(p).size();
+	}
+
+	/**
+	 * Finds the frame holding a page of a process, or -1 if it isn't in memory.
+	 */
+	private int findFrame(int p, int page) {
+		for (int f = 0; f < numFrames; f++) {
+			if (frameOwner[f] == p && framePage[f] == page) {
+				return f;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Moves blocked processes whose page has arrived to the ready queue, in the order they were blocked.
+	 */
+	private void unblock() {
+		List<Integer> stillBlocked = new ArrayList<Integer>();
+		for (int p : blocked) {
+			if (unblockTime[p] <= time) {
+				ready.add(p);
+			} else {
+				stillBlocked.add(p);
+			}
+		}
+		blocked.clear();
+		blocked.addAll(stillBlocked);
+	}
+
+	/**
+	 * Places every page that has arrived into main memory, in the order the faults were issued.
+	 */
+	private void loadArrivedPages() {
+		while (!pending.isEmpty() && pending.peek()[2] <= time) {
+			int[] load = pending.poll();
+			int frame = local ? localFrame(load[0]) : globalFrame();
+			if (frameOwner[frame] >= 0) {
+				events.record(time, EventTrace.EVICT, names.get(frameOwner[frame]), framePage[frame]);
+			}
+			frameOwner[frame] = load[0];
+			framePage[frame] = load[1];
+			frameLoaded[frame] = load[2];
+			events.record(time, EventTrace.LOAD, names.get(load[0]), load[1]);
+		}
+	}
+
+	/**
+	 * Fixed-local - the first free frame of the process' segment, otherwise the segment frame holding the oldest page.
+	 */
+	private int localFrame(int p) {
+		int size = numFrames / traces.size();
+		int oldest = p * size;
+		for (int f = p * size; f < (p + 1) * size; f++) {
+			if (frameOwner[f] < 0) {
+				return f;
+			}
+			if (frameLoaded[f] < frameLoaded[oldest]) {
+				oldest = f;
+			}
+		}
+		return oldest;
+	}
+
+	/**
+	 * Variable-global - the first free frame in replacement order, otherwise the frame at the head of the FIFO queue (which moves to the back).
+	 */
+	private int globalFrame() {
+		for (int f : fifo) {
+			if (frameOwner[f] < 0) {
+				return f;
+			}
+		}
+		int oldest = fifo.poll();
+		fifo.add(oldest);
+		return oldest;
+	}
+}
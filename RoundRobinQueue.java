@@ -0,0 +1,49 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Round Robin ready queue - processes are dispatched in the order they became ready and each runs for at most Q time units.
+ * This is the short-term scheduling algorithm specified in the assignment document and the default discipline.
+ */
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+public class RoundRobinQueue extends ReadyQueue {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	private final LinkedList<Process> queue = new LinkedList<Process>();	//Ready processes in the order they became ready
+
+	/**
+	 * Constructor for the RoundRobinQueue class.
+	 *
+	 * @param quantum - time quantum (Q)
+	 */
+	public RoundRobinQueue(int quantum) {
+		super(quantum);
+	}
+
+	@Override
+	public boolean offer(Process p) {
+		return queue.add(p);
+	}
+
+	@Override
+	public Process poll() {
+		return queue.poll();
+	}
+
+	@Override
+	public Iterator<Process> iterator() {
+		return queue.iterator();
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	@Override
+	public String getName() {
+		return "RR";
+	}
+}
@@ -1,304 +1,1620 @@
-/*
- * Author: Amanda Foxley c3137540
- * Created: 27/09/25
- * COMP2240 Assignment 3
- *
- * Abstract superclass that both page replacement policies inherit from.
- * Data structures and the print method common to both algorithms have been stored here to reduce repetition
- * 
- * The simulation adheres to the following rules specified in the assignment document.
- * Simulation scheduling rules: 
- * 			- The system is to use a Round Robin short-term scheduling algorithm with time a quantum of Q.
- * 			- Executing a single instruction (i.e. a page) takes 1 unit of time
- * 			- Switching the processes does not take any time
- * 			- All the processes start execution at time t = 0. And they will be processed in the order the process names appear in the input.
- * 			- If a process becomes ready at time unit t then execution of that process may occur in the same time unit t without any delay (if there is no other process running or waiting in the ready queue).
- * 			- If multiple process becomes ready at the same time, then they will enter the ready queue in the order they became blocked.
- * 			- If a process P1 is finishes it’s time quantum at t1 and another process P2 becomes unblocked at the same time t1, then the unblocked process, P2, is added in the ready queue first and the time-quantum expired process, P1, is added after tha
- * 
- * Simulation memory rules:
- * 			- The system has F frames available in user memory space, a value that will be supplied as an input argument. 
- * 			- During execution, the algorithm will determine if the page required for the currently running process is in main memory.
- * 				a.If the page is in main memory, the algorithm will access the instruction and continue.
- * 				b.If the page is not in main memory, the algorithm will issue a page fault and block the process until the page has been transferred to main memory.
- * 				c.Initially no page is in the memory, i.e., the simulation will be strictly using demand paging, where pages are only brought into main memory when they are requested.
- * 				d.In the fixed allocation scheme frames are equally divided among processes, additional frames remain unused. In the variable allocation scheme all frames are available to the processes.
- *
- *	Page Fault Handling rules:
- *			- Issuing a page fault and blocking a process takes no time, so multiple page faults may occur and then another ready process can run immediately at the same time unit.
- *			- Swapping in a page takes 4 units of time (if a page required by a process is not in main memory, the process must be put into its blocked state until the required page is available).
- *			- If a process is unblocked (i.e. the requested page is placed in the main memory) at time t then it can be scheduled and the requested page can be executed at t
- * */
-
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
-
-public abstract class Scheduler {
-    protected final int NUMBER_FRAMES;			//Number of frames allocated in this simulation - from input file
-    protected final int TIME_QAUNTUM;			//Time quantum to be used for RR simulation	- from input file
-    protected int algorithmTime;				//Running simulation time
-    protected Queue<Process> readyQueue;		//Holds processes ready to be run
-    protected Queue<Process> blockedQueue;		//Holds processes that have been blocked
-    protected int framesPerProcess;				//Number of frames each process has been allocated - Used for fixed local replacement policy
-    protected Queue<Frame> pendingQueue;		//Pages wait in this queue for 4 units before loading into main memory
-    
-    /**
-     * Constructor for Scheduler class. 
-     * Creates an instance of scheduler class and initialises its data structures.
-     * All processes are added to the ready queue since they all arrive at time t = 0.
-     *
-     * Preconditions: - processes != null — must contain at least one process
-     * 				  - numFrames > 0 — total number of frames must be positive
-     * 				  - quantum > 0 — time quantum must be a positive integer
-     * Postconditions:	- All processes are added to the ready queue
-     * 					- Blocked queue is initialised and empty
-     * 					- Simulation time is set to zero
-     * 
-     * @param processes - a list of Process objects participating in the simulation
-     * @param numFrames - total number of frames (F) available in main memory
-     * @param quantum - time quantum (Q) used for the Round Robin CPU scheduling
-     * 
-     * @throws IllegalArgumentException if the number of frames passed into the program is < the number of input processes
-     */
-    public Scheduler(List<Process> processes, int numFrames, int quantum) {
-        this.NUMBER_FRAMES = numFrames;
-        this.TIME_QAUNTUM = quantum;
-        this.algorithmTime = 0;
-        
-        //Create data structures to hold ready, blocked and pending processes
-        readyQueue = new LinkedList<Process>();
-        blockedQueue = new LinkedList<Process>();
-        pendingQueue = new LinkedList<Frame>();
-        
-	   	//Since all processes start at t=0 add them all to the ready queue now
-	   	for(Process p: processes) {
-	   		readyQueue.add(p);
-	   	}
-	   	
-	   	this.framesPerProcess = numFrames / processes.size(); 	//Calculate the number of frames given per process. Used for fixed allocation scheme - frames are equally divided among processes. Additional frames remain unused
-	   	
-	   	//Ensure each process gets at least one frame - i.e. ensure the frame value passed in when running the program is >= number of input processes, otherwise the simulation won't work
-	   	if (framesPerProcess < 1) {
-	   	    throw new IllegalArgumentException("Insufficient frames: " + numFrames + " frames for " + processes.size() + " processes. Each process must have at least 1 frame.");
-	   	}
-    }
-
-    /**
-     * Runs the full Round Robin simulation
-     * 
-     * Preconditions:
-     *  - processes has been parsed and initialised correctly.
-     *  - algorithmTime starts at 0.
-     * 
-     * Postconditions:
-     *  - All processes have either finished execution or been blocked/handled.
-     *  - Page faults are recorded in each process.
-     *  - Finish times are set for all completed processes.
-     *  - Results are printed to console at the end of execution.
-     *  
-     *  @param processes - a list of Process objects participating in the simulation
-     */
-    public void runSimulation(List<Process> processes) {
-
-		//Run simulation until both queues are empty
-		while (!readyQueue.isEmpty() || !blockedQueue.isEmpty()) {
-
-			checkPendingPages();	//Load any pages from pendingLoads queue to main memory that are ready now
-			unblockProcesses();		//Add any processes to the ready queue (from the blocked list) that have unblocked before or at the current algorithm time
-
-			//"CPU idle" i.e. No process available at this time (But there is one on the blocked queue) - Skip to next iteration
-			if(readyQueue.isEmpty()) { 
-				algorithmTime++; //Increase the simulation time
-				continue; 
-			}
-
-			Process currentProcess = readyQueue.poll(); //Retrieve the head of the queue to run 
-			int allocatedTime = TIME_QAUNTUM; //Each process is allocated a set amount of time to run per cycle
-
-			//Run this process until it's used its whole time quantum or becomes blocked
-			while (allocatedTime > 0 && !currentProcess.isProcessFinished()) { 
-				int requestedPage = currentProcess.getNextPage();
-
-				if (isPageInMemory(currentProcess, requestedPage)) { //Check if page is in this process' allocated memory
-
-					//Page hit - "run" the instruction
-					currentProcess.incrementPosIndex(); //Increment the page index (We've executed this page)
-					algorithmTime++; //Add +1 to the simulation time
-					allocatedTime--; 
-
-					checkPendingPages(); //Load any pages that are ready at the current time
-					unblockProcesses();	 //Check for any unblocked processes before placing this process at the back of the queue (As required in spec - "the unblocked process...is added in the ready queue first and the time-quantum expired process...is added after that")
-
-					//Check finished + set finish time and clear memory frames
-					if (currentProcess.isProcessFinished()) {
-						currentProcess.setFinishTime(algorithmTime);
-						clearProcessFrames(currentProcess); //Process has finished, clear the process' main memory segment (As required in spec, "after a process finishes...the allocated frames to that process becomes free"
-					}
-				} else {//Page fault
-					currentProcess.addFaultTime(algorithmTime); 			//A fault has occurred, add current time to the process' fault list
-					loadIntoPendingQueue(currentProcess, requestedPage);	//Load page into pending queue - it will wait here for 4 time units before being placed into main memory
-
-					//Process blocked for 4 time units
-					currentProcess.setBlockedTime(algorithmTime + 4);
-					blockedQueue.add(currentProcess);
-					currentProcess.setIsBlocked(true);
-					break; // stop using its time quantum
-				}
-			}
-
-			//Check if process needs to be added back to the ready queue (i.e. not blocked and has pages left to execute)
-			if (!currentProcess.isProcessFinished() && !currentProcess.getIsBocked()) {
-				readyQueue.add(currentProcess);
-			}
-		}
-	}
-    
-	/**
-	 * Determines whether a given page for a process is currently loaded in main memory.
-	 *
-	 * Preconditions: - p != null
-	 * 				  - page >= 0
-	 * 				  - Process p has a valid offset and frame segment assigned.
-	 *
-	 * Postconditions: A boolean indicating whether a matching process id and page value has been returned
-	 *
-	 * @param p - process requesting the page
-	 * @param page - the page value being checked
-	 * @return true if the page is in memory, otherwise false
-	 */
-    protected abstract boolean isPageInMemory(Process p, int page);
-    
-	/**
-	 * Loads a process and page data into a frame in main memory.
-	 * Locates an empty frame or performs FIFO replacement with an older frame.
-	 *
-	 *	Preconditions: - p != null
-	 *				   - page >= 0
-	 *
-	 * Postconditions: The requested page is loaded into main memory.
-	 * 				   If no free frame was available, the oldest frame has been replaced.
-	 * 
-	 * @param p - the process who owns the data to be loaded into main memory
-	 * @param page - the page value that needs to be stored
-	 */
-	protected abstract void loadIntoMainMemory(Frame frameData);
-	
-	/**
-	 * Clears all frames belonging to a finished process and marks them as free.
-	 *
-	 * Preconditions: - p != null
-	 * 				  - Process p has a valid offset and frame segment assigned.
-	 * 
-	 * Postconditions: All frames within the process’s allocated segment are marked empty.
-	 *
-	 * @param p - the process whose frames are to be cleared
-	 */
-    protected abstract void clearProcessFrames(Process p);
-
-
-    /**
-     * Adds any frames whose wait time has been reached or elapsed to main memory queue.
-     * 
-     * This method will check the wait time of the frame at the head of the pending queue to see if it has expired and if so is added to main memory.
-     * If this occurs we will loop and check the wait time of the next frame in the queue (the new head) 
-     * This will continue until we reach a frame that isn't ready or the queue is empty, at which time the loop (and method) will finish.
-     *
-     * Preconditions:
-     *   - pendingLoads contains Frame objects in the order they were requested.
-     *   - Each Frame has a valid load time set.
-     *
-     * Postconditions:
-     *   - All Frames in pendingLoads whose load time has expired (load time + 4 ≤ algorithmTime) will be removed from pendingLoads and loaded into main memory.
-     */
-	protected void checkPendingPages() {
-    	
-    	//Loop while the queue isn't empty and check the head of the queue for its expiry time. 
-    	while (!pendingQueue.isEmpty()) {
-            Frame pendingFrame = pendingQueue.peek(); //Retrieve the head of the queue
-
-            if (pendingFrame.getFrameLoadTime() + 4 <= algorithmTime) {		//Check if the frame's wait time has expired
-            	pendingQueue.poll(); 										//Remove frame from head of pendingLoads queue
-                loadIntoMainMemory(pendingFrame); 							//Load into main memory - either in an empty frame or replace the oldest frame in memory
-            } else {
-                break;	//Since it's a FIFO queue, no later frames will be ready either
-            }
-
-            //Loops here in case there are more frames that have reached their wait time
-        }
-    }
-    
-    
-    /**
-     * Loads a blocked process' page into the pending queue. The page will wait in this queue for 4 time units before being placed in the main memory queue
-     * 
-     * Preconditions:
-     *  - Process p has requested a page not currently in globalMainMemory.
-     *  - algorithmTime reflects the time of the page fault.
-     * 
-     * Postconditions:
-     *  - A new Frame object with the page is added to pendingLoads.
-     *  - The page will be ready for processing by the CPU after 4 time units.
-     *
-     * @param p - the process that caused the page fault
-     * @param page - the page value requested
-     */
-	protected void loadIntoPendingQueue(Process p, int page) {
-        
-    	//Create a pending frame load request, will be loaded after 4 time units
-        Frame pending = new Frame();
-        pending.addPageToFrame(p, page, algorithmTime);
-        pendingQueue.add(pending);
-    }
-	
-    /**
-    * Moves processes from the blocked queue back to the ready queue if their blocked time has expired.
-    * Processes will block (be placed in blocked queue) if the page they have requested is not in main memory.
-    * They must wait 4 time units in the blocked queue for the page to load into memory. 
-    * They are then placed back into the ready queue.
-    * 
-    * Preconditions: blockedQueue is not null.
-    * 
-    * Postconditions:
-    *  - All processes with blockedTime <= algorithmTime are moved to readyQueue.
-    *  - Their isBlocked status is set to false.
-    */
-	protected void unblockProcesses() {
-		//Check all processes in the blocked queue, if their blockedUntil time has been reached/elapsed they can go back on the ready queue
-        while (!blockedQueue.isEmpty() && blockedQueue.peek().getBlockedTime() <= algorithmTime) {
-        	Process p = blockedQueue.poll();			//Remove process from the front of the blocked queue
-        	p.setIsBlocked(false);						//Reset blocked status
-        	readyQueue.add(p); 							//Add the process back to the ready queue
-        }
-	}
-
-    
-    /**
-     * Prints the results of the simulation for a given page replacement strategy.
-     * Displays the turn-around time, number of page faults, and the specific times each page fault occurred for every process.
-     *
-     * Preconditions: strategyName != null && !strategyName.isEmpty()
-     * 			      inputProcesses != null
-     * Postconditions: Simulation results have been displayed to the console in the specified format
-     *
-     * @param strategyName - the name of the page replacement strategy used (e.g., “Fixed-Local Replacement”)
-     * @param inputProcesses - the list of processes that were simulated
-     */
-    protected void printResults(String strategyName, List<Process> inputProcesses) {
-        System.out.println("FIFO - " + strategyName + ":");
-        System.out.printf("%-4s %-20s %-16s %-9s %s%n",
-                "PID", "Process Name", "Turnaround Time", "# Faults", "Fault Times");
-
-        for (Process p : inputProcesses) {
-            System.out.printf("%-4d %-20s %-16d %-9d %s%n",
-                    p.getProcessID(),
-                    p.getName(),
-                    p.calcTurnaroundTime(),
-                    p.getFaultTimes().size(),
-                    p.getFaultTimes().toString().replace("[", "{").replace("]", "}")); //Need to replace [] otherwise will print with square brackets, assignment specs want curly braces
-        }
-        if(strategyName.equals("Fixed-Local Replacement")) { //Only need one separator line for output...
-        	System.out.println("------------------------------------------------------------");
-        }
-    }
-}
+/*
+ * Author: Amanda Foxley c3137540
+ * Created: 27/09/25
+ * COMP2240 Assignment 3
+ *
+ * Abstract superclass that both page replacement policies inherit from.
+ * Data structures and the print method common to both algorithms have been stored here to reduce repetition
+ * 
+ * The simulation adheres to the following rules specified in the assignment document.
+ * Simulation scheduling rules: 
+ * 			- The system is to use a Round Robin short-term scheduling algorithm with time a quantum of Q. (Other disciplines can be chosen with --cpu-scheduler, see ReadyQueue)
+ * 			- Executing a single instruction (i.e. a page) takes 1 unit of time
+ * 			- Switching the processes does not take any time
+ * 			- All the processes start execution at time t = 0. And they will be processed in the order the process names appear in the input.
+ * 			- If a process becomes ready at time unit t then execution of that process may occur in the same time unit t without any delay (if there is no other process running or waiting in the ready queue).
+ * 			- If multiple process becomes ready at the same time, then they will enter the ready queue in the order they became blocked.
+ * 			- If a process P1 is finishes it’s time quantum at t1 and another process P2 becomes unblocked at the same time t1, then the unblocked process, P2, is added in the ready queue first and the time-quantum expired process, P1, is added after tha
+ * 
+ * Simulation memory rules:
+ * 			- The system has F frames available in user memory space, a value that will be supplied as an input argument. 
+ * 			- During execution, the algorithm will determine if the page required for the currently running process is in main memory.
+ * 				a.If the page is in main memory, the algorithm will access the instruction and continue.
+ * 				b.If the page is not in main memory, the algorithm will issue a page fault and block the process until the page has been transferred to main memory.
+ * 				c.Initially no page is in the memory, i.e., the simulation will be strictly using demand paging, where pages are only brought into main memory when they are requested (unless --warm-start preloads pages, see WarmStart).
+ * 				d.In the fixed allocation scheme frames are equally divided among processes, additional frames remain unused. In the variable allocation scheme all frames are available to the processes.
+ *
+ *	Page Fault Handling rules:
+ *			- Issuing a page fault and blocking a process takes no time, so multiple page faults may occur and then another ready process can run immediately at the same time unit.
+ *			- Swapping in a page takes 4 units of time (if a page required by a process is not in main memory, the process must be put into its blocked state until the required page is available).
+ *			- If a process is unblocked (i.e. the requested page is placed in the main memory) at time t then it can be scheduled and the requested page can be executed at t
+ * */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+public abstract class Scheduler implements Serializable {
+    private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by every scheduler (see SimulationOptions), the features it uses list their own.
+	 */
+	public static final String[] OPTIONS = {"cpus", "cow-latency", "save-memory"};
+
+    protected final int NUMBER_FRAMES;			//Number of frames allocated in this simulation - from input file
+    protected final int TIME_QAUNTUM;			//Time quantum to be used for RR simulation	- from input file
+    protected int algorithmTime;				//Running simulation time
+    protected ReadyQueue readyQueue;			//Holds processes ready to be run, in the order of the short-term scheduling discipline (Round Robin by default)
+    protected Queue<Process> blockedQueue;		//Holds processes that have been blocked
+    protected int framesPerProcess;				//Number of frames each process has been allocated - Used for fixed local replacement policy
+    protected Queue<Frame> pendingQueue;		//Pages wait in this queue for 4 units before loading into main memory
+    protected final SimulationOptions options;	//Optional simulation settings - from command line arguments
+    protected final MemoryHierarchy hierarchy;	//Optional TLB and compressed swap levels around main memory
+    protected final NumaTopology numa;			//Nodes the frames are split into, or null when --numa-nodes isn't used (see NumaTopology)
+    protected final int COPY_ON_WRITE_TIME;		//Time units needed to copy a shared page that has been written to
+    protected final List<Process> processes;	//All processes in this simulation, in input order
+    private transient SimulationCheckpoint checkpoint;	//Saves the simulation state at regular times, or null if checkpoints are turned off
+    private transient WhatIfFork whatIf;		//Runs what-if branches from a copy of this simulation, or null when --what-if isn't used (see WhatIfFork). Not copied into the branches
+    protected final int NUMBER_CPUS;			//Number of processors from --cpus, 0 when the option isn't used (the original single processor loop)
+    private Process[] cpuProcess;				//Process running on each processor, null when the processor is free (multi-processor mode)
+    private int[] cpuQuantumLeft;				//Time quantum left for the process on each processor
+    private int[] cpuBusyTime;					//Time units each processor spent executing instructions
+    private transient TraceStream traceStream;	//Live trace new processes and pages arrive on, or null when all processes are read from input files
+    private transient PrintStream output;		//Stream the results are printed to, or null for the console (see setOutput)
+    private String outputPrefix = "";			//Prepended to the names of the files the results are written to (--profile, --save-memory)
+    protected LoadController loadControl;		//Thrashing detector and medium-term scheduler, or null when --load-control isn't used (see LoadController)
+    private EventTrace eventTrace;				//Records every event for differential checking, or null when not recording (see DifferentialCheck)
+    private final PageProfiler profiler;		//Records how each process uses its pages, or null when --profile isn't used (see PageProfiler)
+    private final TurnaroundAttribution attribution;	//Splits turnaround times by cause, or null when --attribution isn't used (see TurnaroundAttribution)
+    private boolean warmStarted;				//Flag for whether the --warm-start pages have been preloaded (see WarmStart)
+    private int warmStartPages;					//Pages preloaded by the warm start
+    private Map<String, List<Integer>> finalResidentSets;	//Process name -> pages in memory when it finished, or null when --save-memory isn't used
+
+    //Multi-processor contention statistics
+    protected int concurrentFaults;				//Faults issued in a time unit in which more than one fault was issued (across all processors)
+    protected int runningEvictions;				//Pages replaced while their process was running on a processor
+    protected int peakOutstandingLoads;			//Largest number of page loads in progress at the same time
+
+    //Shared page statistics
+    protected int sharedHits;					//Accesses that found a shared page already loaded by another process (page faults avoided)
+    protected int sharedLoadWaits;				//Faults that waited for a shared page already being loaded for another process (no extra page transfer)
+    protected int copyOnWriteFaults;			//Faults caused by writing to a page that other processes still map
+    protected int framesSaved;					//Frames currently saved by sharing (sum of reference count - 1 over all shared frames in memory)
+    protected int peakFramesSaved;				//Largest value of framesSaved during the simulation
+    
+    /**
+     * Constructor for Scheduler class. 
+     * Creates an instance of scheduler class and initialises its data structures.
+     * All processes are added to the ready queue since they all arrive at time t = 0.
+     *
+     * Preconditions: - processes != null — must contain at least one process
+     * 				  - numFrames > 0 — total number of frames must be positive
+     * 				  - quantum > 0 — time quantum must be a positive integer
+     * Postconditions:	- All processes are added to the ready queue
+     * 					- Blocked queue is initialised and empty
+     * 					- Simulation time is set to zero
+     * 
+     * @param processes - a list of Process objects participating in the simulation
+     * @param numFrames - total number of frames (F) available in main memory
+     * @param quantum - time quantum (Q) used for the Round Robin CPU scheduling
+     * 
+     * @throws IllegalArgumentException if the number of frames passed into the program is < the number of input processes
+     */
+    public Scheduler(List<Process> processes, int numFrames, int quantum) {
+    	this(processes, numFrames, quantum, new SimulationOptions());
+    }
+
+    /**
+     * Constructor for Scheduler class that also takes the optional simulation settings.
+     * See the constructor above for details.
+     *
+     * @param processes - a list of Process objects participating in the simulation
+     * @param numFrames - total number of frames (F) available in main memory
+     * @param quantum - time quantum (Q) used for the Round Robin CPU scheduling
+     * @param options - optional simulation settings (e.g. the memory hierarchy levels)
+     *
+     * @throws IllegalArgumentException if the number of frames passed into the program is < the number of input processes, or an option is invalid
+     */
+    public Scheduler(List<Process> processes, int numFrames, int quantum, SimulationOptions options) {
+        this.NUMBER_FRAMES = numFrames;
+        this.TIME_QAUNTUM = quantum;
+        this.algorithmTime = 0;
+        this.options = options;
+        this.hierarchy = new MemoryHierarchy(options);
+        this.numa = options.has("numa-nodes") ? new NumaTopology(options, numFrames) : null;
+        this.COPY_ON_WRITE_TIME = options.getInt("cow-latency", 1);
+        this.processes = processes;
+        this.NUMBER_CPUS = options.getInt("cpus", 0);
+        this.profiler = options.has("profile") ? new PageProfiler(options) : null;
+        this.attribution = options.isEnabled("attribution") ? new TurnaroundAttribution(options) : null;
+        if (options.has("save-memory")) {
+        	finalResidentSets = new LinkedHashMap<String, List<Integer>>();
+        }
+        if (options.has("cpus")) {
+        	if (NUMBER_CPUS < 1) {
+        		throw new IllegalArgumentException("Option --cpus must be at least 1 (" + NUMBER_CPUS + " found)");
+        	}
+        	cpuProcess = new Process[NUMBER_CPUS];
+        	cpuQuantumLeft = new int[NUMBER_CPUS];
+        	cpuBusyTime = new int[NUMBER_CPUS];
+        }
+        
+        //Create data structures to hold ready, blocked and pending processes
+        readyQueue = ReadyQueue.create(options, quantum, this);
+        blockedQueue = new LinkedList<Process>();
+        pendingQueue = new LinkedList<Frame>();
+        
+	   	//Since all processes start at t=0 add them all to the ready queue now
+	   	for(Process p: processes) {
+	   		readyQueue.add(p);
+	   	}
+	   	
+	   	this.framesPerProcess = processes.isEmpty() ? numFrames : numFrames / processes.size(); 	//Calculate the number of frames given per process. Used for fixed allocation scheme - frames are equally divided among processes. Additional frames remain unused. An online simulation starts without processes (see TraceStream)
+	   	
+	   	//Ensure each process gets at least one frame - i.e. ensure the frame value passed in when running the program is >= number of input processes, otherwise the simulation won't work
+	   	if (framesPerProcess < 1) {
+	   	    throw new IllegalArgumentException("Insufficient frames: " + numFrames + " frames for " + processes.size() + " processes. Each process must have at least 1 frame.");
+	   	}
+    }
+
+    /**
+     * Runs the simulation and prints its results. Implemented by each page replacement strategy.
+     *
+     * @param processes - the list of processes to simulate
+     */
+    public abstract void run(List<Process> processes);
+
+    /**
+     * Turns on checkpoints for this simulation (see SimulationCheckpoint).
+     * A resumed simulation is attached to the checkpoint it was restored from so it carries on saving to the same file.
+     *
+     * Preconditions: checkpoint != null
+     * Postconditions: The simulation state will be saved every checkpoint interval
+     *
+     * @param checkpoint - checkpoint settings
+     */
+    public void setCheckpoint(SimulationCheckpoint checkpoint) {
+    	this.checkpoint = checkpoint;
+    	checkpoint.attach(this, algorithmTime);
+    }
+
+    /**
+     * Writes the state of this simulation that changes while it runs to a checkpoint (see SimulationCheckpoint): the time, the queues,
+     * the processors and every component in use. The processes are written by the checkpoint itself.
+     * Each page replacement strategy adds its frames after this.
+     *
+     * Preconditions: No process is part way through its time quantum
+     *
+     * @param out - checkpoint being written
+     */
+    protected void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+    	out.writeInt(algorithmTime);
+    	out.writeInt(framesPerProcess);
+    	readyQueue.writeState(out);
+    	out.writeProcesses(blockedQueue);
+    	out.writeInt(pendingQueue.size());
+    	for (Frame pending : pendingQueue) {
+    		pending.writeState(out);
+    	}
+    	if (NUMBER_CPUS > 0) {
+    		for (int cpu = 0; cpu < NUMBER_CPUS; cpu++) {
+    			out.writeProcess(cpuProcess[cpu]);
+    			out.writeInt(cpuQuantumLeft[cpu]);
+    			out.writeInt(cpuBusyTime[cpu]);
+    		}
+    	}
+    	if (loadControl != null) {
+    		loadControl.writeState(out);
+    	}
+    	hierarchy.writeState(out);
+    	if (numa != null) {
+    		numa.writeState(out);
+    	}
+    	if (profiler != null) {
+    		profiler.writeState(out);
+    	}
+    	if (attribution != null) {
+    		attribution.writeState(out);
+    	}
+    	out.writeBoolean(warmStarted);
+    	out.writeInt(warmStartPages);
+    	if (finalResidentSets != null) {
+    		out.writeInt(finalResidentSets.size());
+    		for (Map.Entry<String, List<Integer>> entry : finalResidentSets.entrySet()) {
+    			out.writeUTF(entry.getKey());
+    			out.writeIntList(entry.getValue());
+    		}
+    	}
+    	int[] statistics = {concurrentFaults, runningEvictions, peakOutstandingLoads, sharedHits, sharedLoadWaits, copyOnWriteFaults, framesSaved, peakFramesSaved};
+    	out.writeInts(statistics);
+    }
+
+    /**
+     * Restores the state written by writeState().
+     *
+     * Preconditions: This scheduler was created with the options, processes, F and Q of the checkpointed simulation and hasn't run
+     * Postconditions: The simulation is where it was when the checkpoint was written, ready to continue
+     *
+     * @param in - checkpoint being read
+     */
+    protected void readState(SimulationCheckpoint.StateInput in) throws IOException {
+    	algorithmTime = in.readInt();
+    	framesPerProcess = in.readInt();
+    	readyQueue.readState(in);
+    	blockedQueue.clear();
+    	in.readProcesses(blockedQueue);
+    	pendingQueue.clear();
+    	for (int count = in.readInt(); count > 0; count--) {
+    		Frame pending = new Frame();
+    		pending.readState(in);
+    		pendingQueue.add(pending);
+    	}
+    	if (NUMBER_CPUS > 0) {
+    		for (int cpu = 0; cpu < NUMBER_CPUS; cpu++) {
+    			cpuProcess[cpu] = in.readProcess();
+    			cpuQuantumLeft[cpu] = in.readInt();
+    			cpuBusyTime[cpu] = in.readInt();
+    		}
+    	}
+    	if (loadControl != null) {
+    		loadControl.readState(in);
+    	}
+    	hierarchy.readState(in);
+    	if (numa != null) {
+    		numa.readState(in);
+    	}
+    	if (profiler != null) {
+    		profiler.readState(in);
+    	}
+    	if (attribution != null) {
+    		attribution.readState(in);
+    	}
+    	warmStarted = in.readBoolean();
+    	warmStartPages = in.readInt();
+    	if (finalResidentSets != null) {
+    		finalResidentSets.clear();
+    		for (int count = in.readInt(); count > 0; count--) {
+    			String name = in.readUTF();
+    			List<Integer> pages = new ArrayList<Integer>();
+    			in.readIntList(pages);
+    			finalResidentSets.put(name, pages);
+    		}
+    	}
+    	int[] statistics = in.readInts();
+    	if (statistics == null || statistics.length != 8) {
+    		throw new IOException("Invalid scheduler statistics in checkpoint");
+    	}
+    	concurrentFaults = statistics[0];
+    	runningEvictions = statistics[1];
+    	peakOutstandingLoads = statistics[2];
+    	sharedHits = statistics[3];
+    	sharedLoadWaits = statistics[4];
+    	copyOnWriteFaults = statistics[5];
+    	framesSaved = statistics[6];
+    	peakFramesSaved = statistics[7];
+    }
+
+    /**
+     * Turns on what-if branches for this simulation (see WhatIfFork). When the simulation reaches the fork time a copy of it is taken
+     * and each branch continues from the copy, and the branches are compared with this simulation after its results.
+     *
+     * Preconditions: The simulation hasn't started, whatIf != null
+     * Postconditions: The simulation will be forked at the fork time
+     *
+     * @param whatIf - what-if branches to run
+     */
+    public void setWhatIf(WhatIfFork whatIf) {
+    	this.whatIf = whatIf;
+    }
+
+    /**
+     * Feeds this simulation from a live trace stream (see TraceStream). Processes are admitted as they arrive on the stream
+     * and the simulation runs until the stream has ended and every admitted process has finished.
+     *
+     * Preconditions: The simulation was created without any processes
+     * Postconditions: runSimulation() reads processes and pages from the stream
+     *
+     * @param stream - the trace stream
+     */
+    public void setTraceStream(TraceStream stream) {
+    	this.traceStream = stream;
+    }
+
+    /**
+     * Records every dispatch, fault, page load, replacement and finish of this simulation into a trace (see EventTrace).
+     *
+     * Preconditions: The simulation hasn't started
+     * Postconditions: Events are added to the trace as the simulation runs
+     *
+     * @param trace - trace the events are added to
+     */
+    public void setEventTrace(EventTrace trace) {
+    	this.eventTrace = trace;
+    }
+
+    /**
+     * Adds an event involving a process to the event trace, if one is being recorded.
+     */
+    private void recordEvent(String type, Process p) {
+    	if (eventTrace != null) {
+    		eventTrace.record(algorithmTime, type, p.getName());
+    	}
+    }
+
+    /**
+     * Adds an event involving a page to the event trace, if one is being recorded.
+     */
+    private void recordEvent(String type, Frame frame) {
+    	if (eventTrace != null) {
+    		eventTrace.record(algorithmTime, type, frame.getOwnerProcess().getName(), frame.getPageValue());
+    	}
+    }
+
+    /**
+     * Runs an online simulation fed from a live trace stream and prints its results as they happen (see TraceStream).
+     *
+     * Preconditions: The simulation was created without any processes
+     * Postconditions: The stream has ended, every admitted process has finished and the totals have been displayed to the console
+     *
+     * @param stream - the trace stream
+     * @param strategyName - the name of the page replacement strategy used (e.g. "Variable-Global Replacement")
+     */
+    public void runOnline(TraceStream stream, String strategyName) {
+    	setTraceStream(stream);
+    	stream.printHeader(strategyName);
+    	runSimulation(processes);
+    	stream.printTotals(algorithmTime);
+    	if (hierarchy.isEnabled()) {
+    		hierarchy.printStatistics(getOutput(), NUMBER_FRAMES);
+    	}
+    	if (numa != null) {
+    		numa.printReport(getOutput(), processes, canMigratePages());
+    	}
+    	readyQueue.printReport(getOutput());
+    	if (NUMBER_CPUS > 0) {
+    		printProcessorStatistics();
+    	}
+    	if (loadControl != null) {
+    		loadControl.printReport(getOutput());
+    	}
+    	if (profiler != null) {
+    		profiler.printReport(getOutput(), outputPrefix, strategyName);
+    	}
+    	printWarmStartReport(strategyName);
+    	if (attribution != null) {
+    		attribution.printReport(getOutput(), strategyName);
+    	}
+    }
+
+    /**
+     * Runs the full Round Robin simulation
+     * 
+     * Preconditions:
+     *  - processes has been parsed and initialised correctly.
+     *  - algorithmTime starts at 0, or the simulation has been restored from a checkpoint (it continues from the saved time).
+     * 
+     * Postconditions:
+     *  - All processes have either finished execution or been blocked/handled.
+     *  - Page faults are recorded in each process.
+     *  - Finish times are set for all completed processes.
+     *  - Results are printed to console at the end of execution.
+     *  
+     *  @param processes - a list of Process objects participating in the simulation
+     */
+    public void runSimulation(List<Process> processes) {
+    	if (!warmStarted) { //Not on a simulation restored from a checkpoint
+    		warmStarted = true;
+    		warmStart();
+    	}
+    	if (NUMBER_CPUS > 0) { //--cpus was used - run on several processors (see runMultiProcessor())
+    		runMultiProcessor();
+    		return;
+    	}
+
+		//Run simulation until both queues are empty (and, online, the trace stream has ended)
+		while (!readyQueue.isEmpty() || !blockedQueue.isEmpty() || hasSuspendedProcesses() || (traceStream != null && !traceStream.isClosed())) {
+
+			if (checkpoint != null) { //Save the simulation between dispatches, when no process is part way through its time quantum
+				checkpoint.saveIfDue(algorithmTime);
+			}
+			if (whatIf != null) { //Fork the what-if branches at the same points a checkpoint could be taken
+				whatIf.forkIfDue(this, algorithmTime);
+			}
+
+			checkPendingPages();	//Load any pages from pendingLoads queue to main memory that are ready now
+			unblockProcesses();		//Add any processes to the ready queue (from the blocked list) that have unblocked before or at the current algorithm time
+			readTraceStream(null);	//Online only - admit new processes and buffer pages for ready processes that have run out
+			if (loadControl != null) {
+				loadControl.update(this, algorithmTime); //Suspend or resume a process if the multiprogramming level needs to change
+			}
+
+			Process currentProcess = pollRunnable(); //Retrieve the head of the queue to run (the process the short-term scheduling discipline picks)
+
+			//"CPU idle" i.e. No process available at this time (But there is one on the blocked queue) - Skip to next iteration
+			if(currentProcess == null) { 
+				algorithmTime++; //Increase the simulation time
+				continue; 
+			}
+			readyQueue.dispatched(currentProcess, algorithmTime);
+			recordEvent(EventTrace.DISPATCH, currentProcess);
+			if (attribution != null) {
+				attribution.dispatched(currentProcess, algorithmTime);
+			}
+
+			//Online only - the stream ended the process while it was waiting in the ready queue for more pages
+			if (currentProcess.isProcessFinished()) {
+				finishProcess(currentProcess);
+				continue;
+			}
+			int allocatedTime = readyQueue.quantumFor(currentProcess); //Each process is allocated a set amount of time to run per cycle (Q for Round Robin)
+
+			//Run this process until it's used its whole time quantum or becomes blocked
+			while (allocatedTime > 0 && !currentProcess.isProcessFinished()) { 
+				if (currentProcess.isWaitingForPages() && !receivePages(currentProcess)) { //Online only - the process has executed all of its buffered pages
+					break; //Finished, or nothing more on the stream for it yet - give up the rest of its time quantum
+				}
+
+				if (executeInstruction(currentProcess)) { //Page hit - the instruction has been "run"
+					algorithmTime++; //Add +1 to the simulation time
+					allocatedTime--; 
+
+					checkPendingPages(); //Load any pages that are ready at the current time
+					unblockProcesses();	 //Check for any unblocked processes before placing this process at the back of the queue (As required in spec - "the unblocked process...is added in the ready queue first and the time-quantum expired process...is added after that")
+
+					//Check finished + set finish time and clear memory frames
+					if (currentProcess.isProcessFinished()) {
+						finishProcess(currentProcess);
+					}
+				} else {
+					break; //Page fault - stop using its time quantum
+				}
+			}
+
+			//Check if process needs to be added back to the ready queue (i.e. not blocked and has pages left to execute)
+			if (!currentProcess.isProcessFinished() && !currentProcess.getIsBocked()) {
+				if (allocatedTime == 0) {
+					readyQueue.quantumExpired(currentProcess); //Used its whole time quantum
+				}
+				readyQueue.add(currentProcess);
+			}
+		}
+	}
+    
+    /**
+     * Runs the simulation on NUMBER_CPUS processors that share main memory (--cpus=N).
+     *
+     * The simulation advances one time unit at a time. In each time unit:
+     * 		1. Pages that have arrived are loaded and unblocked processes join the ready queue (as in the single processor loop)
+     * 		2. Each processor, in processor order, executes one instruction of its process. A free processor first takes the next process
+     * 		   from the ready queue. A process that faults releases its processor straight away, so the processor takes the next ready
+     * 		   process in the same time unit (issuing a fault takes no time)
+     * 		3. Time advances, pages that have arrived are loaded and unblocked processes join the ready queue
+     * 		4. Finished processes release their frames, processes that used their whole quantum go to the back of the ready queue (in processor order)
+     * Arbitration is deterministic: processors always act in processor order, so when two processors fault on the same shared page in one time unit
+     * the lower numbered processor issues the load and the other waits for it, and page loads (and the replacements they cause) happen in
+     * the order the faults were issued. With one processor the results are the same as the single processor loop.
+     *
+     * Preconditions: NUMBER_CPUS > 0
+     * Postconditions: All processes have finished, per-processor busy time and contention statistics have been recorded
+     */
+    protected void runMultiProcessor() {
+    	while (!readyQueue.isEmpty() || !blockedQueue.isEmpty() || isAnyCpuBusy() || hasSuspendedProcesses() || (traceStream != null && !traceStream.isClosed())) {
+
+    		if (checkpoint != null) { //Save the simulation between time units (the processes on each processor are part of the saved state)
+    			checkpoint.saveIfDue(algorithmTime);
+    		}
+    		if (whatIf != null) {
+    			whatIf.forkIfDue(this, algorithmTime);
+    		}
+
+    		checkPendingPages();
+    		unblockProcesses();
+    		readTraceStream(null);
+    		if (loadControl != null) {
+    			loadControl.update(this, algorithmTime);
+    		}
+
+    		//Each processor executes one instruction
+    		int faults = 0;
+    		for (int cpu = 0; cpu < NUMBER_CPUS; cpu++) {
+    			faults += executeTimeUnit(cpu);
+    		}
+    		if (faults > 1) {
+    			concurrentFaults += faults;
+    		}
+    		peakOutstandingLoads = Math.max(peakOutstandingLoads, pendingQueue.size());
+
+    		algorithmTime++;
+    		checkPendingPages();
+    		unblockProcesses();
+
+    		//Release finished processes and preempt processes that have used their whole quantum
+    		for (int cpu = 0; cpu < NUMBER_CPUS; cpu++) {
+    			Process p = cpuProcess[cpu];
+    			if (p == null) {
+    				continue;
+    			}
+    			if (p.isProcessFinished()) {
+    				finishProcess(p);
+    				cpuProcess[cpu] = null;
+    			} else if (cpuQuantumLeft[cpu] == 0) {
+    				readyQueue.quantumExpired(p);
+    				readyQueue.add(p);
+    				cpuProcess[cpu] = null;
+    			}
+    		}
+    	}
+    }
+
+    /**
+     * Runs one time unit on a processor (see runMultiProcessor()).
+     *
+     * @param cpu - processor number
+     * @return number of page faults issued by the processor in this time unit
+     */
+    private int executeTimeUnit(int cpu) {
+    	int faults = 0;
+    	while (true) {
+    		Process p = cpuProcess[cpu];
+    		if (p == null) { //Free processor - dispatch the next ready process
+    			p = pollRunnable();
+    			if (p == null) {
+    				return faults; //Processor idle for this time unit
+    			}
+    			readyQueue.dispatched(p, algorithmTime);
+    			if (p.isProcessFinished()) { //Online only - the stream ended the process while it was waiting in the ready queue
+    				finishProcess(p);
+    				continue;
+    			}
+    			cpuProcess[cpu] = p;
+    			cpuQuantumLeft[cpu] = readyQueue.quantumFor(p);
+    			recordEvent(EventTrace.DISPATCH, p);
+    			if (attribution != null) {
+    				attribution.dispatched(p, algorithmTime);
+    			}
+    		}
+
+    		if (p.isWaitingForPages() && !receivePages(p)) { //Online only - give up the processor until more pages arrive
+    			cpuProcess[cpu] = null;
+    			if (!p.isProcessFinished()) {
+    				readyQueue.add(p);
+    			}
+    			continue;
+    		}
+
+    		if (executeInstruction(p)) {
+    			cpuBusyTime[cpu]++;
+    			cpuQuantumLeft[cpu]--;
+    			return faults;
+    		}
+    		faults++; //The process is blocked, the processor is free again at the same time
+    		cpuProcess[cpu] = null;
+    	}
+    }
+
+    /**
+     * Checks whether any processor is running a process (multi-processor mode).
+     */
+    private boolean isAnyCpuBusy() {
+    	for (Process p : cpuProcess) {
+    		if (p != null) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    /**
+     * Checks whether a process is running on a processor in multi-processor mode.
+     *
+     * @param p - a process
+     * @return true if p is on a processor
+     */
+    protected boolean isRunningOnCpu(Process p) {
+    	if (cpuProcess == null) {
+    		return false;
+    	}
+    	for (Process running : cpuProcess) {
+    		if (running == p) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    /**
+     * Executes the next instruction of a process, or issues a page fault if its page isn't in main memory.
+     * Executing takes one time unit but the simulation time is advanced by the caller. Issuing a page fault takes no time.
+     *
+     * Preconditions: p has an instruction available to execute
+     * Postconditions: On a hit the process has moved on to its next page, on a fault the process is blocked until its page arrives
+     *
+     * @param p - the running process
+     * @return true if the instruction was executed, false if the process had a page fault and is now blocked
+     */
+    protected boolean executeInstruction(Process p) {
+    	int requestedPage = p.getNextPage();
+
+    	//Writing to a page that other processes still map - the process is blocked while its private copy is made
+    	if (p.isNextWrite() && p.getSharedSegment(requestedPage) != null && copyOnWrite(p, requestedPage)) {
+    		p.addFaultTime(algorithmTime);
+    		copyOnWriteFaults++;
+    		blockProcess(p, algorithmTime + startLoad(p, requestedPage, COPY_ON_WRITE_TIME));	//The copy fills a frame like a loaded page
+    		return false;
+    	}
+
+    	if (isPageResident(p, requestedPage)) { //Check if page is in this process' allocated memory (TLB first, if there is one)
+    		if (profiler != null) {
+    			profiler.recordReference(p, requestedPage, algorithmTime);
+    		}
+    		p.incrementPosIndex(); //Increment the page index (We've executed this page)
+    		if (loadControl != null) {
+    			loadControl.recordInstruction();
+    		}
+    		return true;
+    	}
+
+    	//Page fault
+    	p.addFaultTime(algorithmTime); 			//A fault has occurred, add current time to the process' fault list
+
+    	Frame inFlight = findPendingFrame(p, requestedPage);
+    	if (inFlight != null) { //Shared page is already being loaded for another process - wait for the same load instead of loading it twice
+    		inFlight.mapProcess(p);
+    		sharedLoadWaits++;
+    		blockProcess(p, inFlight.getFrameLoadTime());
+    		return false;
+    	}
+
+    	int serviceTime = startLoad(p, requestedPage, hierarchy.faultServiceTime(p, requestedPage)); //4 time units from disk, less if the page is in the compressed tier
+
+    	//Process blocked for 4 time units
+    	blockProcess(p, algorithmTime + serviceTime);
+    	return false;
+    }
+
+    /**
+     * Starts loading a page (or a private copy of a shared page) into the pending queue. With NUMA the node whose frame will be filled is
+     * chosen now, so its latency can be charged, and the pending frame carries the node to the replacement policy.
+     *
+     * @param p - the faulting process
+     * @param page - the page to load
+     * @param serviceTime - time units needed to bring the page in, before any NUMA latency
+     * @return time units until the page arrives in main memory
+     */
+    private int startLoad(Process p, int page, int serviceTime) {
+    	int node = numa == null ? 0 : placementNode(p, page);
+    	if (numa != null) {
+    		serviceTime += numa.faultLatency(node);	//Extra time to fill a frame on that node
+    	}
+    	Frame pending = loadIntoPendingQueue(p, page, serviceTime);	//Load page into pending queue - it will wait here for 4 time units before being placed into main memory
+    	pending.setNode(node);
+    	return serviceTime;
+    }
+
+    /**
+     * Online only - reads the trace stream for a running process that has executed all of its buffered pages.
+     * A process the stream has ended is finished.
+     *
+     * @param p - the running process
+     * @return true if the process now has a page to execute, false if it has finished or is still waiting for pages
+     */
+    private boolean receivePages(Process p) {
+    	readTraceStream(p);
+    	if (p.isProcessFinished()) { //The stream ended the process after its last buffered page
+    		finishProcess(p);
+    		return false;
+    	}
+    	return !p.isWaitingForPages();
+    }
+
+    /**
+     * Records a process that has executed all of its pages.
+     *
+     * Preconditions: p.isProcessFinished()
+     * Postconditions: The finish time is set and the process' frames and memory hierarchy entries have been released
+     *
+     * @param p - the finished process
+     */
+    protected void finishProcess(Process p) {
+    	p.setFinishTime(algorithmTime);
+    	recordEvent(EventTrace.FINISH, p);
+    	if (attribution != null) {
+    		attribution.finished(p, algorithmTime);
+    	}
+    	if (finalResidentSets != null) {
+    		finalResidentSets.put(p.getName(), getResidentPages(p));
+    	}
+    	clearProcessFrames(p); //Process has finished, clear the process' main memory segment (As required in spec, "after a process finishes...the allocated frames to that process becomes free"
+    	hierarchy.releaseProcess(p);
+    	readyQueue.processFinished(p);
+    	if (loadControl != null) {
+    		loadControl.processFinished(p);
+    	}
+    	if (traceStream != null) {
+    		traceStream.processFinished(p); //Online results are printed as each process finishes
+    	}
+    }
+
+    /**
+     * Removes the process to run next from the ready queue.
+     * Processes waiting for pages to arrive on a trace stream are skipped and keep their place in the queue, otherwise this is the head of the queue.
+     *
+     * @return the process to run, or null if no ready process can run
+     */
+    protected Process pollRunnable() {
+    	Iterator<Process> ready = readyQueue.iterator();
+    	while (ready.hasNext()) {
+    		Process p = ready.next();
+    		if (!p.isWaitingForPages()) {
+    			ready.remove();
+    			return p;
+    		}
+    	}
+    	return null;
+    }
+
+    /**
+     * Reads the trace stream while a process needs pages from it: a ready (or the running) process has run out of buffered pages,
+     * or no process is ready to run. Reading stops early when the next record is for a process whose buffer is full.
+     * Does nothing when the simulation isn't fed from a trace stream.
+     *
+     * Postconditions: Processes that arrived have been admitted, waiting processes have their pages if the stream has them
+     *
+     * @param runningProcess - process currently using the CPU, or null between dispatches
+     */
+    protected void readTraceStream(Process runningProcess) {
+    	if (traceStream == null) {
+    		return;
+    	}
+    	traceStream.reportIfDue(algorithmTime);
+
+    	while (needsPages(runningProcess) && traceStream.readRecord(this)) {
+    		//Keep reading until every process that needs pages has them
+    	}
+    }
+
+    /**
+     * Checks whether the simulation is waiting on the trace stream, see readTraceStream().
+     */
+    private boolean needsPages(Process runningProcess) {
+    	if (runningProcess != null) {
+    		return runningProcess.isWaitingForPages();
+    	}
+    	if (readyQueue.isEmpty()) {
+    		return true; //The CPU would be idle, a new process may be able to use it
+    	}
+    	for (Process p : readyQueue) {
+    		if (p.isWaitingForPages()) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    /**
+     * Admits a process that has arrived on the trace stream. It arrives at the current time and joins the back of the ready queue.
+     *
+     * Preconditions: p != null and hasn't been admitted before
+     * Postconditions: p is in the ready queue
+     *
+     * @param p - the arriving process
+     */
+    protected void admitProcess(Process p) {
+    	p.setArrivalTime(algorithmTime);
+    	readyQueue.add(p);
+    	if (loadControl != null) {
+    		loadControl.processAdmitted(p);
+    	}
+    }
+
+    /**
+     * Checks whether the medium-term scheduler has suspended any process (see LoadController).
+     */
+    private boolean hasSuspendedProcesses() {
+    	return loadControl != null && loadControl.hasSuspended();
+    }
+
+    /**
+     * Suspends a ready process for the medium-term scheduler (see LoadController).
+     * The process leaves the ready queue and all of its frames and memory hierarchy entries are released, as if it had been swapped out.
+     *
+     * Postconditions: If p was ready it is no longer in the ready queue and holds no frames
+     *
+     * @param p - process to suspend
+     * @return true if the process was suspended, false if it isn't waiting in the ready queue (running or blocked)
+     */
+    protected boolean swapOut(Process p) {
+    	if (!readyQueue.remove(p)) {
+    		return false;
+    	}
+    	clearProcessFrames(p);
+    	hierarchy.releaseProcess(p);
+    	if (attribution != null) {
+    		attribution.suspended(p, algorithmTime);
+    	}
+    	return true;
+    }
+
+    /**
+     * Resumes a process suspended by swapOut(). It joins the back of the ready queue and faults its pages back in as it runs.
+     *
+     * Preconditions: p was suspended by swapOut()
+     * Postconditions: p is in the ready queue
+     *
+     * @param p - process to resume
+     */
+    protected void swapIn(Process p) {
+    	readyQueue.add(p);
+    	if (attribution != null) {
+    		attribution.resumed(p, algorithmTime);
+    	}
+    }
+
+	/**
+	 * Finds the frame in main memory holding a given page for a process.
+	 *
+	 * Preconditions: - p != null
+	 * 				  - page >= 0
+	 * 				  - Process p has a valid offset and frame segment assigned.
+	 *
+	 * Postconditions: The frame with a matching process id and page value (or matching shared segment page) has been returned
+	 *
+	 * @param p - process requesting the page
+	 * @param page - the page value being checked
+	 * @return the frame holding the page, or null if the page isn't in memory
+	 */
+    protected abstract Frame findFrame(Process p, int page);
+
+	/**
+	 * Determines whether a given page for a process is currently loaded in main memory.
+	 *
+	 * Preconditions: - p != null
+	 * 				  - page >= 0
+	 *
+	 * @param p - process requesting the page
+	 * @param page - the page value being checked
+	 * @return true if the page is in memory, otherwise false
+	 */
+    protected boolean isPageInMemory(Process p, int page) {
+    	return findFrame(p, page) != null;
+    }
+
+    /**
+     * Determines whether a page is resident, checking the process' TLB before searching main memory.
+     * Without a TLB this is the same as isPageInMemory().
+     * The first time a process finds a shared page that another process has loaded, the process is added to the frame's reference count.
+     *
+     * Preconditions: - p != null
+     * 				  - page >= 0
+     *
+     * Postconditions: The TLB/main memory hit or miss has been recorded in the memory hierarchy
+     *
+     * @param p - process requesting the page
+     * @param page - the page value being checked
+     * @return true if the page is in memory, otherwise false
+     */
+    protected boolean isPageResident(Process p, int page) {
+    	if (hierarchy.lookupTranslation(p, page)) {
+    		if (numa != null || tracksReferencedFrames()) { //The translation is cached but the page itself is still read from its frame
+    			Frame frame = findFrame(p, page);
+    			if (frame != null) {
+    				frame.markReferenced();
+    			}
+    			if (numa != null) {
+    				recordNodeAccess(p, frame);
+    			}
+    		}
+    		return true; //TLB hit - no need to search main memory
+    	}
+
+    	Frame frame = findFrame(p, page);
+    	if (frame != null) {
+    		frame.markReferenced();
+    	}
+    	if (frame != null && frame.isShared() && !frame.isMappedBy(p)) { //Shared page already loaded by another process, no fault needed
+    		frame.mapProcess(p);
+    		sharedHits++;
+    		framesSaved++;
+    		peakFramesSaved = Math.max(peakFramesSaved, framesSaved);
+    	}
+
+    	hierarchy.recordPageTableWalk(p, page, frame != null);
+    	if (numa != null && frame != null) {
+    		recordNodeAccess(p, frame);
+    	}
+    	return frame != null;
+    }
+
+    /**
+     * Chooses the NUMA node a faulted page will be placed on, so the fault can be charged that node's latency (--numa-fault-latency).
+     * Replacement policies that decide placement override this, by default the page goes to its target node.
+     *
+     * Preconditions: numa != null
+     *
+     * @param p - the faulting process
+     * @param page - the faulted page
+     * @return node whose frame the page will fill
+     */
+    protected int placementNode(Process p, int page) {
+    	return numa.targetNode(p, page);
+    }
+
+    /**
+     * Checks whether the replacement policy can move pages between nodes (--numa-migrate), for the NUMA report.
+     *
+     * @return true if migratePage() moves pages
+     */
+    protected boolean canMigratePages() {
+    	return false;
+    }
+
+    /**
+     * Checks whether the replacement policy uses the referenced flag of its frames, so a TLB hit still has to find the frame to mark it.
+     * Policies that use it (e.g. huge page demotion) override this.
+     *
+     * @return true if frames must be marked on every access
+     */
+    protected boolean tracksReferencedFrames() {
+    	return false;
+    }
+
+    /**
+     * Records a local or remote access for the NUMA report, moving the page to the process' home node once it has been accessed remotely
+     * often enough (see NumaTopology).
+     *
+     * @param p - the accessing process
+     * @param frame - the frame holding the page, null if it can't be found
+     */
+    private void recordNodeAccess(Process p, Frame frame) {
+    	if (frame != null && numa.recordAccess(p, frame)) {
+    		migratePage(p, frame);
+    	}
+    }
+
+    /**
+     * Moves a page to its process' home NUMA node (--numa-migrate). Replacement policies that can move pages between frames override this,
+     * by default pages stay where they were loaded.
+     *
+     * Preconditions: frame holds a private page of p on another node
+     *
+     * @param p - the process owning the page
+     * @param frame - the frame holding the page
+     */
+    protected void migratePage(Process p, Frame frame) {
+    }
+
+    /**
+     * Handles a write to a shared page (copy-on-write).
+     * The process stops mapping the shared page and gets its own private copy of it:
+     * 		- Not in memory: the private copy is read in by the normal page fault
+     * 		- In memory and only used by this process: the frame is turned into the private copy, no fault is needed
+     * 		- In memory and used by other processes: a copy-on-write fault occurs and the process is blocked while the page is copied
+     *
+     * Preconditions: p.getSharedSegment(page) != null
+     * Postconditions: p.getSharedSegment(page) == null
+     *
+     * @param p - process writing to the page
+     * @param page - the page value being written
+     * @return true if the process must be blocked for a copy-on-write fault, false otherwise
+     */
+    protected boolean copyOnWrite(Process p, int page) {
+    	Frame frame = findFrame(p, page);
+    	boolean mapped = frame != null && frame.isMappedBy(p);
+    	boolean onlyUser = frame != null && frame.getReferenceCount() == (mapped ? 1 : 0);
+
+    	if (frame != null && onlyUser && canReuseFrame(p, frame)) {
+    		frame.makePrivate(p, page);			//No other process uses the page, keep it where it is
+    		p.makePrivateCopy(page);
+    		return false;
+    	}
+
+    	if (mapped) {
+    		frame.unmapProcess(p);
+    		framesSaved--;
+    	}
+    	p.makePrivateCopy(page);
+    	return frame != null; //If the page wasn't in memory the normal page fault will load the private copy
+    }
+
+    /**
+     * Checks whether a frame holding a shared page may become a private page of a process (see copyOnWrite()).
+     * Replacement policies that limit where a process' pages are stored override this.
+     *
+     * @param p - process writing to the page
+     * @param frame - frame holding the shared page
+     * @return true if the frame may hold a private page of p
+     */
+    protected boolean canReuseFrame(Process p, Frame frame) {
+    	return true;
+    }
+
+    /**
+     * Blocks a process that has had a page fault until its page arrives in main memory.
+     *
+     * Preconditions: p is not already blocked
+     * Postconditions: p is at the back of the blocked queue
+     *
+     * @param p - the faulting process
+     * @param unblockTime - time the requested page arrives in main memory
+     */
+    protected void blockProcess(Process p, int unblockTime) {
+    	if (loadControl != null) {
+    		loadControl.recordFault();
+    	}
+    	if (eventTrace != null) {
+    		eventTrace.record(algorithmTime, EventTrace.FAULT, p.getName(), p.getNextPage());
+    	}
+    	if (profiler != null) {
+    		profiler.recordFault(p, p.getNextPage());
+    	}
+    	if (attribution != null) {
+    		attribution.faulted(p, p.getNextPage(), algorithmTime);
+    	}
+    	p.setBlockedTime(unblockTime);
+    	blockedQueue.add(p);
+    	p.setIsBlocked(true);
+    }
+
+    /**
+     * Finds a page that is already waiting in the pending queue for another process (only possible for shared pages).
+     *
+     * @param p - process requesting the page
+     * @param page - the page value requested
+     * @return the pending frame holding the page, or null if the page isn't being loaded
+     */
+    protected Frame findPendingFrame(Process p, int page) {
+    	if (p.getSharedSegment(page) == null) {
+    		return null; //Private pages are only ever requested by their own process
+    	}
+    	for (Frame pending : pendingQueue) {
+    		if (pending.checkPageInMemory(p, page)) {
+    			return pending;
+    		}
+    	}
+    	return null;
+    }
+    
+	/**
+	 * Loads a process and page data into a frame in main memory.
+	 * Locates an empty frame or performs FIFO replacement with an older frame.
+	 *
+	 *	Preconditions: - p != null
+	 *				   - page >= 0
+	 *
+	 * Postconditions: The requested page is loaded into main memory.
+	 * 				   If no free frame was available, the oldest frame has been replaced.
+	 * 
+	 * @param p - the process who owns the data to be loaded into main memory
+	 * @param page - the page value that needs to be stored
+	 */
+	protected abstract void loadIntoMainMemory(Frame frameData);
+	
+	/**
+	 * Clears all frames belonging to a finished process and marks them as free.
+	 *
+	 * Preconditions: - p != null
+	 * 				  - Process p has a valid offset and frame segment assigned.
+	 * 
+	 * Postconditions: All frames within the process’s allocated segment are marked empty.
+	 *
+	 * @param p - the process whose frames are to be cleared
+	 */
+    protected abstract void clearProcessFrames(Process p);
+
+    /**
+     * Lists the pages of a process that are in main memory, in the order the replacement policy would replace them (oldest first).
+     * Shared pages are listed for the process whose fault loaded them.
+     *
+     * @param p - the process
+     * @return pages of p in main memory
+     */
+    protected abstract List<Integer> getResidentPages(Process p);
+
+    /**
+     * Retrieves the name of the page replacement strategy, as printed in the results (e.g. "Fixed-Local Replacement").
+     *
+     * @return strategy name
+     */
+    public abstract String getStrategyName();
+
+    /**
+     * Gives a process more frames part way through a simulation, used by what-if branches (see WhatIfFork).
+     * Replacement policies that can add frames override this.
+     *
+     * Preconditions: count >= 0, p is one of this simulation's processes
+     * Postconditions: count more frames can hold p's pages
+     *
+     * @param p - the process
+     * @param count - number of frames to add
+     *
+     * @throws IllegalArgumentException if the replacement policy can't add frames
+     */
+    protected void grantFrames(Process p, int count) {
+    	throw new IllegalArgumentException(getStrategyName() + " with these options can't add frames to a running simulation");
+    }
+
+    /**
+     * Retrieves the largest number of pages of one process that can be in main memory at the same time, used to limit a warm start.
+     * Replacement policies that give each process a fixed number of frames override this.
+     *
+     * @param p - the process
+     * @return number of frames p can use
+     */
+    protected int getFrameLimit(Process p) {
+    	return NUMBER_FRAMES;
+    }
+
+    /**
+     * Preloads the pages selected by --warm-start (see WarmStart) before the first time unit. The processes take turns, one page at a time,
+     * so every process gets a share of memory when the pages don't all fit. Preloaded pages arrive at time 0 and aren't counted as faults.
+     *
+     * Preconditions: The simulation hasn't started
+     * Postconditions: Each process has as many of its pages in memory as fit, in the order they were listed (oldest first)
+     *
+     * @throws IllegalArgumentException if the warm start snapshot can't be read
+     */
+    private void warmStart() {
+    	if (!options.has("warm-start")) {
+    		return;
+    	}
+    	Map<String, List<Integer>> plan;
+    	try {
+    		plan = WarmStart.plan(options.getString("warm-start", null), getStrategyName(), processes);
+    	} catch (IOException e) {
+    		throw new IllegalArgumentException("Unable to read warm start snapshot - " + e.getMessage());
+    	}
+
+    	int[] next = new int[processes.size()];		//Next listed page of each process
+    	int[] loaded = new int[processes.size()];	//Pages preloaded for each process
+    	boolean progress = true;
+    	while (progress && warmStartPages < NUMBER_FRAMES) {
+    		progress = false;
+    		for (int i = 0; i < processes.size() && warmStartPages < NUMBER_FRAMES; i++) {
+    			Process p = processes.get(i);
+    			List<Integer> pages = plan.get(p.getName());
+    			while (pages != null && next[i] < pages.size() && loaded[i] < getFrameLimit(p)) {
+    				int page = pages.get(next[i]++);
+    				if (!isPageInMemory(p, page)) { //Skip repeated pages and shared pages another process has loaded
+    					Frame frame = new Frame();
+    					frame.addPageToFrame(p, page, 0);
+    					if (numa != null) {
+    						frame.setNode(placementNode(p, page));
+    					}
+    					loadIntoMainMemory(frame);
+    					if (attribution != null) {
+    						attribution.loaded(frame);
+    					}
+    					loaded[i]++;
+    					warmStartPages++;
+    					progress = true;
+    					break;
+    				}
+    			}
+    		}
+    	}
+    }
+
+    /**
+     * Prints how many pages the warm start preloaded and saves the final resident sets (--save-memory), when those options are used.
+     *
+     * @param strategyName - the name of the page replacement strategy used
+     */
+    private void printWarmStartReport(String strategyName) {
+    	if (options.has("warm-start")) {
+    		getOutput().println("Warm start: " + warmStartPages + " pages preloaded from " + options.getString("warm-start", null));
+    	}
+    	if (finalResidentSets != null) {
+    		try {
+    			File file = new File(options.getString("save-memory", null));
+    			WarmStart.save(new File(file.getParentFile(), outputPrefix + file.getName()).getPath(), strategyName, finalResidentSets);
+    		} catch (IOException e) {
+    			getOutput().println("Error: Unable to save memory snapshot - " + e.getMessage());
+    		}
+    	}
+    }
+
+    /**
+     * Called by the replacement policies just before an occupied frame is overwritten with a new page.
+     * Passes the replaced page down the memory hierarchy (TLB entry removed, page compressed if there is a compressed tier).
+     *
+     * Preconditions: victim != null and is not free
+     * Postconditions: The memory hierarchy has been updated for the replaced page
+     *
+     * @param victim - the frame about to be replaced
+     */
+    protected void evictFrame(Frame victim) {
+    	if (isRunningOnCpu(victim.getOwnerProcess())) {
+    		runningEvictions++; //Another processor's fault has taken a page from a running process
+    	}
+    	if (victim.isShared()) {
+    		framesSaved -= victim.getReferenceCount() - 1; //Every process mapping the page loses it
+    	}
+    	recordEvent(EventTrace.EVICT, victim);
+    	if (numa != null) {
+    		numa.evicted(victim);
+    	}
+    	if (attribution != null) {
+    		attribution.evicted(victim);
+    	}
+    	hierarchy.onEvict(victim);
+    }
+
+    /**
+     * Releases a frame from a finished process, used by the replacement policies when clearing a process' frames.
+     * Private pages of the process are cleared, shared pages are only cleared once no other process maps them.
+     *
+     * Preconditions: frame != null, p != null
+     * Postconditions: The frame no longer holds anything for p
+     *
+     * @param frame - frame to release
+     * @param p - the finished process
+     */
+    protected void releaseFrame(Frame frame, Process p) {
+    	if (frame.isShared() && frame.isMappedBy(p) && frame.getReferenceCount() > 1) {
+    		framesSaved--;
+    	}
+    	frame.releaseProcess(p);
+    }
+
+
+    /**
+     * Adds any frames whose wait time has been reached or elapsed to main memory queue.
+     * 
+     * This method will check the wait time of each frame in the pending queue (in the order they were requested) to see if it has expired and if so is added to main memory.
+     * Frames that aren't ready yet stay in the queue. Pages can have different wait times (e.g. a page in the compressed tier arrives sooner than one from disk)
+     * so a frame that isn't ready doesn't stop later frames from loading.
+     *
+     * Preconditions:
+     *   - pendingLoads contains Frame objects in the order they were requested.
+     *   - Each Frame has a valid load time set (the time the page arrives in main memory).
+     *
+     * Postconditions:
+     *   - All Frames in pendingLoads whose load time has been reached (load time ≤ algorithmTime) will be removed from pendingLoads and loaded into main memory.
+     */
+	protected void checkPendingPages() {
+    	
+    	//Loop through the queue and check each frame for its arrival time
+		Iterator<Frame> pending = pendingQueue.iterator();
+    	while (pending.hasNext()) {
+            Frame pendingFrame = pending.next();
+
+            if (pendingFrame.getFrameLoadTime() <= algorithmTime) {		//Check if the frame's wait time has expired
+            	pending.remove(); 										//Remove frame from pendingLoads queue
+            	if (attribution != null) {
+            		attribution.loading(pendingFrame.getOwnerProcess());	//Pages replaced by this load are charged to its process
+            	}
+                loadIntoMainMemory(pendingFrame); 						//Load into main memory - either in an empty frame or replace the oldest frame in memory
+                if (attribution != null) {
+                	attribution.loaded(pendingFrame);
+                }
+                recordEvent(EventTrace.LOAD, pendingFrame);
+
+                if (pendingFrame.isShared()) { //Processes that waited for the same shared page all map the one frame
+                	framesSaved += pendingFrame.getReferenceCount() - 1;
+                	peakFramesSaved = Math.max(peakFramesSaved, framesSaved);
+                }
+            }
+
+            //Loops here in case there are more frames that have reached their wait time
+        }
+    }
+    
+    
+    /**
+     * Loads a blocked process' page into the pending queue. The page will wait in this queue for 4 time units before being placed in the main memory queue
+     * 
+     * Preconditions:
+     *  - Process p has requested a page not currently in globalMainMemory.
+     *  - algorithmTime reflects the time of the page fault.
+     * 
+     * Postconditions:
+     *  - A new Frame object with the page is added to pendingLoads.
+     *  - The page will be ready for processing by the CPU after serviceTime (4) time units.
+     *
+     * @param p - the process that caused the page fault
+     * @param page - the page value requested
+     * @param serviceTime - number of time units until the page arrives in main memory
+     * @return the pending frame that was added to the queue
+     */
+	protected Frame loadIntoPendingQueue(Process p, int page, int serviceTime) {
+        
+    	//Create a pending frame load request, will be loaded after 4 time units (the frame's load time is the time it arrives in main memory)
+        Frame pending = new Frame();
+        pending.addPageToFrame(p, page, algorithmTime + serviceTime);
+        pendingQueue.add(pending);
+        return pending;
+    }
+	
+    /**
+    * Moves processes from the blocked queue back to the ready queue if their blocked time has expired.
+    * Processes will block (be placed in blocked queue) if the page they have requested is not in main memory.
+    * They must wait 4 time units in the blocked queue for the page to load into memory. 
+    * They are then placed back into the ready queue.
+    * 
+    * Preconditions: blockedQueue is not null.
+    * 
+    * Postconditions:
+    *  - All processes with blockedTime <= algorithmTime are moved to readyQueue.
+    *  - Their isBlocked status is set to false.
+    */
+	protected void unblockProcesses() {
+		//Check all processes in the blocked queue, if their blockedUntil time has been reached/elapsed they can go back on the ready queue
+		//The whole queue is checked since processes can be blocked for different lengths of time, processes still unblock in the order they became blocked
+		Iterator<Process> blocked = blockedQueue.iterator();
+        while (blocked.hasNext()) {
+        	Process p = blocked.next();
+        	if (p.getBlockedTime() <= algorithmTime) {
+        		blocked.remove();						//Remove process from the blocked queue
+        		p.setIsBlocked(false);					//Reset blocked status
+        		readyQueue.add(p); 						//Add the process back to the ready queue
+        		if (attribution != null) {
+        			attribution.unblocked(p, algorithmTime);
+        		}
+        	}
+        }
+	}
+
+    
+    /**
+     * Adds up the page faults of all simulated processes.
+     * 
+     * @param inputProcesses - the list of processes that were simulated
+     * @return total number of page faults
+     */
+    public int getTotalFaults(List<Process> inputProcesses) {
+    	int total = 0;
+    	for (Process p : inputProcesses) {
+    		total += p.getFaultCount();
+    	}
+    	return total;
+    }
+
+    /**
+     * Retrieves the processes in this simulation.
+     * 
+     * @return all processes, in input order
+     */
+    public List<Process> getProcesses() {
+    	return processes;
+    }
+
+    /**
+     * Retrieves the number of frames (F) in main memory.
+     * 
+     * @return number of frames
+     */
+    public int getNumberFrames() {
+    	return NUMBER_FRAMES;
+    }
+
+    /**
+     * Retrieves the time quantum (Q).
+     * 
+     * @return time quantum
+     */
+    public int getTimeQuantum() {
+    	return TIME_QAUNTUM;
+    }
+
+    /**
+     * Sends the results of this simulation to another stream and writes its result files under prefixed names,
+     * so that simulations running at the same time (see BatchRunner) keep their output apart.
+     *
+     * Postconditions: The results are printed to output and the --profile and --save-memory files start with prefix
+     *
+     * @param output - stream the results are printed to
+     * @param prefix - prepended to the result file names ("" for none)
+     */
+    public void setOutput(PrintStream output, String prefix) {
+    	this.output = output;
+    	this.outputPrefix = prefix;
+    }
+
+    /**
+     * Retrieves the stream the results are printed to.
+     *
+     * @return the stream given to setOutput, or System.out when none was given
+     */
+    protected PrintStream getOutput() {
+    	return output == null ? System.out : output;
+    }
+
+    /**
+     * Retrieves the optional simulation settings.
+     * 
+     * @return simulation options
+     */
+    public SimulationOptions getOptions() {
+    	return options;
+    }
+
+    /**
+     * Adds up the turnaround times of all simulated processes.
+     * 
+     * @param inputProcesses - the list of processes that were simulated
+     * @return total turnaround time
+     */
+    public int getTotalTurnaround(List<Process> inputProcesses) {
+    	int total = 0;
+    	for (Process p : inputProcesses) {
+    		total += p.calcTurnaroundTime();
+    	}
+    	return total;
+    }
+
+    /**
+     * Retrieves the name of the short-term scheduling discipline.
+     * 
+     * @return discipline name (e.g. "RR")
+     */
+    public String getCpuSchedulerName() {
+    	return readyQueue.getName();
+    }
+
+    /**
+     * Retrieves the number of accesses that found a shared page already loaded by another process.
+     * 
+     * @return number of page faults avoided by sharing
+     */
+    public int getSharedHits() {
+    	return sharedHits;
+    }
+
+    /**
+     * Retrieves the number of faults that waited for a shared page already being loaded for another process.
+     * 
+     * @return number of page transfers avoided by sharing
+     */
+    public int getSharedLoadWaits() {
+    	return sharedLoadWaits;
+    }
+
+    /**
+     * Retrieves the number of copy-on-write faults.
+     * 
+     * @return number of faults caused by writing to a page other processes still map
+     */
+    public int getCopyOnWriteFaults() {
+    	return copyOnWriteFaults;
+    }
+
+    /**
+     * Retrieves the largest number of frames saved by sharing at any one time.
+     * 
+     * @return peak number of frames saved
+     */
+    public int getPeakFramesSaved() {
+    	return peakFramesSaved;
+    }
+
+    /**
+     * Prints the busy time and utilisation of each processor and the memory contention between them.
+     *
+     * Preconditions: The multi-processor simulation has finished
+     * Postconditions: The processor statistics have been displayed to the console
+     */
+    protected void printProcessorStatistics() {
+    	PrintStream out = getOutput();
+    	out.println("Processors (" + NUMBER_CPUS + "), finished at t=" + algorithmTime + ":");
+    	out.printf("%-5s %-10s %s%n", "CPU", "Busy", "Utilisation");
+    	for (int cpu = 0; cpu < NUMBER_CPUS; cpu++) {
+    		out.printf("%-5d %-10d %.2f%%%n", cpu, cpuBusyTime[cpu], algorithmTime == 0 ? 0.0 : 100.0 * cpuBusyTime[cpu] / algorithmTime);
+    	}
+    	out.printf("Contention: %d faults in busy time units, %d pages replaced while their process was running, peak %d page loads in progress%n",
+    			concurrentFaults, runningEvictions, peakOutstandingLoads);
+    }
+
+    /**
+     * Calculates the mean utilisation of the processors (multi-processor mode).
+     *
+     * @return fraction of processor time spent executing instructions, from 0 to 1
+     */
+    public double getMeanUtilisation() {
+    	if (cpuBusyTime == null || algorithmTime == 0) {
+    		return 0;
+    	}
+    	long busy = 0;
+    	for (int time : cpuBusyTime) {
+    		busy += time;
+    	}
+    	return (double) busy / ((long) algorithmTime * NUMBER_CPUS);
+    }
+
+    /**
+     * Retrieves the simulation time, after the simulation has run this is the time the last process finished.
+     *
+     * @return current simulation time
+     */
+    public int getSimulationTime() {
+    	return algorithmTime;
+    }
+
+    /**
+     * Retrieves the number of faults issued in a time unit in which more than one fault was issued.
+     *
+     * @return concurrent faults
+     */
+    public int getConcurrentFaults() {
+    	return concurrentFaults;
+    }
+
+    /**
+     * Retrieves the number of pages replaced while their process was running on a processor.
+     *
+     * @return pages taken from running processes
+     */
+    public int getRunningEvictions() {
+    	return runningEvictions;
+    }
+
+    /**
+     * Retrieves the largest number of page loads in progress at the same time.
+     *
+     * @return peak outstanding loads
+     */
+    public int getPeakOutstandingLoads() {
+    	return peakOutstandingLoads;
+    }
+
+    /**
+     * Prints the results of the simulation for a given page replacement strategy.
+     * Displays the turn-around time, number of page faults, and the specific times each page fault occurred for every process.
+     *
+     * Preconditions: strategyName != null && !strategyName.isEmpty()
+     * 			      inputProcesses != null
+     * Postconditions: Simulation results have been displayed to the console in the specified format
+     *
+     * @param strategyName - the name of the page replacement strategy used (e.g., “Fixed-Local Replacement”)
+     * @param inputProcesses - the list of processes that were simulated
+     */
+    protected void printResults(String strategyName, List<Process> inputProcesses) {
+        PrintStream out = getOutput();
+        out.println("FIFO - " + strategyName + (readyQueue instanceof RoundRobinQueue ? "" : " (" + readyQueue.getName() + " CPU scheduling)") + ":");
+        out.printf("%-4s %-20s %-16s %-9s %s%n",
+                "PID", "Process Name", "Turnaround Time", "# Faults", "Fault Times");
+
+        for (Process p : inputProcesses) {
+            out.printf("%-4d %-20s %-16d %-9d %s%n",
+                    p.getProcessID(),
+                    p.getName(),
+                    p.calcTurnaroundTime(),
+                    p.getFaultCount(),
+                    p.getFaultTimes().toString().replace("[", "{").replace("]", "}")); //Need to replace [] otherwise will print with square brackets, assignment specs want curly braces
+        }
+        if (hierarchy.isEnabled()) { //Only shown when a TLB or compressed tier has been added
+        	hierarchy.printStatistics(getOutput(), NUMBER_FRAMES);
+        }
+        if (numa != null) { //Only shown when --numa-nodes was used
+        	numa.printReport(getOutput(), inputProcesses, canMigratePages());
+        }
+        readyQueue.printReport(getOutput()); //Only disciplines that record something print a report (e.g. the adaptive quanta)
+        if (NUMBER_CPUS > 0) { //Only shown when --cpus was used
+        	printProcessorStatistics();
+        }
+        if (loadControl != null) { //Only shown when --load-control was used
+        	loadControl.printReport(getOutput());
+        }
+        if (profiler != null) { //Only written when --profile was used
+        	profiler.printReport(getOutput(), outputPrefix, strategyName);
+        }
+        printWarmStartReport(strategyName);
+        if (attribution != null) { //Only shown when --attribution was used
+        	attribution.printReport(getOutput(), strategyName);
+        }
+        if (whatIf != null) { //Only shown when --what-if was used, waits for the branches to finish
+        	whatIf.printReport(getOutput(), this);
+        }
+        if(strategyName.equals("Fixed-Local Replacement")) { //Only need one separator line for output...
+        	out.println("------------------------------------------------------------");
+        }
+    }
+}
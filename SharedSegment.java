@@ -0,0 +1,209 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Represents a range of a process' pages that is mapped onto a shared segment (e.g. a shared library or a forked heap).
+ * Declared in an input file with:
+ * 		shared: libc 1-4;
+ * meaning pages 1 to 4 of this process are pages 0 to 3 of the segment called "libc".
+ *
+ * Every process that declares a segment with the same name shares its pages, a page of the segment only needs to be loaded into one frame.
+ * Different processes may map the same segment at different page numbers.
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+public class SharedSegment implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+	private static final Map<String, Integer> SEGMENT_IDS = new HashMap<String, Integer>();	//Segment name -> unique segment ID (shared by all processes)
+
+	private final String NAME;			//Name of the shared segment
+	private final int SEGMENT_ID;		//Unique ID of the segment, the same for every process mapping a segment with this name
+	private final int FIRST_PAGE;		//First page of the process that is mapped onto the segment
+	private final int LAST_PAGE;		//Last page of the process that is mapped onto the segment
+
+	/**
+	 * Constructor for the SharedSegment class.
+	 *
+	 * Preconditions: name != null, 0 <= firstPage <= lastPage
+	 * Postconditions: The process pages firstPage..lastPage are mapped onto the segment
+	 *
+	 * @param name - name of the shared segment
+	 * @param firstPage - first page of the process mapped onto the segment
+	 * @param lastPage - last page of the process mapped onto the segment
+	 *
+	 * @throws IllegalArgumentException if the page range is invalid
+	 */
+	public SharedSegment(String name, int firstPage, int lastPage) {
+		if (firstPage < 0 || lastPage < firstPage) {
+			throw new IllegalArgumentException("Invalid page range " + firstPage + "-" + lastPage + " for shared segment \"" + name + "\"");
+		}
+		this.NAME = name;
+		this.SEGMENT_ID = idOf(name);
+		this.FIRST_PAGE = firstPage;
+		this.LAST_PAGE = lastPage;
+	}
+
+	/**
+	 * Parses a segment declaration of the form "name first-last".
+	 *
+	 * @param declaration - text after "shared:" in the input file
+	 * @return the declared segment
+	 *
+	 * @throws IllegalArgumentException if the declaration isn't in the expected format
+	 */
+	public static SharedSegment parse(String declaration) {
+		String[] parts = declaration.trim().split("\\s+");
+		String[] range = parts.length == 2 ? parts[1].split("-") : new String[0];
+		if (range.length != 2) {
+			throw new IllegalArgumentException("Invalid shared segment \"" + declaration.trim() + "\", expected \"shared: name first-last\"");
+		}
+		return new SharedSegment(parts[0], Integer.parseInt(range[0].trim()), Integer.parseInt(range[1].trim()));
+	}
+
+	/**
+	 * Retrieves the unique ID for a segment name, creating a new ID the first time a name is seen.
+	 */
+	private static synchronized int idOf(String name) {
+		return SEGMENT_IDS.computeIfAbsent(name, n -> SEGMENT_IDS.size() + 1);
+	}
+
+	/**
+	 * Constructor used to restore a segment from a checkpoint's traces file, keeping the ID it had when the checkpoint was written.
+	 * The ID is registered for the name, so segments declared later with the same name share it.
+	 */
+	private SharedSegment(String name, int segmentID, int firstPage, int lastPage) {
+		this.NAME = name;
+		this.SEGMENT_ID = segmentID;
+		this.FIRST_PAGE = firstPage;
+		this.LAST_PAGE = lastPage;
+		synchronized (SharedSegment.class) {
+			SEGMENT_IDS.putIfAbsent(name, segmentID);
+		}
+	}
+
+	/**
+	 * Writes this segment to a checkpoint's traces file (see SimulationCheckpoint).
+	 *
+	 * @param out - traces file
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeUTF(NAME);
+		out.writeInt(SEGMENT_ID);
+		out.writeInt(FIRST_PAGE);
+		out.writeInt(LAST_PAGE);
+	}
+
+	/**
+	 * Reads a segment written by write().
+	 *
+	 * @param in - traces file
+	 * @return the segment, with the same ID as when it was written
+	 */
+	public static SharedSegment read(DataInput in) throws IOException {
+		return new SharedSegment(in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+	}
+
+	/**
+	 * Checks whether a page of the process is mapped onto this segment.
+	 *
+	 * @param page - process page value
+	 * @return true if the page is inside this segment's range, false otherwise
+	 */
+	public boolean contains(int page) {
+		return page >= FIRST_PAGE && page <= LAST_PAGE;
+	}
+
+	/**
+	 * Converts a process page into a page of the segment.
+	 *
+	 * Preconditions: contains(page)
+	 *
+	 * @param page - process page value
+	 * @return the segment page (0 is the first page of the segment)
+	 */
+	public int offsetOf(int page) {
+		return page - FIRST_PAGE;
+	}
+
+	/**
+	 * Builds the key identifying a page of this segment. The key is the same for every process mapping the segment.
+	 * Segment IDs are stored as negative numbers so they can never match the key of a private page (see PageCache.pageKey()).
+	 *
+	 * @param page - process page value
+	 * @return key of the segment page
+	 */
+	public long pageKey(int page) {
+		return segmentPageKey(offsetOf(page));
+	}
+
+	/**
+	 * Builds the key identifying a page of this segment from its segment page.
+	 *
+	 * @param offset - segment page (0 is the first page of the segment)
+	 * @return key of the segment page
+	 */
+	public long segmentPageKey(int offset) {
+		return PageCache.pageKey(-SEGMENT_ID, offset);
+	}
+
+	/**
+	 * Checks whether another declaration refers to the same segment.
+	 *
+	 * @param other - segment declared by a (possibly different) process
+	 * @return true if both declarations have the same segment name
+	 */
+	public boolean isSameSegment(SharedSegment other) {
+		return other != null && SEGMENT_ID == other.SEGMENT_ID;
+	}
+
+	/**
+	 * Retrieves the unique ID of the segment, the same for every process mapping a segment with this name.
+	 *
+	 * @return segment ID
+	 */
+	public int getSegmentID() {
+		return SEGMENT_ID;
+	}
+
+	/**
+	 * Retrieves the first page of the process that is mapped onto the segment.
+	 *
+	 * @return first mapped page
+	 */
+	public int getFirstPage() {
+		return FIRST_PAGE;
+	}
+
+	/**
+	 * Retrieves the last page of the process that is mapped onto the segment.
+	 *
+	 * @return last mapped page
+	 */
+	public int getLastPage() {
+		return LAST_PAGE;
+	}
+
+	/**
+	 * Retrieves the segment name.
+	 *
+	 * @return segment name
+	 */
+	public String getName() {
+		return NAME;
+	}
+
+	/**
+	 * Provides a string representation of the segment declaration. Used to nicely display a segment for testing.
+	 *
+	 * @return formatted string with the segment name and page range
+	 */
+	@Override
+	public String toString() {
+		return "SharedSegment{name='" + NAME + "', pages=" + FIRST_PAGE + "-" + LAST_PAGE + "}";
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Shortest remaining trace first ready queue.
+ *
+ * The ready process with the fewest pages left to execute is dispatched first, processes with the same number of pages left
+ * are dispatched in the order they became ready. A running process is still preempted after Q time units, at which point a process
+ * with a shorter remaining trace that has become ready in the meantime runs next.
+ * For a process on a live trace stream only the pages received so far are counted.
+ */
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+public class ShortestRemainingQueue extends ReadyQueue {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	private final LinkedList<Process> queue = new LinkedList<Process>();	//Ready processes sorted by pages left (a process' pages left can't change while it is in the queue)
+
+	/**
+	 * Constructor for the ShortestRemainingQueue class.
+	 *
+	 * @param quantum - time quantum (Q)
+	 */
+	public ShortestRemainingQueue(int quantum) {
+		super(quantum);
+	}
+
+	@Override
+	public boolean offer(Process p) {
+		//Insert after every process with the same or fewer pages left, so equal processes keep the order they became ready
+		ListIterator<Process> position = queue.listIterator();
+		while (position.hasNext()) {
+			if (position.next().getRemainingPages() > p.getRemainingPages()) {
+				position.previous();
+				break;
+			}
+		}
+		position.add(p);
+		return true;
+	}
+
+	@Override
+	public Iterator<Process> iterator() {
+		return queue.iterator();
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	@Override
+	public String getName() {
+		return "SRTF";
+	}
+}
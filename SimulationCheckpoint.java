@@ -0,0 +1,615 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Saves the state of a running simulation to a file so a long simulation can be stopped and later resumed from where it was saved.
+ *
+ * A checkpoint is written every --checkpoint-interval units of simulation time (default 100) to the file given by --checkpoint=file.
+ * Checkpoints are only taken between two dispatches of the CPU, when no process is part way through its time quantum.
+ *
+ * The traces never change while a simulation runs, so they are written once, to file.traces (GZIP compressed), when the first checkpoint
+ * is taken. The checkpoint file itself only holds the state that changes: the options, the position, fault times and flags of every process,
+ * and each component of the running scheduler (queues, frames, memory hierarchy, statistics) written field by field by the component itself
+ * (see the writeState() and readState() methods). Processes are written as their position in the process list and shared segments as their ID.
+ * On resume the traces are read back, the schedulers are built again from the saved options and each component reads its state.
+ *
+ * Checkpoint file layout (DataOutputStream):
+ * 		int MAGIC, int VERSION, long trace ID (the same as in the traces file)
+ * 		int number of options, then name and value of each option
+ * 		int F, int Q, boolean phase (false = fixed-local running, true = variable-global running), boolean finished fixed-local kept
+ * 		state of every process in the order of the traces file
+ * 		finished fixed-local kept only - int total faults of the finished fixed-local simulation, int length and bytes of its state
+ * 		state of the running scheduler
+ * Traces file layout (GZIP compressed DataOutputStream):
+ * 		int TRACES_MAGIC, int VERSION, long trace ID, int number of processes, then each process' trace (see Process.writeTrace())
+ * A file written by a different VERSION is refused rather than read wrongly.
+ * A new checkpoint is written to a temporary file first and then moved over the old one, so a crash while saving never loses the previous checkpoint.
+ *
+ * The fixed-local simulation runs before the variable-global simulation, a checkpoint taken during the global simulation also keeps
+ * the finished local simulation so the summaries that compare both strategies can still be printed after resuming. Its state can't change
+ * any more, so it is written once when the global simulation starts and copied into every later checkpoint.
+ *
+ * Resuming a checkpoint (java A3 --resume=file) continues the simulation it holds and then carries on exactly as the original run would have.
+ * The resumed simulation keeps writing checkpoints to the same file with the same interval.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class SimulationCheckpoint {
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"checkpoint", "checkpoint-interval"};
+
+	private static final int MAGIC = 0x41334350;			//"A3CP" - start of a checkpoint file
+	private static final int TRACES_MAGIC = 0x41335452;		//"A3TR" - start of a traces file
+	private static final int VERSION = 2;					//Layout version of both files, raised whenever a state layout changes
+
+	private final String FILE_NAME;							//File the checkpoints are written to
+	private final int INTERVAL;								//Simulation time between two checkpoints
+	private int nextCheckpointTime;							//Simulation time the next checkpoint is due
+	private Scheduler scheduler;							//Simulation being checkpointed
+	private LocalReplacementScheduler finishedLocal;		//Fixed-local simulation that has already finished, or null
+	private int localFaults;								//Total faults of the finished fixed-local simulation
+	private byte[] finishedLocalState;						//State of the finished fixed-local simulation, written once
+	private long traceId;									//ID shared by the traces file and the checkpoints that use it
+	private boolean tracesSaved;							//Flag for whether the traces file has been written for this simulation
+
+	/**
+	 * Checkpoint output - a DataOutputStream that also writes references to the simulation's processes.
+	 */
+	public static class StateOutput extends DataOutputStream {
+		private final Map<Process, Integer> positions = new IdentityHashMap<Process, Integer>();	//Process -> its position in the process list
+
+		/**
+		 * Constructor for the StateOutput class.
+		 *
+		 * @param out - stream the state is written to
+		 * @param processes - processes of the simulation, in the order of the traces file
+		 */
+		public StateOutput(OutputStream out, List<Process> processes) {
+			super(out);
+			for (int i = 0; i < processes.size(); i++) {
+				positions.put(processes.get(i), i);
+			}
+		}
+
+		/**
+		 * Writes a reference to a process.
+		 *
+		 * @param p - a process of the simulation, or null
+		 */
+		public void writeProcess(Process p) throws IOException {
+			writeInt(p == null ? -1 : positions.get(p));
+		}
+
+		/**
+		 * Writes the number of processes in a collection followed by a reference to each of them, in iteration order.
+		 *
+		 * @param processes - processes of the simulation
+		 */
+		public void writeProcesses(Collection<Process> processes) throws IOException {
+			writeInt(processes.size());
+			for (Process p : processes) {
+				writeProcess(p);
+			}
+		}
+
+		/**
+		 * Writes an array of numbers, or -1 for null.
+		 *
+		 * @param values - the numbers, or null
+		 */
+		public void writeInts(int[] values) throws IOException {
+			writeInt(values == null ? -1 : values.length);
+			for (int i = 0; values != null && i < values.length; i++) {
+				writeInt(values[i]);
+			}
+		}
+
+		/**
+		 * Writes the size of a collection of numbers followed by the numbers, in iteration order.
+		 *
+		 * @param values - the numbers
+		 */
+		public void writeIntList(Collection<Integer> values) throws IOException {
+			writeInt(values.size());
+			for (int value : values) {
+				writeInt(value);
+			}
+		}
+
+		/**
+		 * Writes the size of a collection of keys followed by the keys, in iteration order.
+		 *
+		 * @param values - the keys (e.g. page keys, see PageCache.pageKey())
+		 */
+		public void writeLongList(Collection<Long> values) throws IOException {
+			writeInt(values.size());
+			for (long value : values) {
+				writeLong(value);
+			}
+		}
+
+		/**
+		 * Writes the number of frames in a list followed by the contents of each frame (see Frame.writeState()).
+		 *
+		 * @param frames - the frames, in order
+		 */
+		public void writeFrames(List<Frame> frames) throws IOException {
+			writeInt(frames.size());
+			for (Frame frame : frames) {
+				frame.writeState(this);
+			}
+		}
+
+		/**
+		 * Writes a queue of frames as the position of each frame in a list already written by writeFrames().
+		 *
+		 * @param queue - the queue, every frame in it is one of frames
+		 * @param frames - all frames, in the order they were written
+		 */
+		public void writeFrameQueue(Collection<Frame> queue, List<Frame> frames) throws IOException {
+			Map<Frame, Integer> indices = new IdentityHashMap<Frame, Integer>();
+			for (int i = 0; i < frames.size(); i++) {
+				indices.put(frames.get(i), i);
+			}
+			writeInt(queue.size());
+			for (Frame frame : queue) {
+				writeInt(indices.get(frame));
+			}
+		}
+
+		/**
+		 * Writes the size of a map of numbers followed by its entries, in iteration order.
+		 *
+		 * @param values - key -> value
+		 */
+		public void writeIntMap(Map<Integer, Integer> values) throws IOException {
+			writeInt(values.size());
+			for (Map.Entry<Integer, Integer> entry : values.entrySet()) {
+				writeInt(entry.getKey());
+				writeInt(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Checkpoint input - a DataInputStream that also reads the references written by StateOutput.
+	 */
+	public static class StateInput extends DataInputStream {
+		private final List<Process> processes;											//Processes of the simulation, in the order of the traces file
+		private final Map<Integer, SharedSegment> segments = new HashMap<Integer, SharedSegment>();	//Segment ID -> a segment with that ID
+
+		/**
+		 * Constructor for the StateInput class.
+		 *
+		 * @param in - stream the state is read from
+		 * @param processes - processes of the simulation, in the order of the traces file
+		 */
+		public StateInput(InputStream in, List<Process> processes) {
+			super(in);
+			this.processes = processes;
+			for (Process p : processes) {
+				for (SharedSegment segment : p.getSharedSegments()) {
+					segments.putIfAbsent(segment.getSegmentID(), segment);
+				}
+			}
+		}
+
+		/**
+		 * Reads a reference written by StateOutput.writeProcess().
+		 *
+		 * @return the process, or null
+		 *
+		 * @throws IOException if the reference isn't a process of the simulation
+		 */
+		public Process readProcess() throws IOException {
+			int position = readInt();
+			if (position < -1 || position >= processes.size()) {
+				throw new IOException("Invalid process " + position + " in checkpoint");
+			}
+			return position < 0 ? null : processes.get(position);
+		}
+
+		/**
+		 * Reads processes written by StateOutput.writeProcesses() and adds them to a collection, in the order they were written.
+		 *
+		 * @param into - collection the processes are added to
+		 */
+		public void readProcesses(Collection<Process> into) throws IOException {
+			for (int count = readInt(); count > 0; count--) {
+				into.add(readProcess());
+			}
+		}
+
+		/**
+		 * Reads an array written by StateOutput.writeInts().
+		 *
+		 * @return the numbers, or null
+		 */
+		public int[] readInts() throws IOException {
+			int length = readInt();
+			if (length < 0) {
+				return null;
+			}
+			int[] values = new int[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = readInt();
+			}
+			return values;
+		}
+
+		/**
+		 * Reads numbers written by StateOutput.writeIntList() and adds them to a collection.
+		 *
+		 * @param into - collection the numbers are added to
+		 */
+		public void readIntList(Collection<Integer> into) throws IOException {
+			for (int count = readInt(); count > 0; count--) {
+				into.add(readInt());
+			}
+		}
+
+		/**
+		 * Reads keys written by StateOutput.writeLongList() and adds them to a collection.
+		 *
+		 * @param into - collection the keys are added to
+		 */
+		public void readLongList(Collection<Long> into) throws IOException {
+			for (int count = readInt(); count > 0; count--) {
+				into.add(readLong());
+			}
+		}
+
+		/**
+		 * Reads frames written by StateOutput.writeFrames() and adds them to a list.
+		 *
+		 * @param into - list the frames are added to
+		 */
+		public void readFrames(List<Frame> into) throws IOException {
+			for (int count = readInt(); count > 0; count--) {
+				Frame frame = new Frame();
+				frame.readState(this);
+				into.add(frame);
+			}
+		}
+
+		/**
+		 * Reads a queue written by StateOutput.writeFrameQueue() and adds its frames to a collection, in queue order.
+		 *
+		 * @param into - collection the frames are added to
+		 * @param frames - all frames, as read by readFrames()
+		 *
+		 * @throws IOException if a position isn't in the list
+		 */
+		public void readFrameQueue(Collection<Frame> into, List<Frame> frames) throws IOException {
+			for (int count = readInt(); count > 0; count--) {
+				int index = readInt();
+				if (index < 0 || index >= frames.size()) {
+					throw new IOException("Invalid frame " + index + " in checkpoint");
+				}
+				into.add(frames.get(index));
+			}
+		}
+
+		/**
+		 * Reads a map written by StateOutput.writeIntMap() into a map.
+		 *
+		 * @param into - map the entries are put into
+		 */
+		public void readIntMap(Map<Integer, Integer> into) throws IOException {
+			for (int count = readInt(); count > 0; count--) {
+				into.put(readInt(), readInt());
+			}
+		}
+
+		/**
+		 * Finds the shared segment with an ID written to the checkpoint.
+		 *
+		 * @param segmentID - ID of the segment (see SharedSegment.getSegmentID())
+		 * @return a segment with that ID
+		 *
+		 * @throws IOException if no process maps a segment with that ID
+		 */
+		public SharedSegment getSegment(int segmentID) throws IOException {
+			SharedSegment segment = segments.get(segmentID);
+			if (segment == null) {
+				throw new IOException("Unknown shared segment " + segmentID + " in checkpoint");
+			}
+			return segment;
+		}
+	}
+
+	/**
+	 * Constructor for the SimulationCheckpoint class.
+	 *
+	 * Preconditions: fileName != null, interval > 0
+	 * Postconditions: No checkpoint has been written yet
+	 *
+	 * @param fileName - file the checkpoints are written to
+	 * @param interval - simulation time between two checkpoints
+	 */
+	public SimulationCheckpoint(String fileName, int interval) {
+		this.FILE_NAME = fileName;
+		this.INTERVAL = interval;
+	}
+
+	/**
+	 * Creates the checkpoint settings from the command line options.
+	 *
+	 * @param options - simulation options
+	 * @return checkpoint settings, or null if --checkpoint wasn't supplied
+	 *
+	 * @throws IllegalArgumentException if the interval is not positive
+	 */
+	public static SimulationCheckpoint fromOptions(SimulationOptions options) {
+		if (!options.has("checkpoint")) {
+			return null;
+		}
+
+		int interval = options.getInt("checkpoint-interval", 100);
+		if (interval < 1) {
+			throw new IllegalArgumentException("Option --checkpoint-interval must be at least 1 (" + interval + " found)");
+		}
+		return new SimulationCheckpoint(options.getString("checkpoint", null), interval);
+	}
+
+	/**
+	 * Reads a checkpoint written by an earlier run, with the traces file written next to it.
+	 *
+	 * Preconditions: fileName names a file written by save()
+	 * Postconditions: The saved simulation has been restored, ready to continue
+	 *
+	 * @param fileName - checkpoint file
+	 * @return the restored checkpoint
+	 *
+	 * @throws IOException if a file can't be read, isn't a checkpoint or the traces don't belong to the checkpoint
+	 */
+	public static SimulationCheckpoint load(String fileName) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+			checkHeader(in, MAGIC, fileName, "a simulation checkpoint");
+			long traceId = in.readLong();
+			SimulationOptions options = new SimulationOptions();
+			for (int count = in.readInt(); count > 0; count--) {
+				options.set(in.readUTF(), in.readUTF());
+			}
+			int numFrames = in.readInt();
+			int quantum = in.readInt();
+			boolean globalPhase = in.readBoolean();
+			boolean hasLocal = in.readBoolean();
+
+			List<Process> processes = loadTraces(fileName + ".traces", traceId, options);
+			SimulationCheckpoint checkpoint = fromOptions(options);
+			checkpoint.traceId = traceId;
+			checkpoint.tracesSaved = fileName.equals(checkpoint.FILE_NAME); //Otherwise the next checkpoint writes the traces next to the new file
+
+			//Build the schedulers before restoring the processes, their constructors set up the processes for a new run
+			LocalReplacementScheduler local = hasLocal || !globalPhase ? new LocalReplacementScheduler(processes, numFrames, quantum, options) : null;
+			Scheduler scheduler = globalPhase ? GlobalReplacementScheduler.create(processes, numFrames, quantum, options) : local;
+
+			StateInput state = new StateInput(in, processes);
+			for (Process p : processes) {
+				p.readState(state);
+			}
+			if (hasLocal) {
+				checkpoint.localFaults = state.readInt();
+				checkpoint.finishedLocalState = new byte[state.readInt()];
+				state.readFully(checkpoint.finishedLocalState);
+				local.readState(new StateInput(new ByteArrayInputStream(checkpoint.finishedLocalState), processes));
+				checkpoint.finishedLocal = local;
+			}
+			scheduler.readState(state);
+			checkpoint.scheduler = scheduler;
+			return checkpoint;
+		} catch (IllegalArgumentException e) { //Options saved in the checkpoint no longer accepted
+			throw new IOException("\"" + fileName + "\" holds invalid options - " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Reads the traces file of a checkpoint and creates its processes, ready for a new run.
+	 *
+	 * @param fileName - traces file
+	 * @param traceId - trace ID written in the checkpoint
+	 * @param options - simulation options saved in the checkpoint
+	 * @return the processes, in input order
+	 *
+	 * @throws IOException if the file can't be read or was written for a different checkpoint
+	 */
+	private static List<Process> loadTraces(String fileName, long traceId, SimulationOptions options) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(fileName))))) {
+			checkHeader(in, TRACES_MAGIC, fileName, "a traces file");
+			if (in.readLong() != traceId) {
+				throw new IOException("\"" + fileName + "\" holds the traces of a different checkpoint");
+			}
+			boolean compress = options.isEnabled("compress-traces");
+			List<Process> processes = new ArrayList<Process>();
+			for (int count = in.readInt(); count > 0; count--) {
+				processes.add(Process.readTrace(in, compress));
+			}
+			return processes;
+		}
+	}
+
+	/**
+	 * Checks the magic number and layout version at the start of a file.
+	 */
+	private static void checkHeader(DataInputStream in, int magic, String fileName, String kind) throws IOException {
+		if (in.readInt() != magic) {
+			throw new IOException("\"" + fileName + "\" is not " + kind);
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("\"" + fileName + "\" was written by layout version " + version + ", this program reads version " + VERSION);
+		}
+	}
+
+	/**
+	 * Starts checkpointing a simulation. The first checkpoint is due one interval after the simulation's current time.
+	 *
+	 * Preconditions: scheduler != null
+	 * Postconditions: The scheduler will be saved by saveIfDue()
+	 *
+	 * @param scheduler - simulation to checkpoint
+	 * @param currentTime - current simulation time of the scheduler
+	 */
+	public void attach(Scheduler scheduler, int currentTime) {
+		this.scheduler = scheduler;
+		this.nextCheckpointTime = (currentTime / INTERVAL + 1) * INTERVAL;
+	}
+
+	/**
+	 * Records the finished fixed-local simulation so it is kept in the checkpoints of the variable-global simulation.
+	 * Its state is written now, it can't change any more.
+	 *
+	 * @param local - the finished fixed-local simulation
+	 * @param faults - total faults of the fixed-local simulation
+	 *
+	 * @throws UncheckedIOException if the state can't be written
+	 */
+	public void setFinishedLocal(LocalReplacementScheduler local, int faults) {
+		this.finishedLocal = local;
+		this.localFaults = faults;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (StateOutput out = new StateOutput(bytes, local.getProcesses())) {
+			local.writeState(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to write the fixed-local simulation to checkpoint \"" + FILE_NAME + "\"", e);
+		}
+		this.finishedLocalState = bytes.toByteArray();
+	}
+
+	/**
+	 * Writes a checkpoint if the simulation time has reached the next checkpoint time.
+	 *
+	 * Preconditions: attach() has been called, no process is part way through its time quantum
+	 * Postconditions: The checkpoint file holds the current state if a checkpoint was due
+	 *
+	 * @param currentTime - current simulation time
+	 *
+	 * @throws UncheckedIOException if the checkpoint can't be written
+	 */
+	public void saveIfDue(int currentTime) {
+		if (currentTime < nextCheckpointTime) {
+			return;
+		}
+
+		nextCheckpointTime = (currentTime / INTERVAL + 1) * INTERVAL; //The restored simulation waits for the following interval
+		try {
+			if (!tracesSaved) {
+				saveTraces();
+			}
+			save();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to write checkpoint \"" + FILE_NAME + "\"", e);
+		}
+	}
+
+	/**
+	 * Writes the traces of the simulation's processes to the traces file, with a new trace ID.
+	 */
+	private void saveTraces() throws IOException {
+		traceId = new Random().nextLong();
+		List<Process> processes = scheduler.getProcesses();
+		File target = new File(FILE_NAME + ".traces");
+		File temp = new File(FILE_NAME + ".traces.tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(temp))))) {
+			out.writeInt(TRACES_MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(traceId);
+			out.writeInt(processes.size());
+			for (Process p : processes) {
+				p.writeTrace(out);
+			}
+		}
+		Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		tracesSaved = true;
+	}
+
+	/**
+	 * Writes the current state to a temporary file and moves it over the checkpoint file.
+	 */
+	private void save() throws IOException {
+		File target = new File(FILE_NAME);
+		File temp = new File(FILE_NAME + ".tmp");
+		SimulationOptions options = scheduler.getOptions();
+		List<Process> processes = scheduler.getProcesses();
+		try (StateOutput out = new StateOutput(new BufferedOutputStream(new FileOutputStream(temp)), processes)) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(traceId);
+			out.writeInt(options.getNames().size());
+			for (String name : options.getNames()) {
+				out.writeUTF(name);
+				out.writeUTF(options.getString(name, ""));
+			}
+			out.writeInt(scheduler.getNumberFrames());
+			out.writeInt(scheduler.getTimeQuantum());
+			out.writeBoolean(scheduler instanceof GlobalReplacementScheduler);
+			out.writeBoolean(finishedLocal != null);
+
+			for (Process p : processes) {
+				p.writeState(out);
+			}
+			if (finishedLocal != null) {
+				out.writeInt(localFaults);
+				out.writeInt(finishedLocalState.length);
+				out.write(finishedLocalState);
+			}
+			scheduler.writeState(out);
+		}
+		Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	//------------------------------Getters---------------------------------------
+	/**
+	 * Retrieves the simulation held by this checkpoint.
+	 *
+	 * @return the checkpointed scheduler
+	 */
+	public Scheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Retrieves the fixed-local simulation that finished before the checkpointed simulation started.
+	 *
+	 * @return the finished fixed-local simulation, or null if the checkpointed simulation is the fixed-local one or fixed-local isn't simulated
+	 */
+	public LocalReplacementScheduler getFinishedLocal() {
+		return finishedLocal;
+	}
+
+	/**
+	 * Retrieves the total faults of the finished fixed-local simulation.
+	 *
+	 * @return fixed-local page faults
+	 */
+	public int getLocalFaults() {
+		return localFaults;
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Holds the optional simulation settings passed into the program on the command line.
+ *
+ * Options are written in the form --name=value (or just --name for on/off switches) and may appear anywhere in the argument list.
+ * Any argument that isn't an option is treated as a positional argument (F, Q and the input files) so the original way of running the program is unchanged:
+ * 		java A3 [options] F Q data1 data2 ... dataN
+ *
+ * Every option has a default value, when no options are supplied the simulation behaves exactly as specified in the assignment document.
+ *
+ * Each feature lists the options it reads in its own OPTIONS array and SIMULATION_OPTIONS collects them. An option that isn't listed
+ * (e.g. a misspelt --tlb-entires=64) is rejected instead of being silently ignored. Tools that take options of their own (e.g. BatchRunner)
+ * pass them to parse().
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SimulationOptions implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+	private final Map<String, String> values = new HashMap<String, String>();	//Option name -> option value (switches are stored with the value "true")
+
+	/**
+	 * Options of every simulation feature, each array listed by the class that reads it.
+	 */
+	private static final String[][] SIMULATION_OPTIONS = {A3.OPTIONS, Scheduler.OPTIONS, ReadyQueue.OPTIONS, MultilevelFeedbackQueue.OPTIONS,
+			FaultAwareQueue.OPTIONS, AdaptiveQuantumQueue.OPTIONS, MemoryHierarchy.OPTIONS, HugePagePolicy.OPTIONS, NumaTopology.OPTIONS,
+			GlobalReplacementScheduler.OPTIONS, QuotaGlobalReplacementScheduler.OPTIONS, LoadController.OPTIONS, SimulationCheckpoint.OPTIONS,
+			TraceStream.OPTIONS, WarmStart.OPTIONS, PageProfiler.OPTIONS, TurnaroundAttribution.OPTIONS, WhatIfFork.OPTIONS};
+
+	/**
+	 * Separates the option arguments from the positional arguments and stores the options.
+	 *
+	 * Preconditions: args != null
+	 * Postconditions: All --name=value arguments have been stored in this object
+	 *
+	 * @param args - the program arguments
+	 * @param toolOptions - options of the program running the simulations, accepted as well as the simulation options
+	 * @return the remaining positional arguments, in their original order
+	 *
+	 * @throws IllegalArgumentException if an option has no name (e.g. "--" or "--=5") or isn't a known option
+	 */
+	public List<String> parse(String[] args, String... toolOptions) {
+		List<String> positional = new ArrayList<String>();
+		Set<String> known = knownOptions(toolOptions);
+
+		for (String arg : args) {
+			if (!arg.startsWith("--")) { 					//Not an option - F, Q or an input file
+				positional.add(arg);
+				continue;
+			}
+
+			String option = arg.substring(2);
+			int split = option.indexOf('=');
+			String name = split < 0 ? option : option.substring(0, split);
+			String value = split < 0 ? "true" : option.substring(split + 1);	//A switch without a value is turned on
+
+			if (name.isEmpty()) {
+				throw new IllegalArgumentException("Invalid option \"" + arg + "\"");
+			}
+			if (!known.contains(name)) {
+				String closest = closestOption(name, known);
+				throw new IllegalArgumentException("Unknown option --" + name + (closest != null ? " (did you mean --" + closest + "?)" : ""));
+			}
+			values.put(name, value);
+		}
+		return positional;
+	}
+
+	private static Set<String> knownOptions(String[] toolOptions) {
+		Set<String> known = new HashSet<String>(List.of(toolOptions));
+		for (String[] feature : SIMULATION_OPTIONS) {
+			known.addAll(List.of(feature));
+		}
+		return known;
+	}
+
+	/**
+	 * Finds the known option closest to a misspelt one, at most two edits (letters added, removed or changed) away.
+	 *
+	 * @return the closest option, or null if none is that close
+	 */
+	private static String closestOption(String name, Set<String> known) {
+		String closest = null;
+		int best = 3;
+		for (String option : known) {
+			int distance = editDistance(name, option);
+			if (distance < best || (distance == best && closest != null && option.compareTo(closest) < 0)) {
+				best = distance;
+				closest = option;
+			}
+		}
+		return closest;
+	}
+
+	private static int editDistance(String a, String b) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int change = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(change, Math.min(previous[j], current[j - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+
+	/**
+	 * Creates a copy of these options that can be changed without changing this object.
+	 *
+	 * @return a copy holding the same option values
+	 */
+	public SimulationOptions copy() {
+		SimulationOptions copy = new SimulationOptions();
+		copy.values.putAll(values);
+		return copy;
+	}
+
+	/**
+	 * Stores or replaces an option value.
+	 *
+	 * @param name - option name (without the leading --)
+	 * @param value - option value
+	 */
+	public void set(String name, String value) {
+		values.put(name, value);
+	}
+
+	/**
+	 * Retrieves the names of the options that have been supplied, used to save them in a checkpoint (see SimulationCheckpoint).
+	 *
+	 * @return option names (without the leading --)
+	 */
+	public Set<String> getNames() {
+		return values.keySet();
+	}
+
+	/**
+	 * Checks whether an option has been supplied.
+	 *
+	 * @param name - option name (without the leading --)
+	 * @return true if the option was supplied, false otherwise
+	 */
+	public boolean has(String name) {
+		return values.containsKey(name);
+	}
+
+	/**
+	 * Retrieves a text option.
+	 *
+	 * @param name - option name (without the leading --)
+	 * @param defaultValue - value returned when the option wasn't supplied
+	 * @return the option value, or defaultValue
+	 */
+	public String getString(String name, String defaultValue) {
+		return values.getOrDefault(name, defaultValue);
+	}
+
+	/**
+	 * Retrieves an integer option.
+	 *
+	 * @param name - option name (without the leading --)
+	 * @param defaultValue - value returned when the option wasn't supplied
+	 * @return the option value, or defaultValue
+	 *
+	 * @throws IllegalArgumentException if the supplied value is not an integer
+	 */
+	public int getInt(String name, int defaultValue) {
+		String value = values.get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Option --" + name + " expects a whole number (\"" + value + "\" found)");
+		}
+	}
+
+	/**
+	 * Retrieves a decimal option.
+	 *
+	 * @param name - option name (without the leading --)
+	 * @param defaultValue - value returned when the option wasn't supplied
+	 * @return the option value, or defaultValue
+	 *
+	 * @throws IllegalArgumentException if the supplied value is not a number
+	 */
+	public double getDouble(String name, double defaultValue) {
+		String value = values.get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Option --" + name + " expects a number (\"" + value + "\" found)");
+		}
+	}
+
+	/**
+	 * Retrieves an on/off switch. A switch supplied without a value (e.g. --load-control) is on.
+	 *
+	 * @param name - option name (without the leading --)
+	 * @return true if the switch is on, false if it is off or wasn't supplied
+	 */
+	public boolean isEnabled(String name) {
+		String value = values.get(name);
+		return value != null && !value.equalsIgnoreCase("false") && !value.equalsIgnoreCase("off");
+	}
+}
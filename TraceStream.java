@@ -0,0 +1,333 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Feeds an online simulation from a live trace stream instead of complete input files (java A3 --online=source F Q).
+ *
+ * The stream uses the same records as the input files, with "name:" selecting the process the records after it belong to, e.g.
+ * 		name: P1; page: 1; page: 2; name: P2; page: 7; name: P1; write: 3; end; name: P2; page: 8; end;
+ * so a process' records may be interleaved with other processes, and a single input file (or several joined together) is also a valid stream.
+ * A process is admitted at the current simulation time when its first page arrives, "shared:" and "huge:" declarations must come before it.
+ * "end;" finishes the selected process, the end of the stream finishes every process that is still open.
+ *
+ * The source may be:
+ * 		-				standard input (e.g. a pipe from a tracer)
+ * 		tcp:PORT		a tracer connecting to PORT on the loopback address
+ * 		unix:PATH		a tracer connecting to a Unix domain socket created at PATH
+ * 		anything else	a file or named pipe
+ *
+ * Records are only read when the simulation needs them, i.e. a ready process has run out of buffered pages or no process is ready to run.
+ * Each process buffers at most --online-buffer pages (default 16). When a record arrives for a process with a full buffer the stream
+ * is not read further until that process has executed a page, so the simulation holds a fixed amount of state per running process
+ * however long the stream is. The simulation time at which processes are admitted only depends on the stream contents, not on how fast it is written.
+ *
+ * Results are printed incrementally - a line when each process finishes, and running totals every --online-report time units (0 = off).
+ * Fault times aren't kept for streamed processes, only the number of faults.
+ */
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+
+public class TraceStream implements Closeable {
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"online", "online-buffer", "online-report"};
+
+	private final Scanner input;								//Records of the stream, separated by semi-colons
+	private final List<Closeable> resources = new ArrayList<Closeable>();	//Sockets opened for the stream, closed with it
+	private final int BUFFER_PAGES;								//Maximum number of pages buffered for each process
+	private final int REPORT_INTERVAL;							//Simulation time between running totals, 0 = only at the end
+	private final Map<String, PageBuffer> openBuffers = new HashMap<String, PageBuffer>();	//Name -> page buffer of a process whose end hasn't been received
+	private final Map<String, List<SharedSegment>> declaredShared = new HashMap<String, List<SharedSegment>>();	//Name -> shared segments declared before the process was admitted
+	private final Map<String, List<int[]>> declaredHuge = new HashMap<String, List<int[]>>();					//Name -> huge page ranges declared before the process was admitted
+	private final Set<Process> running = new LinkedHashSet<Process>();	//Admitted processes that haven't finished
+
+	private String currentName;									//Process selected by the last "name:" record
+	private String heldRecord;									//Record that couldn't be added because its process' buffer was full
+	private boolean closed;										//Flag that indicates the end of the stream has been reached
+	private int nextProcessID = 1;								//ID given to the next admitted process
+	private int nextReport;										//Simulation time the next running totals are due
+
+	//Incremental statistics of finished processes
+	private int admitted;										//Processes admitted so far
+	private int finished;										//Processes finished so far
+	private long finishedFaults;								//Page faults of finished processes
+	private long totalTurnaround;								//Sum of the turnaround times of finished processes
+	private int maxTurnaround;									//Longest turnaround time of a finished process
+
+	/**
+	 * Constructor for the TraceStream class.
+	 *
+	 * Preconditions: in != null, bufferPages > 0, reportInterval >= 0
+	 * Postconditions: The stream is ready to be read, no process has been admitted
+	 *
+	 * @param in - trace stream
+	 * @param bufferPages - maximum number of pages buffered for each process
+	 * @param reportInterval - simulation time between running totals, 0 to only print totals at the end
+	 */
+	public TraceStream(InputStream in, int bufferPages, int reportInterval) {
+		this.input = new Scanner(in).useDelimiter(";");
+		this.BUFFER_PAGES = bufferPages;
+		this.REPORT_INTERVAL = reportInterval;
+		this.nextReport = reportInterval;
+	}
+
+	/**
+	 * Opens the trace stream named by --online and reads the stream settings from the options.
+	 *
+	 * @param options - simulation options
+	 * @return the opened stream
+	 *
+	 * @throws IOException if the source can't be opened
+	 * @throws IllegalArgumentException if a setting is invalid
+	 */
+	public static TraceStream open(SimulationOptions options) throws IOException {
+		String source = options.getString("online", "-");
+		int bufferPages = options.getInt("online-buffer", 16);
+		int reportInterval = options.getInt("online-report", 0);
+		if (bufferPages < 1 || reportInterval < 0) {
+			throw new IllegalArgumentException("Option --online-buffer must be at least 1 and --online-report can't be negative");
+		}
+
+		if (source.equals("-") || source.equals("true")) { //--online on its own also reads standard input
+			return new TraceStream(System.in, bufferPages, reportInterval);
+		}
+
+		if (source.startsWith("tcp:")) {
+			ServerSocket server = new ServerSocket(Integer.parseInt(source.substring(4).trim()), 1, InetAddress.getLoopbackAddress());
+			System.err.println("Waiting for a trace on " + server.getLocalSocketAddress());
+			Socket socket = server.accept();
+			server.close();
+			TraceStream stream = new TraceStream(socket.getInputStream(), bufferPages, reportInterval);
+			stream.resources.add(socket);
+			return stream;
+		}
+
+		if (source.startsWith("unix:")) {
+			Path path = Path.of(source.substring(5));
+			Files.deleteIfExists(path);
+			ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+			server.bind(UnixDomainSocketAddress.of(path));
+			System.err.println("Waiting for a trace on " + path);
+			SocketChannel channel = server.accept();
+			server.close();
+			Files.deleteIfExists(path);
+			TraceStream stream = new TraceStream(Channels.newInputStream(channel), bufferPages, reportInterval);
+			stream.resources.add(channel);
+			return stream;
+		}
+
+		return new TraceStream(new FileInputStream(source), bufferPages, reportInterval); //File or named pipe
+	}
+
+	/**
+	 * Reads the next record from the stream. A page record for a process whose buffer is full is held back and tried again on the next call.
+	 * Reading blocks while the source has nothing to read.
+	 *
+	 * Preconditions: scheduler != null
+	 * Postconditions: Newly arrived processes have been admitted to the scheduler
+	 *
+	 * @param scheduler - simulation to admit new processes to
+	 * @return true if a record was read, false if the stream is stuck on a full buffer or has ended
+	 *
+	 * @throws UncheckedIOException if the stream can't be read
+	 * @throws IllegalArgumentException if a record is invalid
+	 */
+	public boolean readRecord(Scheduler scheduler) {
+		if (closed) {
+			return false;
+		}
+
+		if (heldRecord == null) {
+			if (!input.hasNext()) {
+				if (input.ioException() != null) {
+					throw new UncheckedIOException("Unable to read the trace stream", input.ioException());
+				}
+				endStream();
+				return false;
+			}
+			heldRecord = input.next().trim();
+		}
+
+		String record = heldRecord;
+		if (record.startsWith("page:") || record.startsWith("write:")) {
+			boolean write = record.startsWith("write:");
+			PageBuffer buffer = bufferOf(scheduler);
+			if (buffer.isFull()) {
+				return false; //Keep the record until the process has executed a page
+			}
+			buffer.add(Integer.parseInt(record.substring(write ? 6 : 5).trim()), write);
+		} else if (record.startsWith("name:")) {
+			currentName = record.substring(5).trim();
+		} else if (record.startsWith("shared:")) {
+			declaredShared.computeIfAbsent(selectedName(), n -> new ArrayList<SharedSegment>()).add(SharedSegment.parse(record.substring(7)));
+		} else if (record.startsWith("huge:")) {
+			String[] range = record.substring(5).trim().split("-");
+			if (range.length != 2) {
+				throw new IllegalArgumentException("Invalid huge page range \"" + record + "\", expected \"huge: first-last\"");
+			}
+			declaredHuge.computeIfAbsent(selectedName(), n -> new ArrayList<int[]>()).add(new int[] {Integer.parseInt(range[0].trim()), Integer.parseInt(range[1].trim())});
+		} else if (record.equalsIgnoreCase("end")) {
+			endProcess(selectedName());
+		}
+		heldRecord = null;
+		return true;
+	}
+
+	/**
+	 * Retrieves the page buffer of the selected process, admitting the process if this is its first page.
+	 */
+	private PageBuffer bufferOf(Scheduler scheduler) {
+		String name = selectedName();
+		PageBuffer buffer = openBuffers.get(name);
+		if (buffer != null) {
+			return buffer;
+		}
+
+		buffer = new PageBuffer(BUFFER_PAGES);
+		List<SharedSegment> shared = declaredShared.remove(name);
+		Process p = new Process(nextProcessID++, name, buffer, shared != null ? shared : new ArrayList<SharedSegment>());
+		List<int[]> hugeRanges = declaredHuge.remove(name);
+		if (hugeRanges != null) {
+			for (int[] range : hugeRanges) {
+				p.addHugePageRange(range[0], range[1]);
+			}
+		}
+		p.setKeepFaultTimes(false);
+
+		openBuffers.put(name, buffer);
+		running.add(p);
+		admitted++;
+		scheduler.admitProcess(p);
+		return buffer;
+	}
+
+	/**
+	 * Retrieves the name selected by the last "name:" record.
+	 */
+	private String selectedName() {
+		if (currentName == null) {
+			throw new IllegalArgumentException("Trace record found before the first \"name:\" record");
+		}
+		return currentName;
+	}
+
+	/**
+	 * Ends a process, it finishes once it has executed its buffered pages. A process with no pages is never admitted.
+	 */
+	private void endProcess(String name) {
+		PageBuffer buffer = openBuffers.remove(name);
+		if (buffer != null) {
+			buffer.end();
+		}
+		declaredShared.remove(name);
+		declaredHuge.remove(name);
+	}
+
+	/**
+	 * Marks the end of the stream, every open process ends.
+	 */
+	private void endStream() {
+		closed = true;
+		for (PageBuffer buffer : openBuffers.values()) {
+			buffer.end();
+		}
+		openBuffers.clear();
+		declaredShared.clear();
+		declaredHuge.clear();
+	}
+
+	/**
+	 * Records a finished process and prints its results.
+	 *
+	 * Preconditions: p was admitted by this stream and has finished
+	 * Postconditions: The running totals include p, the stream no longer refers to p
+	 *
+	 * @param p - the finished process
+	 */
+	public void processFinished(Process p) {
+		running.remove(p);
+		finished++;
+		finishedFaults += p.getFaultCount();
+		totalTurnaround += p.calcTurnaroundTime();
+		maxTurnaround = Math.max(maxTurnaround, p.calcTurnaroundTime());
+		System.out.printf("%-6d %-20s %-8d %-16d %d%n", p.getProcessID(), p.getName(), p.getArrivalTime(), p.calcTurnaroundTime(), p.getFaultCount());
+	}
+
+	/**
+	 * Prints the running totals if they are due.
+	 *
+	 * @param currentTime - current simulation time
+	 */
+	public void reportIfDue(int currentTime) {
+		if (REPORT_INTERVAL > 0 && currentTime >= nextReport) {
+			printTotals(currentTime);
+			nextReport = (currentTime / REPORT_INTERVAL + 1) * REPORT_INTERVAL;
+		}
+	}
+
+	/**
+	 * Prints the column headings for the per-process results.
+	 *
+	 * @param strategyName - name of the page replacement strategy
+	 */
+	public void printHeader(String strategyName) {
+		System.out.println("FIFO - " + strategyName + " (online):");
+		System.out.printf("%-6s %-20s %-8s %-16s %s%n", "PID", "Process Name", "Arrival", "Turnaround Time", "# Faults");
+	}
+
+	/**
+	 * Prints the totals so far: processes admitted and finished, page faults (including those of running processes) and turnaround times.
+	 *
+	 * @param currentTime - current simulation time
+	 */
+	public void printTotals(int currentTime) {
+		long faults = finishedFaults;
+		for (Process p : running) {
+			faults += p.getFaultCount();
+		}
+		System.out.printf("t=%d: %d admitted, %d finished, %d running, %d faults, mean turnaround %.2f, max turnaround %d%n",
+				currentTime, admitted, finished, running.size(), faults, finished == 0 ? 0.0 : (double) totalTurnaround / finished, maxTurnaround);
+	}
+
+	/**
+	 * Checks whether the end of the stream has been reached.
+	 *
+	 * @return true if no more records will be read
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Closes the stream and any sockets opened for it.
+	 */
+	@Override
+	public void close() throws IOException {
+		input.close();
+		for (Closeable resource : resources) {
+			resource.close();
+		}
+	}
+}
@@ -0,0 +1,426 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Turnaround attribution (--attribution) - splits each process' turnaround time into where the time went, and finds the page faults
+ * that delayed completion the most.
+ *
+ * Every time unit between a process arriving and finishing is one of:
+ * 		executing			running an instruction (one per page of the trace)
+ * 		blocked				waiting for a faulted page, split by the cause of the fault:
+ * 								cold - the page had never been in memory
+ * 								own - the page was replaced by one of the process' own faults, or freed when the process was suspended
+ * 								stolen - the page was replaced by another process' fault (only possible with global replacement)
+ * 		suspended			swapped out by the medium-term scheduler (see LoadController)
+ * 		ready				everything else - waiting in the ready queue for a processor
+ * Nothing is counted per time unit. The simulation reports faults, unblocks, dispatches and replacements as they happen and only the
+ * lengths of the blocked and suspended intervals are added up, so the cost is a few map lookups per page fault.
+ *
+ * A process runs one instruction at a time, so its completion is delayed by every fault it takes: the delay of a fault is the time from the
+ * fault until the process is dispatched again (blocked time plus the wait in the ready queue after the page arrived). The critical path of
+ * the simulation is the process that finished last. The faults with the longest delays are kept for each process.
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+public class TurnaroundAttribution implements Serializable {
+	private static final long serialVersionUID = 1L;	//Copied into what-if branches (see WhatIfFork)
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"attribution", "attribution-top"};
+
+	private static final String COLD = "cold";
+	private static final String OWN = "own";
+	private static final String STOLEN = "stolen";
+
+	private final int TOP;								//Longest delays kept for each process
+	private final Map<Integer, Account> accounts = new LinkedHashMap<Integer, Account>();	//Process ID -> account, in the order the processes first faulted or finished
+	private final Set<Long> loadedPages = new HashSet<Long>();				//Pages that have been in memory (see PageCache.pageKey())
+	private final Map<Long, Process> stolenPages = new HashMap<Long, Process>();	//Page -> process whose fault replaced it, for pages replaced by another process
+	private Process loader;								//Process whose page is being loaded, null between loads
+
+	/**
+	 * Time spent by one process, and its faults with the longest delays.
+	 */
+	private static class Account implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+		private int turnaround = -1;					//Set when the process finishes
+		private int finishTime;
+		private int executing;
+		private final Map<String, Integer> blocked = new HashMap<String, Integer>();	//Fault cause -> blocked time
+		private int suspended;
+		private int framesLost;							//Pages replaced by other processes' faults
+		private int framesTaken;						//Pages of other processes replaced by this process' faults
+		private final Map<String, Integer> lostTo = new LinkedHashMap<String, Integer>();	//Process name -> blocked time caused by its steals
+
+		//Open intervals
+		private Fault fault;							//Latest fault, until the process is dispatched again
+		private int suspendedAt = -1;
+
+		private final PriorityQueue<Fault> longest = new PriorityQueue<Fault>(new ShortestDelayFirst());	//Longest delays, the shortest is dropped first
+
+		Account(String name) {
+			this.name = name;
+		}
+
+		int blocked(String cause) {
+			return blocked.getOrDefault(cause, 0);
+		}
+
+		int ready() {
+			return turnaround - executing - blocked(COLD) - blocked(OWN) - blocked(STOLEN) - suspended;
+		}
+	}
+
+	/**
+	 * One page fault.
+	 */
+	private static class Fault implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final int time;
+		private final int page;
+		private final String cause;
+		private final String thief;						//Process that replaced the page, for a stolen page
+		private int unblockTime = -1;
+		private int suspended;							//Time suspended between the page arriving and the process being dispatched
+		private int dispatchTime = -1;
+
+		Fault(int time, int page, String cause, String thief) {
+			this.time = time;
+			this.page = page;
+			this.cause = cause;
+			this.thief = thief;
+		}
+
+		int delay() {
+			return dispatchTime - time;
+		}
+	}
+
+	/**
+	 * Orders faults by delay, shortest first. A class rather than a lambda so what-if branches can copy it (see WhatIfFork).
+	 */
+	private static class ShortestDelayFirst implements Comparator<Fault>, Serializable {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int compare(Fault a, Fault b) {
+			return Integer.compare(a.delay(), b.delay());
+		}
+	}
+
+	/**
+	 * Constructor for the TurnaroundAttribution class.
+	 *
+	 * @param options - simulation options (--attribution-top)
+	 */
+	public TurnaroundAttribution(SimulationOptions options) {
+		this.TOP = Math.max(1, options.getInt("attribution-top", 5));
+	}
+
+	private Account accountOf(Process p) {
+		Account account = accounts.get(p.getProcessID());
+		if (account == null) {
+			account = new Account(p.getName());
+			accounts.put(p.getProcessID(), account);
+		}
+		return account;
+	}
+
+	/**
+	 * Records that a process' page is about to be loaded, so the pages it replaces are charged to it.
+	 *
+	 * @param p - the process whose fault loaded the page
+	 */
+	public void loading(Process p) {
+		loader = p;
+	}
+
+	/**
+	 * Records a page that has been loaded into main memory (by a fault or a warm start).
+	 *
+	 * @param frame - the loaded frame
+	 */
+	public void loaded(Frame frame) {
+		loadedPages.add(PageCache.pageKey(frame.getOwnerProcessID(), frame.getPageValue()));
+		loader = null;
+	}
+
+	/**
+	 * Records a page being replaced, and whether another process' fault replaced it.
+	 *
+	 * @param victim - the frame about to be replaced
+	 */
+	public void evicted(Frame victim) {
+		Process owner = victim.getOwnerProcess();
+		long key = PageCache.pageKey(owner.getProcessID(), victim.getPageValue());
+		if (loader != null && loader != owner) {
+			stolenPages.put(key, loader);
+			accountOf(owner).framesLost++;
+			accountOf(loader).framesTaken++;
+		} else {
+			stolenPages.remove(key);
+		}
+	}
+
+	/**
+	 * Records a process blocking on a page fault.
+	 *
+	 * @param p - the faulting process
+	 * @param page - the page it faulted on
+	 * @param time - simulation time of the fault
+	 */
+	public void faulted(Process p, int page, int time) {
+		long key = PageCache.pageKey(p.getProcessID(), page);
+		Process thief = stolenPages.remove(key);
+		String cause = thief != null ? STOLEN : loadedPages.contains(key) ? OWN : COLD;
+		accountOf(p).fault = new Fault(time, page, cause, thief == null ? null : thief.getName());
+	}
+
+	/**
+	 * Records a blocked process joining the ready queue because its page has arrived.
+	 *
+	 * @param p - the process
+	 * @param time - simulation time
+	 */
+	public void unblocked(Process p, int time) {
+		Account account = accountOf(p);
+		Fault fault = account.fault;
+		if (fault == null || fault.unblockTime >= 0) {
+			return;
+		}
+		fault.unblockTime = time;
+		account.blocked.merge(fault.cause, time - fault.time, Integer::sum);
+		if (fault.thief != null) {
+			account.lostTo.merge(fault.thief, time - fault.time, Integer::sum);
+		}
+	}
+
+	/**
+	 * Records a process being dispatched, which ends the delay of its latest fault.
+	 *
+	 * @param p - the process
+	 * @param time - simulation time
+	 */
+	public void dispatched(Process p, int time) {
+		Account account = accounts.get(p.getProcessID());
+		if (account == null || account.fault == null || account.fault.unblockTime < 0) {
+			return;
+		}
+		account.fault.dispatchTime = time;
+		account.longest.add(account.fault);
+		if (account.longest.size() > TOP) {
+			account.longest.poll();
+		}
+		account.fault = null;
+	}
+
+	/**
+	 * Records a process being suspended by the medium-term scheduler.
+	 */
+	public void suspended(Process p, int time) {
+		accountOf(p).suspendedAt = time;
+	}
+
+	/**
+	 * Records a suspended process being resumed.
+	 */
+	public void resumed(Process p, int time) {
+		Account account = accountOf(p);
+		if (account.suspendedAt >= 0) {
+			account.suspended += time - account.suspendedAt;
+			if (account.fault != null) {
+				account.fault.suspended += time - account.suspendedAt;
+			}
+			account.suspendedAt = -1;
+		}
+	}
+
+	/**
+	 * Records a finished process, which fixes its turnaround time.
+	 *
+	 * Preconditions: p.isProcessFinished()
+	 */
+	public void finished(Process p, int time) {
+		Account account = accountOf(p);
+		account.finishTime = time;
+		account.turnaround = p.calcTurnaroundTime();
+		account.executing = p.getPageSequence().size();
+	}
+
+	/**
+	 * Writes every account, the pages that have been in memory, the stolen pages and the current loader to a checkpoint (see SimulationCheckpoint).
+	 *
+	 * @param out - checkpoint being written
+	 */
+	public void writeState(SimulationCheckpoint.StateOutput out) throws IOException {
+		out.writeInt(accounts.size());
+		for (Map.Entry<Integer, Account> entry : accounts.entrySet()) {
+			Account account = entry.getValue();
+			out.writeInt(entry.getKey());
+			out.writeUTF(account.name);
+			out.writeInt(account.turnaround);
+			out.writeInt(account.finishTime);
+			out.writeInt(account.executing);
+			writeTimes(out, account.blocked);
+			out.writeInt(account.suspended);
+			out.writeInt(account.framesLost);
+			out.writeInt(account.framesTaken);
+			writeTimes(out, account.lostTo);
+			out.writeBoolean(account.fault != null);
+			if (account.fault != null) {
+				writeFault(out, account.fault);
+			}
+			out.writeInt(account.suspendedAt);
+			out.writeInt(account.longest.size());
+			for (Fault fault : account.longest) { //Heap order, adding them back in this order rebuilds the same heap
+				writeFault(out, fault);
+			}
+		}
+		out.writeLongList(loadedPages);
+		out.writeInt(stolenPages.size());
+		for (Map.Entry<Long, Process> entry : stolenPages.entrySet()) {
+			out.writeLong(entry.getKey());
+			out.writeProcess(entry.getValue());
+		}
+		out.writeProcess(loader);
+	}
+
+	/**
+	 * Replaces the accounts and pages with those written by writeState().
+	 *
+	 * @param in - checkpoint being read
+	 */
+	public void readState(SimulationCheckpoint.StateInput in) throws IOException {
+		accounts.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			int processID = in.readInt();
+			Account account = new Account(in.readUTF());
+			account.turnaround = in.readInt();
+			account.finishTime = in.readInt();
+			account.executing = in.readInt();
+			readTimes(in, account.blocked);
+			account.suspended = in.readInt();
+			account.framesLost = in.readInt();
+			account.framesTaken = in.readInt();
+			readTimes(in, account.lostTo);
+			account.fault = in.readBoolean() ? readFault(in) : null;
+			account.suspendedAt = in.readInt();
+			for (int faults = in.readInt(); faults > 0; faults--) {
+				account.longest.add(readFault(in));
+			}
+			accounts.put(processID, account);
+		}
+		loadedPages.clear();
+		in.readLongList(loadedPages);
+		stolenPages.clear();
+		for (int count = in.readInt(); count > 0; count--) {
+			stolenPages.put(in.readLong(), in.readProcess());
+		}
+		loader = in.readProcess();
+	}
+
+	private static void writeTimes(SimulationCheckpoint.StateOutput out, Map<String, Integer> times) throws IOException {
+		out.writeInt(times.size());
+		for (Map.Entry<String, Integer> entry : times.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+	}
+
+	private static void readTimes(SimulationCheckpoint.StateInput in, Map<String, Integer> into) throws IOException {
+		for (int count = in.readInt(); count > 0; count--) {
+			into.put(in.readUTF(), in.readInt());
+		}
+	}
+
+	private static void writeFault(SimulationCheckpoint.StateOutput out, Fault fault) throws IOException {
+		out.writeInt(fault.time);
+		out.writeInt(fault.page);
+		out.writeUTF(fault.cause);
+		out.writeBoolean(fault.thief != null);
+		if (fault.thief != null) {
+			out.writeUTF(fault.thief);
+		}
+		out.writeInt(fault.unblockTime);
+		out.writeInt(fault.suspended);
+		out.writeInt(fault.dispatchTime);
+	}
+
+	private static Fault readFault(SimulationCheckpoint.StateInput in) throws IOException {
+		Fault fault = new Fault(in.readInt(), in.readInt(), in.readUTF(), in.readBoolean() ? in.readUTF() : null);
+		fault.unblockTime = in.readInt();
+		fault.suspended = in.readInt();
+		fault.dispatchTime = in.readInt();
+		return fault;
+	}
+
+	/**
+	 * Prints the time breakdown of every finished process and the faults on the critical path.
+	 *
+	 * @param out - stream the report is printed to
+	 * @param strategyName - the name of the page replacement strategy used
+	 */
+	public void printReport(PrintStream out, String strategyName) {
+		out.println("Turnaround attribution - " + strategyName + ":");
+		out.printf("%-20s %-11s %-10s %-6s %-13s %-12s %-15s %-10s %-12s %s%n", "Process Name", "Turnaround", "Executing", "Ready",
+				"Blocked Cold", "Blocked Own", "Blocked Stolen", "Suspended", "Frames Lost", "Frames Taken");
+
+		Account last = null;	//Critical path - the process that finished last
+		int lastFinish = -1;
+		Account mostStolen = null;
+		for (Account account : accounts.values()) {
+			if (account.turnaround < 0) {
+				continue; //Still running (online mode only)
+			}
+			out.printf("%-20s %-11d %-10d %-6d %-13d %-12d %-15d %-10d %-12d %d%n", account.name, account.turnaround, account.executing, account.ready(),
+					account.blocked(COLD), account.blocked(OWN), account.blocked(STOLEN), account.suspended, account.framesLost, account.framesTaken);
+
+			if (account.finishTime >= lastFinish) {
+				last = account;
+				lastFinish = account.finishTime;
+			}
+			if (account.blocked(STOLEN) > 0 && (mostStolen == null || account.blocked(STOLEN) > mostStolen.blocked(STOLEN))) {
+				mostStolen = account;
+			}
+		}
+		if (last == null) {
+			return;
+		}
+
+		if (mostStolen != null) {
+			String thief = null;
+			for (Map.Entry<String, Integer> entry : mostStolen.lostTo.entrySet()) {
+				if (thief == null || entry.getValue() > mostStolen.lostTo.get(thief)) {
+					thief = entry.getKey();
+				}
+			}
+			out.println("Most time lost to stolen frames: " + mostStolen.name + " (" + mostStolen.blocked(STOLEN) + " time units blocked, "
+					+ mostStolen.lostTo.get(thief) + " of them on pages replaced by " + thief + ")");
+		}
+
+		List<Fault> faults = new ArrayList<Fault>(last.longest);
+		faults.sort((a, b) -> a.delay() != b.delay() ? Integer.compare(b.delay(), a.delay()) : Integer.compare(a.time, b.time));
+		out.println("Critical path: " + last.name + " finished last (turnaround " + last.turnaround + "), faults that delayed it most:");
+		out.printf("%-6s %-6s %-8s %-16s %-8s %-11s %-10s %s%n", "Time", "Page", "Cause", "Replaced By", "Blocked", "Ready Wait", "Suspended", "Delay");
+		for (Fault fault : faults) {
+			out.printf("%-6d %-6d %-8s %-16s %-8d %-11d %-10d %d%n", fault.time, fault.page, fault.cause, fault.thief == null ? "-" : fault.thief,
+					fault.unblockTime - fault.time, fault.dispatchTime - fault.unblockTime - fault.suspended, fault.suspended, fault.delay());
+		}
+	}
+}
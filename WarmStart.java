@@ -0,0 +1,133 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * Warm start - pages preloaded into main memory before a simulation starts, so short runs can be measured without the cold start faults
+ * of empty memory (--warm-start=SOURCE).
+ *
+ * The pages to preload (the resident set of each process) come from one of:
+ * 		first:N			the first N distinct pages of each process' trace
+ * 		FILE			a memory snapshot, e.g. one saved by a previous run with --save-memory=FILE
+ *
+ * A snapshot is a CSV file with a row for each resident page, oldest first:
+ * 		strategy,process,page
+ * 		Fixed-Local,Process1,3
+ * Rows are matched to processes by name. The strategy column is optional - rows without it are used by both strategies.
+ * --save-memory records the pages each process had in memory when it finished, in replacement order. A run saves the rows of its own
+ * strategy and keeps the other strategy's rows, so one file holds the final state of both simulations.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class WarmStart {
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"warm-start"};
+
+	/**
+	 * Finds the pages to preload for each process.
+	 *
+	 * Preconditions: source != null
+	 *
+	 * @param source - "first:N" or the path of a snapshot file
+	 * @param strategyName - the name of the page replacement strategy (e.g. "Fixed-Local Replacement"), selects the snapshot rows
+	 * @param processes - the processes of the simulation
+	 * @return process name -> pages to preload, oldest first
+	 *
+	 * @throws IOException if the snapshot can't be read
+	 * @throws IllegalArgumentException if a row of the snapshot or the number of pages is invalid
+	 */
+	public static Map<String, List<Integer>> plan(String source, String strategyName, List<Process> processes) throws IOException {
+		Map<String, List<Integer>> plan = new LinkedHashMap<String, List<Integer>>();
+
+		if (source.startsWith("first:")) {
+			int count = Integer.parseInt(source.substring(6).trim());
+			if (count < 0) {
+				throw new IllegalArgumentException("Invalid warm start \"" + source + "\", the number of pages can't be negative");
+			}
+			for (Process p : processes) {
+				PageSequence sequence = p.getPageSequence();
+				Set<Integer> distinct = new LinkedHashSet<Integer>();
+				for (int position = 0; position < sequence.size() && distinct.size() < count; position++) {
+					distinct.add(sequence.getPage(position));
+				}
+				plan.put(p.getName(), new ArrayList<Integer>(distinct));
+			}
+			return plan;
+		}
+
+		String strategy = shortName(strategyName);
+		for (String line : Files.readAllLines(new File(source).toPath())) {
+			String[] fields = line.trim().split("\\s*,\\s*");
+			if (line.trim().isEmpty() || fields[fields.length - 1].equals("page")) { //Blank line or header
+				continue;
+			}
+			if (fields.length < 2 || fields.length > 3) {
+				throw new IllegalArgumentException("Invalid snapshot row \"" + line + "\" in " + source + ", expected strategy,process,page or process,page");
+			}
+			if (fields.length == 3 && !fields[0].equals(strategy)) {
+				continue; //Saved by the other strategy
+			}
+			String name = fields[fields.length - 2];
+			if (!plan.containsKey(name)) {
+				plan.put(name, new ArrayList<Integer>());
+			}
+			plan.get(name).add(Integer.parseInt(fields[fields.length - 1]));
+		}
+		return plan;
+	}
+
+	/**
+	 * Saves the resident sets of a strategy to a snapshot file, keeping the rows of any other strategy already in the file.
+	 *
+	 * Postconditions: The file holds one row for each page in residentSets
+	 *
+	 * @param path - snapshot file
+	 * @param strategyName - the name of the page replacement strategy (e.g. "Fixed-Local Replacement")
+	 * @param residentSets - process name -> pages in memory when the process finished, oldest first
+	 *
+	 * @throws IOException if the file can't be read or written
+	 */
+	public static void save(String path, String strategyName, Map<String, List<Integer>> residentSets) throws IOException {
+		String strategy = shortName(strategyName);
+		File file = new File(path);
+		List<String> otherRows = new ArrayList<String>();
+		if (file.exists()) {
+			for (String line : Files.readAllLines(file.toPath())) {
+				String[] fields = line.split(",");
+				if (fields.length == 3 && !fields[0].equals("strategy") && !fields[0].equals(strategy)) {
+					otherRows.add(line);
+				}
+			}
+		}
+
+		try (PrintWriter out = new PrintWriter(file)) {
+			out.println("strategy,process,page");
+			for (String row : otherRows) {
+				out.println(row);
+			}
+			for (Map.Entry<String, List<Integer>> entry : residentSets.entrySet()) {
+				for (int page : entry.getValue()) {
+					out.println(strategy + "," + entry.getKey() + "," + page);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Strategy name used in snapshot files, e.g. "Fixed-Local" for "Fixed-Local Replacement".
+	 */
+	private static String shortName(String strategyName) {
+		return strategyName.replace(" Replacement", "");
+	}
+}
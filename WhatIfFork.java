@@ -0,0 +1,265 @@
+/*
+ * COMP2240 Assignment 3
+ *
+ * What-if branches (--what-if=TWEAKS) - answers questions like "what if Process1 had one more frame from time t?" without running the
+ * whole simulation again for every question.
+ *
+ * When the simulation first reaches --fork-at=T (default 0), between two dispatches like a checkpoint, its whole state is copied: the
+ * queues, frames, processes and their positions in their traces, and the statistics so far. Each tweak becomes a branch that starts from
+ * its own copy, applies the tweak and runs to the end on a worker thread (--what-if-threads, default one per processor), while the original
+ * simulation carries on. Every branch starts at T, so the prefix before T is only simulated once.
+ *
+ * Tweaks are separated by commas:
+ * 		NAME+K			process NAME gets K more frames from time T (K = 0 makes a control branch, which must match the original run)
+ * Fixed-local adds the frames to the process' segment. Variable-global doesn't allocate frames to processes, so there they join the pool
+ * every process uses.
+ *
+ * The copy is made by serialising the simulation into memory once with Java serialisation, and each branch reads
+ * its own copy back. The traces are never changed by a simulation, so they aren't copied - every branch shares the original's pages
+ * (a compressed trace gets its own cursor), only the state that changes as the simulation runs is copied.
+ * After the original's results a table compares each branch with it: finish time, faults, total turnaround and the tweaked process'
+ * turnaround. Can't be combined with --checkpoint.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class WhatIfFork {
+
+	/**
+	 * Options read by this class (see SimulationOptions).
+	 */
+	public static final String[] OPTIONS = {"what-if", "what-if-threads", "fork-at"};
+
+	private final int FORK_TIME;						//Simulation time the branches start from (--fork-at)
+	private final int THREADS;							//Worker threads running the branches
+	private final List<String> tweaks = new ArrayList<String>();	//Tweak of each branch as written, e.g. "Process1+1"
+	private final List<String> processNames = new ArrayList<String>();	//Process each tweak changes
+	private final List<Integer> extraFrames = new ArrayList<Integer>();	//Frames each tweak adds
+	private int forkedAt = -1;							//Time the branches were forked, -1 until then
+	private ExecutorService pool;						//Runs the branches, created when they are forked
+	private final List<Future<Scheduler>> branches = new ArrayList<Future<Scheduler>>();	//Finished branch simulations, in tweak order
+
+	/**
+	 * Reference to a trace of the original simulation, written into the copy in place of the trace itself.
+	 */
+	private static class SharedTrace implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final int index;						//Position in the list of shared traces
+
+		private SharedTrace(int index) {
+			this.index = index;
+		}
+	}
+
+	/**
+	 * Constructor for the WhatIfFork class.
+	 *
+	 * Preconditions: options.has("what-if")
+	 *
+	 * @param options - simulation options
+	 * @param processes - the processes of the simulation
+	 *
+	 * @throws IllegalArgumentException if a tweak is invalid or names an unknown process, or --checkpoint is used
+	 */
+	public WhatIfFork(SimulationOptions options, List<Process> processes) {
+		if (options.has("checkpoint")) {
+			throw new IllegalArgumentException("--what-if can't be combined with --checkpoint");
+		}
+		this.FORK_TIME = options.getInt("fork-at", 0);
+		this.THREADS = Math.max(1, options.getInt("what-if-threads", Runtime.getRuntime().availableProcessors()));
+		if (FORK_TIME < 0) {
+			throw new IllegalArgumentException("Option --fork-at can't be negative (" + FORK_TIME + " found)");
+		}
+
+		for (String tweak : options.getString("what-if", "").split(",")) {
+			tweak = tweak.trim();
+			int plus = tweak.lastIndexOf('+');
+			if (plus < 1) {
+				throw new IllegalArgumentException("Invalid what-if tweak \"" + tweak + "\", expected NAME+K (e.g. Process1+1)");
+			}
+			String name = tweak.substring(0, plus);
+			int frames = Integer.parseInt(tweak.substring(plus + 1).trim());
+			if (frames < 0) {
+				throw new IllegalArgumentException("Invalid what-if tweak \"" + tweak + "\", the number of frames can't be negative");
+			}
+			if (processes.stream().noneMatch(p -> p.getName().equals(name))) {
+				throw new IllegalArgumentException("Unknown process \"" + name + "\" in what-if tweak \"" + tweak + "\"");
+			}
+			tweaks.add(tweak);
+			processNames.add(name);
+			extraFrames.add(frames);
+		}
+	}
+
+	/**
+	 * Forks the branches if the simulation has reached the fork time and hasn't been forked yet.
+	 *
+	 * Preconditions: No process is part way through its time quantum
+	 * Postconditions: Once the fork time is reached, every branch has been started from a copy of the simulation
+	 *
+	 * @param scheduler - the original simulation
+	 * @param currentTime - current simulation time
+	 *
+	 * @throws UncheckedIOException if the simulation can't be copied
+	 */
+	public void forkIfDue(Scheduler scheduler, int currentTime) {
+		if (forkedAt >= 0 || currentTime < FORK_TIME) {
+			return;
+		}
+		forkedAt = currentTime;
+
+		List<PageSequence> traces = new ArrayList<PageSequence>();
+		byte[] snapshot;
+		try {
+			snapshot = snapshot(scheduler, traces);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to copy the simulation for the what-if branches", e);
+		}
+
+		pool = Executors.newFixedThreadPool(Math.min(THREADS, tweaks.size()), task -> {
+			Thread thread = new Thread(task, "what-if");
+			thread.setDaemon(true); //Never keeps the program running after the original simulation has failed
+			return thread;
+		});
+		for (int i = 0; i < tweaks.size(); i++) {
+			String name = processNames.get(i);
+			int frames = extraFrames.get(i);
+			branches.add(pool.submit(() -> runBranch(snapshot, traces, name, frames)));
+		}
+	}
+
+	/**
+	 * Serialises a simulation into memory. Traces are replaced with references to the list of shared traces.
+	 */
+	private static byte[] snapshot(Scheduler scheduler, List<PageSequence> traces) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes) {
+			{
+				enableReplaceObject(true);
+			}
+
+			@Override
+			protected Object replaceObject(Object obj) {
+				if (obj instanceof PageSequence) { //Each trace object is only replaced once, later references reuse the replacement
+					traces.add((PageSequence) obj);
+					return new SharedTrace(traces.size() - 1);
+				}
+				return obj;
+			}
+		}) {
+			out.writeObject(scheduler);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Restores a copy of the simulation, applies one tweak and runs the copy to the end. Runs on a worker thread.
+	 */
+	private static Scheduler runBranch(byte[] snapshot, List<PageSequence> traces, String name, int frames) throws IOException, ClassNotFoundException {
+		Scheduler branch;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(snapshot)) {
+			{
+				enableResolveObject(true);
+			}
+
+			@Override
+			protected Object resolveObject(Object obj) {
+				if (obj instanceof SharedTrace) {
+					PageSequence trace = traces.get(((SharedTrace) obj).index);
+					return trace instanceof CompressedPageSequence ? ((CompressedPageSequence) trace).copy() : trace; //A compressed trace has a cursor
+				}
+				return obj;
+			}
+		}) {
+			branch = (Scheduler) in.readObject();
+		}
+
+		branch.setEventTrace(null); //Only the original simulation is recorded
+		for (Process p : branch.getProcesses()) {
+			if (p.getName().equals(name)) {
+				branch.grantFrames(p, frames);
+				break;
+			}
+		}
+		branch.runSimulation(branch.getProcesses());
+		return branch;
+	}
+
+	/**
+	 * Waits for the branches to finish and prints how each one differs from the original simulation.
+	 *
+	 * Preconditions: The original simulation has finished
+	 * Postconditions: The comparison has been displayed to the console and the worker threads have stopped
+	 *
+	 * @param out - stream the comparison is printed to
+	 * @param original - the original simulation
+	 */
+	public void printReport(PrintStream out, Scheduler original) {
+		if (forkedAt < 0) {
+			out.println("What-if: the simulation finished before t=" + FORK_TIME + ", no branches were forked");
+			return;
+		}
+
+		List<Process> processes = original.getProcesses();
+		int faults = original.getTotalFaults(processes);
+		int turnaround = original.getTotalTurnaround(processes);
+		out.println("What-if branches forked at t=" + forkedAt + " (" + tweaks.size() + " branches, " + Math.min(THREADS, tweaks.size()) + " threads):");
+		out.printf("%-20s %-13s %-14s %-18s %s%n", "Branch", "Finish Time", "Faults", "Total Turnaround", "Tweaked Process Turnaround");
+		out.printf("%-20s %-13d %-14d %-18d %s%n", "(original)", original.getSimulationTime(), faults, turnaround, "-");
+
+		try {
+			for (int i = 0; i < branches.size(); i++) {
+				Scheduler branch;
+				try {
+					branch = branches.get(i).get();
+				} catch (ExecutionException e) {
+					out.printf("%-20s Error: %s%n", tweaks.get(i), e.getCause().getMessage());
+					continue;
+				}
+				Process before = find(processes, processNames.get(i));
+				Process after = find(branch.getProcesses(), processNames.get(i));
+				int branchFaults = branch.getTotalFaults(branch.getProcesses());
+				int branchTurnaround = branch.getTotalTurnaround(branch.getProcesses());
+				out.printf("%-20s %-13s %-14s %-18s %s%n", tweaks.get(i),
+						change(branch.getSimulationTime(), original.getSimulationTime()),
+						change(branchFaults, faults),
+						change(branchTurnaround, turnaround),
+						change(after.calcTurnaroundTime(), before.calcTurnaroundTime()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			out.println("What-if: interrupted while waiting for the branches");
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static Process find(List<Process> processes, String name) {
+		for (Process p : processes) {
+			if (p.getName().equals(name)) {
+				return p;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Formats a branch value with its difference from the original, e.g. "118 (-4)".
+	 */
+	private static String change(int value, int original) {
+		return value + " (" + (value - original >= 0 ? "+" : "") + (value - original) + ")";
+	}
+}